@@ -0,0 +1,57 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.benchmark;
+
+import java.util.List;
+
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+
+/**
+ * <p>
+ * Interface REST Api used by the benchmarks.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+@RequestMapping(value = "/items", produces = "application/json")
+public interface BenchmarkApi {
+
+	/**
+	 * Gets an item.
+	 *
+	 * @param id Item id
+	 * @param fields Fields to return
+	 * @param tenant Tenant
+	 * @return Item
+	 */
+	@RequestMapping(value = "/{id}", method = RequestMethod.GET)
+	public String getItem(@PathVariable("id") String id, @RequestParam("fields") List<String> fields, @RequestHeader("X-Tenant") String tenant);
+
+}
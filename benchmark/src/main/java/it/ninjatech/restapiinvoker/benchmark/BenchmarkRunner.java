@@ -0,0 +1,65 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>
+ * Runs the benchmarks with the GC profiler, so that the allocated bytes per
+ * operation are reported along with the throughput.<br>
+ * All the JMH command line options are supported.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public final class BenchmarkRunner {
+
+	/**
+	 * Main.
+	 *
+	 * @param args JMH command line options
+	 * @throws Exception If the run fails
+	 */
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder().parent(new CommandLineOptions(args))
+		                                      .addProfiler(GCProfiler.class)
+		                                      .build();
+
+		new Runner(options).run();
+	}
+
+	/**
+	 * Hidden constructor.
+	 */
+	private BenchmarkRunner() {
+	}
+
+}
@@ -0,0 +1,164 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.benchmark;
+
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import it.ninjatech.restapiinvoker.InvokerMethodInterceptor;
+import it.ninjatech.restapiinvoker.RestApiInvokerFactory;
+import it.ninjatech.restapiinvoker.client.DefaultHttpRestClient;
+import it.ninjatech.restapiinvoker.client.HttpRestClient;
+import it.ninjatech.restapiinvoker.invocationdata.InvocationData;
+import it.ninjatech.restapiinvoker.invocationdata.InvocationDataRetriever;
+
+/**
+ * <p>
+ * Benchmarks of the client-side path of an invocation, from the proxy down to
+ * the {@link HttpRestClient}, which is a {@link NoOpHttpRestClient}.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class InvokerBenchmark {
+
+	/** Base path. */
+	private static final String BASE_PATH = "http://localhost:8080/api";
+
+	/** Item id. */
+	private static final String ID = "item 42";
+
+	/** Fields. */
+	private static final List<String> FIELDS = Arrays.asList("name", "price");
+
+	/** Tenant. */
+	private static final String TENANT = "tenant-1";
+
+	/** Interface proxy. */
+	private BenchmarkApi interfaceProxy;
+
+	/** Class proxy. */
+	private BenchmarkClassApi classProxy;
+
+	/** Interceptor. */
+	private InvokerMethodInterceptor interceptor;
+
+	/** Method invocation. */
+	private MethodInvocation methodInvocation;
+
+	/** Invocation data. */
+	private InvocationData invocationData;
+
+	/**
+	 * Sets up the benchmark.
+	 *
+	 * @throws Exception If the method of the api is not found
+	 */
+	@Setup
+	public void setUp() throws Exception {
+		HttpRestClient httpRestClient = new NoOpHttpRestClient("result");
+		Method method = BenchmarkApi.class.getMethod("getItem", String.class, List.class, String.class);
+
+		this.interfaceProxy = RestApiInvokerFactory.makeRestApiInvoker(BenchmarkApi.class, httpRestClient, BASE_PATH);
+		this.classProxy = RestApiInvokerFactory.makeRestApiInvoker(BenchmarkClassApi.class, httpRestClient, BASE_PATH);
+		this.interceptor = new InvokerMethodInterceptor(httpRestClient, BASE_PATH);
+		this.methodInvocation = new SimpleMethodInvocation(method, new Object[] { ID, FIELDS, TENANT });
+		this.invocationData = InvocationDataRetriever.retrieve(BASE_PATH, this.methodInvocation);
+	}
+
+	/**
+	 * Call through the proxy of an interface.
+	 *
+	 * @return Result
+	 */
+	@Benchmark
+	public String interfaceProxy() {
+		return this.interfaceProxy.getItem(ID, FIELDS, TENANT);
+	}
+
+	/**
+	 * Call through the proxy of a class.
+	 *
+	 * @return Result
+	 */
+	@Benchmark
+	public String classProxy() {
+		return this.classProxy.getItem(ID, FIELDS, TENANT);
+	}
+
+	/**
+	 * Call of the interceptor.
+	 *
+	 * @return Result
+	 * @throws Throwable If the invocation fails
+	 */
+	@Benchmark
+	public Object interceptorInvoke() throws Throwable {
+		return this.interceptor.invoke(this.methodInvocation);
+	}
+
+	/**
+	 * Retrieval of the invocation data.
+	 *
+	 * @return Invocation data
+	 */
+	@Benchmark
+	public InvocationData retrieve() {
+		return InvocationDataRetriever.retrieve(BASE_PATH, this.methodInvocation);
+	}
+
+	/**
+	 * Build of the URI.
+	 *
+	 * @return URI
+	 */
+	@Benchmark
+	public URI buildUri() {
+		return DefaultHttpRestClient.buildUri(this.invocationData);
+	}
+
+}
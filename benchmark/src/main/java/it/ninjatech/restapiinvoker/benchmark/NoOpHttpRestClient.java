@@ -0,0 +1,64 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.benchmark;
+
+import it.ninjatech.restapiinvoker.client.HttpRestClient;
+import it.ninjatech.restapiinvoker.invocationdata.InvocationData;
+
+/**
+ * <p>
+ * Implementation of the {@link HttpRestClient} that performs no call, so that
+ * only the overhead of the library is measured.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public class NoOpHttpRestClient implements HttpRestClient {
+
+	/** Result returned by every call. */
+	private final Object result;
+
+	/**
+	 * Constructs a new NoOpHttpRestClient.
+	 *
+	 * @param result Result returned by every call
+	 */
+	public NoOpHttpRestClient(Object result) {
+		this.result = result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see it.ninjatech.restapiinvoker.client.HttpRestClient#exchange(it.ninjatech.
+	 * restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Object exchange(InvocationData invocationData) {
+		return this.result;
+	}
+
+}
@@ -0,0 +1,109 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.benchmark;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Method;
+
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * <p>
+ * Minimal {@link MethodInvocation} used to call the interceptor directly.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public class SimpleMethodInvocation implements MethodInvocation {
+
+	/** Method. */
+	private final Method method;
+
+	/** Arguments. */
+	private final Object[] arguments;
+
+	/**
+	 * Constructs a new SimpleMethodInvocation.
+	 *
+	 * @param method Method
+	 * @param arguments Arguments
+	 */
+	public SimpleMethodInvocation(Method method, Object[] arguments) {
+		this.method = method;
+		this.arguments = arguments;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.aopalliance.intercept.MethodInvocation#getMethod()
+	 */
+	@Override
+	public Method getMethod() {
+		return this.method;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.aopalliance.intercept.Invocation#getArguments()
+	 */
+	@Override
+	public Object[] getArguments() {
+		return this.arguments;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.aopalliance.intercept.Joinpoint#proceed()
+	 */
+	@Override
+	public Object proceed() throws Throwable {
+		throw new UnsupportedOperationException();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.aopalliance.intercept.Joinpoint#getThis()
+	 */
+	@Override
+	public Object getThis() {
+		return null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.aopalliance.intercept.Joinpoint#getStaticPart()
+	 */
+	@Override
+	public AccessibleObject getStaticPart() {
+		return this.method;
+	}
+
+}
@@ -23,17 +23,54 @@ SOFTWARE.
  */
 package it.ninjatech.restapiinvoker;
 
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClientResponseException;
 
+import it.ninjatech.restapiinvoker.annotation.Batchable;
+import it.ninjatech.restapiinvoker.client.AsyncHttpRestClient;
+import it.ninjatech.restapiinvoker.client.ExecutorAsyncHttpRestClient;
 import it.ninjatech.restapiinvoker.client.HttpRestClient;
+import it.ninjatech.restapiinvoker.client.ReactiveHttpRestClient;
+import it.ninjatech.restapiinvoker.client.StreamingHttpRestClient;
 import it.ninjatech.restapiinvoker.invocationdata.InvocationData;
 import it.ninjatech.restapiinvoker.invocationdata.InvocationDataRetriever;
+import it.ninjatech.restapiinvoker.invocationdata.InvocationMode;
+import it.ninjatech.restapiinvoker.invocationdata.InvocationPlan;
+import it.ninjatech.restapiinvoker.metrics.InvocationMetrics;
+import it.ninjatech.restapiinvoker.metrics.InvocationPhase;
+import it.ninjatech.restapiinvoker.metrics.InvocationSample;
 
 /**
  * <p>
  * Implementation of the {@link MethodInterceptor} used to intercept the calls
- * to the proxied methods.
+ * to the proxied methods.<br>
+ * The methods invoked in {@link InvocationMode#ASYNCHRONOUS} mode are
+ * performed by the {@link AsyncHttpRestClient} if the HTTP Rest Client is
+ * such, otherwise by the HTTP Rest Client on the asynchronous executor.<br>
+ * The methods invoked in {@link InvocationMode#MONO} and
+ * {@link InvocationMode#FLUX} modes are performed by the
+ * {@link ReactiveHttpRestClient} if the HTTP Rest Client is such, otherwise
+ * they are adapted from the asynchronous calls.<br>
+ * The elements of the methods invoked in {@link InvocationMode#STREAM},
+ * {@link InvocationMode#ITERATOR} and {@link InvocationMode#CONSUMER} modes are
+ * streamed by the {@link StreamingHttpRestClient} if the HTTP Rest Client is
+ * such.<br>
+ * The calls of the {@link Batchable} methods are collected and performed as
+ * asynchronous calls to their bulk method.<br>
+ * If an {@link InvocationMetrics} is provided, each call is measured by an
+ * {@link InvocationSample}, timing also its phases if requested, otherwise
+ * nothing is measured.
  * </p>
  *
  * @author Vincenzo Mazzeo
@@ -45,18 +82,68 @@ public class InvokerMethodInterceptor implements MethodInterceptor {
 	/** HTTP Rest Client. */
 	private final HttpRestClient httpRestClient;
 
+	/** Asynchronous HTTP Rest Client. */
+	private final AsyncHttpRestClient asyncHttpRestClient;
+
+	/** Executor of the asynchronous calls and of the batches. */
+	private final Executor asyncExecutor;
+
 	/** Base path. */
 	private final String basePath;
 
+	/** Batchers of the {@link Batchable} methods. */
+	private final Map<Method, MicroBatcher> microBatchers;
+
+	/** Metrics of the calls, null if not collected. */
+	private final InvocationMetrics invocationMetrics;
+
 	/**
-	 * Constructs a new InvokerMethodInterceptor.
+	 * Constructs a new InvokerMethodInterceptor.<br>
+	 * If the HTTP Rest Client doesn't support the {@link AsyncHttpRestClient}
+	 * capability, the asynchronous calls are performed on the
+	 * {@link ExecutorAsyncHttpRestClient#getDefaultExecutor() default executor}.
 	 *
 	 * @param httpRestClient HTTP Rest Client
 	 * @param basePath Base path
 	 */
 	public InvokerMethodInterceptor(HttpRestClient httpRestClient, String basePath) {
+		this(httpRestClient, basePath, ExecutorAsyncHttpRestClient.getDefaultExecutor());
+	}
+
+	/**
+	 * Constructs a new InvokerMethodInterceptor.
+	 *
+	 * @param httpRestClient HTTP Rest Client
+	 * @param basePath Base path
+	 * @param asyncExecutor Executor of the asynchronous calls, used if the HTTP
+	 *            Rest Client doesn't support the {@link AsyncHttpRestClient}
+	 *            capability, and of the batches of the {@link Batchable}
+	 *            methods
+	 */
+	public InvokerMethodInterceptor(HttpRestClient httpRestClient, String basePath, Executor asyncExecutor) {
+		this(httpRestClient, basePath, asyncExecutor, null);
+	}
+
+	/**
+	 * Constructs a new InvokerMethodInterceptor collecting the metrics of the
+	 * calls.
+	 *
+	 * @param httpRestClient HTTP Rest Client
+	 * @param basePath Base path
+	 * @param asyncExecutor Executor of the asynchronous calls, used if the HTTP
+	 *            Rest Client doesn't support the {@link AsyncHttpRestClient}
+	 *            capability, and of the batches of the {@link Batchable}
+	 *            methods
+	 * @param invocationMetrics Metrics of the calls, null to not collect them
+	 */
+	public InvokerMethodInterceptor(HttpRestClient httpRestClient, String basePath, Executor asyncExecutor, InvocationMetrics invocationMetrics) {
 		this.httpRestClient = httpRestClient;
+		this.asyncHttpRestClient = httpRestClient.supports(AsyncHttpRestClient.class) ? (AsyncHttpRestClient) httpRestClient
+		                                                                              : new ExecutorAsyncHttpRestClient(httpRestClient, asyncExecutor);
+		this.asyncExecutor = asyncExecutor;
 		this.basePath = basePath;
+		this.microBatchers = new ConcurrentHashMap<>();
+		this.invocationMetrics = invocationMetrics;
 	}
 
 	/*
@@ -68,9 +155,246 @@ public class InvokerMethodInterceptor implements MethodInterceptor {
 	 */
 	@Override
 	public Object invoke(MethodInvocation methodInvocation) throws Throwable {
-		InvocationData invocationData = InvocationDataRetriever.retrieve(this.basePath, methodInvocation);
+		Object result;
+
+		if (this.invocationMetrics == null) {
+			InvocationPlan invocationPlan = InvocationDataRetriever.getInvocationPlan(methodInvocation.getMethod());
+			result = invoke(invocationPlan, methodInvocation.getArguments(), null);
+		}
+		else {
+			long invocationTime = System.nanoTime();
+			InvocationPlan invocationPlan = InvocationDataRetriever.getInvocationPlan(methodInvocation.getMethod());
+			result = invokeMeasured(invocationPlan, methodInvocation.getArguments(), invocationTime);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Performs the call of a method whose {@link InvocationPlan} has been
+	 * retrieved beforehand, as the invokers generated by the
+	 * {@link it.ninjatech.restapiinvoker.processor.RestApiInvokerProcessor}
+	 * do.
+	 *
+	 * @param invocationPlan Invocation plan of the method
+	 * @param arguments Arguments of the call
+	 * @return Result of the call
+	 */
+	public Object invoke(InvocationPlan invocationPlan, Object[] arguments) {
+		return this.invocationMetrics == null ? invoke(invocationPlan, arguments, null) : invokeMeasured(invocationPlan, arguments, System.nanoTime());
+	}
+
+	/**
+	 * Performs the call of a proxied method.
+	 *
+	 * @param invocationPlan Invocation plan of the method
+	 * @param arguments Arguments of the call
+	 * @param invocationSample Sample of the call, null if not measured
+	 * @return Result of the call
+	 */
+	private Object invoke(InvocationPlan invocationPlan, Object[] arguments, InvocationSample invocationSample) {
+		Object result = null;
+
+		if (invocationPlan.getBatchMethod() != null) {
+			result = invokeBatched(invocationPlan, arguments[0]);
+		}
+		else {
+			result = exchange(invocationPlan, arguments, retrieve(invocationPlan, arguments, invocationSample));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Retrieves the data to execute the call of a proxied method.
+	 *
+	 * @param invocationPlan Invocation plan of the method
+	 * @param arguments Arguments of the call
+	 * @param invocationSample Sample of the call, null if not measured
+	 * @return Data to execute the call
+	 */
+	private InvocationData retrieve(InvocationPlan invocationPlan, Object[] arguments, InvocationSample invocationSample) {
+		InvocationData result = InvocationDataRetriever.retrieve(this.basePath, invocationPlan, arguments, invocationSample);
+
+		if (invocationSample != null) {
+			invocationSample.endPhase(InvocationPhase.RETRIEVE);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Performs the call of a proxied method, in its invocation mode.
+	 *
+	 * @param invocationPlan Invocation plan of the method
+	 * @param arguments Arguments of the call
+	 * @param invocationData Data to execute the call
+	 * @return Result of the call
+	 */
+	@SuppressWarnings("unchecked")
+	private Object exchange(InvocationPlan invocationPlan, Object[] arguments, InvocationData invocationData) {
+		Object result = null;
+
+		switch (invocationPlan.getInvocationMode()) {
+			case ASYNCHRONOUS:
+				result = this.asyncHttpRestClient.exchangeAsync(invocationData);
+				break;
+			case MONO:
+				result = ReactiveInvocations.exchangeMono(this.httpRestClient, this.asyncHttpRestClient, invocationData);
+				break;
+			case FLUX:
+				result = ReactiveInvocations.exchangeFlux(this.httpRestClient, this.asyncHttpRestClient, invocationData);
+				break;
+			case STREAM:
+				result = StreamingInvocations.exchangeStream(this.httpRestClient, invocationData);
+				break;
+			case ITERATOR:
+				result = StreamingInvocations.exchangeIterator(this.httpRestClient, invocationData);
+				break;
+			case CONSUMER:
+				StreamingInvocations.exchangeConsumer(this.httpRestClient, invocationData, (Consumer<Object>) arguments[invocationPlan.getElementConsumerIndex()]);
+				break;
+			default:
+				result = invocationData.getInvocationSample() == null ? this.httpRestClient.exchange(invocationData) : exchangeMeasured(invocationData);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Performs the call of a proxied method measuring it.<br>
+	 * The asynchronous and reactive calls are measured until their result is
+	 * completed, the reactive ones from their subscription: each subscription
+	 * performs its own call, measured by its own sample, the first one by the
+	 * sample of the invocation.
+	 *
+	 * @param invocationPlan Invocation plan of the method
+	 * @param arguments Arguments of the call
+	 * @param invocationTime Time of the invocation, before the lookup of the
+	 *            invocation plan
+	 * @return Result of the call
+	 */
+	private Object invokeMeasured(InvocationPlan invocationPlan, Object[] arguments, long invocationTime) {
+		Object result;
+
+		InvocationSample invocationSample = makeSample(invocationPlan);
+		invocationSample.startPhase(InvocationPhase.RETRIEVE, invocationTime);
+		if (invocationPlan.getInvocationMode() == InvocationMode.MONO || invocationPlan.getInvocationMode() == InvocationMode.FLUX) {
+			InvocationData invocationData = retrieve(invocationPlan, arguments, invocationSample);
+			AtomicBoolean subscribed = new AtomicBoolean();
+			result = ReactiveInvocations.measure(invocationPlan.getInvocationMode(),
+			                                     () -> subscribed.compareAndSet(false, true) ? invocationSample : makeSample(invocationPlan),
+			                                     s -> exchange(invocationPlan, arguments, invocationData.withInvocationSample(s)),
+			                                     this::startSample,
+			                                     this::endSample);
+		}
+		else {
+			startSample(invocationSample);
+			try {
+				result = invoke(invocationPlan, arguments, invocationSample);
+			}
+			catch (RuntimeException | Error e) {
+				endSample(invocationSample, e);
+				throw e;
+			}
+			if (result instanceof CompletableFuture) {
+				((CompletableFuture<?>) result).whenComplete((r, e) -> endSample(invocationSample, e instanceof CompletionException ? e.getCause() : e));
+			}
+			else {
+				endSample(invocationSample, null);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Makes the sample of a call, timing its phases if needed by the
+	 * {@link InvocationMetrics}.
+	 *
+	 * @param invocationPlan Invocation plan of the method
+	 * @return Sample of the call
+	 */
+	private InvocationSample makeSample(InvocationPlan invocationPlan) {
+		InvocationSample result = new InvocationSample(invocationPlan);
+
+		if (this.invocationMetrics.isTimingPhases(result)) {
+			result.timePhases();
+		}
+
+		return result;
+	}
+
+	/**
+	 * Performs a synchronous call recording its HTTP status.
+	 *
+	 * @param invocationData Data to execute the call
+	 * @return Result of the call
+	 */
+	private Object exchangeMeasured(InvocationData invocationData) {
+		ResponseEntity<?> responseEntity = this.httpRestClient.exchangeForEntity(invocationData);
+		invocationData.getInvocationSample().setStatus(responseEntity.getStatusCodeValue());
+
+		return invocationData.isResponseEntity() ? responseEntity : responseEntity.getBody();
+	}
+
+	/**
+	 * Starts the sample of a call.
+	 *
+	 * @param invocationSample Sample of the call
+	 */
+	private void startSample(InvocationSample invocationSample) {
+		invocationSample.start();
+		this.invocationMetrics.callStarted(invocationSample);
+	}
+
+	/**
+	 * Ends the sample of a call, recording the HTTP status of the error
+	 * responses.
+	 *
+	 * @param invocationSample Sample of the call
+	 * @param error Error of the call, null if successful
+	 */
+	private void endSample(InvocationSample invocationSample, Throwable error) {
+		if (error instanceof RestClientResponseException) {
+			invocationSample.setStatus(((RestClientResponseException) error).getRawStatusCode());
+		}
+		invocationSample.end(error);
+		this.invocationMetrics.callEnded(invocationSample);
+	}
+
+	/**
+	 * Submits the call of a {@link Batchable} method to its batcher.
+	 *
+	 * @param invocationPlan Invocation plan of the method
+	 * @param key Key of the item
+	 * @return Result of the call
+	 */
+	private Object invokeBatched(InvocationPlan invocationPlan, Object key) {
+		MicroBatcher microBatcher = this.microBatchers.get(invocationPlan.getMethod());
+		if (microBatcher == null) {
+			microBatcher = this.microBatchers.computeIfAbsent(invocationPlan.getMethod(), m -> makeMicroBatcher(invocationPlan));
+		}
+
+		CompletableFuture<Object> result = microBatcher.submit(key);
+
+		return invocationPlan.getInvocationMode() == InvocationMode.ASYNCHRONOUS ? result : MicroBatcher.await(result);
+	}
+
+	/**
+	 * Makes the batcher of a {@link Batchable} method, performing the calls to
+	 * the bulk method asynchronously.
+	 *
+	 * @param invocationPlan Invocation plan of the method
+	 * @return Batcher
+	 */
+	private MicroBatcher makeMicroBatcher(InvocationPlan invocationPlan) {
+		InvocationPlan bulkInvocationPlan = InvocationDataRetriever.getInvocationPlan(invocationPlan.getBatchMethod());
 
-		return this.httpRestClient.exchange(invocationData);
+		return new MicroBatcher(invocationPlan.getMethod(), k -> {
+			InvocationData invocationData = InvocationDataRetriever.retrieve(this.basePath, bulkInvocationPlan, new Object[] { k });
+			return this.asyncHttpRestClient.exchangeAsync(invocationData);
+		}, this.asyncExecutor);
 	}
 
 }
@@ -0,0 +1,322 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.beans.PropertyAccessor;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.http.ResponseEntity;
+
+import it.ninjatech.restapiinvoker.annotation.Batchable;
+
+/**
+ * <p>
+ * Collects the concurrent calls of a {@link Batchable} method and performs
+ * them as a single call to the bulk method, demultiplexing its response to the
+ * callers.<br>
+ * The windows of the batches of all the batchers are ended by a shared
+ * scheduler, which only hands the call to the bulk method over to the
+ * executor of the batcher, so that a slow call doesn't delay the other
+ * batches. The full batches are called by the thread filling them.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+final class MicroBatcher {
+
+	/** Scheduler of the windows of the batches. */
+	private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread result = new Thread(r, "rest-api-invoker-batcher");
+		result.setDaemon(true);
+		return result;
+	});
+
+	/** Batchable method. */
+	private final Method method;
+
+	/** Maximum number of distinct keys of a batch. */
+	private final int maxSize;
+
+	/** Window, in milliseconds. */
+	private final long window;
+
+	/** Key property of the items, empty to match them by position. */
+	private final String keyProperty;
+
+	/** Performs the call to the bulk method with the keys of a batch. */
+	private final Function<List<Object>, CompletableFuture<Object>> bulkExchange;
+
+	/** Executor of the calls to the bulk method at the end of the windows. */
+	private final Executor executor;
+
+	/** Lock guarding the current batch. */
+	private final Object lock;
+
+	/** Batch collecting the calls, null if none. */
+	private Batch batch;
+
+	/**
+	 * Constructs a new MicroBatcher.
+	 *
+	 * @param method {@link Batchable} method
+	 * @param bulkExchange Performs the call to the bulk method with the keys of
+	 *            a batch
+	 * @param executor Executor of the calls to the bulk method at the end of
+	 *            the windows
+	 */
+	MicroBatcher(Method method, Function<List<Object>, CompletableFuture<Object>> bulkExchange, Executor executor) {
+		Batchable batchable = method.getAnnotation(Batchable.class);
+
+		this.method = method;
+		this.maxSize = batchable.maxSize();
+		this.window = batchable.window();
+		this.keyProperty = batchable.key();
+		this.bulkExchange = bulkExchange;
+		this.executor = executor;
+		this.lock = new Object();
+	}
+
+	/**
+	 * Waits for the result of a call, rethrowing its exception.
+	 *
+	 * @param call Call
+	 * @return Result of the call
+	 */
+	static Object await(CompletableFuture<Object> call) {
+		try {
+			return call.join();
+		}
+		catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Submits a call to the current batch.
+	 *
+	 * @param key Key of the item
+	 * @return Result of the call
+	 */
+	CompletableFuture<Object> submit(Object key) {
+		CompletableFuture<Object> result = new CompletableFuture<>();
+
+		Batch fullBatch = null;
+		synchronized (this.lock) {
+			if (this.batch == null) {
+				Batch batch = new Batch();
+				batch.window = SCHEDULER.schedule(() -> flush(batch), this.window, TimeUnit.MILLISECONDS);
+				this.batch = batch;
+			}
+			this.batch.calls.computeIfAbsent(key, k -> new ArrayList<>(1)).add(result);
+			if (this.batch.calls.size() >= this.maxSize) {
+				fullBatch = this.batch;
+				this.batch = null;
+			}
+		}
+		if (fullBatch != null) {
+			fullBatch.window.cancel(false);
+			exchange(fullBatch);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Flushes the batch at the end of its window, unless already flushed
+	 * because full, performing its call on the executor.
+	 *
+	 * @param batch Batch
+	 */
+	private void flush(Batch batch) {
+		synchronized (this.lock) {
+			if (this.batch != batch) {
+				return;
+			}
+			this.batch = null;
+		}
+		try {
+			this.executor.execute(() -> exchange(batch));
+		}
+		catch (RejectedExecutionException e) {
+			batch.calls.values().forEach(c -> c.forEach(f -> f.completeExceptionally(e)));
+		}
+	}
+
+	/**
+	 * Performs the call to the bulk method and completes the calls of the
+	 * batch.
+	 *
+	 * @param batch Batch
+	 */
+	private void exchange(Batch batch) {
+		CompletableFuture<Object> bulkCall;
+		try {
+			bulkCall = this.bulkExchange.apply(new ArrayList<>(batch.calls.keySet()));
+		}
+		catch (RuntimeException | Error e) {
+			bulkCall = new CompletableFuture<>();
+			bulkCall.completeExceptionally(e);
+		}
+		bulkCall.whenComplete((r, e) -> {
+			Map<String, Object> items = null;
+			Throwable error = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+			if (error == null) {
+				try {
+					items = getItems(r, batch.calls.keySet());
+				}
+				catch (RuntimeException x) {
+					error = x;
+				}
+			}
+			for (Entry<Object, List<CompletableFuture<Object>>> call : batch.calls.entrySet()) {
+				Object item = items != null ? items.get(String.valueOf(call.getKey())) : null;
+				for (CompletableFuture<Object> caller : call.getValue()) {
+					if (error != null) {
+						caller.completeExceptionally(error);
+					}
+					else {
+						caller.complete(item);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Gets the items of the bulk response by key.
+	 *
+	 * @param response Bulk response
+	 * @param keys Keys of the batch
+	 * @return Items by key
+	 */
+	private Map<String, Object> getItems(Object response, Iterable<Object> keys) {
+		Map<String, Object> result = new HashMap<>();
+
+		Object body = response instanceof ResponseEntity ? ((ResponseEntity<?>) response).getBody() : response;
+		if (body instanceof Map) {
+			((Map<?, ?>) body).forEach((k, v) -> result.put(String.valueOf(k), v));
+		}
+		else if (body instanceof Iterable || (body != null && body.getClass().isArray())) {
+			List<Object> items = new ArrayList<>();
+			if (body instanceof Iterable) {
+				((Iterable<?>) body).forEach(items::add);
+			}
+			else {
+				for (int i = 0, n = Array.getLength(body); i < n; i++) {
+					items.add(Array.get(body, i));
+				}
+			}
+			if (this.keyProperty.isEmpty()) {
+				Iterator<Object> keyIterator = keys.iterator();
+				for (Iterator<Object> itemIterator = items.iterator(); keyIterator.hasNext() && itemIterator.hasNext();) {
+					result.put(String.valueOf(keyIterator.next()), itemIterator.next());
+				}
+			}
+			else {
+				for (Object item : items) {
+					if (item != null) {
+						result.put(String.valueOf(getKey(item)), item);
+					}
+				}
+			}
+		}
+		else if (body != null) {
+			throw new RuntimeException(String.format("Unsupported response type %s of the bulk method of %s.%s",
+			                                         body.getClass().getName(),
+			                                         this.method.getDeclaringClass().getName(),
+			                                         this.method.getName()));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Gets the key of an item.
+	 *
+	 * @param item Item
+	 * @return Key
+	 */
+	private Object getKey(Object item) {
+		Object result;
+
+		if (item instanceof Map) {
+			result = ((Map<?, ?>) item).get(this.keyProperty);
+		}
+		else {
+			PropertyAccessor propertyAccessor = PropertyAccessorFactory.forBeanPropertyAccess(item);
+			if (!propertyAccessor.isReadableProperty(this.keyProperty)) {
+				propertyAccessor = PropertyAccessorFactory.forDirectFieldAccess(item);
+			}
+			result = propertyAccessor.getPropertyValue(this.keyProperty);
+		}
+
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Calls collected in a window.
+	 * </p>
+	 *
+	 * @author Vincenzo Mazzeo
+	 * @version 1.0
+	 * @since 1.1.0
+	 */
+	private static final class Batch {
+
+		/** Callers by key. */
+		private final Map<Object, List<CompletableFuture<Object>>> calls = new LinkedHashMap<>();
+
+		/** Scheduled end of the window. */
+		private ScheduledFuture<?> window;
+
+	}
+
+}
@@ -0,0 +1,177 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import it.ninjatech.restapiinvoker.client.AsyncHttpRestClient;
+import it.ninjatech.restapiinvoker.client.HttpRestClient;
+import it.ninjatech.restapiinvoker.client.ReactiveHttpRestClient;
+import it.ninjatech.restapiinvoker.invocationdata.InvocationData;
+import it.ninjatech.restapiinvoker.invocationdata.InvocationMode;
+import it.ninjatech.restapiinvoker.metrics.InvocationSample;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * <p>
+ * Utility class used to perform the calls of the proxied methods invoked in
+ * {@link InvocationMode#MONO} and {@link InvocationMode#FLUX} modes.<br>
+ * The calls are delegated to the {@link ReactiveHttpRestClient} if the HTTP
+ * Rest Client supports it, otherwise the result of the
+ * {@link AsyncHttpRestClient} is adapted.<br>
+ * The class is loaded only for such modes, so Reactor is needed only if they
+ * are used.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+final class ReactiveInvocations {
+
+	/**
+	 * Performs the call returning a {@link Mono}.
+	 *
+	 * @param httpRestClient HTTP Rest Client
+	 * @param asyncHttpRestClient Asynchronous HTTP Rest Client
+	 * @param invocationData Data to execute the call
+	 * @return {@link Mono} emitting the result of the call
+	 */
+	static Object exchangeMono(HttpRestClient httpRestClient, AsyncHttpRestClient asyncHttpRestClient, InvocationData invocationData) {
+		Mono<Object> result;
+
+		if (httpRestClient.supports(ReactiveHttpRestClient.class)) {
+			result = ((ReactiveHttpRestClient) httpRestClient).exchangeMono(invocationData);
+		}
+		else {
+			result = Mono.fromFuture(() -> asyncHttpRestClient.exchangeAsync(invocationData));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Performs the call returning a {@link Flux}.
+	 *
+	 * @param httpRestClient HTTP Rest Client
+	 * @param asyncHttpRestClient Asynchronous HTTP Rest Client
+	 * @param invocationData Data to execute the call
+	 * @return {@link Flux} emitting the elements of the result of the call
+	 */
+	static Object exchangeFlux(HttpRestClient httpRestClient, AsyncHttpRestClient asyncHttpRestClient, InvocationData invocationData) {
+		Flux<Object> result;
+
+		if (httpRestClient.supports(ReactiveHttpRestClient.class)) {
+			result = ((ReactiveHttpRestClient) httpRestClient).exchangeFlux(invocationData);
+		}
+		else {
+			result = Mono.fromFuture(() -> asyncHttpRestClient.exchangeAsync(invocationData)).flatMapMany(ReactiveInvocations::toFlux);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Measures the calls performed at the subscriptions of a {@link Mono} or a
+	 * {@link Flux}, each of them with its own sample.
+	 *
+	 * @param invocationMode {@link InvocationMode#MONO} or
+	 *            {@link InvocationMode#FLUX}
+	 * @param sampleFactory Makes the sample of a subscription
+	 * @param call Performs the call measured by a sample, returning the
+	 *            {@link Mono} or the {@link Flux}
+	 * @param onStart Called at the subscription with its sample
+	 * @param onEnd Called at the termination or the cancellation with the
+	 *            sample and the error, unwrapped from the
+	 *            {@link CompletionException} of the adapted asynchronous
+	 *            calls, null if none
+	 * @return Measured {@link Mono} or {@link Flux}
+	 */
+	static Object measure(InvocationMode invocationMode,
+	                      Supplier<InvocationSample> sampleFactory,
+	                      Function<InvocationSample, Object> call,
+	                      Consumer<InvocationSample> onStart,
+	                      BiConsumer<InvocationSample, Throwable> onEnd) {
+		Object result;
+
+		if (invocationMode == InvocationMode.MONO) {
+			result = Mono.defer(() -> {
+				InvocationSample invocationSample = sampleFactory.get();
+				AtomicReference<Throwable> error = new AtomicReference<>();
+
+				return ((Mono<?>) call.apply(invocationSample)).doOnSubscribe(s -> onStart.accept(invocationSample))
+				                                               .doOnError(e -> error.set(e instanceof CompletionException ? e.getCause() : e))
+				                                               .doFinally(s -> onEnd.accept(invocationSample, error.get()));
+			});
+		}
+		else {
+			result = Flux.defer(() -> {
+				InvocationSample invocationSample = sampleFactory.get();
+				AtomicReference<Throwable> error = new AtomicReference<>();
+
+				return ((Flux<?>) call.apply(invocationSample)).doOnSubscribe(s -> onStart.accept(invocationSample))
+				                                               .doOnError(e -> error.set(e instanceof CompletionException ? e.getCause() : e))
+				                                               .doFinally(s -> onEnd.accept(invocationSample, error.get()));
+			});
+		}
+
+		return result;
+	}
+
+	/**
+	 * Converts the result of a call to a {@link Flux} of its elements.
+	 *
+	 * @param result Result
+	 * @return {@link Flux}
+	 */
+	private static Flux<Object> toFlux(Object result) {
+		Flux<Object> flux;
+
+		if (result instanceof Iterable) {
+			flux = Flux.fromIterable(((Iterable<?>) result)).cast(Object.class);
+		}
+		else if (result instanceof Object[]) {
+			flux = Flux.fromIterable(Arrays.asList((Object[]) result));
+		}
+		else {
+			flux = Flux.just(result);
+		}
+
+		return flux;
+	}
+
+	/**
+	 * Hidden constructor.
+	 */
+	private ReactiveInvocations() {
+	}
+
+}
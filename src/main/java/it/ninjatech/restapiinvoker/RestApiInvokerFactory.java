@@ -23,13 +23,29 @@ SOFTWARE.
  */
 package it.ninjatech.restapiinvoker;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.Executor;
+
 import org.springframework.aop.framework.ProxyFactory;
 
+import it.ninjatech.restapiinvoker.annotation.GenerateInvoker;
+import it.ninjatech.restapiinvoker.client.AsyncHttpRestClient;
+import it.ninjatech.restapiinvoker.client.ExecutorAsyncHttpRestClient;
 import it.ninjatech.restapiinvoker.client.HttpRestClient;
+import it.ninjatech.restapiinvoker.client.LoadBalancingHttpRestClient;
+import it.ninjatech.restapiinvoker.client.RateLimiter;
+import it.ninjatech.restapiinvoker.client.RateLimitingHttpRestClient;
+import it.ninjatech.restapiinvoker.metrics.InvocationMetrics;
+import it.ninjatech.restapiinvoker.processor.RestApiInvokerProcessor;
 
 /**
  * <p>
- * Factory of the Invokers.
+ * Factory of the Invokers.<br>
+ * The Invokers of the REST Api interfaces annotated with
+ * {@link GenerateInvoker}, generated at compile time by the
+ * {@link RestApiInvokerProcessor}, are preferred to the Spring proxies, their
+ * methods calling directly the {@link InvokerMethodInterceptor}.
  * </p>
  *
  * @author Vincenzo Mazzeo
@@ -38,6 +54,87 @@ import it.ninjatech.restapiinvoker.client.HttpRestClient;
  */
 public final class RestApiInvokerFactory {
 
+	/**
+	 * Makes a new Invoker creating a Spring proxy around the provided REST Api
+	 * class. The proxy intercepts all the calls to the methods of the class,
+	 * retrieving the data of the call and performing it using the provided
+	 * {@link HttpRestClient}.<br>
+	 * If the HTTP Rest Client doesn't support the {@link AsyncHttpRestClient}
+	 * capability, the asynchronous calls are performed on the
+	 * {@link ExecutorAsyncHttpRestClient#getDefaultExecutor() default executor}.
+	 *
+	 * @param <T> Type of the REST Api class
+	 * @param restApi REST Api class
+	 * @param httpRestClient HTTP Rest Client
+	 * @param basePath Base path of the REST Api's
+	 * @return The built proxy
+	 */
+	public static <T> T makeRestApiInvoker(Class<T> restApi, HttpRestClient httpRestClient, String basePath) {
+		return makeRestApiInvoker(restApi, httpRestClient, basePath, ExecutorAsyncHttpRestClient.getDefaultExecutor());
+	}
+
+	/**
+	 * Makes a new Invoker creating a Spring proxy around the provided REST Api
+	 * class, balancing its calls among the replicas of the REST service with a
+	 * {@link LoadBalancingHttpRestClient} decorating the provided
+	 * {@link HttpRestClient}.<br>
+	 * If the HTTP Rest Client doesn't support the {@link AsyncHttpRestClient}
+	 * capability, the asynchronous calls are performed on the
+	 * {@link ExecutorAsyncHttpRestClient#getDefaultExecutor() default executor}.
+	 *
+	 * @param <T> Type of the REST Api class
+	 * @param restApi REST Api class
+	 * @param httpRestClient HTTP Rest Client
+	 * @param basePaths Base paths of the replicas of the REST Api's
+	 * @return The built proxy
+	 */
+	public static <T> T makeRestApiInvoker(Class<T> restApi, HttpRestClient httpRestClient, Collection<String> basePaths) {
+		return makeRestApiInvoker(restApi, httpRestClient, basePaths, ExecutorAsyncHttpRestClient.getDefaultExecutor(), null);
+	}
+
+	/**
+	 * Makes a new Invoker creating a Spring proxy around the provided REST Api
+	 * class, balancing its calls among the replicas of the REST service with a
+	 * {@link LoadBalancingHttpRestClient} decorating the provided
+	 * {@link HttpRestClient}, and collects the metrics of the calls.
+	 *
+	 * @param <T> Type of the REST Api class
+	 * @param restApi REST Api class
+	 * @param httpRestClient HTTP Rest Client
+	 * @param basePaths Base paths of the replicas of the REST Api's
+	 * @param asyncExecutor Executor of the asynchronous calls, used if the HTTP
+	 *            Rest Client doesn't support the {@link AsyncHttpRestClient}
+	 *            capability
+	 * @param invocationMetrics Metrics of the calls, null to not collect them
+	 * @return The built proxy
+	 */
+	public static <T> T makeRestApiInvoker(Class<T> restApi, HttpRestClient httpRestClient, Collection<String> basePaths, Executor asyncExecutor, InvocationMetrics invocationMetrics) {
+		return makeRestApiInvoker(restApi, new LoadBalancingHttpRestClient(httpRestClient, basePaths), basePaths.iterator().next(), asyncExecutor, invocationMetrics);
+	}
+
+	/**
+	 * Makes a new Invoker creating a Spring proxy around the provided REST Api
+	 * class, limiting the rate of its calls with a
+	 * {@link RateLimitingHttpRestClient} decorating the provided
+	 * {@link HttpRestClient}.<br>
+	 * All the calls to the base path take a permit of the provided
+	 * {@link RateLimiter}, which can be shared by the Invokers of the same REST
+	 * service. The asynchronous calls are performed on the
+	 * {@link ExecutorAsyncHttpRestClient#getDefaultExecutor() default executor}
+	 * if the HTTP Rest Client doesn't support the {@link AsyncHttpRestClient}
+	 * capability.
+	 *
+	 * @param <T> Type of the REST Api class
+	 * @param restApi REST Api class
+	 * @param httpRestClient HTTP Rest Client
+	 * @param basePath Base path of the REST Api's
+	 * @param rateLimiter Rate limiter of the base path
+	 * @return The built proxy
+	 */
+	public static <T> T makeRestApiInvoker(Class<T> restApi, HttpRestClient httpRestClient, String basePath, RateLimiter rateLimiter) {
+		return makeRestApiInvoker(restApi, new RateLimitingHttpRestClient(httpRestClient, Collections.singletonMap(basePath, rateLimiter)), basePath);
+	}
+
 	/**
 	 * Makes a new Invoker creating a Spring proxy around the provided REST Api
 	 * class. The proxy intercepts all the calls to the methods of the class,
@@ -48,26 +145,84 @@ public final class RestApiInvokerFactory {
 	 * @param restApi REST Api class
 	 * @param httpRestClient HTTP Rest Client
 	 * @param basePath Base path of the REST Api's
+	 * @param asyncExecutor Executor of the asynchronous calls, used if the HTTP
+	 *            Rest Client doesn't support the {@link AsyncHttpRestClient}
+	 *            capability
+	 * @return The built proxy
+	 */
+	public static <T> T makeRestApiInvoker(Class<T> restApi, HttpRestClient httpRestClient, String basePath, Executor asyncExecutor) {
+		return makeRestApiInvoker(restApi, httpRestClient, basePath, asyncExecutor, null);
+	}
+
+	/**
+	 * Makes a new Invoker creating a Spring proxy around the provided REST Api
+	 * class. The proxy intercepts all the calls to the methods of the class,
+	 * retrieving the data of the call and performing it using the provided
+	 * {@link HttpRestClient}, and collects the metrics of the calls.
+	 *
+	 * @param <T> Type of the REST Api class
+	 * @param restApi REST Api class
+	 * @param httpRestClient HTTP Rest Client
+	 * @param basePath Base path of the REST Api's
+	 * @param asyncExecutor Executor of the asynchronous calls, used if the HTTP
+	 *            Rest Client doesn't support the {@link AsyncHttpRestClient}
+	 *            capability
+	 * @param invocationMetrics Metrics of the calls, null to not collect them
 	 * @return The built proxy
 	 */
 	@SuppressWarnings("unchecked")
-	public static <T> T makeRestApiInvoker(Class<T> restApi, HttpRestClient httpRestClient, String basePath) {
+	public static <T> T makeRestApiInvoker(Class<T> restApi, HttpRestClient httpRestClient, String basePath, Executor asyncExecutor, InvocationMetrics invocationMetrics) {
 		T result = null;
 
 		try {
-			InvokerMethodInterceptor invokerMethodInterceptor = new InvokerMethodInterceptor(httpRestClient, basePath);
-			ProxyFactory proxyFactory = restApi.isInterface() ? new ProxyFactory(new Class[] { restApi })
-			                                                  : new ProxyFactory(restApi.newInstance());
-			proxyFactory.addAdvice(invokerMethodInterceptor);
-			result = (T) proxyFactory.getProxy();
+			InvokerMethodInterceptor invokerMethodInterceptor = new InvokerMethodInterceptor(httpRestClient, basePath, asyncExecutor, invocationMetrics);
+			Class<?> generatedInvoker = getGeneratedInvoker(restApi);
+			if (generatedInvoker != null) {
+				result = (T) generatedInvoker.getConstructor(InvokerMethodInterceptor.class).newInstance(invokerMethodInterceptor);
+			}
+			else {
+				ProxyFactory proxyFactory = restApi.isInterface() ? new ProxyFactory(new Class[] { restApi })
+				                                                  : new ProxyFactory(restApi.newInstance());
+				proxyFactory.addAdvice(invokerMethodInterceptor);
+				result = (T) proxyFactory.getProxy();
+			}
 		}
-		catch (Exception e) {
+		catch (Exception | ExceptionInInitializerError e) {
 			throw new RuntimeException(String.format("Rest API Invoker creation failed for %s", restApi.getName()), e);
 		}
 
 		return result;
 	}
 
+	/**
+	 * Returns the invoker of the REST Api interface generated by the
+	 * {@link RestApiInvokerProcessor}, if any.
+	 *
+	 * @param restApi REST Api class
+	 * @return Generated invoker, null if the REST Api class is not an interface
+	 *         or its invoker has not been generated
+	 */
+	private static Class<?> getGeneratedInvoker(Class<?> restApi) {
+		Class<?> result = null;
+
+		if (restApi.isInterface()) {
+			String packageName = restApi.getPackage() != null ? restApi.getPackage().getName() : "";
+			String simpleName = packageName.isEmpty() ? restApi.getName() : restApi.getName().substring(packageName.length() + 1);
+			String invokerName = (packageName.isEmpty() ? "" : packageName + ".") + RestApiInvokerProcessor.INVOKER_PREFIX + simpleName.replace('$', '_');
+			try {
+				Class<?> invoker = Class.forName(invokerName, false, restApi.getClassLoader());
+				if (restApi.isAssignableFrom(invoker)) {
+					result = invoker;
+				}
+			}
+			catch (ClassNotFoundException e) {
+				// Not generated, proxied
+			}
+		}
+
+		return result;
+	}
+
 	/**
 	 * Hidden constructor.
 	 */
@@ -0,0 +1,203 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import it.ninjatech.restapiinvoker.client.HttpRestClient;
+import it.ninjatech.restapiinvoker.client.StreamingHttpRestClient;
+import it.ninjatech.restapiinvoker.invocationdata.InvocationData;
+import it.ninjatech.restapiinvoker.invocationdata.InvocationMode;
+
+/**
+ * <p>
+ * Utility class used to perform the calls of the proxied methods invoked in
+ * {@link InvocationMode#STREAM}, {@link InvocationMode#ITERATOR} and
+ * {@link InvocationMode#CONSUMER} modes.<br>
+ * The calls are delegated to the {@link StreamingHttpRestClient} if the HTTP
+ * Rest Client is such, otherwise the elements of the whole result are
+ * streamed.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+final class StreamingInvocations {
+
+	/**
+	 * Performs the call returning a {@link Stream}.
+	 *
+	 * @param httpRestClient HTTP Rest Client
+	 * @param invocationData Data to execute the call
+	 * @return {@link Stream} of the elements of the result of the call
+	 */
+	static Stream<Object> exchangeStream(HttpRestClient httpRestClient, InvocationData invocationData) {
+		Stream<Object> result;
+
+		if (httpRestClient.supports(StreamingHttpRestClient.class)) {
+			result = ((StreamingHttpRestClient) httpRestClient).exchangeStream(invocationData);
+		}
+		else {
+			result = toStream(httpRestClient.exchange(invocationData));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Performs the call returning an {@link Iterator}.<br>
+	 * The iterator is {@link AutoCloseable}, to release the response before
+	 * reading all the elements.
+	 *
+	 * @param httpRestClient HTTP Rest Client
+	 * @param invocationData Data to execute the call
+	 * @return {@link Iterator} over the elements of the result of the call
+	 */
+	static Iterator<Object> exchangeIterator(HttpRestClient httpRestClient, InvocationData invocationData) {
+		return new StreamIterator(exchangeStream(httpRestClient, invocationData));
+	}
+
+	/**
+	 * Performs the call passing the elements to the consumer.
+	 *
+	 * @param httpRestClient HTTP Rest Client
+	 * @param invocationData Data to execute the call
+	 * @param consumer Consumer of the elements
+	 */
+	static void exchangeConsumer(HttpRestClient httpRestClient, InvocationData invocationData, Consumer<Object> consumer) {
+		try (Stream<Object> stream = exchangeStream(httpRestClient, invocationData)) {
+			stream.forEachOrdered(consumer);
+		}
+	}
+
+	/**
+	 * Converts the result of a call to a {@link Stream} of its elements.
+	 *
+	 * @param result Result
+	 * @return {@link Stream}
+	 */
+	@SuppressWarnings("unchecked")
+	private static Stream<Object> toStream(Object result) {
+		Stream<Object> stream;
+
+		if (result == null) {
+			stream = Stream.empty();
+		}
+		else if (result instanceof Iterable) {
+			stream = StreamSupport.stream(((Iterable<Object>) result).spliterator(), false);
+		}
+		else if (result instanceof Object[]) {
+			stream = Arrays.stream((Object[]) result);
+		}
+		else {
+			stream = Collections.singletonList(result).stream();
+		}
+
+		return stream;
+	}
+
+	/**
+	 * Hidden constructor.
+	 */
+	private StreamingInvocations() {
+	}
+
+	/**
+	 * <p>
+	 * {@link Iterator} over a {@link Stream}, closing it when all the elements
+	 * have been read.
+	 * </p>
+	 *
+	 * @author Vincenzo Mazzeo
+	 * @version 1.0
+	 * @since 1.1.0
+	 */
+	private static final class StreamIterator implements Iterator<Object>, AutoCloseable {
+
+		/** Stream. */
+		private final Stream<Object> stream;
+
+		/** Iterator of the stream. */
+		private final Iterator<Object> iterator;
+
+		/**
+		 * Constructs a new StreamIterator.
+		 *
+		 * @param stream Stream
+		 */
+		private StreamIterator(Stream<Object> stream) {
+			this.stream = stream;
+			this.iterator = stream.iterator();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.Iterator#hasNext()
+		 */
+		@Override
+		public boolean hasNext() {
+			boolean result = this.iterator.hasNext();
+
+			if (!result) {
+				close();
+			}
+
+			return result;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.Iterator#next()
+		 */
+		@Override
+		public Object next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			return this.iterator.next();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.lang.AutoCloseable#close()
+		 */
+		@Override
+		public void close() {
+			this.stream.close();
+		}
+
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ * Marks a proxied method retrieving a single item as batchable through a bulk
+ * method of the same type.<br>
+ * The batchable method must have a single argument, the key of the item, and
+ * return the item or a {@link java.util.concurrent.CompletableFuture} of it.
+ * The bulk method must have a single argument to which the
+ * {@link java.util.List} of the keys is assigned, and return a
+ * {@link java.util.Map} of the items by key, or a collection or array of items
+ * matched to the keys by the {@link #key()} property.
+ * </p>
+ * <p>
+ * The concurrent calls are collected for {@link #window()} milliseconds, or
+ * until {@link #maxSize()} distinct keys are collected, then a single call to
+ * the bulk method is performed and each caller receives its item, or null if
+ * the bulk response does not contain it.
+ * </p>
+ * <p>
+ * Example:
+ * </p>
+ * 
+ * <pre>
+ * &#64;Batchable("getItems")
+ * &#64;RequestMapping(value = "items/{id}", method = RequestMethod.GET)
+ * Item getItem(&#64;PathVariable("id") String id);
+ * 
+ * &#64;RequestMapping(value = "items:batchGet", method = RequestMethod.POST)
+ * List&lt;Item&gt; getItems(&#64;RequestBody List&lt;String&gt; ids);
+ * </pre>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Batchable {
+
+	/**
+	 * Name of the bulk method.
+	 * 
+	 * @return Name of the bulk method
+	 */
+	public String value();
+
+	/**
+	 * Maximum number of distinct keys of a batch.
+	 * 
+	 * @return Maximum size
+	 */
+	public int maxSize() default 100;
+
+	/**
+	 * Time, in milliseconds, during which the calls of a batch are collected.
+	 * 
+	 * @return Window
+	 */
+	public long window() default 10;
+
+	/**
+	 * Property of the items holding the key, used to match the items of a
+	 * collection or array response to the calls.<br>
+	 * If empty, the items are matched to the keys by position.
+	 * 
+	 * @return Key property
+	 */
+	public String key() default "id";
+
+}
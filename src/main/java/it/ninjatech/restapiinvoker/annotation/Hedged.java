@@ -0,0 +1,74 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ * Enables the hedging of the calls of a proxied method, or of all the methods
+ * of a proxied type, performed by the HedgingHttpRestClient.<br>
+ * If the response of a call has not arrived after the hedging delay, an
+ * identical call is started and the first response wins. Only the methods
+ * with an idempotent HTTP method (GET, HEAD, OPTIONS, PUT, DELETE and TRACE)
+ * are hedged. An annotation on the method overrides the one on the type; the
+ * one on the type applies only to the idempotent methods, while the one on a
+ * non idempotent method fails the creation of the proxy.
+ * </p>
+ * <p>
+ * The hedging delay is {@link #delay()} if set, otherwise the
+ * {@link #percentile()} of the latencies of the calls of the method observed
+ * so far.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+@Documented
+@Target({ ElementType.TYPE, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Hedged {
+
+	/**
+	 * Hedging delay, in millis; a negative value to derive it from the
+	 * {@link #percentile()}.
+	 * 
+	 * @return Delay
+	 */
+	public long delay() default -1;
+
+	/**
+	 * Percentile of the latencies used as hedging delay if {@link #delay()} is
+	 * not set.
+	 * 
+	 * @return Percentile, between 0 and 100
+	 */
+	public double percentile() default 95;
+
+}
@@ -0,0 +1,76 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ * Limits the rate of the calls of a proxied method, or of all the methods of
+ * a proxied type, performed by the RateLimitingHttpRestClient.<br>
+ * The limit of a type is shared by all its methods without an annotation of
+ * their own, and each base path has its own limit.
+ * </p>
+ * <p>
+ * A call exceeding the rate waits for its permit up to the
+ * {@link #timeout()}, failing if it would have to wait longer; a timeout of 0
+ * makes it fail fast. The asynchronous calls do not block while waiting: they
+ * are queued and started when their permit is available.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+@Documented
+@Target({ ElementType.TYPE, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimited {
+
+	/**
+	 * Permits granted per second.
+	 * 
+	 * @return Rate
+	 */
+	public double permitsPerSecond();
+
+	/**
+	 * Maximum number of permits granted at once, after a period without calls.
+	 * 
+	 * @return Burst
+	 */
+	public int burst() default 1;
+
+	/**
+	 * Maximum time, in millis, a call waits for its permit; 0 to fail fast.
+	 * 
+	 * @return Timeout
+	 */
+	public long timeout() default 0;
+
+}
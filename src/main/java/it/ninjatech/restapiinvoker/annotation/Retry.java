@@ -0,0 +1,117 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ * Enables the retry of the failed calls of a proxied method, or of all the
+ * methods of a proxied type, performed by the RetryingHttpRestClient.<br>
+ * Only the methods with an idempotent HTTP method (GET, HEAD, OPTIONS, PUT,
+ * DELETE and TRACE) are retried, and only if the call failed for an I/O error
+ * or with one of the {@link #statuses()}. An annotation on the method
+ * overrides the one on the type; the one on the type applies only to the
+ * idempotent methods, while the one on a non idempotent method fails the
+ * creation of the proxy.
+ * </p>
+ * <p>
+ * The delay before each retry is drawn at random between 0 and the backoff
+ * (full jitter), which starts from {@link #backoff()} and grows by
+ * {@link #multiplier()} up to {@link #maxBackoff()}; the delay requested by
+ * the <code>Retry-After</code> header of the response is honoured if longer,
+ * up to {@link #maxRetryAfter()}.
+ * No retry is performed if its delay exceeds the deadline of the call.
+ * </p>
+ * <p>
+ * The {@link #deadline()} is combined with the one of the {@link Timeout} and
+ * of the calling context, the earlier winning, so it also cuts down the
+ * timeouts of each attempt.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+@Documented
+@Target({ ElementType.TYPE, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Retry {
+
+	/**
+	 * Maximum number of attempts, including the first one.
+	 * 
+	 * @return Max attempts
+	 */
+	public int maxAttempts() default 3;
+
+	/**
+	 * Backoff, in millis, before the first retry.
+	 * 
+	 * @return Initial backoff
+	 */
+	public long backoff() default 100;
+
+	/**
+	 * Factor by which the backoff grows at each retry.
+	 * 
+	 * @return Multiplier
+	 */
+	public double multiplier() default 2;
+
+	/**
+	 * Maximum backoff, in millis.
+	 * 
+	 * @return Max backoff
+	 */
+	public long maxBackoff() default 5000;
+
+	/**
+	 * Maximum delay, in millis, honoured from the <code>Retry-After</code>
+	 * header; a longer one is cut down to it.
+	 * 
+	 * @return Max Retry-After delay
+	 */
+	public long maxRetryAfter() default 30000;
+
+	/**
+	 * Total time, in millis, available to the call and its retries from the
+	 * first attempt; a negative value for no deadline.
+	 * 
+	 * @return Deadline
+	 */
+	public long deadline() default 10000;
+
+	/**
+	 * HTTP statuses of the responses to retry.
+	 * 
+	 * @return Retried statuses
+	 */
+	public int[] statuses() default { 429, 502, 503, 504 };
+
+}
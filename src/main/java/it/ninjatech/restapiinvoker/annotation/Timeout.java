@@ -0,0 +1,86 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ * Sets the timeouts of the calls of a proxied method, or of all the methods
+ * of a proxied type, overriding the ones of the HTTP Rest Client for each
+ * request. An annotation on the method overrides the one on the type.
+ * </p>
+ * <p>
+ * The {@link #deadline()} bounds the whole call: it's combined with the
+ * {@link it.ninjatech.restapiinvoker.invocationdata.Deadline} of the calling
+ * context and the one of the {@link Retry}, the earliest winning, and the
+ * other timeouts of the request are cut down to the time left.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+@Documented
+@Target({ ElementType.TYPE, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Timeout {
+
+	/**
+	 * Timeout, in millis, to establish the connection; a negative value to
+	 * keep the one of the client.
+	 * 
+	 * @return Connect timeout
+	 */
+	public int connect() default -1;
+
+	/**
+	 * Timeout, in millis, waiting for the data of the response; a negative
+	 * value to keep the one of the client.
+	 * 
+	 * @return Read timeout
+	 */
+	public int read() default -1;
+
+	/**
+	 * Timeout, in millis, to lease a connection from the pool; a negative
+	 * value to keep the one of the client.
+	 * 
+	 * @return Lease timeout
+	 */
+	public int lease() default -1;
+
+	/**
+	 * Time, in millis, available to the whole call; a negative value for no
+	 * deadline.
+	 * 
+	 * @return Deadline
+	 */
+	public long deadline() default -1;
+
+}
@@ -0,0 +1,94 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * Utility class used by the decorators to compose the asynchronous calls.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+final class AsyncCalls {
+
+	/**
+	 * Starts an asynchronous call, turning the exception thrown while starting
+	 * it into the failure of the returned future.
+	 *
+	 * @param <T> Type of the result
+	 * @param call Call
+	 * @return Future of the call
+	 */
+	static <T> CompletableFuture<T> start(Supplier<CompletableFuture<T>> call) {
+		CompletableFuture<T> result;
+
+		try {
+			result = call.get();
+		}
+		catch (RuntimeException e) {
+			result = failed(e);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Makes a failed future.
+	 *
+	 * @param <T> Type of the result
+	 * @param failure Failure
+	 * @return Future completed with the failure
+	 */
+	static <T> CompletableFuture<T> failed(Throwable failure) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+
+		result.completeExceptionally(failure);
+
+		return result;
+	}
+
+	/**
+	 * Unwraps the failure of a call from the {@link CompletionException} of a
+	 * dependent future.
+	 *
+	 * @param failure Failure, can be null
+	 * @return Failure of the call, null if none
+	 */
+	static Throwable unwrap(Throwable failure) {
+		return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+	}
+
+	/**
+	 * Hidden constructor.
+	 */
+	private AsyncCalls() {
+	}
+
+}
@@ -0,0 +1,72 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import it.ninjatech.restapiinvoker.invocationdata.InvocationData;
+import it.ninjatech.restapiinvoker.invocationdata.InvocationMode;
+
+/**
+ * <p>
+ * Interface representing an HTTP Rest Client able to perform the calls
+ * without blocking the caller thread.<br>
+ * It's used for the proxied methods invoked in
+ * {@link InvocationMode#ASYNCHRONOUS} mode.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public interface AsyncHttpRestClient extends HttpRestClient {
+
+	/**
+	 * Executes the call to the REST service asynchronously.
+	 * 
+	 * @param invocationData Data to execute the call
+	 * @return Future completed with the result of the call
+	 */
+	public CompletableFuture<Object> exchangeAsync(InvocationData invocationData);
+
+	/**
+	 * Executes the call to the REST service asynchronously, returning the
+	 * whole response whatever the response type of the proxied method is.<br>
+	 * As {@link #exchangeForEntity(InvocationData)}, it's used by the
+	 * decorators that need the status and the headers of the response, and the
+	 * default implementation wraps the body returned by
+	 * {@link #exchangeAsync(InvocationData)} in a {@link ResponseEntity}
+	 * without headers.
+	 * 
+	 * @param invocationData Data to execute the call
+	 * @return Future completed with the response of the call
+	 */
+	public default CompletableFuture<ResponseEntity<?>> exchangeForEntityAsync(InvocationData invocationData) {
+		return exchangeAsync(invocationData).thenApply(r -> invocationData.isResponseEntity() ? (ResponseEntity<?>) r : new ResponseEntity<>(r, HttpStatus.OK));
+	}
+
+}
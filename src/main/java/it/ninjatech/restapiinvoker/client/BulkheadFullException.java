@@ -0,0 +1,66 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * <p>
+ * Exception thrown, without performing the call, when the calls of the
+ * interface in progress reached the maximum.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ * @see BulkheadHttpRestClient
+ */
+public class BulkheadFullException extends RestClientException {
+
+	private static final long serialVersionUID = 1L;
+
+	/** Interface whose bulkhead is full. */
+	private final Class<?> type;
+
+	/**
+	 * Constructs a new BulkheadFullException.
+	 *
+	 * @param type Interface whose bulkhead is full
+	 * @param maxConcurrentCalls Maximum concurrent calls of the interface
+	 */
+	public BulkheadFullException(Class<?> type, int maxConcurrentCalls) {
+		super(String.format("Bulkhead of %s is full: %d concurrent calls", type.getName(), maxConcurrentCalls));
+		this.type = type;
+	}
+
+	/**
+	 * Returns the interface whose bulkhead is full.
+	 *
+	 * @return Interface
+	 */
+	public Class<?> getType() {
+		return this.type;
+	}
+
+}
@@ -0,0 +1,199 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.springframework.http.ResponseEntity;
+
+import it.ninjatech.restapiinvoker.invocationdata.InvocationData;
+import reactor.core.publisher.Flux;
+
+/**
+ * <p>
+ * Decorator of an {@link HttpRestClient} limiting the concurrent calls of
+ * each interface, so that a slow REST service cannot take all the threads of
+ * the application.<br>
+ * The calls beyond the limit are not queued: they fail fast with a
+ * {@link BulkheadFullException}.<br>
+ * The asynchronous and reactive calls are in progress until completed, the
+ * streamed ones until their stream is closed or read to the end.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public class BulkheadHttpRestClient extends HttpRestClientDecorator {
+
+	/** Maximum concurrent calls of the interfaces without a specific limit. */
+	private final int maxConcurrentCalls;
+
+	/** Maximum concurrent calls by interface. */
+	private final Map<Class<?>, Integer> maxConcurrentCallsByType;
+
+	/** Calls in progress by interface. */
+	private final Map<Class<?>, AtomicInteger> concurrentCalls;
+
+	/**
+	 * Constructs a new {@link BulkheadHttpRestClient} with the same limit for
+	 * all the interfaces.
+	 * 
+	 * @param httpRestClient Decorated {@link HttpRestClient}
+	 * @param maxConcurrentCalls Maximum concurrent calls of each interface
+	 */
+	public BulkheadHttpRestClient(HttpRestClient httpRestClient, int maxConcurrentCalls) {
+		this(httpRestClient, maxConcurrentCalls, Collections.emptyMap());
+	}
+
+	/**
+	 * Constructs a new {@link BulkheadHttpRestClient}.
+	 * 
+	 * @param httpRestClient Decorated {@link HttpRestClient}
+	 * @param maxConcurrentCalls Maximum concurrent calls of the interfaces
+	 *            without a specific limit
+	 * @param maxConcurrentCallsByType Maximum concurrent calls by interface
+	 */
+	public BulkheadHttpRestClient(HttpRestClient httpRestClient, int maxConcurrentCalls, Map<Class<?>, Integer> maxConcurrentCallsByType) {
+		super(httpRestClient);
+		if (maxConcurrentCalls < 1) {
+			throw new RuntimeException(String.format("Invalid maximum concurrent calls: %d", maxConcurrentCalls));
+		}
+		this.maxConcurrentCalls = maxConcurrentCalls;
+		this.maxConcurrentCallsByType = new HashMap<>(maxConcurrentCallsByType);
+		this.concurrentCalls = new ConcurrentHashMap<>();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see it.ninjatech.restapiinvoker.client.HttpRestClient#exchange(it.ninjatech.
+	 * restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Object exchange(InvocationData invocationData) {
+		return CallAdmission.call(this::admit, invocationData, this.httpRestClient::exchange);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.HttpRestClient#exchangeForEntity(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public ResponseEntity<?> exchangeForEntity(InvocationData invocationData) {
+		return CallAdmission.call(this::admit, invocationData, this.httpRestClient::exchangeForEntity);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.AsyncHttpRestClient#exchangeAsync(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public CompletableFuture<Object> exchangeAsync(InvocationData invocationData) {
+		return CallAdmission.callAsync(this::admit, invocationData, this::forwardAsync);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.AsyncHttpRestClient#exchangeForEntityAsync
+	 * (it.ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public CompletableFuture<ResponseEntity<?>> exchangeForEntityAsync(InvocationData invocationData) {
+		return CallAdmission.callAsync(this::admit, invocationData, this::forwardEntityAsync);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.ReactiveHttpRestClient#exchangeFlux(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Flux<Object> exchangeFlux(InvocationData invocationData) {
+		return ReactiveCalls.callFlux(this::admit, invocationData, this::forwardFlux);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.StreamingHttpRestClient#exchangeStream(
+	 * it.ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Stream<Object> exchangeStream(InvocationData invocationData) {
+		return CallAdmission.callStream(this::admit, invocationData, this::forwardStream);
+	}
+
+	/**
+	 * Returns the calls of an interface in progress.
+	 * 
+	 * @param type Interface
+	 * @return Concurrent calls
+	 */
+	public int getConcurrentCalls(Class<?> type) {
+		AtomicInteger concurrentCalls = this.concurrentCalls.get(type);
+
+		return concurrentCalls != null ? concurrentCalls.get() : 0;
+	}
+
+	/**
+	 * Admits the call, if the calls of its interface in progress are below the
+	 * maximum.
+	 * 
+	 * @param invocationData Data to execute the call
+	 * @return Admission of the call
+	 */
+	private CallAdmission admit(InvocationData invocationData) {
+		Class<?> type = invocationData.getInvocationPlan().getMethod().getDeclaringClass();
+		int maxConcurrentCalls = this.maxConcurrentCallsByType.getOrDefault(type, this.maxConcurrentCalls);
+		AtomicInteger concurrentCalls = this.concurrentCalls.get(type);
+		if (concurrentCalls == null) {
+			concurrentCalls = this.concurrentCalls.computeIfAbsent(type, t -> new AtomicInteger());
+		}
+		if (concurrentCalls.getAndUpdate(c -> c < maxConcurrentCalls ? c + 1 : c) >= maxConcurrentCalls) {
+			throw new BulkheadFullException(type, maxConcurrentCalls);
+		}
+		AtomicInteger admittedCalls = concurrentCalls;
+
+		return new CallAdmission(invocationData, f -> admittedCalls.decrementAndGet());
+	}
+
+}
@@ -0,0 +1,1028 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.StringUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import it.ninjatech.restapiinvoker.invocationdata.InvocationData;
+import reactor.core.publisher.Flux;
+
+/**
+ * <p>
+ * Decorator of an {@link HttpRestClient} caching the responses according to
+ * the HTTP semantics, as a private cache does.<br>
+ * The responses of GET and HEAD calls are stored by method, URI, type of the
+ * response body and the values of the request headers named by the
+ * <code>Vary</code> header, honouring the
+ * <code>Cache-Control</code> (<code>max-age</code>, <code>no-cache</code>,
+ * <code>no-store</code>) and <code>Expires</code> headers. Fresh entries are
+ * served without calling the decorated client, while stale entries having an
+ * <code>ETag</code> or a <code>Last-Modified</code> header are revalidated
+ * through a conditional call and reused on <code>304 Not Modified</code>.
+ * Successful calls with any other method invalidate the entries of their URI.
+ * <br>
+ * The asynchronous and reactive calls returning a whole response are cached
+ * as the synchronous ones, while the streamed and the {@link Flux} calls are
+ * not cached, those with an unsafe method invalidating the entries of their
+ * URI before being performed.
+ * </p>
+ * <p>
+ * The memory is bounded by the sum of the weights of the entries, by default
+ * the length of their bodies as declared by the response, evicting first the least recently used entries
+ * as approximated by a clock: the entries are scanned in insertion order, the
+ * ones used since the last scan being given a second chance. The lookups take
+ * no lock, and the invalidations reach the entries of a URI through an index.
+ * <br>
+ * The cached bodies are shared among the callers, so they must not be
+ * modified.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public class CachingHttpRestClient extends HttpRestClientDecorator {
+
+	/** Default maximum weight of the cache, 16 MB. */
+	public static final long DEFAULT_MAX_WEIGHT = 16L * 1024L * 1024L;
+
+	/** Weight of the responses whose body cannot be weighed. */
+	public static final long DEFAULT_ENTRY_WEIGHT = 4L * 1024L;
+
+	/**
+	 * Default weigher, returning the length of the body without serializing
+	 * it: the bytes of a <code>byte[]</code>, the characters of a
+	 * {@link CharSequence} and the <code>Content-Length</code> of any other
+	 * body. The bodies of the responses without <code>Content-Length</code>,
+	 * as the chunked ones, weigh {@link #DEFAULT_ENTRY_WEIGHT}.
+	 */
+	public static final ToLongFunction<ResponseEntity<?>> DEFAULT_WEIGHER = r -> weigh(r, false);
+
+	/**
+	 * Weigher returning the length of the body as read, writing as JSON the
+	 * bodies other than a <code>byte[]</code> or a {@link CharSequence}.<br>
+	 * It does not depend on the <code>Content-Length</code>, missing from the
+	 * chunked and the decompressed responses, but it serializes again each
+	 * cached body, so it's to be used only when the weight of such responses
+	 * must be accurate. The bodies that cannot be written as JSON weigh
+	 * {@link #DEFAULT_ENTRY_WEIGHT}.
+	 */
+	public static final ToLongFunction<ResponseEntity<?>> JSON_WEIGHER = r -> weigh(r, true);
+
+	/** {@link ObjectMapper} weighing the bodies written as JSON. */
+	private static final ObjectMapper WEIGHING_OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
+	/** Separator of the parts of the key. */
+	private static final char KEY_SEPARATOR = '\n';
+
+	/** Headers of a <code>304 Not Modified</code> not to be merged. */
+	private static final List<String> UNMERGEABLE_HEADERS = Arrays.asList(HttpHeaders.CONTENT_LENGTH.toLowerCase(),
+	                                                                       HttpHeaders.CONTENT_TYPE.toLowerCase(),
+	                                                                       HttpHeaders.TRANSFER_ENCODING.toLowerCase(),
+	                                                                       HttpHeaders.CONTENT_ENCODING.toLowerCase());
+
+	/** Maximum weight. */
+	private final long maxWeight;
+
+	/** Weigher of the responses. */
+	private final ToLongFunction<ResponseEntity<?>> weigher;
+
+	/** Entries by key. */
+	private final Map<String, CacheEntry> entries;
+
+	/** Keys of the entries by URI. */
+	private final Map<String, Set<String>> keysByUri;
+
+	/** Entries in insertion order scanned by the eviction, guarding it. */
+	private final ConcurrentLinkedQueue<CacheEntry> clock;
+
+	/** Number of the entries of the clock no more in the cache, approximate. */
+	private final AtomicInteger removedCount;
+
+	/** Names of the headers of the <code>Vary</code> by method and URI. */
+	private final Map<String, List<String>> varyHeaderNames;
+
+	/** Current weight. */
+	private final AtomicLong weight;
+
+	/** Number of calls served by the cache. */
+	private final LongAdder hitCount;
+
+	/** Number of calls served by the cache after a revalidation. */
+	private final LongAdder revalidationCount;
+
+	/** Number of calls served by the decorated client. */
+	private final LongAdder missCount;
+
+	/**
+	 * Constructs a new {@link CachingHttpRestClient} with the
+	 * {@link #DEFAULT_MAX_WEIGHT}.
+	 * 
+	 * @param httpRestClient Decorated {@link HttpRestClient}
+	 */
+	public CachingHttpRestClient(HttpRestClient httpRestClient) {
+		this(httpRestClient, DEFAULT_MAX_WEIGHT);
+	}
+
+	/**
+	 * Constructs a new {@link CachingHttpRestClient} weighing the responses
+	 * with the {@link #DEFAULT_WEIGHER}.
+	 * 
+	 * @param httpRestClient Decorated {@link HttpRestClient}
+	 * @param maxWeight Maximum weight of the cache, in bytes
+	 */
+	public CachingHttpRestClient(HttpRestClient httpRestClient, long maxWeight) {
+		this(httpRestClient, maxWeight, DEFAULT_WEIGHER);
+	}
+
+	/**
+	 * Constructs a new {@link CachingHttpRestClient}.
+	 * 
+	 * @param httpRestClient Decorated {@link HttpRestClient}
+	 * @param maxWeight Maximum weight of the cache
+	 * @param weigher Weigher of the responses
+	 */
+	public CachingHttpRestClient(HttpRestClient httpRestClient, long maxWeight, ToLongFunction<ResponseEntity<?>> weigher) {
+		super(httpRestClient);
+		if (maxWeight <= 0) {
+			throw new RuntimeException(String.format("Invalid max weight %d", maxWeight));
+		}
+		this.maxWeight = maxWeight;
+		this.weigher = weigher;
+		this.entries = new ConcurrentHashMap<>();
+		this.keysByUri = new ConcurrentHashMap<>();
+		this.clock = new ConcurrentLinkedQueue<>();
+		this.removedCount = new AtomicInteger();
+		this.varyHeaderNames = new ConcurrentHashMap<>();
+		this.weight = new AtomicLong();
+		this.hitCount = new LongAdder();
+		this.revalidationCount = new LongAdder();
+		this.missCount = new LongAdder();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see it.ninjatech.restapiinvoker.client.HttpRestClient#exchange(it.ninjatech.
+	 * restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Object exchange(InvocationData invocationData) {
+		ResponseEntity<?> responseEntity = exchangeForEntity(invocationData);
+
+		return invocationData.isResponseEntity() ? responseEntity : responseEntity.getBody();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.HttpRestClient#exchangeForEntity(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public ResponseEntity<?> exchangeForEntity(InvocationData invocationData) {
+		ResponseEntity<?> result;
+
+		HttpMethod httpMethod = invocationData.getHttpMethod();
+		if (httpMethod != HttpMethod.GET && httpMethod != HttpMethod.HEAD) {
+			result = this.httpRestClient.exchangeForEntity(invocationData);
+			onUnsafeResponse(invocationData, result);
+		}
+		else if (isBypassing(invocationData.getHeaders())) {
+			this.missCount.increment();
+			result = this.httpRestClient.exchangeForEntity(invocationData);
+		}
+		else {
+			result = exchangeCacheable(invocationData);
+		}
+
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.AsyncHttpRestClient#exchangeAsync(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public CompletableFuture<Object> exchangeAsync(InvocationData invocationData) {
+		return exchangeForEntityAsync(invocationData).thenApply(r -> invocationData.isResponseEntity() ? r : r.getBody());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.AsyncHttpRestClient#exchangeForEntityAsync
+	 * (it.ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public CompletableFuture<ResponseEntity<?>> exchangeForEntityAsync(InvocationData invocationData) {
+		CompletableFuture<ResponseEntity<?>> result;
+
+		HttpMethod httpMethod = invocationData.getHttpMethod();
+		if (httpMethod != HttpMethod.GET && httpMethod != HttpMethod.HEAD) {
+			result = AsyncCalls.start(() -> forwardEntityAsync(invocationData)).thenApply(r -> {
+				onUnsafeResponse(invocationData, r);
+
+				return r;
+			});
+		}
+		else if (isBypassing(invocationData.getHeaders())) {
+			this.missCount.increment();
+			result = forwardEntityAsync(invocationData);
+		}
+		else {
+			result = exchangeCacheableAsync(invocationData);
+		}
+
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.ReactiveHttpRestClient#exchangeFlux(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Flux<Object> exchangeFlux(InvocationData invocationData) {
+		invalidateIfUnsafe(invocationData);
+
+		return forwardFlux(invocationData);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.StreamingHttpRestClient#exchangeStream(
+	 * it.ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Stream<Object> exchangeStream(InvocationData invocationData) {
+		invalidateIfUnsafe(invocationData);
+
+		return forwardStream(invocationData);
+	}
+
+	/**
+	 * Removes all the entries.
+	 */
+	public void clear() {
+		for (CacheEntry entry : this.entries.values()) {
+			if (remove(entry)) {
+				this.removedCount.incrementAndGet();
+			}
+		}
+		this.varyHeaderNames.clear();
+	}
+
+	/**
+	 * Returns the number of entries.
+	 * 
+	 * @return Number of entries
+	 */
+	public int getSize() {
+		return this.entries.size();
+	}
+
+	/**
+	 * Returns the sum of the weights of the entries.
+	 * 
+	 * @return Weight
+	 */
+	public long getWeight() {
+		return this.weight.get();
+	}
+
+	/**
+	 * Returns the number of calls served by fresh entries.
+	 * 
+	 * @return Hit count
+	 */
+	public long getHitCount() {
+		return this.hitCount.sum();
+	}
+
+	/**
+	 * Returns the number of calls served by stale entries after a
+	 * <code>304 Not Modified</code>.
+	 * 
+	 * @return Revalidation count
+	 */
+	public long getRevalidationCount() {
+		return this.revalidationCount.sum();
+	}
+
+	/**
+	 * Returns the number of cacheable calls whose response has been
+	 * transferred by the decorated client.
+	 * 
+	 * @return Miss count
+	 */
+	public long getMissCount() {
+		return this.missCount.sum();
+	}
+
+	/**
+	 * Executes a call whose response may be served by the cache.
+	 * 
+	 * @param invocationData Data to execute the call
+	 * @return Response of the call
+	 */
+	private ResponseEntity<?> exchangeCacheable(InvocationData invocationData) {
+		ResponseEntity<?> result;
+
+		Lookup lookup = lookup(invocationData);
+		if (lookup.hit != null) {
+			result = lookup.hit;
+		}
+		else {
+			result = onResponse(lookup, this.httpRestClient.exchangeForEntity(lookup.callData));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Executes asynchronously a call whose response may be served by the
+	 * cache.
+	 * 
+	 * @param invocationData Data to execute the call
+	 * @return Future completed with the response of the call
+	 */
+	private CompletableFuture<ResponseEntity<?>> exchangeCacheableAsync(InvocationData invocationData) {
+		CompletableFuture<ResponseEntity<?>> result;
+
+		Lookup lookup = lookup(invocationData);
+		if (lookup.hit != null) {
+			result = CompletableFuture.completedFuture(lookup.hit);
+		}
+		else {
+			result = AsyncCalls.start(() -> forwardEntityAsync(lookup.callData)).thenApply(r -> onResponse(lookup, r));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Looks up the entry of a call, making a conditional call on a copy of its
+	 * headers if the entry has to be revalidated.
+	 * 
+	 * @param invocationData Data to execute the call
+	 * @return {@link Lookup}
+	 */
+	private Lookup lookup(InvocationData invocationData) {
+		Lookup result;
+
+		HttpHeaders requestHeaders = invocationData.getHeaders();
+		String uri = DefaultHttpRestClient.buildUri(invocationData).toString();
+		String primaryKey = invocationData.getHttpMethod().name() + ' ' + uri;
+		String key = makeKey(primaryKey, invocationData.getResponseBodyType(), requestHeaders, this.varyHeaderNames.getOrDefault(primaryKey, Collections.emptyList()));
+		CacheEntry entry = get(key);
+		boolean noCache = parseCacheControl(requestHeaders.getCacheControl()).containsKey("no-cache");
+		if (entry != null && !noCache && entry.isFresh(System.currentTimeMillis())) {
+			this.hitCount.increment();
+			result = new Lookup(invocationData, invocationData, uri, primaryKey, key, entry, entry.toResponseEntity());
+		}
+		else {
+			InvocationData callData = invocationData;
+			if (entry != null && entry.hasValidators()) {
+				HttpHeaders conditionalHeaders = new HttpHeaders();
+				conditionalHeaders.putAll(requestHeaders);
+				entry.setConditionalHeaders(conditionalHeaders);
+				callData = invocationData.withHeaders(conditionalHeaders);
+			}
+			result = new Lookup(invocationData, callData, uri, primaryKey, key, entry, null);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Handles the response of a call not served by the cache, storing it or
+	 * revalidating the entry.
+	 * 
+	 * @param lookup {@link Lookup} of the call
+	 * @param responseEntity Response of the decorated client
+	 * @return Response of the call
+	 */
+	private ResponseEntity<?> onResponse(Lookup lookup, ResponseEntity<?> responseEntity) {
+		ResponseEntity<?> result;
+
+		long responseTime = System.currentTimeMillis();
+		if (lookup.callData != lookup.invocationData && responseEntity.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+			this.revalidationCount.increment();
+			CacheEntry entry = lookup.entry.revalidate(responseEntity.getHeaders(), responseTime);
+			put(entry);
+			result = entry.toResponseEntity();
+		}
+		else {
+			this.missCount.increment();
+			store(lookup.uri, lookup.primaryKey, lookup.invocationData.getResponseBodyType(), lookup.invocationData.getHeaders(), responseEntity, responseTime);
+			result = responseEntity;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Handles the response of a call with an unsafe method, invalidating the
+	 * entries of its URI if successful.
+	 * 
+	 * @param invocationData Data to execute the call
+	 * @param responseEntity Response of the call
+	 */
+	private void onUnsafeResponse(InvocationData invocationData, ResponseEntity<?> responseEntity) {
+		HttpMethod httpMethod = invocationData.getHttpMethod();
+		if (httpMethod != HttpMethod.OPTIONS && httpMethod != HttpMethod.TRACE && !responseEntity.getStatusCode().isError()) {
+			invalidate(DefaultHttpRestClient.buildUri(invocationData).toString());
+		}
+	}
+
+	/**
+	 * Invalidates the entries of the URI of a call not cached, if its method
+	 * is unsafe.
+	 * 
+	 * @param invocationData Data to execute the call
+	 */
+	private void invalidateIfUnsafe(InvocationData invocationData) {
+		HttpMethod httpMethod = invocationData.getHttpMethod();
+		if (httpMethod != HttpMethod.GET && httpMethod != HttpMethod.HEAD && httpMethod != HttpMethod.OPTIONS && httpMethod != HttpMethod.TRACE) {
+			invalidate(DefaultHttpRestClient.buildUri(invocationData).toString());
+		}
+	}
+
+	/**
+	 * Stores the response, if cacheable.
+	 * 
+	 * @param uri URI
+	 * @param primaryKey Method and URI
+	 * @param responseBodyType Type of the response body
+	 * @param requestHeaders Request headers
+	 * @param responseEntity Response
+	 * @param responseTime Time of the response
+	 */
+	private void store(String uri, String primaryKey, Type responseBodyType, HttpHeaders requestHeaders, ResponseEntity<?> responseEntity, long responseTime) {
+		HttpHeaders responseHeaders = responseEntity.getHeaders();
+		List<String> varyHeaderNames = responseHeaders.getVary();
+		int statusCode = responseEntity.getStatusCodeValue();
+		Map<String, String> cacheControl = parseCacheControl(responseHeaders.getCacheControl());
+		if ((statusCode == HttpStatus.OK.value() || statusCode == HttpStatus.NON_AUTHORITATIVE_INFORMATION.value())
+		    && !cacheControl.containsKey("no-store")
+		    && !varyHeaderNames.contains("*")) {
+			CacheEntry entry = new CacheEntry(makeKey(primaryKey, responseBodyType, requestHeaders, varyHeaderNames),
+			                                  uri,
+			                                  responseEntity.getBody(),
+			                                  responseEntity.getStatusCode(),
+			                                  responseHeaders,
+			                                  responseTime,
+			                                  this.weigher.applyAsLong(responseEntity));
+			if ((entry.lifetime > 0 || entry.hasValidators()) && entry.weight <= this.maxWeight) {
+				if (varyHeaderNames.isEmpty()) {
+					this.varyHeaderNames.remove(primaryKey);
+				}
+				else {
+					this.varyHeaderNames.put(primaryKey, varyHeaderNames);
+				}
+				put(entry);
+			}
+		}
+	}
+
+	/**
+	 * Gets an entry, marking it as used.
+	 * 
+	 * @param key Key
+	 * @return Entry, null if not found
+	 */
+	private CacheEntry get(String key) {
+		CacheEntry result = this.entries.get(key);
+
+		if (result != null && !result.used) {
+			result.used = true;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Puts an entry, evicting the least recently used ones if the maximum
+	 * weight is exceeded.
+	 * 
+	 * @param entry Entry
+	 */
+	private void put(CacheEntry entry) {
+		CacheEntry previous = this.entries.put(entry.key, entry);
+		if (previous != null) {
+			this.weight.addAndGet(-previous.weight);
+			this.removedCount.incrementAndGet();
+		}
+		this.weight.addAndGet(entry.weight);
+		this.keysByUri.compute(entry.uri, (u, k) -> {
+			Set<String> keys = k != null ? k : ConcurrentHashMap.newKeySet();
+			keys.add(entry.key);
+
+			return keys;
+		});
+		this.clock.offer(entry);
+		if (this.weight.get() > this.maxWeight) {
+			evict();
+		}
+	}
+
+	/**
+	 * Removes an entry, if still in the cache.
+	 * 
+	 * @param entry Entry
+	 * @return true, if removed
+	 */
+	private boolean remove(CacheEntry entry) {
+		boolean result = this.entries.remove(entry.key, entry);
+
+		if (result) {
+			this.weight.addAndGet(-entry.weight);
+			this.keysByUri.computeIfPresent(entry.uri, (u, k) -> {
+				if (!this.entries.containsKey(entry.key)) {
+					k.remove(entry.key);
+				}
+
+				return k.isEmpty() ? null : k;
+			});
+		}
+
+		return result;
+	}
+
+	/**
+	 * Evicts the entries until the maximum weight is no more exceeded,
+	 * scanning the clock: the entries used since the last scan are put back at
+	 * its end, the other ones are removed.<br>
+	 * The entries of the clock no more in the cache are dropped by the scan,
+	 * or all at once when they outnumber the entries of the cache.
+	 */
+	private void evict() {
+		synchronized (this.clock) {
+			CacheEntry entry;
+			while (this.weight.get() > this.maxWeight && (entry = this.clock.poll()) != null) {
+				if (this.entries.get(entry.key) != entry) {
+					this.removedCount.decrementAndGet();
+				}
+				else if (entry.used) {
+					entry.used = false;
+					this.clock.offer(entry);
+				}
+				else {
+					remove(entry);
+				}
+			}
+			if (this.removedCount.get() > this.entries.size()) {
+				this.removedCount.set(0);
+				this.clock.removeIf(e -> this.entries.get(e.key) != e);
+			}
+		}
+	}
+
+	/**
+	 * Invalidates the entries of a URI.
+	 * 
+	 * @param uri URI
+	 */
+	private void invalidate(String uri) {
+		Set<String> keys = this.keysByUri.get(uri);
+
+		if (keys != null) {
+			for (String key : keys) {
+				CacheEntry entry = this.entries.get(key);
+				if (entry != null && remove(entry)) {
+					this.removedCount.incrementAndGet();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Makes the key of an entry, so that the methods reading the same URI into
+	 * different types do not share their entries.
+	 * 
+	 * @param primaryKey Method and URI
+	 * @param responseBodyType Type of the response body
+	 * @param requestHeaders Request headers
+	 * @param varyHeaderNames Names of the headers of the <code>Vary</code>
+	 * @return Key
+	 */
+	private static String makeKey(String primaryKey, Type responseBodyType, HttpHeaders requestHeaders, List<String> varyHeaderNames) {
+		StringBuilder key = new StringBuilder(primaryKey);
+
+		key.append(KEY_SEPARATOR).append(responseBodyType.getTypeName());
+		for (String varyHeaderName : varyHeaderNames) {
+			List<String> values = requestHeaders.get(varyHeaderName);
+			key.append(KEY_SEPARATOR).append(varyHeaderName.toLowerCase()).append(':');
+			if (values != null) {
+				key.append(String.join(",", values));
+			}
+		}
+
+		return key.toString();
+	}
+
+	/**
+	 * Weighs a response body.
+	 * 
+	 * @param responseEntity Response
+	 * @param json Whether to write as JSON the bodies not weighed by their
+	 *            length
+	 * @return Weight
+	 * @see #DEFAULT_WEIGHER
+	 * @see #JSON_WEIGHER
+	 */
+	private static long weigh(ResponseEntity<?> responseEntity, boolean json) {
+		long result;
+
+		Object body = responseEntity.getBody();
+		if (body == null) {
+			result = 0;
+		}
+		else if (body instanceof byte[]) {
+			result = ((byte[]) body).length;
+		}
+		else if (body instanceof CharSequence) {
+			result = ((CharSequence) body).length();
+		}
+		else if (!json) {
+			long contentLength = responseEntity.getHeaders().getContentLength();
+			result = contentLength >= 0 ? contentLength : DEFAULT_ENTRY_WEIGHT;
+		}
+		else {
+			long[] length = new long[1];
+			try {
+				WEIGHING_OBJECT_MAPPER.writeValue(new OutputStream() {
+
+					@Override
+					public void write(int b) {
+						length[0]++;
+					}
+
+					@Override
+					public void write(byte[] b, int off, int len) {
+						length[0] += len;
+					}
+
+				}, body);
+				result = length[0];
+			}
+			catch (IOException | RuntimeException e) {
+				result = DEFAULT_ENTRY_WEIGHT;
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Checks if a call has to bypass the cache, because it forbids storing
+	 * its response or it's already conditional.
+	 * 
+	 * @param requestHeaders Request headers
+	 * @return true, if the cache is bypassed
+	 */
+	private static boolean isBypassing(HttpHeaders requestHeaders) {
+		return parseCacheControl(requestHeaders.getCacheControl()).containsKey("no-store")
+		       || requestHeaders.containsKey(HttpHeaders.IF_NONE_MATCH)
+		       || requestHeaders.containsKey(HttpHeaders.IF_MODIFIED_SINCE);
+	}
+
+	/**
+	 * Parses the directives of a <code>Cache-Control</code> header.
+	 * 
+	 * @param cacheControl <code>Cache-Control</code> header
+	 * @return Directives by lower case name, with a null value if the
+	 *         directive has no argument
+	 */
+	private static Map<String, String> parseCacheControl(String cacheControl) {
+		Map<String, String> result = Collections.emptyMap();
+
+		if (StringUtils.hasText(cacheControl)) {
+			result = new HashMap<>();
+			for (String directive : StringUtils.tokenizeToStringArray(cacheControl, ",")) {
+				int separator = directive.indexOf('=');
+				if (separator < 0) {
+					result.put(directive.toLowerCase(), null);
+				}
+				else {
+					String value = StringUtils.trimLeadingCharacter(directive.substring(separator + 1).trim(), '"');
+					result.put(directive.substring(0, separator).trim().toLowerCase(), StringUtils.trimTrailingCharacter(value, '"'));
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Parses a number of seconds.
+	 * 
+	 * @param seconds Seconds
+	 * @return Millis, -1 if not valid
+	 */
+	private static long parseSeconds(String seconds) {
+		long result = -1;
+
+		if (seconds != null) {
+			try {
+				result = Math.max(0, Long.parseLong(seconds)) * 1000L;
+			}
+			catch (NumberFormatException e) {
+				result = -1;
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Cached response.
+	 * </p>
+	 *
+	 * @author Vincenzo Mazzeo
+	 * @version 1.0
+	 * @since 1.1.0
+	 */
+	private static final class CacheEntry {
+
+		/** Key. */
+		private final String key;
+
+		/** URI. */
+		private final String uri;
+
+		/** Body. */
+		private final Object body;
+
+		/** Status. */
+		private final HttpStatus status;
+
+		/** Headers. */
+		private final HttpHeaders headers;
+
+		/** Time of the response. */
+		private final long responseTime;
+
+		/** Age of the response when received. */
+		private final long initialAge;
+
+		/** Freshness lifetime. */
+		private final long lifetime;
+
+		/** Whether the entry has to be revalidated at each use. */
+		private final boolean noCache;
+
+		/** Weight. */
+		private final long weight;
+
+		/** Whether the entry has been used since the last scan of the clock. */
+		private volatile boolean used;
+
+		/**
+		 * Constructs a new CacheEntry.
+		 * 
+		 * @param key Key
+		 * @param uri URI
+		 * @param body Body
+		 * @param status Status
+		 * @param headers Headers
+		 * @param responseTime Time of the response
+		 * @param weight Weight
+		 */
+		private CacheEntry(String key, String uri, Object body, HttpStatus status, HttpHeaders headers, long responseTime, long weight) {
+			this.key = key;
+			this.uri = uri;
+			this.body = body;
+			this.status = status;
+			this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+			this.responseTime = responseTime;
+			this.weight = weight;
+
+			long date = getDate(headers);
+			long age = parseSeconds(headers.getFirst(HttpHeaders.AGE));
+			this.initialAge = Math.max(Math.max(0, age), date > 0 ? Math.max(0, responseTime - date) : 0);
+
+			Map<String, String> cacheControl = parseCacheControl(headers.getCacheControl());
+			long maxAge = parseSeconds(cacheControl.get("max-age"));
+			if (maxAge >= 0) {
+				this.lifetime = maxAge;
+			}
+			else {
+				long expires = getExpires(headers);
+				this.lifetime = expires > 0 ? Math.max(0, expires - (date > 0 ? date : responseTime)) : 0;
+			}
+			this.noCache = cacheControl.containsKey("no-cache");
+		}
+
+		/**
+		 * Returns if the entry can be used without revalidation.
+		 * 
+		 * @param now Current time
+		 * @return true, if fresh
+		 */
+		private boolean isFresh(long now) {
+			return !this.noCache && this.lifetime > this.initialAge + (now - this.responseTime);
+		}
+
+		/**
+		 * Returns if the entry has an <code>ETag</code> or a
+		 * <code>Last-Modified</code> header.
+		 * 
+		 * @return true, if the entry can be revalidated
+		 */
+		private boolean hasValidators() {
+			return this.headers.getETag() != null || this.headers.getFirst(HttpHeaders.LAST_MODIFIED) != null;
+		}
+
+		/**
+		 * Sets the conditional headers to revalidate the entry.
+		 * 
+		 * @param requestHeaders Request headers
+		 */
+		private void setConditionalHeaders(HttpHeaders requestHeaders) {
+			String eTag = this.headers.getETag();
+			if (eTag != null) {
+				requestHeaders.set(HttpHeaders.IF_NONE_MATCH, eTag);
+			}
+			String lastModified = this.headers.getFirst(HttpHeaders.LAST_MODIFIED);
+			if (lastModified != null) {
+				requestHeaders.set(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+			}
+		}
+
+		/**
+		 * Makes the entry revalidated by a <code>304 Not Modified</code>.
+		 * 
+		 * @param notModifiedHeaders Headers of the <code>304 Not Modified</code>
+		 * @param responseTime Time of the response
+		 * @return Revalidated entry
+		 */
+		private CacheEntry revalidate(HttpHeaders notModifiedHeaders, long responseTime) {
+			HttpHeaders headers = new HttpHeaders();
+			headers.putAll(this.headers);
+			notModifiedHeaders.forEach((h, v) -> {
+				if (!UNMERGEABLE_HEADERS.contains(h.toLowerCase())) {
+					headers.put(h, v);
+				}
+			});
+
+			return new CacheEntry(this.key, this.uri, this.body, this.status, headers, responseTime, this.weight);
+		}
+
+		/**
+		 * Makes the response entity of the entry.
+		 * 
+		 * @return Response entity
+		 */
+		private ResponseEntity<?> toResponseEntity() {
+			return new ResponseEntity<>(this.body, this.headers, this.status);
+		}
+
+		/**
+		 * Gets the <code>Date</code> header, ignoring invalid values.
+		 * 
+		 * @param headers Headers
+		 * @return Date, -1 if not valid
+		 */
+		private static long getDate(HttpHeaders headers) {
+			try {
+				return headers.getDate();
+			}
+			catch (IllegalArgumentException e) {
+				return -1;
+			}
+		}
+
+		/**
+		 * Gets the <code>Expires</code> header, ignoring invalid values.
+		 * 
+		 * @param headers Headers
+		 * @return Expires, -1 if not valid
+		 */
+		private static long getExpires(HttpHeaders headers) {
+			try {
+				return headers.getExpires();
+			}
+			catch (IllegalArgumentException e) {
+				return -1;
+			}
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Result of the lookup of the entry of a call.
+	 * </p>
+	 *
+	 * @author Vincenzo Mazzeo
+	 * @version 1.0
+	 * @since 1.1.0
+	 */
+	private static final class Lookup {
+
+		/** Data to execute the call. */
+		private final InvocationData invocationData;
+
+		/**
+		 * Data of the request to the decorated client, with the conditional
+		 * headers if the entry is revalidated.
+		 */
+		private final InvocationData callData;
+
+		/** URI. */
+		private final String uri;
+
+		/** Method and URI. */
+		private final String primaryKey;
+
+		/** Key of the entry. */
+		private final String key;
+
+		/** Entry, null if not found. */
+		private final CacheEntry entry;
+
+		/** Response served by a fresh entry, null if none. */
+		private final ResponseEntity<?> hit;
+
+		/**
+		 * Constructs a new Lookup.
+		 * 
+		 * @param invocationData Data to execute the call
+		 * @param callData Data of the request to the decorated client
+		 * @param uri URI
+		 * @param primaryKey Method and URI
+		 * @param key Key of the entry
+		 * @param entry Entry, null if not found
+		 * @param hit Response served by a fresh entry, null if none
+		 */
+		private Lookup(InvocationData invocationData, InvocationData callData, String uri, String primaryKey, String key, CacheEntry entry, ResponseEntity<?> hit) {
+			this.invocationData = invocationData;
+			this.callData = callData;
+			this.uri = uri;
+			this.primaryKey = primaryKey;
+			this.key = key;
+			this.entry = entry;
+			this.hit = hit;
+		}
+
+	}
+
+}
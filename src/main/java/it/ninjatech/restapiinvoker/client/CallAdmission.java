@@ -0,0 +1,285 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import it.ninjatech.restapiinvoker.invocationdata.InvocationData;
+
+/**
+ * <p>
+ * Admission of a call by a decorator guarding the calls, such as a bulkhead
+ * or a circuit breaker, which is notified once of the end of the call
+ * whatever the way it's performed.<br>
+ * A streamed call ends when its stream is closed, all its elements have been
+ * read or reading them failed. The guard can replace the data of the call, as
+ * done to route it to a replica.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+final class CallAdmission {
+
+	/**
+	 * Performs a call admitted by a guard.
+	 *
+	 * @param <T> Type of the result
+	 * @param guard Admits the call, throwing if it's not permitted
+	 * @param invocationData Data to execute the call
+	 * @param call Call
+	 * @return Result of the call
+	 */
+	static <T> T call(Function<InvocationData, CallAdmission> guard, InvocationData invocationData, Function<InvocationData, T> call) {
+		T result;
+
+		CallAdmission admission = guard.apply(invocationData);
+		try {
+			result = call.apply(admission.invocationData);
+		}
+		catch (RuntimeException | Error e) {
+			admission.end(e);
+			throw e;
+		}
+		admission.end(null);
+
+		return result;
+	}
+
+	/**
+	 * Performs an asynchronous call admitted by a guard.
+	 *
+	 * @param <T> Type of the result
+	 * @param guard Admits the call, throwing if it's not permitted
+	 * @param invocationData Data to execute the call
+	 * @param call Call
+	 * @return Future of the call, failed if the call is not permitted
+	 */
+	static <T> CompletableFuture<T> callAsync(Function<InvocationData, CallAdmission> guard, InvocationData invocationData, Function<InvocationData, CompletableFuture<T>> call) {
+		CompletableFuture<T> result;
+
+		try {
+			CallAdmission admission = guard.apply(invocationData);
+			result = AsyncCalls.start(() -> call.apply(admission.invocationData)).whenComplete((r, e) -> admission.end(e));
+		}
+		catch (RuntimeException e) {
+			result = AsyncCalls.failed(e);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Performs an asynchronous call admitted by a guard that queues it without
+	 * blocking.
+	 *
+	 * @param <T> Type of the result
+	 * @param guard Admits the call, failing the returned future if it's not
+	 *            permitted
+	 * @param invocationData Data to execute the call
+	 * @param call Call
+	 * @return Future of the call, failed if the call is not permitted
+	 */
+	static <T> CompletableFuture<T> queueAsync(Function<InvocationData, CompletableFuture<CallAdmission>> guard, InvocationData invocationData, Function<InvocationData, CompletableFuture<T>> call) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+
+		AsyncCalls.start(() -> guard.apply(invocationData)).whenComplete((a, e) -> {
+			CompletableFuture<T> admitted = e == null ? callAsync(d -> a, invocationData, call) : AsyncCalls.failed(AsyncCalls.unwrap(e));
+			admitted.whenComplete((r, f) -> {
+				if (f == null) {
+					result.complete(r);
+				}
+				else {
+					result.completeExceptionally(AsyncCalls.unwrap(f));
+				}
+			});
+		});
+
+		return result;
+	}
+
+	/**
+	 * Performs a streamed call admitted by a guard.
+	 *
+	 * @param guard Admits the call, throwing if it's not permitted
+	 * @param invocationData Data to execute the call
+	 * @param call Call
+	 * @return {@link Stream} of the call, ending it when closed or read to the
+	 *         end
+	 */
+	static Stream<Object> callStream(Function<InvocationData, CallAdmission> guard, InvocationData invocationData, Function<InvocationData, Stream<Object>> call) {
+		CallAdmission admission = guard.apply(invocationData);
+		Stream<Object> stream;
+		try {
+			stream = call.apply(admission.invocationData);
+		}
+		catch (RuntimeException | Error e) {
+			admission.end(e);
+			throw e;
+		}
+
+		return StreamSupport.stream(new EndingSpliterator(stream.spliterator(), admission), false).onClose(() -> {
+			try {
+				stream.close();
+			}
+			finally {
+				admission.end(null);
+			}
+		});
+	}
+
+	/** Data to execute the admitted call. */
+	private final InvocationData invocationData;
+
+	/** Notified of the end of the call with its failure, null if none. */
+	private final Consumer<Throwable> onEnd;
+
+	/** Whether the call has ended. */
+	private final AtomicBoolean ended;
+
+	/**
+	 * Constructs a new CallAdmission.
+	 *
+	 * @param invocationData Data to execute the admitted call
+	 * @param onEnd Notified of the end of the call with its failure, null if
+	 *            none
+	 */
+	CallAdmission(InvocationData invocationData, Consumer<Throwable> onEnd) {
+		this.invocationData = invocationData;
+		this.onEnd = onEnd;
+		this.ended = new AtomicBoolean();
+	}
+
+	/**
+	 * Returns the data to execute the admitted call.
+	 *
+	 * @return Data to execute the call
+	 */
+	InvocationData getInvocationData() {
+		return this.invocationData;
+	}
+
+	/**
+	 * Ends the call, if not already ended.
+	 *
+	 * @param failure Failure of the call, null if none
+	 */
+	void end(Throwable failure) {
+		if (this.ended.compareAndSet(false, true)) {
+			this.onEnd.accept(AsyncCalls.unwrap(failure));
+		}
+	}
+
+	/**
+	 * <p>
+	 * {@link Spliterator} ending a streamed call when all its elements have
+	 * been read or reading them failed.
+	 * </p>
+	 *
+	 * @author Vincenzo Mazzeo
+	 * @version 1.0
+	 * @since 1.1.0
+	 */
+	private static final class EndingSpliterator implements Spliterator<Object> {
+
+		/** Elements of the call. */
+		private final Spliterator<Object> spliterator;
+
+		/** Admission of the call. */
+		private final CallAdmission admission;
+
+		/**
+		 * Constructs a new EndingSpliterator.
+		 *
+		 * @param spliterator Elements of the call
+		 * @param admission Admission of the call
+		 */
+		private EndingSpliterator(Spliterator<Object> spliterator, CallAdmission admission) {
+			this.spliterator = spliterator;
+			this.admission = admission;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.Spliterator#tryAdvance(java.util.function.Consumer)
+		 */
+		@Override
+		public boolean tryAdvance(Consumer<? super Object> action) {
+			boolean result;
+
+			try {
+				result = this.spliterator.tryAdvance(action);
+			}
+			catch (RuntimeException | Error e) {
+				this.admission.end(e);
+				throw e;
+			}
+			if (!result) {
+				this.admission.end(null);
+			}
+
+			return result;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.Spliterator#trySplit()
+		 */
+		@Override
+		public Spliterator<Object> trySplit() {
+			return null;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.Spliterator#estimateSize()
+		 */
+		@Override
+		public long estimateSize() {
+			return this.spliterator.estimateSize();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.Spliterator#characteristics()
+		 */
+		@Override
+		public int characteristics() {
+			return this.spliterator.characteristics() & ~(Spliterator.SUBSIZED | Spliterator.CONCURRENT);
+		}
+
+	}
+
+}
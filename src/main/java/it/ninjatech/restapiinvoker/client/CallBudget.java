@@ -0,0 +1,125 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * Budget limiting the additional calls, like the retries or the hedges, to a
+ * fraction of the calls.<br>
+ * Each call adds {@code ratio} tokens to a bucket holding at most
+ * {@code capacity} tokens, and each additional call takes one, so the
+ * additional calls are at most the ratio of the calls plus the initial
+ * capacity.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+final class CallBudget {
+
+	/** Thousandths of token taken by an additional call. */
+	private static final long TOKEN = 1000;
+
+	/** Thousandths of token added by each call. */
+	private final long deposit;
+
+	/** Capacity, in thousandths of token. */
+	private final long capacity;
+
+	/** Available tokens, in thousandths. */
+	private final AtomicLong tokens;
+
+	/** Number of additional calls denied. */
+	private final LongAdder exhaustedCount;
+
+	/**
+	 * Constructs a new CallBudget, initially full.
+	 *
+	 * @param ratio Tokens added by each call
+	 * @param capacity Maximum tokens
+	 */
+	CallBudget(double ratio, int capacity) {
+		if (ratio < 0 || capacity < 0) {
+			throw new RuntimeException(String.format("Invalid call budget: ratio %s, capacity %d", ratio, capacity));
+		}
+		this.deposit = Math.round(ratio * TOKEN);
+		this.capacity = capacity * TOKEN;
+		this.tokens = new AtomicLong(this.capacity);
+		this.exhaustedCount = new LongAdder();
+	}
+
+	/**
+	 * Adds the tokens of a call.
+	 */
+	void deposit() {
+		if (this.tokens.get() < this.capacity) {
+			this.tokens.accumulateAndGet(this.deposit, (t, d) -> Math.min(this.capacity, t + d));
+		}
+	}
+
+	/**
+	 * Takes the token of an additional call.
+	 *
+	 * @return true, if the additional call is allowed
+	 */
+	boolean withdraw() {
+		boolean result = false;
+
+		long tokens;
+		do {
+			tokens = this.tokens.get();
+			if (tokens < TOKEN) {
+				this.exhaustedCount.increment();
+				break;
+			}
+			result = this.tokens.compareAndSet(tokens, tokens - TOKEN);
+		}
+		while (!result);
+
+		return result;
+	}
+
+	/**
+	 * Returns the available tokens.
+	 *
+	 * @return Tokens
+	 */
+	double getTokens() {
+		return (double) this.tokens.get() / TOKEN;
+	}
+
+	/**
+	 * Returns the number of additional calls denied.
+	 *
+	 * @return Exhausted count
+	 */
+	long getExhaustedCount() {
+		return this.exhaustedCount.sum();
+	}
+
+}
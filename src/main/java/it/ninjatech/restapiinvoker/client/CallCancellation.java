@@ -0,0 +1,109 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * Cancellation of a call performed by a thread, aborting the request the call
+ * is sending.<br>
+ * While the call is performed, the cancellation is bound to the thread, and
+ * the {@link DefaultHttpRestClient} registers on it the abortion of each
+ * request it sends, so that a cancelled call doesn't keep its connection
+ * until the response arrives. The calls of the other clients are stopped
+ * only by the interruption of the thread.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+final class CallCancellation {
+
+	/** Cancellation of the call performed by the current thread. */
+	private static final ThreadLocal<CallCancellation> CURRENT_CANCELLATION = new ThreadLocal<>();
+
+	/**
+	 * Registers the abortion of a request sent by the current thread, if it's
+	 * performing a cancellable call.
+	 *
+	 * @param abortion Aborts the request
+	 */
+	static void register(Runnable abortion) {
+		CallCancellation cancellation = CURRENT_CANCELLATION.get();
+		if (cancellation != null) {
+			cancellation.setAbortion(abortion);
+		}
+	}
+
+	/** Aborts the request being sent, null if none. */
+	private Runnable abortion;
+
+	/** Whether the call has been cancelled. */
+	private boolean cancelled;
+
+	/**
+	 * Performs the call, binding the cancellation to the current thread.
+	 *
+	 * @param <T> Type of the result
+	 * @param call Call
+	 * @return Result of the call
+	 */
+	<T> T run(Supplier<T> call) {
+		CallCancellation previous = CURRENT_CANCELLATION.get();
+		CURRENT_CANCELLATION.set(this);
+		try {
+			return call.get();
+		}
+		finally {
+			CURRENT_CANCELLATION.set(previous);
+			setAbortion(null);
+		}
+	}
+
+	/**
+	 * Cancels the call, aborting the request being sent.
+	 */
+	synchronized void cancel() {
+		this.cancelled = true;
+		if (this.abortion != null) {
+			this.abortion.run();
+		}
+	}
+
+	/**
+	 * Sets the abortion of the request being sent, running it if the call has
+	 * already been cancelled.
+	 *
+	 * @param abortion Aborts the request, null if none
+	 */
+	private synchronized void setAbortion(Runnable abortion) {
+		this.abortion = abortion;
+		if (this.cancelled && abortion != null) {
+			abortion.run();
+		}
+	}
+
+}
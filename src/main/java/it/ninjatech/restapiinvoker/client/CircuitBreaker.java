@@ -0,0 +1,333 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * Lock-free circuit breaker of an endpoint of a REST service.<br>
+ * While {@link State#CLOSED} the outcomes of the calls are recorded in a
+ * sliding window of time buckets, and the circuit opens when the failure rate
+ * or the slow call rate reaches its threshold. While {@link State#OPEN} the
+ * calls are not permitted; after the open duration the circuit becomes
+ * {@link State#HALF_OPEN}, permitting a fixed number of probe calls: it closes
+ * again if all of them succeed, and opens again at the first failure.
+ * </p>
+ * <p>
+ * The buckets are recycled without locking, so a call recorded while its
+ * bucket is recycled may be lost: the rates are approximate, which is all a
+ * circuit breaker needs.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public final class CircuitBreaker {
+
+	/**
+	 * <p>
+	 * State of a {@link CircuitBreaker}.
+	 * </p>
+	 *
+	 * @author Vincenzo Mazzeo
+	 * @version 1.0
+	 * @since 1.1.0
+	 */
+	public enum State {
+
+		/** Calls permitted and recorded. */
+		CLOSED,
+		/** Calls not permitted. */
+		OPEN,
+		/** Probe calls permitted. */
+		HALF_OPEN;
+
+	}
+
+	/** States by ordinal. */
+	private static final State[] STATES = State.values();
+
+	/** Configuration. */
+	private final CircuitBreakerConfiguration configuration;
+
+	/** Time the epochs are measured from, in nanoseconds. */
+	private final long baseTime;
+
+	/** Duration of a bucket of the window, in nanoseconds. */
+	private final long bucketDuration;
+
+	/** Duration above which a call is slow, in nanoseconds. */
+	private final long slowCallDuration;
+
+	/** Buckets of the sliding window. */
+	private final Bucket[] buckets;
+
+	/** Ordinal of the state. */
+	private final AtomicInteger state;
+
+	/** Time the circuit opened, in nanoseconds. */
+	private volatile long openTime;
+
+	/** Probe calls still permitted in half open state. */
+	private final AtomicInteger halfOpenPermits;
+
+	/** Successful probe calls in half open state. */
+	private final AtomicInteger halfOpenSuccesses;
+
+	/** Number of calls not permitted. */
+	private final LongAdder notPermittedCount;
+
+	/**
+	 * Constructs a new CircuitBreaker, initially closed.
+	 *
+	 * @param configuration Configuration
+	 */
+	CircuitBreaker(CircuitBreakerConfiguration configuration) {
+		this.configuration = configuration;
+		this.baseTime = System.nanoTime();
+		this.bucketDuration = TimeUnit.MILLISECONDS.toNanos(configuration.getWindow()) / CircuitBreakerConfiguration.WINDOW_BUCKETS;
+		this.slowCallDuration = TimeUnit.MILLISECONDS.toNanos(configuration.getSlowCallDuration());
+		this.buckets = new Bucket[CircuitBreakerConfiguration.WINDOW_BUCKETS];
+		for (int i = 0; i < this.buckets.length; i++) {
+			this.buckets[i] = new Bucket();
+		}
+		this.state = new AtomicInteger(State.CLOSED.ordinal());
+		this.halfOpenPermits = new AtomicInteger();
+		this.halfOpenSuccesses = new AtomicInteger();
+		this.notPermittedCount = new LongAdder();
+	}
+
+	/**
+	 * Returns the state.
+	 *
+	 * @return State
+	 */
+	public State getState() {
+		return STATES[this.state.get()];
+	}
+
+	/**
+	 * Returns the failure rate in the sliding window.
+	 *
+	 * @return Failure rate in percent, -1 if the window holds less than the
+	 *         minimum calls
+	 */
+	public double getFailureRate() {
+		long[] counts = count(System.nanoTime());
+
+		return counts[0] < this.configuration.getMinimumCalls() ? -1 : counts[1] * 100d / counts[0];
+	}
+
+	/**
+	 * Returns the slow call rate in the sliding window.
+	 *
+	 * @return Slow call rate in percent, -1 if the window holds less than the
+	 *         minimum calls
+	 */
+	public double getSlowCallRate() {
+		long[] counts = count(System.nanoTime());
+
+		return counts[0] < this.configuration.getMinimumCalls() ? -1 : counts[2] * 100d / counts[0];
+	}
+
+	/**
+	 * Returns the number of calls not permitted.
+	 *
+	 * @return Not permitted count
+	 */
+	public long getNotPermittedCount() {
+		return this.notPermittedCount.sum();
+	}
+
+	/**
+	 * Acquires the permission to perform a call.
+	 *
+	 * @return true, if the call is permitted
+	 */
+	boolean tryAcquire() {
+		boolean result = true;
+
+		int state = this.state.get();
+		if (state == State.OPEN.ordinal()) {
+			if (System.nanoTime() - this.openTime >= TimeUnit.MILLISECONDS.toNanos(this.configuration.getOpenDuration())) {
+				this.state.compareAndSet(state, State.HALF_OPEN.ordinal());
+				state = this.state.get();
+			}
+		}
+		if (state == State.OPEN.ordinal()) {
+			result = false;
+		}
+		else if (state == State.HALF_OPEN.ordinal()) {
+			result = this.halfOpenPermits.getAndUpdate(p -> p > 0 ? p - 1 : 0) > 0;
+		}
+		if (!result) {
+			this.notPermittedCount.increment();
+		}
+
+		return result;
+	}
+
+	/**
+	 * Records the outcome of a permitted call.
+	 *
+	 * @param duration Duration of the call, in nanoseconds
+	 * @param failure Whether the call failed
+	 */
+	void onResult(long duration, boolean failure) {
+		boolean slow = duration >= this.slowCallDuration;
+		int state = this.state.get();
+		if (state == State.HALF_OPEN.ordinal()) {
+			if (failure || slow) {
+				open(state);
+			}
+			else if (this.halfOpenSuccesses.incrementAndGet() == this.configuration.getHalfOpenCalls()) {
+				for (Bucket bucket : this.buckets) {
+					bucket.epoch.set(-1);
+				}
+				this.state.compareAndSet(state, State.CLOSED.ordinal());
+			}
+		}
+		else if (state == State.CLOSED.ordinal()) {
+			long now = System.nanoTime();
+			record(now, failure, slow);
+			if ((failure || slow) && isTripped(count(now))) {
+				open(state);
+			}
+		}
+	}
+
+	/**
+	 * Opens the circuit, if still in the expected state.
+	 *
+	 * @param expectedState Expected state
+	 */
+	private void open(int expectedState) {
+		this.halfOpenPermits.set(this.configuration.getHalfOpenCalls());
+		this.halfOpenSuccesses.set(0);
+		this.openTime = System.nanoTime();
+		this.state.compareAndSet(expectedState, State.OPEN.ordinal());
+	}
+
+	/**
+	 * Checks if the counts of the window trip the circuit.
+	 *
+	 * @param counts Total, failed and slow calls
+	 * @return true, if the circuit must open
+	 */
+	private boolean isTripped(long[] counts) {
+		return counts[0] >= this.configuration.getMinimumCalls()
+		       && (counts[1] * 100d / counts[0] >= this.configuration.getFailureRateThreshold()
+		           || counts[2] * 100d / counts[0] >= this.configuration.getSlowCallRateThreshold());
+	}
+
+	/**
+	 * Records a call in its bucket, recycling the bucket if it belongs to an
+	 * elapsed window.
+	 *
+	 * @param now Current time, in nanoseconds
+	 * @param failure Whether the call failed
+	 * @param slow Whether the call was slow
+	 */
+	private void record(long now, boolean failure, boolean slow) {
+		long epoch = getEpoch(now);
+		Bucket bucket = this.buckets[(int) (epoch % this.buckets.length)];
+		long bucketEpoch = bucket.epoch.get();
+		if (bucketEpoch != epoch && bucket.epoch.compareAndSet(bucketEpoch, epoch)) {
+			bucket.total.reset();
+			bucket.failures.reset();
+			bucket.slow.reset();
+		}
+		bucket.total.increment();
+		if (failure) {
+			bucket.failures.increment();
+		}
+		if (slow) {
+			bucket.slow.increment();
+		}
+	}
+
+	/**
+	 * Gets the epoch of a time, that is the number of bucket durations elapsed
+	 * since the construction, never negative even if the nanosecond clock is.
+	 *
+	 * @param now Current time, in nanoseconds
+	 * @return Epoch
+	 */
+	private long getEpoch(long now) {
+		return (now - this.baseTime) / this.bucketDuration;
+	}
+
+	/**
+	 * Counts the calls in the sliding window.
+	 *
+	 * @param now Current time, in nanoseconds
+	 * @return Total, failed and slow calls
+	 */
+	private long[] count(long now) {
+		long[] result = new long[3];
+
+		long epoch = getEpoch(now);
+		for (Bucket bucket : this.buckets) {
+			long bucketEpoch = bucket.epoch.get();
+			if (bucketEpoch >= 0 && epoch - bucketEpoch < this.buckets.length) {
+				result[0] += bucket.total.sum();
+				result[1] += bucket.failures.sum();
+				result[2] += bucket.slow.sum();
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Bucket of the sliding window.
+	 * </p>
+	 *
+	 * @author Vincenzo Mazzeo
+	 * @version 1.0
+	 * @since 1.1.0
+	 */
+	private static final class Bucket {
+
+		/** Epoch of the calls, -1 if unused. */
+		private final AtomicLong epoch = new AtomicLong(-1);
+
+		/** Calls. */
+		private final LongAdder total = new LongAdder();
+
+		/** Failed calls. */
+		private final LongAdder failures = new LongAdder();
+
+		/** Slow calls. */
+		private final LongAdder slow = new LongAdder();
+
+	}
+
+}
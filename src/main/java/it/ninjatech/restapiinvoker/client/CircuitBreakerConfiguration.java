@@ -0,0 +1,323 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+/**
+ * <p>
+ * Configuration of the {@link CircuitBreaker}s of a
+ * {@link CircuitBreakingHttpRestClient}.<br>
+ * The failure and slow call rates are computed over a sliding window of
+ * {@link #getWindow()} millis, made of {@value #WINDOW_BUCKETS} buckets, once
+ * it contains at least {@link #getMinimumCalls()} calls.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public final class CircuitBreakerConfiguration {
+
+	/** Number of buckets of the sliding window. */
+	public static final int WINDOW_BUCKETS = 10;
+
+	/** Default failure rate, in percent, opening the circuit. */
+	public static final double DEFAULT_FAILURE_RATE_THRESHOLD = 50;
+
+	/** Default slow call rate, in percent, opening the circuit. */
+	public static final double DEFAULT_SLOW_CALL_RATE_THRESHOLD = 80;
+
+	/** Default duration, in millis, above which a call is slow. */
+	public static final long DEFAULT_SLOW_CALL_DURATION = 5_000;
+
+	/** Default duration, in millis, of the sliding window. */
+	public static final long DEFAULT_WINDOW = 10_000;
+
+	/** Default minimum number of calls in the window to compute the rates. */
+	public static final int DEFAULT_MINIMUM_CALLS = 20;
+
+	/** Default time, in millis, the circuit stays open. */
+	public static final long DEFAULT_OPEN_DURATION = 10_000;
+
+	/** Default number of probe calls permitted in half open state. */
+	public static final int DEFAULT_HALF_OPEN_CALLS = 5;
+
+	/**
+	 * Makes a new builder, initialized with the default values.
+	 *
+	 * @return Builder
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/** Failure rate, in percent, opening the circuit. */
+	private final double failureRateThreshold;
+
+	/** Slow call rate, in percent, opening the circuit. */
+	private final double slowCallRateThreshold;
+
+	/** Duration, in millis, above which a call is slow. */
+	private final long slowCallDuration;
+
+	/** Duration, in millis, of the sliding window. */
+	private final long window;
+
+	/** Minimum number of calls in the window to compute the rates. */
+	private final int minimumCalls;
+
+	/** Time, in millis, the circuit stays open. */
+	private final long openDuration;
+
+	/** Number of probe calls permitted in half open state. */
+	private final int halfOpenCalls;
+
+	/**
+	 * Constructs a new CircuitBreakerConfiguration.
+	 *
+	 * @param builder Builder
+	 */
+	private CircuitBreakerConfiguration(Builder builder) {
+		this.failureRateThreshold = builder.failureRateThreshold;
+		this.slowCallRateThreshold = builder.slowCallRateThreshold;
+		this.slowCallDuration = builder.slowCallDuration;
+		this.window = builder.window;
+		this.minimumCalls = builder.minimumCalls;
+		this.openDuration = builder.openDuration;
+		this.halfOpenCalls = builder.halfOpenCalls;
+	}
+
+	/**
+	 * Returns the failure rate opening the circuit.
+	 *
+	 * @return Failure rate threshold, in percent
+	 */
+	public double getFailureRateThreshold() {
+		return this.failureRateThreshold;
+	}
+
+	/**
+	 * Returns the slow call rate opening the circuit.
+	 *
+	 * @return Slow call rate threshold, in percent
+	 */
+	public double getSlowCallRateThreshold() {
+		return this.slowCallRateThreshold;
+	}
+
+	/**
+	 * Returns the duration above which a call is slow.
+	 *
+	 * @return Slow call duration, in millis
+	 */
+	public long getSlowCallDuration() {
+		return this.slowCallDuration;
+	}
+
+	/**
+	 * Returns the duration of the sliding window.
+	 *
+	 * @return Window, in millis
+	 */
+	public long getWindow() {
+		return this.window;
+	}
+
+	/**
+	 * Returns the minimum number of calls in the window to compute the rates.
+	 *
+	 * @return Minimum calls
+	 */
+	public int getMinimumCalls() {
+		return this.minimumCalls;
+	}
+
+	/**
+	 * Returns the time the circuit stays open before permitting the probe
+	 * calls.
+	 *
+	 * @return Open duration, in millis
+	 */
+	public long getOpenDuration() {
+		return this.openDuration;
+	}
+
+	/**
+	 * Returns the number of probe calls permitted in half open state, all of
+	 * which have to succeed to close the circuit.
+	 *
+	 * @return Half open calls
+	 */
+	public int getHalfOpenCalls() {
+		return this.halfOpenCalls;
+	}
+
+	/**
+	 * <p>
+	 * Builder of the {@link CircuitBreakerConfiguration}.
+	 * </p>
+	 *
+	 * @author Vincenzo Mazzeo
+	 * @version 1.0
+	 * @since 1.1.0
+	 */
+	public static final class Builder {
+
+		/** Failure rate, in percent, opening the circuit. */
+		private double failureRateThreshold;
+
+		/** Slow call rate, in percent, opening the circuit. */
+		private double slowCallRateThreshold;
+
+		/** Duration, in millis, above which a call is slow. */
+		private long slowCallDuration;
+
+		/** Duration, in millis, of the sliding window. */
+		private long window;
+
+		/** Minimum number of calls in the window to compute the rates. */
+		private int minimumCalls;
+
+		/** Time, in millis, the circuit stays open. */
+		private long openDuration;
+
+		/** Number of probe calls permitted in half open state. */
+		private int halfOpenCalls;
+
+		/**
+		 * Constructs a new Builder.
+		 */
+		private Builder() {
+			this.failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+			this.slowCallRateThreshold = DEFAULT_SLOW_CALL_RATE_THRESHOLD;
+			this.slowCallDuration = DEFAULT_SLOW_CALL_DURATION;
+			this.window = DEFAULT_WINDOW;
+			this.minimumCalls = DEFAULT_MINIMUM_CALLS;
+			this.openDuration = DEFAULT_OPEN_DURATION;
+			this.halfOpenCalls = DEFAULT_HALF_OPEN_CALLS;
+		}
+
+		/**
+		 * Builds the configuration.
+		 *
+		 * @return {@link CircuitBreakerConfiguration}
+		 */
+		public CircuitBreakerConfiguration build() {
+			if (this.window < WINDOW_BUCKETS || this.minimumCalls < 1 || this.openDuration < 0 || this.halfOpenCalls < 1) {
+				throw new RuntimeException(String.format("Invalid circuit breaker configuration: window %d, minimum calls %d, open duration %d, half open calls %d",
+				                                         this.window,
+				                                         this.minimumCalls,
+				                                         this.openDuration,
+				                                         this.halfOpenCalls));
+			}
+
+			return new CircuitBreakerConfiguration(this);
+		}
+
+		/**
+		 * Sets the failure rate opening the circuit.
+		 *
+		 * @param failureRateThreshold Failure rate threshold, in percent
+		 * @return This instance
+		 */
+		public Builder failureRateThreshold(double failureRateThreshold) {
+			this.failureRateThreshold = failureRateThreshold;
+
+			return this;
+		}
+
+		/**
+		 * Sets the slow call rate opening the circuit.
+		 *
+		 * @param slowCallRateThreshold Slow call rate threshold, in percent
+		 * @return This instance
+		 */
+		public Builder slowCallRateThreshold(double slowCallRateThreshold) {
+			this.slowCallRateThreshold = slowCallRateThreshold;
+
+			return this;
+		}
+
+		/**
+		 * Sets the duration above which a call is slow.
+		 *
+		 * @param slowCallDuration Slow call duration, in millis
+		 * @return This instance
+		 */
+		public Builder slowCallDuration(long slowCallDuration) {
+			this.slowCallDuration = slowCallDuration;
+
+			return this;
+		}
+
+		/**
+		 * Sets the duration of the sliding window.
+		 *
+		 * @param window Window, in millis
+		 * @return This instance
+		 */
+		public Builder window(long window) {
+			this.window = window;
+
+			return this;
+		}
+
+		/**
+		 * Sets the minimum number of calls in the window to compute the rates.
+		 *
+		 * @param minimumCalls Minimum calls
+		 * @return This instance
+		 */
+		public Builder minimumCalls(int minimumCalls) {
+			this.minimumCalls = minimumCalls;
+
+			return this;
+		}
+
+		/**
+		 * Sets the time the circuit stays open.
+		 *
+		 * @param openDuration Open duration, in millis
+		 * @return This instance
+		 */
+		public Builder openDuration(long openDuration) {
+			this.openDuration = openDuration;
+
+			return this;
+		}
+
+		/**
+		 * Sets the number of probe calls permitted in half open state.
+		 *
+		 * @param halfOpenCalls Half open calls
+		 * @return This instance
+		 */
+		public Builder halfOpenCalls(int halfOpenCalls) {
+			this.halfOpenCalls = halfOpenCalls;
+
+			return this;
+		}
+
+	}
+
+}
@@ -0,0 +1,65 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * <p>
+ * Exception thrown, without performing the call, when the circuit of the
+ * endpoint is open.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ * @see CircuitBreakingHttpRestClient
+ */
+public class CircuitBreakerOpenException extends RestClientException {
+
+	private static final long serialVersionUID = 1L;
+
+	/** Key of the circuit, that is base path and endpoint. */
+	private final String circuit;
+
+	/**
+	 * Constructs a new CircuitBreakerOpenException.
+	 *
+	 * @param circuit Key of the circuit
+	 */
+	public CircuitBreakerOpenException(String circuit) {
+		super(String.format("Circuit %s is open", circuit));
+		this.circuit = circuit;
+	}
+
+	/**
+	 * Returns the key of the open circuit.
+	 *
+	 * @return Base path and endpoint
+	 */
+	public String getCircuit() {
+		return this.circuit;
+	}
+
+}
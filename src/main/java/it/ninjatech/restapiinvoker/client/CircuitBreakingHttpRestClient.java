@@ -0,0 +1,222 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+
+import it.ninjatech.restapiinvoker.invocationdata.InvocationData;
+import reactor.core.publisher.Flux;
+
+/**
+ * <p>
+ * Decorator of an {@link HttpRestClient} guarding each endpoint of the REST
+ * services with a {@link CircuitBreaker}.<br>
+ * The circuits are keyed by base path and endpoint template, so all the calls
+ * of the same endpoint share a circuit whatever their path parameters. A call
+ * failed if it threw a {@link ResourceAccessException}, that is an I/O error,
+ * or a {@link RestClientResponseException} with a server error status; the
+ * client errors prove the REST service is working. The calls of an open
+ * circuit fail fast with a {@link CircuitBreakerOpenException}.<br>
+ * The asynchronous and reactive calls are measured until completed, the
+ * streamed ones until their stream is closed or read to the end.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public class CircuitBreakingHttpRestClient extends HttpRestClientDecorator {
+
+	/** Configuration of the circuit breakers. */
+	private final CircuitBreakerConfiguration configuration;
+
+	/** Circuit breakers by base path and endpoint. */
+	private final Map<String, CircuitBreaker> circuitBreakers;
+
+	/**
+	 * Constructs a new {@link CircuitBreakingHttpRestClient} with the default
+	 * configuration.
+	 * 
+	 * @param httpRestClient Decorated {@link HttpRestClient}
+	 */
+	public CircuitBreakingHttpRestClient(HttpRestClient httpRestClient) {
+		this(httpRestClient, CircuitBreakerConfiguration.builder().build());
+	}
+
+	/**
+	 * Constructs a new {@link CircuitBreakingHttpRestClient}.
+	 * 
+	 * @param httpRestClient Decorated {@link HttpRestClient}
+	 * @param configuration Configuration of the circuit breakers
+	 */
+	public CircuitBreakingHttpRestClient(HttpRestClient httpRestClient, CircuitBreakerConfiguration configuration) {
+		super(httpRestClient);
+		this.configuration = configuration;
+		this.circuitBreakers = new ConcurrentHashMap<>();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see it.ninjatech.restapiinvoker.client.HttpRestClient#exchange(it.ninjatech.
+	 * restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Object exchange(InvocationData invocationData) {
+		return CallAdmission.call(this::admit, invocationData, this.httpRestClient::exchange);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.HttpRestClient#exchangeForEntity(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public ResponseEntity<?> exchangeForEntity(InvocationData invocationData) {
+		return CallAdmission.call(this::admit, invocationData, this.httpRestClient::exchangeForEntity);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.AsyncHttpRestClient#exchangeAsync(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public CompletableFuture<Object> exchangeAsync(InvocationData invocationData) {
+		return CallAdmission.callAsync(this::admit, invocationData, this::forwardAsync);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.AsyncHttpRestClient#exchangeForEntityAsync
+	 * (it.ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public CompletableFuture<ResponseEntity<?>> exchangeForEntityAsync(InvocationData invocationData) {
+		return CallAdmission.callAsync(this::admit, invocationData, this::forwardEntityAsync);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.ReactiveHttpRestClient#exchangeFlux(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Flux<Object> exchangeFlux(InvocationData invocationData) {
+		return ReactiveCalls.callFlux(this::admit, invocationData, this::forwardFlux);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.StreamingHttpRestClient#exchangeStream(
+	 * it.ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Stream<Object> exchangeStream(InvocationData invocationData) {
+		return CallAdmission.callStream(this::admit, invocationData, this::forwardStream);
+	}
+
+	/**
+	 * Returns the circuit breaker of an endpoint.
+	 * 
+	 * @param basePath Base path
+	 * @param endpoint Endpoint template
+	 * @return {@link CircuitBreaker}, null if the endpoint has not been called
+	 */
+	public CircuitBreaker getCircuitBreaker(String basePath, String endpoint) {
+		return this.circuitBreakers.get(getKey(basePath, endpoint));
+	}
+
+	/**
+	 * Returns the circuit breakers of the endpoints called so far.
+	 * 
+	 * @return Unmodifiable view of the circuit breakers by base path and
+	 *         endpoint
+	 */
+	public Map<String, CircuitBreaker> getCircuitBreakers() {
+		return Collections.unmodifiableMap(this.circuitBreakers);
+	}
+
+	/**
+	 * Admits the call, if permitted by the circuit breaker of its endpoint.
+	 * 
+	 * @param invocationData Data to execute the call
+	 * @return Admission of the call
+	 */
+	private CallAdmission admit(InvocationData invocationData) {
+		String key = getKey(invocationData.getBasePath(), invocationData.getInvocationPlan().getEndpoint());
+		CircuitBreaker circuitBreaker = this.circuitBreakers.get(key);
+		if (circuitBreaker == null) {
+			circuitBreaker = this.circuitBreakers.computeIfAbsent(key, k -> new CircuitBreaker(this.configuration));
+		}
+		if (!circuitBreaker.tryAcquire()) {
+			throw new CircuitBreakerOpenException(key);
+		}
+		CircuitBreaker admittingCircuitBreaker = circuitBreaker;
+		long startTime = System.nanoTime();
+
+		return new CallAdmission(invocationData, f -> admittingCircuitBreaker.onResult(System.nanoTime() - startTime, f != null && isFailure(f)));
+	}
+
+	/**
+	 * Checks if an exception is a failure of the REST service.
+	 * 
+	 * @param exception Exception thrown by the call
+	 * @return true, if the call failed
+	 */
+	private static boolean isFailure(Throwable exception) {
+		return exception instanceof ResourceAccessException
+		       || (exception instanceof RestClientResponseException && ((RestClientResponseException) exception).getRawStatusCode() >= 500);
+	}
+
+	/**
+	 * Gets the key of the circuit of an endpoint.
+	 * 
+	 * @param basePath Base path
+	 * @param endpoint Endpoint template
+	 * @return Key
+	 */
+	private static String getKey(String basePath, String endpoint) {
+		return basePath.endsWith("/") || endpoint.startsWith("/") ? basePath + endpoint : basePath + "/" + endpoint;
+	}
+
+}
@@ -0,0 +1,121 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * <p>
+ * {@link ClientHttpRequest} delegating to the actual request, passed to the
+ * request callbacks to alter the writing of the body.<br>
+ * The decorated requests are executed by the RestTemplate, never through the
+ * decorator.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+class ClientHttpRequestDecorator implements ClientHttpRequest {
+
+	/** Actual request. */
+	protected final ClientHttpRequest request;
+
+	/**
+	 * Constructs a new ClientHttpRequestDecorator.
+	 *
+	 * @param request Actual request
+	 */
+	ClientHttpRequestDecorator(ClientHttpRequest request) {
+		this.request = request;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.springframework.http.HttpRequest#getMethod()
+	 */
+	@Override
+	public HttpMethod getMethod() {
+		return this.request.getMethod();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.springframework.http.HttpRequest#getMethodValue()
+	 */
+	@Override
+	public String getMethodValue() {
+		return this.request.getMethodValue();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.springframework.http.HttpRequest#getURI()
+	 */
+	@Override
+	public URI getURI() {
+		return this.request.getURI();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.springframework.http.HttpMessage#getHeaders()
+	 */
+	@Override
+	public HttpHeaders getHeaders() {
+		return this.request.getHeaders();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.springframework.http.HttpOutputMessage#getBody()
+	 */
+	@Override
+	public OutputStream getBody() throws IOException {
+		return this.request.getBody();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.springframework.http.client.ClientHttpRequest#execute()
+	 */
+	@Override
+	public ClientHttpResponse execute() throws IOException {
+		throw new UnsupportedOperationException("The request is executed by the RestTemplate");
+	}
+
+}
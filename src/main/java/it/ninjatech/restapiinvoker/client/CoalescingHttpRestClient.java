@@ -0,0 +1,353 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+
+import it.ninjatech.restapiinvoker.invocationdata.InvocationData;
+import reactor.core.publisher.Flux;
+
+/**
+ * <p>
+ * Decorator of an {@link HttpRestClient} coalescing the identical concurrent
+ * calls.<br>
+ * While a GET or HEAD call without body is in flight, the identical calls wait
+ * for its response instead of calling the decorated client, so a burst of
+ * calls for the same resource reaches the REST service once. Two calls are
+ * identical if they have the same method, URI (that is the base path and the
+ * endpoint with the path and query params resolved), response body type and
+ * key headers. By default all the request headers are key headers, otherwise
+ * only the provided ones are: calls differing only in the other headers (e.g.
+ * <code>Authorization</code>) share the same response.<br>
+ * The synchronous, asynchronous and reactive calls returning a whole response
+ * are coalesced together, while the streamed and the {@link Flux} calls,
+ * whose elements cannot be shared, are not coalesced.
+ * </p>
+ * <p>
+ * The response, or the exception, is shared among the coalesced callers, so
+ * its body must not be modified.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public class CoalescingHttpRestClient extends HttpRestClientDecorator {
+
+	/** Names of the key headers, null for all the headers. */
+	private final List<String> keyHeaderNames;
+
+	/** Calls in flight by key. */
+	private final ConcurrentMap<String, CompletableFuture<ResponseEntity<?>>> inFlightCalls;
+
+	/** Number of calls served by a call in flight. */
+	private final LongAdder coalescedCount;
+
+	/**
+	 * Constructs a new {@link CoalescingHttpRestClient} using all the request
+	 * headers as key headers.
+	 * 
+	 * @param httpRestClient Decorated {@link HttpRestClient}
+	 */
+	public CoalescingHttpRestClient(HttpRestClient httpRestClient) {
+		this(httpRestClient, (List<String>) null);
+	}
+
+	/**
+	 * Constructs a new {@link CoalescingHttpRestClient}.
+	 * 
+	 * @param httpRestClient Decorated {@link HttpRestClient}
+	 * @param keyHeaderNames Names of the key headers
+	 */
+	public CoalescingHttpRestClient(HttpRestClient httpRestClient, String... keyHeaderNames) {
+		this(httpRestClient, Arrays.asList(keyHeaderNames));
+	}
+
+	/**
+	 * Constructs a new {@link CoalescingHttpRestClient}.
+	 * 
+	 * @param httpRestClient Decorated {@link HttpRestClient}
+	 * @param keyHeaderNames Names of the key headers, null for all the headers
+	 */
+	private CoalescingHttpRestClient(HttpRestClient httpRestClient, List<String> keyHeaderNames) {
+		super(httpRestClient);
+		this.keyHeaderNames = keyHeaderNames;
+		this.inFlightCalls = new ConcurrentHashMap<>();
+		this.coalescedCount = new LongAdder();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see it.ninjatech.restapiinvoker.client.HttpRestClient#exchange(it.ninjatech.
+	 * restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Object exchange(InvocationData invocationData) {
+		Object result;
+
+		if (isCoalescible(invocationData)) {
+			ResponseEntity<?> responseEntity = exchangeCoalesced(invocationData);
+			result = invocationData.isResponseEntity() ? responseEntity : responseEntity.getBody();
+		}
+		else {
+			result = this.httpRestClient.exchange(invocationData);
+		}
+
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.HttpRestClient#exchangeForEntity(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public ResponseEntity<?> exchangeForEntity(InvocationData invocationData) {
+		return isCoalescible(invocationData) ? exchangeCoalesced(invocationData) : this.httpRestClient.exchangeForEntity(invocationData);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.AsyncHttpRestClient#exchangeAsync(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public CompletableFuture<Object> exchangeAsync(InvocationData invocationData) {
+		CompletableFuture<Object> result;
+
+		if (isCoalescible(invocationData)) {
+			result = exchangeCoalescedAsync(invocationData).thenApply(r -> invocationData.isResponseEntity() ? r : r.getBody());
+		}
+		else {
+			result = forwardAsync(invocationData);
+		}
+
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.AsyncHttpRestClient#exchangeForEntityAsync
+	 * (it.ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public CompletableFuture<ResponseEntity<?>> exchangeForEntityAsync(InvocationData invocationData) {
+		return isCoalescible(invocationData) ? exchangeCoalescedAsync(invocationData) : forwardEntityAsync(invocationData);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.ReactiveHttpRestClient#exchangeFlux(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Flux<Object> exchangeFlux(InvocationData invocationData) {
+		return forwardFlux(invocationData);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.StreamingHttpRestClient#exchangeStream(
+	 * it.ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Stream<Object> exchangeStream(InvocationData invocationData) {
+		return forwardStream(invocationData);
+	}
+
+	/**
+	 * Returns the number of calls served by a call in flight.
+	 * 
+	 * @return Coalesced count
+	 */
+	public long getCoalescedCount() {
+		return this.coalescedCount.sum();
+	}
+
+	/**
+	 * Returns the number of distinct calls in flight.
+	 * 
+	 * @return In flight count
+	 */
+	public int getInFlightCount() {
+		return this.inFlightCalls.size();
+	}
+
+	/**
+	 * Executes the call, or waits for the identical one in flight.
+	 * 
+	 * @param invocationData Data to execute the call
+	 * @return Response of the call
+	 */
+	private ResponseEntity<?> exchangeCoalesced(InvocationData invocationData) {
+		ResponseEntity<?> result;
+
+		String key = makeKey(invocationData);
+		CompletableFuture<ResponseEntity<?>> call = new CompletableFuture<>();
+		CompletableFuture<ResponseEntity<?>> inFlightCall = this.inFlightCalls.putIfAbsent(key, call);
+		if (inFlightCall == null) {
+			try {
+				result = this.httpRestClient.exchangeForEntity(invocationData);
+				this.inFlightCalls.remove(key, call);
+				call.complete(result);
+			}
+			catch (RuntimeException | Error e) {
+				this.inFlightCalls.remove(key, call);
+				call.completeExceptionally(e);
+				throw e;
+			}
+		}
+		else {
+			this.coalescedCount.increment();
+			try {
+				result = inFlightCall.join();
+			}
+			catch (CompletionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				if (e.getCause() instanceof Error) {
+					throw (Error) e.getCause();
+				}
+				throw e;
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Executes the call asynchronously, or waits for the identical one in
+	 * flight.<br>
+	 * Each caller gets its own future, so that cancelling it does not affect
+	 * the coalesced callers.
+	 * 
+	 * @param invocationData Data to execute the call
+	 * @return Future completed with the response of the call
+	 */
+	private CompletableFuture<ResponseEntity<?>> exchangeCoalescedAsync(InvocationData invocationData) {
+		CompletableFuture<ResponseEntity<?>> result;
+
+		String key = makeKey(invocationData);
+		CompletableFuture<ResponseEntity<?>> call = new CompletableFuture<>();
+		CompletableFuture<ResponseEntity<?>> inFlightCall = this.inFlightCalls.putIfAbsent(key, call);
+		if (inFlightCall == null) {
+			AsyncCalls.start(() -> forwardEntityAsync(invocationData)).whenComplete((r, e) -> {
+				this.inFlightCalls.remove(key, call);
+				if (e != null) {
+					call.completeExceptionally(AsyncCalls.unwrap(e));
+				}
+				else {
+					call.complete(r);
+				}
+			});
+			result = call.thenApply(Function.identity());
+		}
+		else {
+			this.coalescedCount.increment();
+			result = inFlightCall.thenApply(Function.identity());
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns if the call can be coalesced.
+	 * 
+	 * @param invocationData Data to execute the call
+	 * @return true, if the call is a GET or HEAD without body
+	 */
+	private static boolean isCoalescible(InvocationData invocationData) {
+		return (invocationData.getHttpMethod() == HttpMethod.GET || invocationData.getHttpMethod() == HttpMethod.HEAD)
+		       && invocationData.getRequestBody() == null;
+	}
+
+	/**
+	 * Makes the key of the call.
+	 * 
+	 * @param invocationData Data to execute the call
+	 * @return Key
+	 */
+	private String makeKey(InvocationData invocationData) {
+		StringBuilder result = new StringBuilder(128);
+
+		result.append(invocationData.getHttpMethod().name())
+		      .append(' ')
+		      .append(DefaultHttpRestClient.buildUri(invocationData).toString())
+		      .append('\n')
+		      .append(invocationData.getResponseBodyType().getTypeName());
+		HttpHeaders headers = invocationData.getHeaders();
+		if (this.keyHeaderNames == null) {
+			for (Entry<String, List<String>> header : headers.entrySet()) {
+				appendHeader(result, header.getKey(), header.getValue());
+			}
+		}
+		else {
+			for (String keyHeaderName : this.keyHeaderNames) {
+				appendHeader(result, keyHeaderName, headers.get(keyHeaderName));
+			}
+		}
+
+		return result.toString();
+	}
+
+	/**
+	 * Appends a header to the key.
+	 * 
+	 * @param key Key
+	 * @param name Name
+	 * @param values Values, null if not set
+	 */
+	private static void appendHeader(StringBuilder key, String name, List<String> values) {
+		key.append('\n').append(name.toLowerCase()).append(':');
+		if (values != null) {
+			key.append(String.join(",", values));
+		}
+	}
+
+}
@@ -0,0 +1,232 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.web.client.RequestCallback;
+
+/**
+ * <p>
+ * {@link RequestCallback} compressing with gzip the request body written by
+ * another {@link RequestCallback}.<br>
+ * The buffered bodies are compressed if at least as long as the threshold,
+ * the streamed ones unless their length is known to be shorter.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+final class CompressingRequestCallback implements RequestCallback {
+
+	/** Value of the Content-Encoding header of the compressed bodies. */
+	private static final String GZIP = "gzip";
+
+	/** Size of the compression buffer. */
+	private static final int BUFFER_SIZE = 8192;
+
+	/** Request callback writing the body. */
+	private final RequestCallback requestCallback;
+
+	/** Minimum length of the bodies to be compressed. */
+	private final int threshold;
+
+	/** Compression metrics. */
+	private final CompressionMetrics compressionMetrics;
+
+	/**
+	 * Constructs a new CompressingRequestCallback.
+	 *
+	 * @param requestCallback Request callback writing the body
+	 * @param threshold Minimum length of the bodies to be compressed
+	 * @param compressionMetrics Compression metrics
+	 */
+	CompressingRequestCallback(RequestCallback requestCallback, int threshold, CompressionMetrics compressionMetrics) {
+		this.requestCallback = requestCallback;
+		this.threshold = threshold;
+		this.compressionMetrics = compressionMetrics;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.springframework.web.client.RequestCallback#doWithRequest(org.
+	 * springframework.http.client.ClientHttpRequest)
+	 */
+	@Override
+	public void doWithRequest(ClientHttpRequest request) throws IOException {
+		if (request instanceof StreamingHttpOutputMessage) {
+			this.requestCallback.doWithRequest(new StreamingRequest(request));
+		}
+		else {
+			BufferingRequest bufferingRequest = new BufferingRequest(request);
+			this.requestCallback.doWithRequest(bufferingRequest);
+			ByteArrayOutputStream body = bufferingRequest.body;
+			if (body.size() > 0 && body.size() >= this.threshold) {
+				setContentEncoding(request.getHeaders());
+				try (OutputStream out = compress(request.getBody())) {
+					body.writeTo(out);
+				}
+			}
+			else {
+				body.writeTo(request.getBody());
+			}
+		}
+	}
+
+	/**
+	 * Sets the Content-Encoding header, removing the Content-Length of the
+	 * uncompressed body.
+	 *
+	 * @param headers Headers
+	 */
+	private static void setContentEncoding(HttpHeaders headers) {
+		headers.remove(HttpHeaders.CONTENT_LENGTH);
+		headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+	}
+
+	/**
+	 * Makes the stream compressing the body into the request body.<br>
+	 * Closing it finishes the compression without closing the request body.
+	 *
+	 * @param requestBody Request body
+	 * @return Compressing stream
+	 * @throws IOException if the compression cannot be started
+	 */
+	private OutputStream compress(OutputStream requestBody) throws IOException {
+		GZIPOutputStream gzip = new GZIPOutputStream(this.compressionMetrics.countCompressedRequestBytes(requestBody), BUFFER_SIZE) {
+
+			@Override
+			public void close() throws IOException {
+				finish();
+				flush();
+			}
+
+		};
+
+		return this.compressionMetrics.countRequestBytes(gzip);
+	}
+
+	/**
+	 * <p>
+	 * Request exposing the headers of the actual request and buffering its
+	 * body.
+	 * </p>
+	 *
+	 * @author Vincenzo Mazzeo
+	 * @version 1.0
+	 * @since 1.1.0
+	 */
+	private static class BufferingRequest extends ClientHttpRequestDecorator {
+
+		/** Body. */
+		private final ByteArrayOutputStream body;
+
+		/**
+		 * Constructs a new BufferingRequest.
+		 *
+		 * @param request Actual request
+		 */
+		private BufferingRequest(ClientHttpRequest request) {
+			super(request);
+			this.body = new ByteArrayOutputStream(1024);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see it.ninjatech.restapiinvoker.client.ClientHttpRequestDecorator#getBody()
+		 */
+		@Override
+		public OutputStream getBody() throws IOException {
+			return this.body;
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Request compressing the body streamed to the actual request.
+	 * </p>
+	 *
+	 * @author Vincenzo Mazzeo
+	 * @version 1.0
+	 * @since 1.1.0
+	 */
+	private final class StreamingRequest extends BufferingRequest implements StreamingHttpOutputMessage {
+
+		/**
+		 * Constructs a new StreamingRequest.
+		 *
+		 * @param request Actual request, a {@link StreamingHttpOutputMessage}
+		 */
+		private StreamingRequest(ClientHttpRequest request) {
+			super(request);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * org.springframework.http.StreamingHttpOutputMessage#setBody(org.
+		 * springframework.http.StreamingHttpOutputMessage.Body)
+		 */
+		@Override
+		public void setBody(Body body) {
+			long contentLength = getHeaders().getContentLength();
+			if (contentLength == 0 || (contentLength > 0 && contentLength < CompressingRequestCallback.this.threshold)) {
+				((StreamingHttpOutputMessage) this.request).setBody(body);
+			}
+			else {
+				setContentEncoding(getHeaders());
+				((StreamingHttpOutputMessage) this.request).setBody(o -> {
+					try (OutputStream out = compress(o)) {
+						body.writeTo(out);
+					}
+				});
+			}
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see it.ninjatech.restapiinvoker.client.CompressingRequestCallback.
+		 * BufferingRequest#getBody()
+		 */
+		@Override
+		public OutputStream getBody() throws IOException {
+			return this.request.getBody();
+		}
+
+	}
+
+}
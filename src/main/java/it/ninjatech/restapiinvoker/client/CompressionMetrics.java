@@ -0,0 +1,268 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * Counters of the bytes of the compressed request and response bodies, before
+ * and after the compression.<br>
+ * The bodies sent or received without compression are not counted.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public final class CompressionMetrics {
+
+	/** Bytes of the compressed request bodies before the compression. */
+	private final LongAdder requestBytes;
+
+	/** Bytes of the compressed request bodies after the compression. */
+	private final LongAdder compressedRequestBytes;
+
+	/** Bytes of the compressed response bodies after the decompression. */
+	private final LongAdder responseBytes;
+
+	/** Bytes of the compressed response bodies before the decompression. */
+	private final LongAdder compressedResponseBytes;
+
+	/**
+	 * Constructs a new CompressionMetrics.
+	 */
+	CompressionMetrics() {
+		this.requestBytes = new LongAdder();
+		this.compressedRequestBytes = new LongAdder();
+		this.responseBytes = new LongAdder();
+		this.compressedResponseBytes = new LongAdder();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.format("[requests: %d -> %d; responses: %d -> %d]",
+		                     getRequestBytes(),
+		                     getCompressedRequestBytes(),
+		                     getCompressedResponseBytes(),
+		                     getResponseBytes());
+	}
+
+	/**
+	 * Returns the bytes of the compressed request bodies before the
+	 * compression.
+	 *
+	 * @return Bytes
+	 */
+	public long getRequestBytes() {
+		return this.requestBytes.sum();
+	}
+
+	/**
+	 * Returns the bytes of the compressed request bodies sent.
+	 *
+	 * @return Bytes
+	 */
+	public long getCompressedRequestBytes() {
+		return this.compressedRequestBytes.sum();
+	}
+
+	/**
+	 * Returns the bytes of the compressed response bodies after the
+	 * decompression.
+	 *
+	 * @return Bytes
+	 */
+	public long getResponseBytes() {
+		return this.responseBytes.sum();
+	}
+
+	/**
+	 * Returns the bytes of the compressed response bodies received.
+	 *
+	 * @return Bytes
+	 */
+	public long getCompressedResponseBytes() {
+		return this.compressedResponseBytes.sum();
+	}
+
+	/**
+	 * Wraps the stream written by the request body, before the compression.
+	 *
+	 * @param out Stream
+	 * @return Counting stream
+	 */
+	OutputStream countRequestBytes(OutputStream out) {
+		return new CountingOutputStream(out, this.requestBytes);
+	}
+
+	/**
+	 * Wraps the stream of the compressed request body.
+	 *
+	 * @param out Stream
+	 * @return Counting stream
+	 */
+	OutputStream countCompressedRequestBytes(OutputStream out) {
+		return new CountingOutputStream(out, this.compressedRequestBytes);
+	}
+
+	/**
+	 * Wraps the stream of the decompressed response body.
+	 *
+	 * @param in Stream
+	 * @return Counting stream
+	 */
+	InputStream countResponseBytes(InputStream in) {
+		return new CountingInputStream(in, this.responseBytes);
+	}
+
+	/**
+	 * Wraps the stream of the compressed response body.
+	 *
+	 * @param in Stream
+	 * @return Counting stream
+	 */
+	InputStream countCompressedResponseBytes(InputStream in) {
+		return new CountingInputStream(in, this.compressedResponseBytes);
+	}
+
+	/**
+	 * <p>
+	 * {@link OutputStream} counting the bytes written.
+	 * </p>
+	 *
+	 * @author Vincenzo Mazzeo
+	 * @version 1.0
+	 * @since 1.1.0
+	 */
+	static final class CountingOutputStream extends FilterOutputStream {
+
+		/** Counter. */
+		private final LongAdder counter;
+
+		/**
+		 * Constructs a new CountingOutputStream.
+		 *
+		 * @param out Stream
+		 * @param counter Counter
+		 */
+		CountingOutputStream(OutputStream out, LongAdder counter) {
+			super(out);
+			this.counter = counter;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.io.FilterOutputStream#write(int)
+		 */
+		@Override
+		public void write(int b) throws IOException {
+			this.out.write(b);
+			this.counter.increment();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.io.FilterOutputStream#write(byte[], int, int)
+		 */
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			this.out.write(b, off, len);
+			this.counter.add(len);
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * {@link InputStream} counting the bytes read.
+	 * </p>
+	 *
+	 * @author Vincenzo Mazzeo
+	 * @version 1.0
+	 * @since 1.1.0
+	 */
+	static final class CountingInputStream extends FilterInputStream {
+
+		/** Counter. */
+		private final LongAdder counter;
+
+		/**
+		 * Constructs a new CountingInputStream.
+		 *
+		 * @param in Stream
+		 * @param counter Counter
+		 */
+		CountingInputStream(InputStream in, LongAdder counter) {
+			super(in);
+			this.counter = counter;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.io.FilterInputStream#read()
+		 */
+		@Override
+		public int read() throws IOException {
+			int result = this.in.read();
+
+			if (result >= 0) {
+				this.counter.increment();
+			}
+
+			return result;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.io.FilterInputStream#read(byte[], int, int)
+		 */
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int result = this.in.read(b, off, len);
+
+			if (result > 0) {
+				this.counter.add(result);
+			}
+
+			return result;
+		}
+
+	}
+
+}
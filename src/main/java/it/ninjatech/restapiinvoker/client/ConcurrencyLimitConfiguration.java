@@ -0,0 +1,425 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+/**
+ * <p>
+ * Configuration of the {@link ConcurrencyLimiter}s of a
+ * {@link ConcurrencyLimitingHttpRestClient}.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public final class ConcurrencyLimitConfiguration {
+
+	/**
+	 * <p>
+	 * Algorithm adapting the limit.
+	 * </p>
+	 *
+	 * @author Vincenzo Mazzeo
+	 * @version 1.0
+	 * @since 1.1.0
+	 */
+	public enum Algorithm {
+
+		/**
+		 * Additive increase, multiplicative decrease: the limit grows by one at
+		 * each successful call while it's in use, and shrinks by the backoff
+		 * ratio at each dropped call.
+		 */
+		AIMD,
+		/**
+		 * Gradient of the round trip times: the limit follows the ratio between
+		 * the long term and the current round trip time, growing while they are
+		 * within the tolerance and shrinking as soon as the queueing in the REST
+		 * service makes the current one longer; it also shrinks by the backoff
+		 * ratio at each dropped call.
+		 */
+		GRADIENT;
+
+	}
+
+	/** Default algorithm. */
+	public static final Algorithm DEFAULT_ALGORITHM = Algorithm.GRADIENT;
+
+	/** Default initial limit. */
+	public static final int DEFAULT_INITIAL_LIMIT = 20;
+
+	/** Default minimum limit. */
+	public static final int DEFAULT_MIN_LIMIT = 1;
+
+	/** Default maximum limit. */
+	public static final int DEFAULT_MAX_LIMIT = 200;
+
+	/** Default factor applied to the limit at each dropped call. */
+	public static final double DEFAULT_BACKOFF_RATIO = 0.9;
+
+	/** Default ratio of the current round trip time tolerated by the gradient. */
+	public static final double DEFAULT_RTT_TOLERANCE = 1.5;
+
+	/** Default weight of each new limit computed by the gradient. */
+	public static final double DEFAULT_SMOOTHING = 0.2;
+
+	/** Default number of calls averaged by the long term round trip time. */
+	public static final int DEFAULT_LONG_WINDOW = 600;
+
+	/** Default maximum time, in millis, a call waits for the limit. */
+	public static final long DEFAULT_MAX_WAIT = 0;
+
+	/**
+	 * Makes a new builder, initialized with the default values.
+	 *
+	 * @return Builder
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/** Algorithm. */
+	private final Algorithm algorithm;
+
+	/** Initial limit. */
+	private final int initialLimit;
+
+	/** Minimum limit. */
+	private final int minLimit;
+
+	/** Maximum limit. */
+	private final int maxLimit;
+
+	/** Factor applied to the limit at each dropped call. */
+	private final double backoffRatio;
+
+	/** Ratio of the current round trip time tolerated by the gradient. */
+	private final double rttTolerance;
+
+	/** Weight of each new limit computed by the gradient. */
+	private final double smoothing;
+
+	/** Number of calls averaged by the long term round trip time. */
+	private final int longWindow;
+
+	/** Maximum time, in millis, a call waits for the limit. */
+	private final long maxWait;
+
+	/**
+	 * Constructs a new ConcurrencyLimitConfiguration.
+	 *
+	 * @param builder Builder
+	 */
+	private ConcurrencyLimitConfiguration(Builder builder) {
+		this.algorithm = builder.algorithm;
+		this.initialLimit = builder.initialLimit;
+		this.minLimit = builder.minLimit;
+		this.maxLimit = builder.maxLimit;
+		this.backoffRatio = builder.backoffRatio;
+		this.rttTolerance = builder.rttTolerance;
+		this.smoothing = builder.smoothing;
+		this.longWindow = builder.longWindow;
+		this.maxWait = builder.maxWait;
+	}
+
+	/**
+	 * Returns the algorithm adapting the limit.
+	 *
+	 * @return Algorithm
+	 */
+	public Algorithm getAlgorithm() {
+		return this.algorithm;
+	}
+
+	/**
+	 * Returns the initial limit.
+	 *
+	 * @return Initial limit
+	 */
+	public int getInitialLimit() {
+		return this.initialLimit;
+	}
+
+	/**
+	 * Returns the minimum limit.
+	 *
+	 * @return Minimum limit
+	 */
+	public int getMinLimit() {
+		return this.minLimit;
+	}
+
+	/**
+	 * Returns the maximum limit.
+	 *
+	 * @return Maximum limit
+	 */
+	public int getMaxLimit() {
+		return this.maxLimit;
+	}
+
+	/**
+	 * Returns the factor applied to the limit at each dropped call.
+	 *
+	 * @return Backoff ratio
+	 */
+	public double getBackoffRatio() {
+		return this.backoffRatio;
+	}
+
+	/**
+	 * Returns the ratio of the current round trip time to the long term one
+	 * tolerated by the gradient before shrinking the limit.
+	 *
+	 * @return RTT tolerance
+	 */
+	public double getRttTolerance() {
+		return this.rttTolerance;
+	}
+
+	/**
+	 * Returns the weight of each new limit computed by the gradient.
+	 *
+	 * @return Smoothing, between 0 and 1
+	 */
+	public double getSmoothing() {
+		return this.smoothing;
+	}
+
+	/**
+	 * Returns the number of calls averaged by the long term round trip time.
+	 *
+	 * @return Long window
+	 */
+	public int getLongWindow() {
+		return this.longWindow;
+	}
+
+	/**
+	 * Returns the maximum time a call exceeding the limit waits for it.
+	 *
+	 * @return Max wait, in millis, 0 if the calls are rejected
+	 */
+	public long getMaxWait() {
+		return this.maxWait;
+	}
+
+	/**
+	 * <p>
+	 * Builder of the {@link ConcurrencyLimitConfiguration}.
+	 * </p>
+	 *
+	 * @author Vincenzo Mazzeo
+	 * @version 1.0
+	 * @since 1.1.0
+	 */
+	public static final class Builder {
+
+		/** Algorithm. */
+		private Algorithm algorithm;
+
+		/** Initial limit. */
+		private int initialLimit;
+
+		/** Minimum limit. */
+		private int minLimit;
+
+		/** Maximum limit. */
+		private int maxLimit;
+
+		/** Factor applied to the limit at each dropped call. */
+		private double backoffRatio;
+
+		/** Ratio of the current round trip time tolerated by the gradient. */
+		private double rttTolerance;
+
+		/** Weight of each new limit computed by the gradient. */
+		private double smoothing;
+
+		/** Number of calls averaged by the long term round trip time. */
+		private int longWindow;
+
+		/** Maximum time, in millis, a call waits for the limit. */
+		private long maxWait;
+
+		/**
+		 * Constructs a new Builder.
+		 */
+		private Builder() {
+			this.algorithm = DEFAULT_ALGORITHM;
+			this.initialLimit = DEFAULT_INITIAL_LIMIT;
+			this.minLimit = DEFAULT_MIN_LIMIT;
+			this.maxLimit = DEFAULT_MAX_LIMIT;
+			this.backoffRatio = DEFAULT_BACKOFF_RATIO;
+			this.rttTolerance = DEFAULT_RTT_TOLERANCE;
+			this.smoothing = DEFAULT_SMOOTHING;
+			this.longWindow = DEFAULT_LONG_WINDOW;
+			this.maxWait = DEFAULT_MAX_WAIT;
+		}
+
+		/**
+		 * Builds the configuration.
+		 *
+		 * @return {@link ConcurrencyLimitConfiguration}
+		 */
+		public ConcurrencyLimitConfiguration build() {
+			if (this.algorithm == null
+			    || this.minLimit < 1
+			    || this.maxLimit < this.minLimit
+			    || this.initialLimit < this.minLimit
+			    || this.initialLimit > this.maxLimit
+			    || this.backoffRatio <= 0
+			    || this.backoffRatio >= 1
+			    || this.rttTolerance < 1
+			    || this.smoothing <= 0
+			    || this.smoothing > 1
+			    || this.longWindow < 1
+			    || this.maxWait < 0) {
+				throw new RuntimeException(String.format("Invalid concurrency limit configuration: algorithm %s, limits %d/%d/%d, backoff ratio %s, RTT tolerance %s, smoothing %s, long window %d, max wait %d",
+				                                         this.algorithm,
+				                                         this.minLimit,
+				                                         this.initialLimit,
+				                                         this.maxLimit,
+				                                         this.backoffRatio,
+				                                         this.rttTolerance,
+				                                         this.smoothing,
+				                                         this.longWindow,
+				                                         this.maxWait));
+			}
+
+			return new ConcurrencyLimitConfiguration(this);
+		}
+
+		/**
+		 * Sets the algorithm adapting the limit.
+		 *
+		 * @param algorithm Algorithm
+		 * @return This instance
+		 */
+		public Builder algorithm(Algorithm algorithm) {
+			this.algorithm = algorithm;
+
+			return this;
+		}
+
+		/**
+		 * Sets the initial limit.
+		 *
+		 * @param initialLimit Initial limit
+		 * @return This instance
+		 */
+		public Builder initialLimit(int initialLimit) {
+			this.initialLimit = initialLimit;
+
+			return this;
+		}
+
+		/**
+		 * Sets the minimum limit.
+		 *
+		 * @param minLimit Minimum limit
+		 * @return This instance
+		 */
+		public Builder minLimit(int minLimit) {
+			this.minLimit = minLimit;
+
+			return this;
+		}
+
+		/**
+		 * Sets the maximum limit.
+		 *
+		 * @param maxLimit Maximum limit
+		 * @return This instance
+		 */
+		public Builder maxLimit(int maxLimit) {
+			this.maxLimit = maxLimit;
+
+			return this;
+		}
+
+		/**
+		 * Sets the factor applied to the limit at each dropped call.
+		 *
+		 * @param backoffRatio Backoff ratio, between 0 and 1
+		 * @return This instance
+		 */
+		public Builder backoffRatio(double backoffRatio) {
+			this.backoffRatio = backoffRatio;
+
+			return this;
+		}
+
+		/**
+		 * Sets the ratio of the current round trip time to the long term one
+		 * tolerated by the gradient.
+		 *
+		 * @param rttTolerance RTT tolerance, at least 1
+		 * @return This instance
+		 */
+		public Builder rttTolerance(double rttTolerance) {
+			this.rttTolerance = rttTolerance;
+
+			return this;
+		}
+
+		/**
+		 * Sets the weight of each new limit computed by the gradient.
+		 *
+		 * @param smoothing Smoothing, between 0 and 1
+		 * @return This instance
+		 */
+		public Builder smoothing(double smoothing) {
+			this.smoothing = smoothing;
+
+			return this;
+		}
+
+		/**
+		 * Sets the number of calls averaged by the long term round trip time.
+		 *
+		 * @param longWindow Long window
+		 * @return This instance
+		 */
+		public Builder longWindow(int longWindow) {
+			this.longWindow = longWindow;
+
+			return this;
+		}
+
+		/**
+		 * Sets the maximum time a call exceeding the limit waits for it.
+		 *
+		 * @param maxWait Max wait, in millis, 0 to reject the calls
+		 * @return This instance
+		 */
+		public Builder maxWait(long maxWait) {
+			this.maxWait = maxWait;
+
+			return this;
+		}
+
+	}
+
+}
@@ -0,0 +1,330 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.DoubleUnaryOperator;
+
+import it.ninjatech.restapiinvoker.client.ConcurrencyLimitConfiguration.Algorithm;
+
+/**
+ * <p>
+ * Lock-free limiter of the calls in flight to a REST service, whose limit is
+ * adapted to the round trip times and to the dropped calls by the
+ * {@link Algorithm} of its configuration.<br>
+ * The calls exceeding the limit wait for it up to the maximum wait, at most
+ * as many as the limit itself, and are rejected otherwise, so that the
+ * queueing stays bounded when the REST service saturates.<br>
+ * The synchronous calls wait parking their thread, while the asynchronous
+ * ones are queued without blocking and admitted by the thread releasing the
+ * limit, their maximum wait being timed by a shared scheduler.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ * @see ConcurrencyLimitingHttpRestClient
+ */
+public final class ConcurrencyLimiter {
+
+	/** Scheduler of the maximum wait of the queued asynchronous calls. */
+	private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread result = new Thread(r, "rest-api-invoker-concurrency-limiter");
+		result.setDaemon(true);
+
+		return result;
+	});
+
+	/** Configuration. */
+	private final ConcurrencyLimitConfiguration configuration;
+
+	/** Limit, as the bits of a double. */
+	private final AtomicLong limit;
+
+	/** Long term round trip time, in nanoseconds, as the bits of a double. */
+	private final AtomicLong longRtt;
+
+	/** Calls in flight. */
+	private final AtomicInteger inFlight;
+
+	/** Calls waiting for the limit. */
+	private final Queue<Thread> waiters;
+
+	/** Asynchronous calls waiting for the limit. */
+	private final Queue<CompletableFuture<Boolean>> asyncWaiters;
+
+	/** Number of calls waiting for the limit. */
+	private final AtomicInteger waiting;
+
+	/** Number of calls rejected. */
+	private final LongAdder rejectedCount;
+
+	/**
+	 * Constructs a new ConcurrencyLimiter, starting from the initial limit.
+	 *
+	 * @param configuration Configuration
+	 */
+	ConcurrencyLimiter(ConcurrencyLimitConfiguration configuration) {
+		this.configuration = configuration;
+		this.limit = new AtomicLong(Double.doubleToLongBits(configuration.getInitialLimit()));
+		this.longRtt = new AtomicLong(Double.doubleToLongBits(0));
+		this.inFlight = new AtomicInteger();
+		this.waiters = new ConcurrentLinkedQueue<>();
+		this.asyncWaiters = new ConcurrentLinkedQueue<>();
+		this.waiting = new AtomicInteger();
+		this.rejectedCount = new LongAdder();
+	}
+
+	/**
+	 * Returns the current limit.
+	 *
+	 * @return Limit
+	 */
+	public int getLimit() {
+		return (int) Double.longBitsToDouble(this.limit.get());
+	}
+
+	/**
+	 * Returns the calls in flight.
+	 *
+	 * @return In flight
+	 */
+	public int getInFlight() {
+		return this.inFlight.get();
+	}
+
+	/**
+	 * Returns the number of calls rejected.
+	 *
+	 * @return Rejected count
+	 */
+	public long getRejectedCount() {
+		return this.rejectedCount.sum();
+	}
+
+	/**
+	 * Acquires the permission to perform a call, waiting for it up to the
+	 * maximum wait.
+	 *
+	 * @return true, if the call is permitted
+	 */
+	boolean acquire() {
+		boolean result = tryAcquire();
+
+		long maxWait = TimeUnit.MILLISECONDS.toNanos(this.configuration.getMaxWait());
+		if (!result && maxWait > 0) {
+			try {
+				if (this.waiting.incrementAndGet() <= getLimit()) {
+					result = await(maxWait);
+				}
+			}
+			finally {
+				this.waiting.decrementAndGet();
+			}
+		}
+		if (!result) {
+			this.rejectedCount.increment();
+		}
+
+		return result;
+	}
+
+	/**
+	 * Acquires the permission to perform an asynchronous call, queueing it up
+	 * to the maximum wait without blocking.
+	 *
+	 * @return Future completed with true, if the call is permitted
+	 */
+	CompletableFuture<Boolean> acquireAsync() {
+		CompletableFuture<Boolean> result;
+
+		long maxWait = TimeUnit.MILLISECONDS.toNanos(this.configuration.getMaxWait());
+		if (tryAcquire()) {
+			result = CompletableFuture.completedFuture(true);
+		}
+		else if (maxWait > 0 && this.waiting.incrementAndGet() <= getLimit()) {
+			CompletableFuture<Boolean> waiter = new CompletableFuture<>();
+			ScheduledFuture<?> timeout = SCHEDULER.schedule(() -> waiter.complete(false), maxWait, TimeUnit.NANOSECONDS);
+			waiter.whenComplete((p, e) -> {
+				timeout.cancel(false);
+				this.asyncWaiters.remove(waiter);
+				this.waiting.decrementAndGet();
+				if (!Boolean.TRUE.equals(p)) {
+					this.rejectedCount.increment();
+				}
+			});
+			this.asyncWaiters.add(waiter);
+			// Admits the call if the limit was released while queueing it
+			signal();
+			result = waiter;
+		}
+		else {
+			if (maxWait > 0) {
+				this.waiting.decrementAndGet();
+			}
+			this.rejectedCount.increment();
+			result = CompletableFuture.completedFuture(false);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Releases the permission of a completed call, adapting the limit.
+	 *
+	 * @param rtt Round trip time of the call, in nanoseconds
+	 * @param dropped Whether the call was dropped by the REST service
+	 */
+	void release(long rtt, boolean dropped) {
+		int inFlight = this.inFlight.get();
+		if (dropped) {
+			update(this.limit, l -> l * this.configuration.getBackoffRatio());
+		}
+		else if (this.configuration.getAlgorithm() == Algorithm.AIMD) {
+			update(this.limit, l -> inFlight * 2 >= l ? l + 1 : l);
+		}
+		else {
+			double longRtt = update(this.longRtt, r -> {
+				double value = r == 0 ? rtt : r + (rtt - r) * 2 / (this.configuration.getLongWindow() + 1);
+				// Lets the long term RTT recover quickly after a spike
+				return value > rtt * 2 ? value * 0.95 : value;
+			});
+			update(this.limit, l -> {
+				double value = l;
+				if (inFlight * 2 >= l) {
+					double gradient = Math.max(0.5, Math.min(1, this.configuration.getRttTolerance() * longRtt / rtt));
+					value = l * (1 - this.configuration.getSmoothing()) + (l * gradient + Math.sqrt(l)) * this.configuration.getSmoothing();
+				}
+				return value;
+			});
+		}
+		this.inFlight.decrementAndGet();
+		signal();
+	}
+
+	/**
+	 * Signals the calls waiting for the limit, admitting the queued
+	 * asynchronous ones while permitted and waking up the first parked one.
+	 */
+	private void signal() {
+		CompletableFuture<Boolean> asyncWaiter;
+		while ((asyncWaiter = this.asyncWaiters.peek()) != null) {
+			if (!asyncWaiter.isDone()) {
+				if (!tryAcquire()) {
+					break;
+				}
+				if (!asyncWaiter.complete(true)) {
+					// Timed out meanwhile
+					this.inFlight.decrementAndGet();
+				}
+			}
+			this.asyncWaiters.remove(asyncWaiter);
+		}
+		Thread waiter = this.waiters.peek();
+		if (waiter != null) {
+			LockSupport.unpark(waiter);
+		}
+	}
+
+	/**
+	 * Acquires the permission to perform a call if the limit is not reached.
+	 *
+	 * @return true, if the call is permitted
+	 */
+	private boolean tryAcquire() {
+		boolean result = false;
+
+		int inFlight;
+		do {
+			inFlight = this.inFlight.get();
+			if (inFlight >= getLimit()) {
+				break;
+			}
+			result = this.inFlight.compareAndSet(inFlight, inFlight + 1);
+		}
+		while (!result);
+
+		return result;
+	}
+
+	/**
+	 * Waits for the limit, parking until a call is released.
+	 *
+	 * @param maxWait Maximum wait, in nanoseconds
+	 * @return true, if the call is permitted
+	 */
+	private boolean await(long maxWait) {
+		boolean result = false;
+
+		Thread thread = Thread.currentThread();
+		this.waiters.add(thread);
+		try {
+			long deadline = System.nanoTime() + maxWait;
+			long remaining = maxWait;
+			while (!(result = tryAcquire()) && remaining > 0 && !thread.isInterrupted()) {
+				LockSupport.parkNanos(this, remaining);
+				remaining = deadline - System.nanoTime();
+			}
+		}
+		finally {
+			this.waiters.remove(thread);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Updates atomically a value, keeping the limit within its bounds.
+	 *
+	 * @param value Value, as the bits of a double
+	 * @param function Update function
+	 * @return Updated value
+	 */
+	private double update(AtomicLong value, DoubleUnaryOperator function) {
+		double result;
+
+		long bits;
+		do {
+			bits = value.get();
+			result = function.applyAsDouble(Double.longBitsToDouble(bits));
+			if (value == this.limit) {
+				result = Math.max(this.configuration.getMinLimit(), Math.min(this.configuration.getMaxLimit(), result));
+			}
+		}
+		while (!value.compareAndSet(bits, Double.doubleToLongBits(result)));
+
+		return result;
+	}
+
+}
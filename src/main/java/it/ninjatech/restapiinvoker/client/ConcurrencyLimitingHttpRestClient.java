@@ -0,0 +1,257 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+
+import it.ninjatech.restapiinvoker.invocationdata.InvocationData;
+import reactor.core.publisher.Flux;
+
+/**
+ * <p>
+ * Decorator of an {@link HttpRestClient} limiting the calls in flight to each
+ * base path with a {@link ConcurrencyLimiter}, whose limit adapts to the
+ * round trip times measured here.<br>
+ * A call is dropped if it failed with a {@link ResourceAccessException}, that
+ * is an I/O error, or with a {@link RestClientResponseException} having the
+ * status 429 or 503, which the REST services use to shed load. The calls
+ * exceeding the limit fail with a {@link ConcurrencyLimitExceededException}
+ * unless they get the limit within the maximum wait.<br>
+ * The synchronous and streamed calls wait for the limit blocking the caller,
+ * while the asynchronous and reactive ones are queued and started when the
+ * limit is released, without blocking the calling thread. The asynchronous
+ * and reactive calls are in flight until completed, the streamed ones until
+ * their stream is closed or read to the end.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public class ConcurrencyLimitingHttpRestClient extends HttpRestClientDecorator {
+
+	/** Configuration of the limiters. */
+	private final ConcurrencyLimitConfiguration configuration;
+
+	/** Limiters by base path. */
+	private final Map<String, ConcurrencyLimiter> concurrencyLimiters;
+
+	/**
+	 * Constructs a new {@link ConcurrencyLimitingHttpRestClient} with the
+	 * default configuration.
+	 * 
+	 * @param httpRestClient Decorated {@link HttpRestClient}
+	 */
+	public ConcurrencyLimitingHttpRestClient(HttpRestClient httpRestClient) {
+		this(httpRestClient, ConcurrencyLimitConfiguration.builder().build());
+	}
+
+	/**
+	 * Constructs a new {@link ConcurrencyLimitingHttpRestClient}.
+	 * 
+	 * @param httpRestClient Decorated {@link HttpRestClient}
+	 * @param configuration Configuration of the limiters
+	 */
+	public ConcurrencyLimitingHttpRestClient(HttpRestClient httpRestClient, ConcurrencyLimitConfiguration configuration) {
+		super(httpRestClient);
+		this.configuration = configuration;
+		this.concurrencyLimiters = new ConcurrentHashMap<>();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see it.ninjatech.restapiinvoker.client.HttpRestClient#exchange(it.ninjatech.
+	 * restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Object exchange(InvocationData invocationData) {
+		return CallAdmission.call(this::admit, invocationData, this.httpRestClient::exchange);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.HttpRestClient#exchangeForEntity(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public ResponseEntity<?> exchangeForEntity(InvocationData invocationData) {
+		return CallAdmission.call(this::admit, invocationData, this.httpRestClient::exchangeForEntity);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.AsyncHttpRestClient#exchangeAsync(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public CompletableFuture<Object> exchangeAsync(InvocationData invocationData) {
+		return CallAdmission.queueAsync(this::admitAsync, invocationData, this::forwardAsync);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.AsyncHttpRestClient#exchangeForEntityAsync
+	 * (it.ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public CompletableFuture<ResponseEntity<?>> exchangeForEntityAsync(InvocationData invocationData) {
+		return CallAdmission.queueAsync(this::admitAsync, invocationData, this::forwardEntityAsync);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.ReactiveHttpRestClient#exchangeFlux(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Flux<Object> exchangeFlux(InvocationData invocationData) {
+		return ReactiveCalls.queueFlux(this::admitAsync, invocationData, this::forwardFlux);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.StreamingHttpRestClient#exchangeStream(
+	 * it.ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Stream<Object> exchangeStream(InvocationData invocationData) {
+		return CallAdmission.callStream(this::admit, invocationData, this::forwardStream);
+	}
+
+	/**
+	 * Returns the limiter of a base path.
+	 * 
+	 * @param basePath Base path
+	 * @return {@link ConcurrencyLimiter}, null if the base path has not been
+	 *         called
+	 */
+	public ConcurrencyLimiter getConcurrencyLimiter(String basePath) {
+		return this.concurrencyLimiters.get(basePath);
+	}
+
+	/**
+	 * Returns the limiters of the base paths called so far.
+	 * 
+	 * @return Unmodifiable view of the limiters by base path
+	 */
+	public Map<String, ConcurrencyLimiter> getConcurrencyLimiters() {
+		return Collections.unmodifiableMap(this.concurrencyLimiters);
+	}
+
+	/**
+	 * Admits the call, if permitted by the limiter of its base path.
+	 * 
+	 * @param invocationData Data to execute the call
+	 * @return Admission of the call
+	 */
+	private CallAdmission admit(InvocationData invocationData) {
+		ConcurrencyLimiter concurrencyLimiter = getOrMakeConcurrencyLimiter(invocationData.getBasePath());
+
+		return admit(invocationData, concurrencyLimiter, concurrencyLimiter.acquire());
+	}
+
+	/**
+	 * Admits the asynchronous call when permitted by the limiter of its base
+	 * path, queueing it without blocking.
+	 * 
+	 * @param invocationData Data to execute the call
+	 * @return Future of the admission of the call
+	 */
+	private CompletableFuture<CallAdmission> admitAsync(InvocationData invocationData) {
+		ConcurrencyLimiter concurrencyLimiter = getOrMakeConcurrencyLimiter(invocationData.getBasePath());
+
+		return concurrencyLimiter.acquireAsync().thenApply(p -> admit(invocationData, concurrencyLimiter, p));
+	}
+
+	/**
+	 * Admits the call acquired from a limiter.
+	 * 
+	 * @param invocationData Data to execute the call
+	 * @param concurrencyLimiter Limiter of the base path of the call
+	 * @param permitted Whether the call is permitted by the limiter
+	 * @return Admission of the call
+	 * @throws ConcurrencyLimitExceededException if the call is not permitted
+	 */
+	private static CallAdmission admit(InvocationData invocationData, ConcurrencyLimiter concurrencyLimiter, boolean permitted) {
+		if (!permitted) {
+			throw new ConcurrencyLimitExceededException(invocationData.getBasePath(), concurrencyLimiter.getLimit());
+		}
+		long startTime = System.nanoTime();
+
+		return new CallAdmission(invocationData, f -> concurrencyLimiter.release(System.nanoTime() - startTime, f != null && isDropped(f)));
+	}
+
+	/**
+	 * Gets the limiter of a base path, making it at the first call.
+	 * 
+	 * @param basePath Base path
+	 * @return {@link ConcurrencyLimiter}
+	 */
+	private ConcurrencyLimiter getOrMakeConcurrencyLimiter(String basePath) {
+		ConcurrencyLimiter result = this.concurrencyLimiters.get(basePath);
+		if (result == null) {
+			result = this.concurrencyLimiters.computeIfAbsent(basePath, b -> new ConcurrencyLimiter(this.configuration));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Checks if an exception means the call was dropped by the REST service.
+	 * 
+	 * @param exception Exception thrown by the call
+	 * @return true, if the call was dropped
+	 */
+	private static boolean isDropped(Throwable exception) {
+		boolean result = exception instanceof ResourceAccessException;
+
+		if (exception instanceof RestClientResponseException) {
+			int status = ((RestClientResponseException) exception).getRawStatusCode();
+			result = status == HttpStatus.TOO_MANY_REQUESTS.value() || status == HttpStatus.SERVICE_UNAVAILABLE.value();
+		}
+
+		return result;
+	}
+
+}
@@ -0,0 +1,317 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+
+/**
+ * <p>
+ * Configuration of the connection pool of the {@link DefaultHttpRestClient}.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public final class ConnectionPoolConfiguration {
+
+	/** Default max number of connections. */
+	public static final int DEFAULT_MAX_TOTAL = 200;
+
+	/** Default max number of connections per route. */
+	public static final int DEFAULT_MAX_PER_ROUTE = 50;
+
+	/** Default time after which an idle connection is evicted, in millis. */
+	public static final long DEFAULT_IDLE_TIMEOUT = 30_000;
+
+	/**
+	 * Default time of inactivity after which a connection is validated before
+	 * being leased, in millis.
+	 */
+	public static final int DEFAULT_VALIDATE_AFTER_INACTIVITY = 2_000;
+
+	/**
+	 * Default time a connection is kept alive if the server does not say
+	 * otherwise, in millis.
+	 */
+	public static final long DEFAULT_KEEP_ALIVE = 30_000;
+
+	/**
+	 * Makes a new builder, initialized with the default values.
+	 *
+	 * @return Builder
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Returns the route of the provided base path.
+	 *
+	 * @param basePath Base path
+	 * @return Route
+	 */
+	static HttpRoute getRoute(String basePath) {
+		URI uri = URI.create(basePath);
+		String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase() : "http";
+		boolean secure = scheme.equals("https");
+		int port = uri.getPort() > 0 ? uri.getPort() : secure ? 443 : 80;
+
+		return new HttpRoute(new HttpHost(uri.getHost(), port, scheme), null, secure);
+	}
+
+	/** Max number of connections. */
+	private final int maxTotal;
+
+	/** Max number of connections per route. */
+	private final int maxPerRoute;
+
+	/** Max number of connections per base path, overriding the per route one. */
+	private final Map<String, Integer> maxPerBasePath;
+
+	/** Time after which an idle connection is evicted, in millis. */
+	private final long idleTimeout;
+
+	/**
+	 * Time of inactivity after which a connection is validated before being
+	 * leased, in millis.
+	 */
+	private final int validateAfterInactivity;
+
+	/**
+	 * Time a connection is kept alive if the server does not say otherwise, in
+	 * millis. It's also the max time honoured from the server.
+	 */
+	private final long keepAlive;
+
+	/**
+	 * Constructs a new ConnectionPoolConfiguration.
+	 *
+	 * @param builder Builder
+	 */
+	private ConnectionPoolConfiguration(Builder builder) {
+		this.maxTotal = builder.maxTotal;
+		this.maxPerRoute = builder.maxPerRoute;
+		this.maxPerBasePath = Collections.unmodifiableMap(new LinkedHashMap<>(builder.maxPerBasePath));
+		this.idleTimeout = builder.idleTimeout;
+		this.validateAfterInactivity = builder.validateAfterInactivity;
+		this.keepAlive = builder.keepAlive;
+	}
+
+	/**
+	 * Returns the max number of connections.
+	 *
+	 * @return Max number of connections
+	 */
+	public int getMaxTotal() {
+		return this.maxTotal;
+	}
+
+	/**
+	 * Returns the max number of connections per route.
+	 *
+	 * @return Max number of connections per route
+	 */
+	public int getMaxPerRoute() {
+		return this.maxPerRoute;
+	}
+
+	/**
+	 * Returns the max number of connections per base path, overriding the per
+	 * route one.
+	 *
+	 * @return Max number of connections per base path
+	 */
+	public Map<String, Integer> getMaxPerBasePath() {
+		return this.maxPerBasePath;
+	}
+
+	/**
+	 * Returns the time after which an idle connection is evicted.
+	 *
+	 * @return Idle timeout in millis, 0 if the idle connections are not evicted
+	 */
+	public long getIdleTimeout() {
+		return this.idleTimeout;
+	}
+
+	/**
+	 * Returns the time of inactivity after which a connection is validated
+	 * before being leased.
+	 *
+	 * @return Time of inactivity in millis, a negative value if the connections
+	 *         are not validated
+	 */
+	public int getValidateAfterInactivity() {
+		return this.validateAfterInactivity;
+	}
+
+	/**
+	 * Returns the time a connection is kept alive if the server does not say
+	 * otherwise. It's also the max time honoured from the server.
+	 *
+	 * @return Keep alive in millis, a negative value to keep the connections
+	 *         alive indefinitely
+	 */
+	public long getKeepAlive() {
+		return this.keepAlive;
+	}
+
+	/**
+	 * <p>
+	 * Builder of {@link ConnectionPoolConfiguration}.
+	 * </p>
+	 */
+	public static final class Builder {
+
+		/** Max number of connections. */
+		private int maxTotal;
+
+		/** Max number of connections per route. */
+		private int maxPerRoute;
+
+		/** Max number of connections per base path. */
+		private final Map<String, Integer> maxPerBasePath;
+
+		/** Idle timeout in millis. */
+		private long idleTimeout;
+
+		/** Time of inactivity before validation in millis. */
+		private int validateAfterInactivity;
+
+		/** Keep alive in millis. */
+		private long keepAlive;
+
+		/**
+		 * Constructs a new Builder.
+		 */
+		private Builder() {
+			this.maxTotal = DEFAULT_MAX_TOTAL;
+			this.maxPerRoute = DEFAULT_MAX_PER_ROUTE;
+			this.maxPerBasePath = new LinkedHashMap<>();
+			this.idleTimeout = DEFAULT_IDLE_TIMEOUT;
+			this.validateAfterInactivity = DEFAULT_VALIDATE_AFTER_INACTIVITY;
+			this.keepAlive = DEFAULT_KEEP_ALIVE;
+		}
+
+		/**
+		 * Builds the {@link ConnectionPoolConfiguration}.
+		 *
+		 * @return {@link ConnectionPoolConfiguration}
+		 */
+		public ConnectionPoolConfiguration build() {
+			return new ConnectionPoolConfiguration(this);
+		}
+
+		/**
+		 * Sets the max number of connections.
+		 *
+		 * @param maxTotal Max number of connections
+		 * @return This instance
+		 */
+		public Builder maxTotal(int maxTotal) {
+			this.maxTotal = maxTotal;
+
+			return this;
+		}
+
+		/**
+		 * Sets the max number of connections per route.
+		 *
+		 * @param maxPerRoute Max number of connections per route
+		 * @return This instance
+		 */
+		public Builder maxPerRoute(int maxPerRoute) {
+			this.maxPerRoute = maxPerRoute;
+
+			return this;
+		}
+
+		/**
+		 * Sets the max number of connections to the route of the provided base
+		 * path.
+		 *
+		 * @param basePath Base path
+		 * @param max Max number of connections
+		 * @return This instance
+		 */
+		public Builder maxPerBasePath(String basePath, int max) {
+			this.maxPerBasePath.put(basePath, max);
+
+			return this;
+		}
+
+		/**
+		 * Sets the time after which an idle connection is evicted.
+		 *
+		 * @param idleTimeout Idle timeout, 0 to not evict the idle connections
+		 * @param timeUnit Time unit
+		 * @return This instance
+		 */
+		public Builder idleTimeout(long idleTimeout, TimeUnit timeUnit) {
+			this.idleTimeout = timeUnit.toMillis(idleTimeout);
+
+			return this;
+		}
+
+		/**
+		 * Sets the time of inactivity after which a connection is validated
+		 * before being leased.
+		 *
+		 * @param validateAfterInactivity Time of inactivity, a negative value to
+		 *            not validate the connections
+		 * @param timeUnit Time unit
+		 * @return This instance
+		 */
+		public Builder validateAfterInactivity(int validateAfterInactivity, TimeUnit timeUnit) {
+			this.validateAfterInactivity = validateAfterInactivity < 0 ? -1 : (int) timeUnit.toMillis(validateAfterInactivity);
+
+			return this;
+		}
+
+		/**
+		 * Sets the time a connection is kept alive if the server does not say
+		 * otherwise. It's also the max time honoured from the server.
+		 *
+		 * @param keepAlive Keep alive, a negative value to keep the connections
+		 *            alive indefinitely
+		 * @param timeUnit Time unit
+		 * @return This instance
+		 */
+		public Builder keepAlive(long keepAlive, TimeUnit timeUnit) {
+			this.keepAlive = keepAlive < 0 ? -1 : timeUnit.toMillis(keepAlive);
+
+			return this;
+		}
+
+	}
+
+}
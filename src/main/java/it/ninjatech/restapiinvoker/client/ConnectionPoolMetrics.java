@@ -0,0 +1,94 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+/**
+ * <p>
+ * Live metrics of the connection pool of the {@link DefaultHttpRestClient}.
+ * <br>
+ * Every {@link PoolStats} holds the number of leased, pending and available
+ * connections, besides the max number of connections.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public final class ConnectionPoolMetrics {
+
+	/** Connection manager. */
+	private final PoolingHttpClientConnectionManager connectionManager;
+
+	/**
+	 * Constructs a new ConnectionPoolMetrics.
+	 *
+	 * @param connectionManager Connection manager
+	 */
+	ConnectionPoolMetrics(PoolingHttpClientConnectionManager connectionManager) {
+		this.connectionManager = connectionManager;
+	}
+
+	/**
+	 * Returns the stats of the whole pool.
+	 *
+	 * @return Stats
+	 */
+	public PoolStats getTotalStats() {
+		return this.connectionManager.getTotalStats();
+	}
+
+	/**
+	 * Returns the stats of the route of the provided base path.
+	 *
+	 * @param basePath Base path
+	 * @return Stats
+	 */
+	public PoolStats getStats(String basePath) {
+		return this.connectionManager.getStats(ConnectionPoolConfiguration.getRoute(basePath));
+	}
+
+	/**
+	 * Returns the stats of all the routes known by the pool, keyed by the
+	 * target host of the route.
+	 *
+	 * @return Stats per route
+	 */
+	public Map<String, PoolStats> getStatsPerRoute() {
+		Map<String, PoolStats> result = new LinkedHashMap<>();
+
+		for (HttpRoute route : this.connectionManager.getRoutes()) {
+			result.put(route.getTargetHost().toURI(), this.connectionManager.getStats(route));
+		}
+
+		return result;
+	}
+
+}
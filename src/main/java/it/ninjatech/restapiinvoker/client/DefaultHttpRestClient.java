@@ -23,62 +23,276 @@ SOFTWARE.
  */
 package it.ninjatech.restapiinvoker.client;
 
-import java.lang.reflect.ParameterizedType;
+import java.io.Closeable;
+import java.io.IOException;
 import java.lang.reflect.Type;
 import java.net.URI;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.http.client.HttpClient;
-import org.springframework.core.ParameterizedTypeReference;
+import org.apache.http.client.entity.DeflateInputStream;
+import org.apache.http.client.entity.InputStreamFactory;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.ssl.SSLContexts;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequest;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.http.converter.HttpMessageConverter;
-import org.springframework.util.MultiValueMap;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponentsBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import it.ninjatech.restapiinvoker.invocationdata.InvocationData;
+import it.ninjatech.restapiinvoker.metrics.InvocationPhase;
+import it.ninjatech.restapiinvoker.metrics.InvocationSample;
 
 /**
  * <p>
  * Default implementation of the {@link HttpRestClient} that uses
- * {@link HttpClient} to perform the calls.
+ * {@link HttpClient} to perform the calls.<br>
+ * Unless an {@link HttpClient} is provided, the client manages a connection
+ * pool configured through a {@link ConnectionPoolConfiguration} and closed by
+ * {@link #close()}. Its idle connections are evicted by a daemon thread shared
+ * by all the clients, which stops evicting the pool when the client is closed
+ * or garbage collected.<br>
+ * The streamed elements are read from the response with the
+ * {@link ObjectMapper} of the JSON message converter; closing the stream
+ * before its end reads the rest of the body, so that the connection can be
+ * reused.<br>
+ * The request bodies of type {@link java.io.InputStream}, {@link Resource},
+ * {@link java.util.stream.Stream} and {@link java.util.Iterator} are written
+ * to the connection as they are read, the last two as a JSON array, with
+ * chunked transfer encoding if their length is unknown. Setting interceptors
+ * makes them buffered again, since the interceptors can access the body.<br>
+ * The response bodies are requested and decompressed with gzip or deflate,
+ * the request bodies are compressed with gzip for the methods annotated with
+ * {@link it.ninjatech.restapiinvoker.annotation.Compressed}.<br>
+ * The status and the size of the bodies of the measured calls are recorded on
+ * their {@link InvocationSample}, along with the timings of the phases if
+ * requested; the phases of the connection are timed only if the client has
+ * been constructed without an {@link HttpClient}.<br>
+ * The timeouts of the methods annotated with
+ * {@link it.ninjatech.restapiinvoker.annotation.Timeout} and the deadline of
+ * the calls are applied to each request, the time left before the deadline
+ * being optionally sent in a header; the calls whose deadline expires fail
+ * with a {@link DeadlineExceededException}.
  * </p>
  *
  * @author Vincenzo Mazzeo
  * @version 1.0
  * @since 1.0.0
  */
-public class DefaultHttpRestClient implements HttpRestClient {
+public class DefaultHttpRestClient implements StreamingHttpRestClient, Closeable {
 
 	/**
-	 * Builds the URI of the call.
+	 * Builds the URI of the call expanding the compiled URI template of the
+	 * invoked method, timing the {@link InvocationPhase#BUILD_URI} phase.
 	 * 
-	 * @param basePath Base path
-	 * @param endpoint Endpoint
-	 * @param pathParams Path parameters
-	 * @param queryParams Query parameters
+	 * @param invocationData Data to execute the call
 	 * @return URI of the call
 	 */
-	private static URI buildUri(String basePath, String endpoint, Map<String, String> pathParams, MultiValueMap<String, String> queryParams) {
-		return UriComponentsBuilder.fromHttpUrl(basePath)
-		                           .path(endpoint)
-		                           .queryParams(queryParams)
-		                           .buildAndExpand(pathParams)
-		                           .toUri();
+	public static URI buildUri(InvocationData invocationData) {
+		InvocationSample invocationSample = invocationData.getInvocationSample();
+		if (invocationSample != null) {
+			invocationSample.startPhase(InvocationPhase.BUILD_URI);
+		}
+		URI result = invocationData.getUriTemplate().expand(invocationData.getPathParams(), invocationData.getQueryParams());
+		if (invocationSample != null) {
+			invocationSample.endPhase(InvocationPhase.BUILD_URI);
+		}
+
+		return result;
 	}
 
+	/**
+	 * Makes the connection manager.
+	 *
+	 * @param connectionPoolConfiguration Connection pool configuration
+	 * @return Connection manager
+	 */
+	private static PoolingHttpClientConnectionManager makeConnectionManager(ConnectionPoolConfiguration connectionPoolConfiguration) {
+		PoolingHttpClientConnectionManager result = new PhaseTimedConnectionManager(makeSocketFactoryRegistry());
+
+		result.setMaxTotal(connectionPoolConfiguration.getMaxTotal());
+		result.setDefaultMaxPerRoute(connectionPoolConfiguration.getMaxPerRoute());
+		connectionPoolConfiguration.getMaxPerBasePath().forEach((b, m) -> result.setMaxPerRoute(ConnectionPoolConfiguration.getRoute(b), m));
+		result.setValidateAfterInactivity(connectionPoolConfiguration.getValidateAfterInactivity());
+
+		return result;
+	}
+
+	/**
+	 * Makes the registry of the socket factories from the system properties,
+	 * as {@link HttpClientBuilder#useSystemProperties()} does: the SSL context
+	 * is the default one of the JVM, configured by the
+	 * {@code javax.net.ssl.*} properties, and the protocols and cipher suites
+	 * are the ones in the {@code https.protocols} and
+	 * {@code https.cipherSuites} properties, if set.
+	 *
+	 * @return Socket factories by scheme
+	 */
+	private static Registry<ConnectionSocketFactory> makeSocketFactoryRegistry() {
+		SSLConnectionSocketFactory sslSocketFactory = new SSLConnectionSocketFactory(SSLContexts.createSystemDefault(),
+		                                                                             splitSystemProperty("https.protocols"),
+		                                                                             splitSystemProperty("https.cipherSuites"),
+		                                                                             SSLConnectionSocketFactory.getDefaultHostnameVerifier());
+
+		return RegistryBuilder.<ConnectionSocketFactory> create()
+		                      .register("http", PlainConnectionSocketFactory.getSocketFactory())
+		                      .register("https", sslSocketFactory)
+		                      .build();
+	}
+
+	/**
+	 * Splits a comma separated system property.
+	 *
+	 * @param key Key of the system property
+	 * @return Values, null if the property is not set
+	 */
+	private static String[] splitSystemProperty(String key) {
+		String value = System.getProperty(key);
+
+		return StringUtils.isNotBlank(value) ? value.trim().split(" *, *") : null;
+	}
+
+	/**
+	 * Makes the keep alive strategy, honouring the keep alive sent by the server
+	 * up to the provided one.
+	 *
+	 * @param keepAlive Keep alive in millis, a negative value to honour only
+	 *            the server
+	 * @return Keep alive strategy
+	 */
+	private static ConnectionKeepAliveStrategy makeKeepAliveStrategy(long keepAlive) {
+		ConnectionKeepAliveStrategy result = DefaultConnectionKeepAliveStrategy.INSTANCE;
+
+		if (keepAlive >= 0) {
+			result = (response, context) -> {
+				long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+				return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAlive) : keepAlive;
+			};
+		}
+
+		return result;
+	}
+
+	/**
+	 * Makes the {@link RestTemplate}.
+	 *
+	 * @param httpClient {@link HttpClient}
+	 * @param bufferRequestBody Whether the request body has to be buffered
+	 * @return {@link RestTemplate}
+	 */
+	private static RestTemplate makeRestTemplate(HttpClient httpClient, boolean bufferRequestBody) {
+		HttpComponentsClientHttpRequestFactory requestFactory = new TimeoutRequestFactory(httpClient);
+		requestFactory.setBufferRequestBody(bufferRequestBody);
+
+		return new RestTemplate(requestFactory);
+	}
+
+	/**
+	 * Makes the registry of the decoders of the compressed response bodies,
+	 * counting their bytes.
+	 *
+	 * @param compressionMetrics Compression metrics
+	 * @return Decoders by Content-Encoding
+	 */
+	private static Map<String, InputStreamFactory> makeContentDecoderRegistry(CompressionMetrics compressionMetrics) {
+		Map<String, InputStreamFactory> result = new LinkedHashMap<>();
+
+		InputStreamFactory gzip = in -> compressionMetrics.countResponseBytes(new GZIPInputStream(compressionMetrics.countCompressedResponseBytes(in)));
+		result.put("gzip", gzip);
+		result.put("x-gzip", gzip);
+		result.put("deflate", in -> compressionMetrics.countResponseBytes(new DeflateInputStream(compressionMetrics.countCompressedResponseBytes(in))));
+
+		return result;
+	}
+
+	/** {@link ObjectMapper} used if no JSON message converter is set. */
+	private static final ObjectMapper DEFAULT_OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
 	/** {@link RestTemplate}. */
 	private final RestTemplate restTemplate;
 
+	/** {@link RestTemplate} writing the request bodies without buffering. */
+	private final RestTemplate streamingRestTemplate;
+
+	/** {@link HttpClient} to close, null if not owned by this client. */
+	private final CloseableHttpClient ownedHttpClient;
+
+	/** Eviction of the idle connections of the owned pool, null if none. */
+	private final Future<?> idleConnectionEviction;
+
+	/** Compression metrics. */
+	private final CompressionMetrics compressionMetrics;
+
+	/** Connection pool metrics, null if the pool is unknown. */
+	private final ConnectionPoolMetrics connectionPoolMetrics;
+
+	/** Header sending the time left before the deadline, null if not sent. */
+	private String deadlineHeader;
+
 	/**
-	 * Constructs a new {@link DefaultHttpRestClient}.
+	 * Constructs a new {@link DefaultHttpRestClient} with the default
+	 * {@link ConnectionPoolConfiguration}.
 	 */
 	public DefaultHttpRestClient() {
-		this.restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory());
+		this(ConnectionPoolConfiguration.builder().build());
+	}
+
+	/**
+	 * Constructs a new {@link DefaultHttpRestClient} with a connection pool
+	 * built from the provided configuration.<br>
+	 * The other settings of the {@link HttpClient} are taken from the system
+	 * properties.
+	 * 
+	 * @param connectionPoolConfiguration Connection pool configuration
+	 */
+	public DefaultHttpRestClient(ConnectionPoolConfiguration connectionPoolConfiguration) {
+		this.compressionMetrics = new CompressionMetrics();
+
+		PoolingHttpClientConnectionManager connectionManager = makeConnectionManager(connectionPoolConfiguration);
+		HttpClientBuilder httpClientBuilder = HttpClientBuilder.create()
+		                                                       .useSystemProperties()
+		                                                       .setConnectionManager(connectionManager)
+		                                                       .setRequestExecutor(new PhaseTimedRequestExecutor())
+		                                                       .setKeepAliveStrategy(makeKeepAliveStrategy(connectionPoolConfiguration.getKeepAlive()))
+		                                                       .setContentDecoderRegistry(makeContentDecoderRegistry(this.compressionMetrics));
+
+		this.ownedHttpClient = httpClientBuilder.build();
+		this.idleConnectionEviction = connectionPoolConfiguration.getIdleTimeout() > 0 ? IdleConnectionEvictor.schedule(connectionManager, connectionPoolConfiguration.getIdleTimeout())
+		                                                                               : null;
+		this.restTemplate = makeRestTemplate(this.ownedHttpClient, true);
+		this.streamingRestTemplate = makeRestTemplate(this.ownedHttpClient, false);
+		this.connectionPoolMetrics = new ConnectionPoolMetrics(connectionManager);
 	}
 
 	/**
@@ -87,7 +301,23 @@ public class DefaultHttpRestClient implements HttpRestClient {
 	 * @param httpClient {@link HttpClient}
 	 */
 	public DefaultHttpRestClient(HttpClient httpClient) {
-		this.restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+		this(httpClient, null);
+	}
+
+	/**
+	 * Constructs a new {@link DefaultHttpRestClient} exposing the metrics of the
+	 * connection manager used by the provided {@link HttpClient}.
+	 * 
+	 * @param httpClient {@link HttpClient}
+	 * @param connectionManager Connection manager of the {@link HttpClient}
+	 */
+	public DefaultHttpRestClient(HttpClient httpClient, PoolingHttpClientConnectionManager connectionManager) {
+		this.compressionMetrics = new CompressionMetrics();
+		this.ownedHttpClient = null;
+		this.idleConnectionEviction = null;
+		this.restTemplate = makeRestTemplate(httpClient, true);
+		this.streamingRestTemplate = makeRestTemplate(httpClient, false);
+		this.connectionPoolMetrics = connectionManager != null ? new ConnectionPoolMetrics(connectionManager) : null;
 	}
 
 	/*
@@ -98,23 +328,263 @@ public class DefaultHttpRestClient implements HttpRestClient {
 	 */
 	@Override
 	public Object exchange(InvocationData invocationData) {
-		URI uri = buildUri(invocationData.getBasePath(),
-		                   invocationData.getEndpoint(),
-		                   invocationData.getPathParams(),
-		                   invocationData.getQueryParams());
-		HttpEntity<?> requestEntity = new HttpEntity<>(invocationData.getRequestBody(), invocationData.getHeaders());
-
-		Type responseType = invocationData.getResponseType();
-		if (responseType instanceof ParameterizedType) {
-			ParameterizedType parameterizedType = (ParameterizedType) responseType;
-			if (parameterizedType.getRawType().equals(ResponseEntity.class)) {
-				responseType = parameterizedType.getActualTypeArguments()[0];
+		ResponseEntity<?> responseEntity = exchangeForEntity(invocationData);
+
+		return invocationData.isResponseEntity() ? responseEntity : responseEntity.getBody();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.HttpRestClient#exchangeForEntity(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public ResponseEntity<?> exchangeForEntity(InvocationData invocationData) {
+		URI uri = buildUri(invocationData);
+		checkDeadline(invocationData, uri);
+		HttpEntity<?> requestEntity = makeRequestEntity(invocationData);
+
+		RestTemplate restTemplate = getRestTemplate(requestEntity);
+		Type responseType = invocationData.getResponseTypeReference().getType();
+		RequestCallback requestCallback = makeRequestCallback(restTemplate.httpEntityCallback(requestEntity, responseType), requestEntity, invocationData);
+		ResponseExtractor<ResponseEntity<Object>> responseExtractor = restTemplate.responseEntityExtractor(responseType);
+		SampleRecorder sampleRecorder = null;
+		if (invocationData.getInvocationSample() != null) {
+			sampleRecorder = new SampleRecorder(invocationData.getInvocationSample());
+			requestCallback = sampleRecorder.recordRequest(requestCallback, requestEntity);
+			responseExtractor = sampleRecorder.recordResponse(responseExtractor);
+			sampleRecorder.bind();
+		}
+
+		ResponseEntity<?> result;
+		TimeoutRequestFactory.bind(invocationData);
+		try {
+			result = restTemplate.execute(uri, invocationData.getHttpMethod(), requestCallback, responseExtractor);
+		}
+		catch (ResourceAccessException e) {
+			throw invocationData.getDeadline() != null && invocationData.getDeadline().isExpired() ? makeDeadlineExceededException(invocationData, uri, e) : e;
+		}
+		finally {
+			TimeoutRequestFactory.unbind();
+			if (sampleRecorder != null) {
+				sampleRecorder.unbind();
+			}
+		}
+
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.StreamingHttpRestClient#exchangeStream(
+	 * it.ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Stream<Object> exchangeStream(InvocationData invocationData) {
+		Stream<Object> result;
+
+		URI uri = buildUri(invocationData);
+		checkDeadline(invocationData, uri);
+		HttpMethod httpMethod = invocationData.getHttpMethod();
+		HttpEntity<?> requestEntity = makeRequestEntity(invocationData);
+		RestTemplate restTemplate = getRestTemplate(requestEntity);
+
+		ClientHttpResponse response = null;
+		try {
+			ClientHttpRequest request;
+			TimeoutRequestFactory.bind(invocationData);
+			try {
+				request = restTemplate.getRequestFactory().createRequest(uri, httpMethod);
+			}
+			finally {
+				TimeoutRequestFactory.unbind();
+			}
+			RequestCallback requestCallback = makeRequestCallback(restTemplate.httpEntityCallback(requestEntity), requestEntity, invocationData);
+			SampleRecorder sampleRecorder = null;
+			if (invocationData.getInvocationSample() != null) {
+				sampleRecorder = new SampleRecorder(invocationData.getInvocationSample());
+				requestCallback = sampleRecorder.recordRequest(requestCallback, requestEntity);
+			}
+			requestCallback.doWithRequest(request);
+			if (sampleRecorder != null) {
+				sampleRecorder.bind();
+			}
+			try {
+				response = request.execute();
+			}
+			finally {
+				if (sampleRecorder != null) {
+					sampleRecorder.unbind();
+				}
+			}
+			if (sampleRecorder != null) {
+				sampleRecorder.recordStatus(response);
+			}
+			if (restTemplate.getErrorHandler().hasError(response)) {
+				restTemplate.getErrorHandler().handleError(uri, httpMethod, response);
+			}
+
+			result = new JsonElementIterator(getObjectMapper(), invocationData.getElementType(), response.getBody(), response).stream();
+		}
+		catch (IOException e) {
+			if (response != null) {
+				response.close();
+			}
+			if (invocationData.getDeadline() != null && invocationData.getDeadline().isExpired()) {
+				throw makeDeadlineExceededException(invocationData, uri, e);
+			}
+			throw new ResourceAccessException(String.format("I/O error on %s request for \"%s\": %s", httpMethod.name(), uri, e.getMessage()), e);
+		}
+		catch (RuntimeException e) {
+			if (response != null) {
+				response.close();
+			}
+			throw e;
+		}
+
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		if (this.idleConnectionEviction != null) {
+			this.idleConnectionEviction.cancel(false);
+		}
+		if (this.ownedHttpClient != null) {
+			this.ownedHttpClient.close();
+		}
+	}
+
+	/**
+	 * Returns the metrics of the compressed request and response bodies.<br>
+	 * The response bodies are counted only if the client has been constructed
+	 * without an {@link HttpClient}, since otherwise their decompression is up
+	 * to the provided one.
+	 * 
+	 * @return Compression metrics
+	 */
+	public CompressionMetrics getCompressionMetrics() {
+		return this.compressionMetrics;
+	}
+
+	/**
+	 * Returns the live metrics of the connection pool.
+	 * 
+	 * @return Connection pool metrics, null if the client has been constructed
+	 *         with an {@link HttpClient} without its connection manager
+	 */
+	public ConnectionPoolMetrics getConnectionPoolMetrics() {
+		return this.connectionPoolMetrics;
+	}
+
+	/**
+	 * Checks that the deadline of a call has not expired before performing it.
+	 * 
+	 * @param invocationData Data to execute the call
+	 * @param uri URI of the call
+	 * @throws DeadlineExceededException if the deadline has expired
+	 */
+	private static void checkDeadline(InvocationData invocationData, URI uri) {
+		if (invocationData.getDeadline() != null && invocationData.getDeadline().isExpired()) {
+			throw makeDeadlineExceededException(invocationData, uri, null);
+		}
+	}
+
+	/**
+	 * Makes the exception of a call whose deadline has expired.
+	 * 
+	 * @param invocationData Data to execute the call
+	 * @param uri URI of the call
+	 * @param cause Error raised by the expiration, can be null
+	 * @return {@link DeadlineExceededException}
+	 */
+	private static DeadlineExceededException makeDeadlineExceededException(InvocationData invocationData, URI uri, Throwable cause) {
+		return new DeadlineExceededException(String.format("Deadline exceeded on %s request for \"%s\"", invocationData.getHttpMethod().name(), uri), cause);
+	}
+
+	/**
+	 * Makes the request entity, converting the request bodies to be streamed
+	 * to a {@link Resource}.
+	 * 
+	 * @param invocationData Data to execute the call
+	 * @return Request entity
+	 */
+	private HttpEntity<?> makeRequestEntity(InvocationData invocationData) {
+		Object requestBody = invocationData.getRequestBody();
+		HttpHeaders headers = invocationData.getHeaders();
+
+		boolean jsonElements = RequestBodies.isJsonElements(requestBody) && headers.getContentType() == null;
+		boolean deadline = this.deadlineHeader != null && invocationData.getDeadline() != null;
+		if (jsonElements || deadline) {
+			headers = new HttpHeaders();
+			headers.putAll(invocationData.getHeaders());
+			if (jsonElements) {
+				headers.setContentType(MediaType.APPLICATION_JSON);
+			}
+			if (deadline) {
+				headers.set(this.deadlineHeader, String.valueOf(invocationData.getDeadline().getRemaining(TimeUnit.MILLISECONDS)));
 			}
 		}
+		requestBody = RequestBodies.toStreamable(requestBody, getObjectMapper());
+
+		return new HttpEntity<>(requestBody, headers);
+	}
 
-		ParameterizedTypeReference<?> responseTypeReference = new ResponseTypeReference<>(responseType);
+	/**
+	 * Makes the request callback, compressing the request body if requested by
+	 * the invoked method.
+	 * 
+	 * @param requestCallback Request callback writing the request entity
+	 * @param requestEntity Request entity
+	 * @param invocationData Data to execute the call
+	 * @return Request callback
+	 */
+	private RequestCallback makeRequestCallback(RequestCallback requestCallback, HttpEntity<?> requestEntity, InvocationData invocationData) {
+		RequestCallback result = requestCallback;
 
-		return this.restTemplate.exchange(uri, invocationData.getHttpMethod(), requestEntity, responseTypeReference);
+		if (requestEntity.hasBody() && invocationData.getCompressionThreshold() >= 0) {
+			result = new CompressingRequestCallback(requestCallback, invocationData.getCompressionThreshold(), this.compressionMetrics);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Gets the {@link RestTemplate} for the request entity.
+	 * 
+	 * @param requestEntity Request entity
+	 * @return {@link RestTemplate} not buffering the {@link Resource} request
+	 *         bodies
+	 */
+	private RestTemplate getRestTemplate(HttpEntity<?> requestEntity) {
+		return requestEntity.getBody() instanceof Resource ? this.streamingRestTemplate : this.restTemplate;
+	}
+
+	/**
+	 * Gets the {@link ObjectMapper} of the JSON message converter.
+	 * 
+	 * @return {@link ObjectMapper}
+	 */
+	private ObjectMapper getObjectMapper() {
+		ObjectMapper result = null;
+
+		for (HttpMessageConverter<?> messageConverter : this.restTemplate.getMessageConverters()) {
+			if (messageConverter instanceof MappingJackson2HttpMessageConverter) {
+				result = ((MappingJackson2HttpMessageConverter) messageConverter).getObjectMapper();
+				break;
+			}
+		}
+
+		return result != null ? result : DEFAULT_OBJECT_MAPPER;
 	}
 
 	/**
@@ -125,6 +595,7 @@ public class DefaultHttpRestClient implements HttpRestClient {
 	 */
 	public void setInterceptors(List<ClientHttpRequestInterceptor> interceptors) {
 		this.restTemplate.setInterceptors(interceptors);
+		this.streamingRestTemplate.setInterceptors(interceptors);
 	}
 
 	/**
@@ -135,6 +606,18 @@ public class DefaultHttpRestClient implements HttpRestClient {
 	 */
 	public void setMessageConverters(List<HttpMessageConverter<?>> messageConverters) {
 		this.restTemplate.setMessageConverters(messageConverters);
+		this.streamingRestTemplate.setMessageConverters(messageConverters);
+	}
+
+	/**
+	 * Sets the header sending to the REST service the time left, in millis,
+	 * before the deadline of the calls, so that it can give up the calls whose
+	 * caller has given up.
+	 * 
+	 * @param deadlineHeader Name of the header, null to not send it
+	 */
+	public void setDeadlineHeader(String deadlineHeader) {
+		this.deadlineHeader = deadlineHeader;
 	}
 
 }
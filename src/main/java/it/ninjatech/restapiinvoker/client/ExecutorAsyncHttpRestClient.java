@@ -0,0 +1,197 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+
+import it.ninjatech.restapiinvoker.invocationdata.InvocationData;
+
+/**
+ * <p>
+ * Implementation of the {@link AsyncHttpRestClient} that performs the calls
+ * of a blocking {@link HttpRestClient} on an {@link Executor}.<br>
+ * Unless another one is provided, the calls are performed on the default
+ * executor of the library, whose {@link #DEFAULT_MAX_THREADS} daemon threads
+ * are started on demand and stopped when idle, so that the blocking calls
+ * never take the threads of the {@link java.util.concurrent.ForkJoinPool}.<br>
+ * The calls waiting for a thread of the default executor are bounded to
+ * {@link #DEFAULT_MAX_QUEUED_CALLS}, so that a slow REST service can't pile
+ * up the calls in memory. The calls rejected by the executor fail with a
+ * {@link ResourceAccessException}, the failure the retries, the circuit
+ * breakers and the concurrency limiters recognise as an overload.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public class ExecutorAsyncHttpRestClient implements AsyncHttpRestClient {
+
+	/** Maximum threads of the default executor. */
+	public static final int DEFAULT_MAX_THREADS = 50;
+
+	/** Maximum calls waiting for a thread of the default executor. */
+	public static final int DEFAULT_MAX_QUEUED_CALLS = 1000;
+
+	/** Time, in seconds, an idle thread of the default executor is kept. */
+	private static final long DEFAULT_KEEP_ALIVE = 60;
+
+	/** Default executor. */
+	private static final ThreadPoolExecutor DEFAULT_EXECUTOR = makeDefaultExecutor();
+
+	/** HTTP Rest Client. */
+	private final HttpRestClient httpRestClient;
+
+	/** Executor. */
+	private final Executor executor;
+
+	/**
+	 * Constructs a new ExecutorAsyncHttpRestClient performing the calls on the
+	 * default executor.
+	 *
+	 * @param httpRestClient HTTP Rest Client performing the calls
+	 */
+	public ExecutorAsyncHttpRestClient(HttpRestClient httpRestClient) {
+		this(httpRestClient, DEFAULT_EXECUTOR);
+	}
+
+	/**
+	 * Constructs a new ExecutorAsyncHttpRestClient.
+	 *
+	 * @param httpRestClient HTTP Rest Client performing the calls
+	 * @param executor Executor running the calls
+	 */
+	public ExecutorAsyncHttpRestClient(HttpRestClient httpRestClient, Executor executor) {
+		this.httpRestClient = httpRestClient;
+		this.executor = executor;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see it.ninjatech.restapiinvoker.client.HttpRestClient#exchange(it.ninjatech.
+	 * restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Object exchange(InvocationData invocationData) {
+		return this.httpRestClient.exchange(invocationData);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.HttpRestClient#exchangeForEntity(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public ResponseEntity<?> exchangeForEntity(InvocationData invocationData) {
+		return this.httpRestClient.exchangeForEntity(invocationData);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.AsyncHttpRestClient#exchangeAsync(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public CompletableFuture<Object> exchangeAsync(InvocationData invocationData) {
+		return supplyAsync(() -> this.httpRestClient.exchange(invocationData));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see it.ninjatech.restapiinvoker.client.AsyncHttpRestClient#
+	 * exchangeForEntityAsync(it.ninjatech.restapiinvoker.invocationdata.
+	 * InvocationData)
+	 */
+	@Override
+	public CompletableFuture<ResponseEntity<?>> exchangeForEntityAsync(InvocationData invocationData) {
+		return supplyAsync(() -> this.httpRestClient.exchangeForEntity(invocationData));
+	}
+
+	/**
+	 * Performs a call on the executor, failing it with a
+	 * {@link ResourceAccessException} if rejected.
+	 *
+	 * @param <T> Response type
+	 * @param call Call
+	 * @return Future of the response
+	 */
+	private <T> CompletableFuture<T> supplyAsync(Supplier<T> call) {
+		CompletableFuture<T> result;
+
+		try {
+			result = CompletableFuture.supplyAsync(call, this.executor);
+		}
+		catch (RejectedExecutionException e) {
+			result = new CompletableFuture<>();
+			result.completeExceptionally(new ResourceAccessException(String.format("Call rejected by the executor: %s", e.getMessage())));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the default executor of the blocking calls, bounded to
+	 * {@link #DEFAULT_MAX_THREADS} daemon threads and
+	 * {@link #DEFAULT_MAX_QUEUED_CALLS} waiting calls.
+	 *
+	 * @return Default executor
+	 */
+	public static Executor getDefaultExecutor() {
+		return DEFAULT_EXECUTOR;
+	}
+
+	/**
+	 * Makes the default executor.
+	 *
+	 * @return Default executor
+	 */
+	private static ThreadPoolExecutor makeDefaultExecutor() {
+		AtomicInteger threadCount = new AtomicInteger();
+		ThreadPoolExecutor result = new ThreadPoolExecutor(DEFAULT_MAX_THREADS, DEFAULT_MAX_THREADS, DEFAULT_KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<>(DEFAULT_MAX_QUEUED_CALLS), r -> {
+			Thread thread = new Thread(r, "rest-api-invoker-async-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		result.allowCoreThreadTimeOut(true);
+
+		return result;
+	}
+
+}
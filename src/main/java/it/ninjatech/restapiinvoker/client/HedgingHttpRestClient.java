@@ -0,0 +1,653 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.springframework.http.ResponseEntity;
+
+import it.ninjatech.restapiinvoker.annotation.Hedged;
+import it.ninjatech.restapiinvoker.invocationdata.InvocationData;
+import it.ninjatech.restapiinvoker.metrics.Histogram;
+import it.ninjatech.restapiinvoker.metrics.InvocationSample;
+import reactor.core.publisher.Flux;
+
+/**
+ * <p>
+ * Decorator of an {@link HttpRestClient} hedging the calls of the methods
+ * annotated with {@link Hedged}.<br>
+ * The calls of such methods are performed on the executor: if the response
+ * has not arrived after the hedging delay, an identical call is started and
+ * the first successful response is returned, the call failing only if both
+ * fail. The losing call is cancelled: the thread performing it is
+ * interrupted and, if it's sent by a {@link DefaultHttpRestClient}, its
+ * request is aborted, releasing the connection. The calls whose request body
+ * is a stream that cannot be read again are never hedged.<br>
+ * Since the calls block the threads of the executor, it's always provided by
+ * the caller and should be sized for twice the concurrent hedged calls.<br>
+ * If the decorated client performs the calls asynchronously, the asynchronous
+ * and {@link reactor.core.publisher.Mono Mono} calls are hedged without the
+ * executor, the hedge being started on a shared scheduler and the losing call
+ * cancelled through its future. The streamed and the {@link Flux} calls are
+ * not hedged, their elements being read while the response arrives.<br>
+ * The calls of a hedged call run on copies of its data, each measured by its
+ * own sample, and only the measures of the call deciding its result are
+ * recorded on the sample of the hedged call.
+ * </p>
+ * <p>
+ * When the delay is derived from a percentile, it's computed on the latencies
+ * of the successful first calls of the method, and no call is hedged before
+ * {@value #MIN_SAMPLES} latencies have been observed. The hedges are limited
+ * by a budget shared by all the calls: each call adds {@code budgetRatio}
+ * tokens to a bucket holding at most {@code budgetCapacity} tokens, and each
+ * hedge takes one.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public class HedgingHttpRestClient extends HttpRestClientDecorator {
+
+	/** Default fraction of the calls that can be hedged. */
+	public static final double DEFAULT_BUDGET_RATIO = 0.05;
+
+	/** Default capacity of the hedge budget. */
+	public static final int DEFAULT_BUDGET_CAPACITY = 10;
+
+	/** Latencies to observe before deriving the delay from a percentile. */
+	public static final int MIN_SAMPLES = 100;
+
+	/** Scheduler of the hedges of the asynchronous calls. */
+	private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread result = new Thread(r, "rest-api-invoker-hedger");
+		result.setDaemon(true);
+
+		return result;
+	});
+
+	/**
+	 * Waits for the result of a call, unwrapping its failure.
+	 * 
+	 * @param <T> Type of the result
+	 * @param call Call
+	 * @return Result of the call
+	 */
+	private static <T> T await(CompletableFuture<T> call) {
+		try {
+			return call.join();
+		}
+		catch (CompletionException e) {
+			throw unwrap(e.getCause() != null ? e.getCause() : e);
+		}
+	}
+
+	/**
+	 * Unwraps the failure of a call.
+	 * 
+	 * @param failure Failure
+	 * @return {@link RuntimeException} to throw
+	 */
+	private static RuntimeException unwrap(Throwable failure) {
+		Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+		if (cause instanceof Error) {
+			throw (Error) cause;
+		}
+
+		return cause instanceof RuntimeException ? (RuntimeException) cause : new CompletionException(cause);
+	}
+
+	/** Executor of the calls. */
+	private final Executor executor;
+
+	/** Hedge budget. */
+	private final CallBudget hedgeBudget;
+
+	/** Latencies, in nanoseconds, by proxied method. */
+	private final Map<Method, Histogram> latencies;
+
+	/** Number of hedges. */
+	private final LongAdder hedgeCount;
+
+	/** Number of hedges whose response won. */
+	private final LongAdder hedgeWinCount;
+
+	/**
+	 * Constructs a new {@link HedgingHttpRestClient} with the default hedge
+	 * budget.
+	 * 
+	 * @param httpRestClient Decorated {@link HttpRestClient}
+	 * @param executor Executor of the calls
+	 */
+	public HedgingHttpRestClient(HttpRestClient httpRestClient, Executor executor) {
+		this(httpRestClient, executor, DEFAULT_BUDGET_RATIO, DEFAULT_BUDGET_CAPACITY);
+	}
+
+	/**
+	 * Constructs a new {@link HedgingHttpRestClient}.
+	 * 
+	 * @param httpRestClient Decorated {@link HttpRestClient}
+	 * @param executor Executor of the calls
+	 * @param budgetRatio Tokens added to the hedge budget by each call, that is
+	 *            the fraction of the calls that can be hedged
+	 * @param budgetCapacity Maximum, and initial, tokens of the hedge budget
+	 */
+	public HedgingHttpRestClient(HttpRestClient httpRestClient, Executor executor, double budgetRatio, int budgetCapacity) {
+		super(httpRestClient);
+		this.executor = executor;
+		this.hedgeBudget = new CallBudget(budgetRatio, budgetCapacity);
+		this.latencies = new ConcurrentHashMap<>();
+		this.hedgeCount = new LongAdder();
+		this.hedgeWinCount = new LongAdder();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see it.ninjatech.restapiinvoker.client.HttpRestClient#exchange(it.ninjatech.
+	 * restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Object exchange(InvocationData invocationData) {
+		return execute(invocationData, this.httpRestClient::exchange);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.HttpRestClient#exchangeForEntity(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public ResponseEntity<?> exchangeForEntity(InvocationData invocationData) {
+		return execute(invocationData, this.httpRestClient::exchangeForEntity);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.AsyncHttpRestClient#exchangeAsync(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public CompletableFuture<Object> exchangeAsync(InvocationData invocationData) {
+		return executeAsync(invocationData, this::forwardAsync);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.AsyncHttpRestClient#exchangeForEntityAsync
+	 * (it.ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public CompletableFuture<ResponseEntity<?>> exchangeForEntityAsync(InvocationData invocationData) {
+		return executeAsync(invocationData, this::forwardEntityAsync);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.ReactiveHttpRestClient#exchangeFlux(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Flux<Object> exchangeFlux(InvocationData invocationData) {
+		return forwardFlux(invocationData);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.StreamingHttpRestClient#exchangeStream(
+	 * it.ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Stream<Object> exchangeStream(InvocationData invocationData) {
+		return forwardStream(invocationData);
+	}
+
+	/**
+	 * Returns the number of hedges started.
+	 * 
+	 * @return Hedge count
+	 */
+	public long getHedgeCount() {
+		return this.hedgeCount.sum();
+	}
+
+	/**
+	 * Returns the number of hedges whose response won over the first call.
+	 * 
+	 * @return Hedge win count
+	 */
+	public long getHedgeWinCount() {
+		return this.hedgeWinCount.sum();
+	}
+
+	/**
+	 * Returns the number of hedges denied by the hedge budget.
+	 * 
+	 * @return Budget exhausted count
+	 */
+	public long getBudgetExhaustedCount() {
+		return this.hedgeBudget.getExhaustedCount();
+	}
+
+	/**
+	 * Returns the latencies of the first calls of a method.
+	 * 
+	 * @param method Proxied method
+	 * @return Latencies in nanoseconds, null if the method has not been hedged
+	 */
+	public Histogram getLatency(Method method) {
+		return this.latencies.get(method);
+	}
+
+	/**
+	 * Executes the call, hedging it if needed.
+	 * 
+	 * @param <T> Type of the result
+	 * @param invocationData Data to execute the call
+	 * @param call Call
+	 * @return Result of the call
+	 */
+	private <T> T execute(InvocationData invocationData, Function<InvocationData, T> call) {
+		T result;
+
+		Hedged hedged = invocationData.getHedged();
+		if (hedged == null || !RequestBodies.isReplayable(invocationData.getRequestBody())) {
+			result = call.apply(invocationData);
+		}
+		else {
+			result = executeHedged(invocationData, hedged, call);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Executes the call, starting a hedge if it's not completed within the
+	 * hedging delay.
+	 * 
+	 * @param <T> Type of the result
+	 * @param invocationData Data to execute the call
+	 * @param hedged Hedging of the call
+	 * @param call Call
+	 * @return Result of the call
+	 */
+	private <T> T executeHedged(InvocationData invocationData, Hedged hedged, Function<InvocationData, T> call) {
+		T result;
+
+		this.hedgeBudget.deposit();
+		Histogram latency = this.latencies.computeIfAbsent(invocationData.getInvocationPlan().getMethod(), m -> new Histogram());
+		long delay = getDelay(hedged, latency);
+
+		long startTime = System.nanoTime();
+		Race<T> race = new Race<>(invocationData);
+		Attempt<T> firstCall = start(race, call, false);
+		firstCall.completion.whenComplete((r, e) -> {
+			if (e == null) {
+				latency.record(System.nanoTime() - startTime);
+			}
+		});
+		if (delay < 0) {
+			result = await(race.result);
+		}
+		else {
+			try {
+				result = race.result.get(delay, TimeUnit.NANOSECONDS);
+			}
+			catch (TimeoutException e) {
+				if (!race.result.isDone() && this.hedgeBudget.withdraw()) {
+					this.hedgeCount.increment();
+					start(race, call, true);
+				}
+				result = await(race.result);
+			}
+			catch (ExecutionException e) {
+				throw unwrap(e.getCause());
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				firstCall.cancel(true);
+				throw new CompletionException(e);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Executes the call asynchronously, hedging it if needed.
+	 * 
+	 * @param <T> Type of the result
+	 * @param invocationData Data to execute the call
+	 * @param call Call
+	 * @return Future completed with the result of the call
+	 */
+	private <T> CompletableFuture<T> executeAsync(InvocationData invocationData, Function<InvocationData, CompletableFuture<T>> call) {
+		CompletableFuture<T> result;
+
+		Hedged hedged = invocationData.getHedged();
+		if (hedged == null || !RequestBodies.isReplayable(invocationData.getRequestBody())) {
+			result = AsyncCalls.start(() -> call.apply(invocationData));
+		}
+		else {
+			result = executeHedgedAsync(invocationData, hedged, call);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Executes the call asynchronously, scheduling a hedge if it's not
+	 * completed within the hedging delay.
+	 * 
+	 * @param <T> Type of the result
+	 * @param invocationData Data to execute the call
+	 * @param hedged Hedging of the call
+	 * @param call Call
+	 * @return Completed with the first successful response, or the last
+	 *         failure; its completion cancels the calls in progress
+	 */
+	private <T> CompletableFuture<T> executeHedgedAsync(InvocationData invocationData, Hedged hedged, Function<InvocationData, CompletableFuture<T>> call) {
+		this.hedgeBudget.deposit();
+		Histogram latency = this.latencies.computeIfAbsent(invocationData.getInvocationPlan().getMethod(), m -> new Histogram());
+		long delay = getDelay(hedged, latency);
+
+		long startTime = System.nanoTime();
+		Race<T> race = new Race<>(invocationData);
+		startAsync(race, call, false).whenComplete((r, e) -> {
+			if (e == null) {
+				latency.record(System.nanoTime() - startTime);
+			}
+		});
+		if (delay >= 0) {
+			SCHEDULER.schedule(() -> {
+				if (!race.result.isDone() && this.hedgeBudget.withdraw()) {
+					this.hedgeCount.increment();
+					startAsync(race, call, true);
+				}
+			}, delay, TimeUnit.NANOSECONDS);
+		}
+
+		return race.result;
+	}
+
+	/**
+	 * Starts one of the calls of a hedged call on the executor.
+	 * 
+	 * @param <T> Type of the result
+	 * @param race Race among the calls
+	 * @param call Call
+	 * @param hedge true, if it's the hedge
+	 * @return Started call, failed if rejected by the executor; cancelled by
+	 *         the completion of the race
+	 */
+	private <T> Attempt<T> start(Race<T> race, Function<InvocationData, T> call, boolean hedge) {
+		InvocationData invocationData = race.enter();
+		Attempt<T> result = new Attempt<>(new CallCancellation(), () -> call.apply(invocationData));
+
+		result.completion.whenComplete((r, e) -> {
+			if (race.complete(invocationData, r, e) && hedge) {
+				this.hedgeWinCount.increment();
+			}
+		});
+		race.result.whenComplete((r, e) -> result.cancel(true));
+		try {
+			this.executor.execute(result);
+		}
+		catch (RejectedExecutionException e) {
+			result.completion.completeExceptionally(e);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Starts one of the calls of a hedged call asynchronously.
+	 * 
+	 * @param <T> Type of the result
+	 * @param race Race among the calls
+	 * @param call Call
+	 * @param hedge true, if it's the hedge
+	 * @return Future completed with the result of the call; cancelled by the
+	 *         completion of the race
+	 */
+	private <T> CompletableFuture<T> startAsync(Race<T> race, Function<InvocationData, CompletableFuture<T>> call, boolean hedge) {
+		InvocationData invocationData = race.enter();
+		CompletableFuture<T> result = AsyncCalls.start(() -> call.apply(invocationData));
+
+		result.whenComplete((r, e) -> {
+			if (race.complete(invocationData, r, e) && hedge) {
+				this.hedgeWinCount.increment();
+			}
+		});
+		race.result.whenComplete((r, e) -> result.cancel(true));
+
+		return result;
+	}
+
+	/**
+	 * Gets the hedging delay of a call.
+	 * 
+	 * @param hedged Hedging of the call
+	 * @param latency Latencies of the method
+	 * @return Delay in nanoseconds, -1 if the call must not be hedged
+	 */
+	private static long getDelay(Hedged hedged, Histogram latency) {
+		long result = -1;
+
+		if (hedged.delay() >= 0) {
+			result = TimeUnit.MILLISECONDS.toNanos(hedged.delay());
+		}
+		else if (latency.getCount() >= MIN_SAMPLES) {
+			result = latency.getValueAtPercentile(hedged.percentile());
+		}
+
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Race among the calls of a hedged call, completed with the first
+	 * successful response or the last failure.<br>
+	 * Since the calls run concurrently, each of them is performed on a copy of
+	 * the data with its own sample, and the measures of the call deciding the
+	 * race are recorded on the sample of the hedged call before completing it.
+	 * </p>
+	 *
+	 * @param <T> Type of the result
+	 */
+	private static final class Race<T> {
+
+		/** Data to execute the hedged call. */
+		private final InvocationData invocationData;
+
+		/** Completed with the first successful response, or the last failure. */
+		private final CompletableFuture<T> result;
+
+		/** Number of calls in progress. */
+		private final AtomicInteger pending;
+
+		/** Whether a call has decided the race. */
+		private final AtomicBoolean decided;
+
+		/**
+		 * Constructs a new {@link Race}.
+		 * 
+		 * @param invocationData Data to execute the hedged call
+		 */
+		private Race(InvocationData invocationData) {
+			this.invocationData = invocationData;
+			this.result = new CompletableFuture<>();
+			this.pending = new AtomicInteger();
+			this.decided = new AtomicBoolean();
+		}
+
+		/**
+		 * Enters a call in the race.
+		 * 
+		 * @return Data to execute the call
+		 */
+		private InvocationData enter() {
+			InvocationData result = this.invocationData;
+
+			this.pending.incrementAndGet();
+			InvocationSample invocationSample = this.invocationData.getInvocationSample();
+			if (invocationSample != null) {
+				InvocationSample callSample = new InvocationSample(invocationSample.getInvocationPlan());
+				if (invocationSample.isTimingPhases()) {
+					callSample.timePhases();
+				}
+				result = this.invocationData.withInvocationSample(callSample);
+			}
+
+			return result;
+		}
+
+		/**
+		 * Completes the race with the result of one of its calls, if it's
+		 * successful or the last one.
+		 * 
+		 * @param callData Data of the call
+		 * @param response Response of the call
+		 * @param failure Failure of the call
+		 * @return true, if the call won
+		 */
+		private boolean complete(InvocationData callData, T response, Throwable failure) {
+			boolean result = false;
+
+			if ((failure == null || this.pending.decrementAndGet() == 0) && this.decided.compareAndSet(false, true)) {
+				if (this.invocationData.getInvocationSample() != null) {
+					this.invocationData.getInvocationSample().record(callData.getInvocationSample());
+				}
+				if (failure == null) {
+					result = this.result.complete(response);
+				}
+				else {
+					this.result.completeExceptionally(AsyncCalls.unwrap(failure));
+				}
+			}
+
+			return result;
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Call performed on the executor, whose cancellation interrupts the thread
+	 * performing it and aborts its request.
+	 * </p>
+	 *
+	 * @param <T> Type of the result
+	 */
+	private static final class Attempt<T> extends FutureTask<T> {
+
+		/** Cancellation of the call. */
+		private final CallCancellation cancellation;
+
+		/** Completed with the result of the call. */
+		private final CompletableFuture<T> completion;
+
+		/**
+		 * Constructs a new {@link Attempt}.
+		 * 
+		 * @param cancellation Cancellation of the call
+		 * @param call Call
+		 */
+		private Attempt(CallCancellation cancellation, Supplier<T> call) {
+			super(() -> cancellation.run(call));
+			this.cancellation = cancellation;
+			this.completion = new CompletableFuture<>();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.concurrent.FutureTask#cancel(boolean)
+		 */
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean result = super.cancel(mayInterruptIfRunning);
+
+			if (result) {
+				this.cancellation.cancel();
+			}
+
+			return result;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.concurrent.FutureTask#done()
+		 */
+		@Override
+		protected void done() {
+			if (isCancelled()) {
+				this.completion.cancel(false);
+			}
+			else {
+				try {
+					this.completion.complete(get());
+				}
+				catch (ExecutionException e) {
+					this.completion.completeExceptionally(e.getCause());
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					this.completion.completeExceptionally(e);
+				}
+			}
+		}
+
+	}
+
+}
@@ -23,6 +23,9 @@ SOFTWARE.
  */
 package it.ninjatech.restapiinvoker.client;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
 import it.ninjatech.restapiinvoker.InvokerMethodInterceptor;
 import it.ninjatech.restapiinvoker.invocationdata.InvocationData;
 
@@ -46,4 +49,41 @@ public interface HttpRestClient {
 	 */
 	public Object exchange(InvocationData invocationData);
 
+	/**
+	 * Executes the call to the REST service returning the whole response,
+	 * whatever the response type of the proxied method is.<br>
+	 * It's used by the decorators that need the status and the headers of the
+	 * response. The default implementation wraps the body returned by
+	 * {@link #exchange(InvocationData)} in a {@link ResponseEntity} without
+	 * headers, so the clients able to return the real response should override
+	 * it.
+	 * 
+	 * @param invocationData Data to execute the call
+	 * @return Response of the call
+	 * @since 1.1.0
+	 */
+	public default ResponseEntity<?> exchangeForEntity(InvocationData invocationData) {
+		Object result = exchange(invocationData);
+
+		return invocationData.isResponseEntity() ? (ResponseEntity<?>) result : new ResponseEntity<>(result, HttpStatus.OK);
+	}
+
+	/**
+	 * Checks if the client supports a capability, that is if it's able to
+	 * perform the calls in the way of one of the capability interfaces:
+	 * {@link AsyncHttpRestClient}, {@link ReactiveHttpRestClient} and
+	 * {@link StreamingHttpRestClient}.<br>
+	 * The default implementation checks if the client implements the
+	 * interface. The decorators implement all of them, but support only the
+	 * ones of the decorated client, so the {@link InvokerMethodInterceptor}
+	 * checks the support rather than the type of the client.
+	 * 
+	 * @param capability Capability interface
+	 * @return true, if the capability is supported
+	 * @since 1.1.0
+	 */
+	public default boolean supports(Class<? extends HttpRestClient> capability) {
+		return capability.isInstance(this);
+	}
+
 }
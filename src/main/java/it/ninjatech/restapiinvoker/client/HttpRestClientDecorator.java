@@ -0,0 +1,214 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import it.ninjatech.restapiinvoker.invocationdata.InvocationData;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * <p>
+ * Base class of the decorators of an {@link HttpRestClient}.<br>
+ * A decorator implements all the capability interfaces, but supports only the
+ * ones of the decorated client, so that the calls are performed in the same
+ * way as without it. The asynchronous calls are supported also if the
+ * decorated client is only a {@link ReactiveHttpRestClient}.<br>
+ * Each decorator decides how to apply its policy to the asynchronous, the
+ * reactive and the streamed calls, forwarding them to the decorated client
+ * with the <code>forward</code> methods, which throw an
+ * {@link UnsupportedOperationException} if the capability is not supported.
+ * The {@link Mono} calls are performed through
+ * {@link #exchangeAsync(InvocationData)}.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public abstract class HttpRestClientDecorator implements AsyncHttpRestClient, ReactiveHttpRestClient, StreamingHttpRestClient {
+
+	/** Decorated {@link HttpRestClient}. */
+	protected final HttpRestClient httpRestClient;
+
+	/**
+	 * Constructs a new HttpRestClientDecorator.
+	 *
+	 * @param httpRestClient Decorated {@link HttpRestClient}
+	 */
+	protected HttpRestClientDecorator(HttpRestClient httpRestClient) {
+		this.httpRestClient = httpRestClient;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see it.ninjatech.restapiinvoker.client.HttpRestClient#supports(java.lang.
+	 * Class)
+	 */
+	@Override
+	public boolean supports(Class<? extends HttpRestClient> capability) {
+		return capability.isInstance(this) && (this.httpRestClient.supports(capability)
+		                                       || capability == AsyncHttpRestClient.class && this.httpRestClient.supports(ReactiveHttpRestClient.class));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.AsyncHttpRestClient#exchangeAsync(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public abstract CompletableFuture<Object> exchangeAsync(InvocationData invocationData);
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.AsyncHttpRestClient#exchangeForEntityAsync
+	 * (it.ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public abstract CompletableFuture<ResponseEntity<?>> exchangeForEntityAsync(InvocationData invocationData);
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.ReactiveHttpRestClient#exchangeMono(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Mono<Object> exchangeMono(InvocationData invocationData) {
+		return ReactiveCalls.fromFuture(() -> exchangeAsync(invocationData));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.ReactiveHttpRestClient#exchangeFlux(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public abstract Flux<Object> exchangeFlux(InvocationData invocationData);
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.StreamingHttpRestClient#exchangeStream(
+	 * it.ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public abstract Stream<Object> exchangeStream(InvocationData invocationData);
+
+	/**
+	 * Forwards an asynchronous call to the decorated client.
+	 *
+	 * @param invocationData Data to execute the call
+	 * @return Future completed with the result of the call
+	 */
+	protected CompletableFuture<Object> forwardAsync(InvocationData invocationData) {
+		CompletableFuture<Object> result;
+
+		if (this.httpRestClient.supports(AsyncHttpRestClient.class)) {
+			result = ((AsyncHttpRestClient) this.httpRestClient).exchangeAsync(invocationData);
+		}
+		else if (this.httpRestClient.supports(ReactiveHttpRestClient.class)) {
+			result = ReactiveCalls.toFuture(((ReactiveHttpRestClient) this.httpRestClient).exchangeMono(invocationData));
+		}
+		else {
+			throw unsupported(AsyncHttpRestClient.class);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Forwards an asynchronous call returning the whole response to the
+	 * decorated client.
+	 *
+	 * @param invocationData Data to execute the call
+	 * @return Future completed with the response of the call
+	 */
+	protected CompletableFuture<ResponseEntity<?>> forwardEntityAsync(InvocationData invocationData) {
+		CompletableFuture<ResponseEntity<?>> result;
+
+		if (this.httpRestClient.supports(AsyncHttpRestClient.class)) {
+			result = ((AsyncHttpRestClient) this.httpRestClient).exchangeForEntityAsync(invocationData);
+		}
+		else {
+			result = forwardAsync(invocationData).thenApply(r -> invocationData.isResponseEntity() ? (ResponseEntity<?>) r : new ResponseEntity<>(r, HttpStatus.OK));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Forwards a reactive call to the decorated client.
+	 *
+	 * @param invocationData Data to execute the call
+	 * @return {@link Flux} emitting the elements of the response body
+	 */
+	protected Flux<Object> forwardFlux(InvocationData invocationData) {
+		if (!this.httpRestClient.supports(ReactiveHttpRestClient.class)) {
+			throw unsupported(ReactiveHttpRestClient.class);
+		}
+
+		return ((ReactiveHttpRestClient) this.httpRestClient).exchangeFlux(invocationData);
+	}
+
+	/**
+	 * Forwards a streamed call to the decorated client.
+	 *
+	 * @param invocationData Data to execute the call
+	 * @return {@link Stream} of the elements of the response body
+	 */
+	protected Stream<Object> forwardStream(InvocationData invocationData) {
+		if (!this.httpRestClient.supports(StreamingHttpRestClient.class)) {
+			throw unsupported(StreamingHttpRestClient.class);
+		}
+
+		return ((StreamingHttpRestClient) this.httpRestClient).exchangeStream(invocationData);
+	}
+
+	/**
+	 * Makes the exception thrown when forwarding a call in a way not supported
+	 * by the decorated client.
+	 *
+	 * @param capability Capability interface
+	 * @return {@link UnsupportedOperationException}
+	 */
+	private UnsupportedOperationException unsupported(Class<? extends HttpRestClient> capability) {
+		return new UnsupportedOperationException(String.format("%s does not support %s", this.httpRestClient.getClass().getName(), capability.getSimpleName()));
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+/**
+ * <p>
+ * Evictor of the expired and idle connections of the connection pools, all
+ * evicted by a single daemon thread.<br>
+ * The pools are referenced weakly, so that the ones of the clients never
+ * closed are not kept alive by their eviction.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+final class IdleConnectionEvictor implements Runnable {
+
+	/** Scheduler of the evictions. */
+	private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread result = new Thread(r, "rest-api-invoker-connection-evictor");
+		result.setDaemon(true);
+		return result;
+	});
+
+	/** Connection pool. */
+	private final WeakReference<PoolingHttpClientConnectionManager> connectionManager;
+
+	/** Idle timeout, in millis. */
+	private final long idleTimeout;
+
+	/** Future of the scheduled eviction. */
+	private volatile Future<?> future;
+
+	/**
+	 * Schedules the eviction of the expired connections of a pool and of the
+	 * ones idle longer than the idle timeout, checked at each idle timeout.
+	 *
+	 * @param connectionManager Connection pool
+	 * @param idleTimeout Idle timeout, in millis
+	 * @return Future of the eviction, to cancel when the pool is closed
+	 */
+	static Future<?> schedule(PoolingHttpClientConnectionManager connectionManager, long idleTimeout) {
+		IdleConnectionEvictor evictor = new IdleConnectionEvictor(connectionManager, idleTimeout);
+		evictor.future = SCHEDULER.scheduleWithFixedDelay(evictor, idleTimeout, idleTimeout, TimeUnit.MILLISECONDS);
+
+		return evictor.future;
+	}
+
+	/**
+	 * Constructs a new IdleConnectionEvictor.
+	 *
+	 * @param connectionManager Connection pool
+	 * @param idleTimeout Idle timeout, in millis
+	 */
+	private IdleConnectionEvictor(PoolingHttpClientConnectionManager connectionManager, long idleTimeout) {
+		this.connectionManager = new WeakReference<>(connectionManager);
+		this.idleTimeout = idleTimeout;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Runnable#run()
+	 */
+	@Override
+	public void run() {
+		PoolingHttpClientConnectionManager connectionManager = this.connectionManager.get();
+		if (connectionManager != null) {
+			connectionManager.closeExpiredConnections();
+			connectionManager.closeIdleConnections(this.idleTimeout, TimeUnit.MILLISECONDS);
+		}
+		else if (this.future != null) {
+			this.future.cancel(false);
+		}
+	}
+
+}
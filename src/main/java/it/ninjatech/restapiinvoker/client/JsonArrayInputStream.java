@@ -0,0 +1,187 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * <p>
+ * {@link InputStream} of the JSON array of the elements of a {@link Stream} or
+ * an {@link Iterator}.<br>
+ * The elements are serialized one at a time as the bytes are read, so only a
+ * single element is held in memory.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+final class JsonArrayInputStream extends InputStream {
+
+	/** {@link ObjectMapper}. */
+	private final ObjectMapper objectMapper;
+
+	/** Elements. */
+	private final Iterator<?> elements;
+
+	/** Source of the elements to close, null if none. */
+	private final AutoCloseable source;
+
+	/** Bytes of the current element. */
+	private final Buffer buffer;
+
+	/** Position in the buffer. */
+	private int position;
+
+	/** Number of elements written. */
+	private long count;
+
+	/** Whether the closing bracket has been written. */
+	private boolean ended;
+
+	/**
+	 * Constructs a new JsonArrayInputStream.
+	 *
+	 * @param objectMapper {@link ObjectMapper}
+	 * @param elements {@link Stream} or {@link Iterator} of the elements
+	 */
+	JsonArrayInputStream(ObjectMapper objectMapper, Object elements) {
+		this.objectMapper = objectMapper;
+		this.elements = elements instanceof Stream ? ((Stream<?>) elements).iterator() : (Iterator<?>) elements;
+		this.source = elements instanceof AutoCloseable ? (AutoCloseable) elements : null;
+		this.buffer = new Buffer();
+		this.buffer.write('[');
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.InputStream#read()
+	 */
+	@Override
+	public int read() throws IOException {
+		return fill() ? this.buffer.bytes()[this.position++] & 0xFF : -1;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.InputStream#read(byte[], int, int)
+	 */
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int result = 0;
+
+		if (len > 0) {
+			if (fill()) {
+				result = Math.min(len, this.buffer.size() - this.position);
+				System.arraycopy(this.buffer.bytes(), this.position, b, off, result);
+				this.position += result;
+			}
+			else {
+				result = -1;
+			}
+		}
+
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.InputStream#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		if (this.source != null) {
+			try {
+				this.source.close();
+			}
+			catch (IOException | RuntimeException e) {
+				throw e;
+			}
+			catch (Exception e) {
+				throw new IOException(e);
+			}
+		}
+	}
+
+	/**
+	 * Fills the buffer with the next element, if the current one has been
+	 * read.
+	 *
+	 * @return true, if there are bytes to read
+	 * @throws IOException if the element cannot be serialized
+	 */
+	private boolean fill() throws IOException {
+		boolean result = this.position < this.buffer.size();
+
+		if (!result && !this.ended) {
+			this.buffer.reset();
+			this.position = 0;
+			if (this.elements.hasNext()) {
+				if (this.count++ > 0) {
+					this.buffer.write(',');
+				}
+				this.objectMapper.writeValue(this.buffer, this.elements.next());
+			}
+			else {
+				this.buffer.write(']');
+				this.ended = true;
+			}
+			result = true;
+		}
+
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * {@link ByteArrayOutputStream} exposing its bytes.
+	 * </p>
+	 *
+	 * @author Vincenzo Mazzeo
+	 * @version 1.0
+	 * @since 1.1.0
+	 */
+	private static final class Buffer extends ByteArrayOutputStream {
+
+		/**
+		 * Returns the bytes, valid up to {@link #size()}.
+		 *
+		 * @return Bytes
+		 */
+		private byte[] bytes() {
+			return this.buf;
+		}
+
+	}
+
+}
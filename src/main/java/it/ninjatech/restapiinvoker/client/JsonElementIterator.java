@@ -0,0 +1,180 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.springframework.web.client.ResourceAccessException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * <p>
+ * {@link Iterator} reading the elements of a JSON response body one at a time
+ * with the Jackson streaming parser.<br>
+ * The body can be a JSON array or a sequence of JSON values, such as newline
+ * delimited JSON. The response is closed when the last element has been read,
+ * on error or when the iterator is closed.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+final class JsonElementIterator implements Iterator<Object>, Closeable {
+
+	/** Type of the elements. */
+	private final Type elementType;
+
+	/** Response to close. */
+	private final Closeable response;
+
+	/** Elements. */
+	private final MappingIterator<Object> elements;
+
+	/** Whether the iterator is closed. */
+	private boolean closed;
+
+	/**
+	 * Constructs a new JsonElementIterator.
+	 *
+	 * @param objectMapper {@link ObjectMapper}
+	 * @param elementType Type of the elements
+	 * @param body Response body
+	 * @param response Response to close
+	 * @throws IOException if the body cannot be read
+	 */
+	JsonElementIterator(ObjectMapper objectMapper, Type elementType, InputStream body, Closeable response) throws IOException {
+		this.elementType = elementType;
+		this.response = response;
+		this.elements = objectMapper.readerFor(objectMapper.getTypeFactory().constructType(elementType)).readValues(body);
+	}
+
+	/**
+	 * Makes a {@link Stream} of the elements closing the iterator.
+	 *
+	 * @return {@link Stream}
+	 */
+	Stream<Object> stream() {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false).onClose(this::closeQuietly);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.Iterator#hasNext()
+	 */
+	@Override
+	public boolean hasNext() {
+		boolean result = false;
+
+		if (!this.closed) {
+			try {
+				result = this.elements.hasNextValue();
+			}
+			catch (IOException e) {
+				throw makeException(e);
+			}
+			if (!result) {
+				closeQuietly();
+			}
+		}
+
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.Iterator#next()
+	 */
+	@Override
+	public Object next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		try {
+			return this.elements.nextValue();
+		}
+		catch (IOException e) {
+			throw makeException(e);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!this.closed) {
+			this.closed = true;
+			try {
+				this.elements.close();
+			}
+			finally {
+				this.response.close();
+			}
+		}
+	}
+
+	/**
+	 * Closes the iterator ignoring the errors.
+	 */
+	private void closeQuietly() {
+		try {
+			close();
+		}
+		catch (IOException e) {
+			// Nothing to do, the response is released anyway
+		}
+	}
+
+	/**
+	 * Makes the exception raised for a read error, closing the iterator.
+	 *
+	 * @param e Read error
+	 * @return Exception
+	 */
+	private RuntimeException makeException(IOException e) {
+		closeQuietly();
+
+		return e instanceof JsonProcessingException ? new RuntimeException(String.format("Unable to deserialize the response body element to %s", this.elementType.getTypeName()), e)
+		                                            : new ResourceAccessException(String.format("I/O error reading the response body: %s", e.getMessage()), e);
+	}
+
+}
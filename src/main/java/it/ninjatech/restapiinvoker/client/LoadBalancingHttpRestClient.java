@@ -0,0 +1,598 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.apache.http.conn.ConnectTimeoutException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+
+import it.ninjatech.restapiinvoker.invocationdata.InvocationData;
+import reactor.core.publisher.Flux;
+
+/**
+ * <p>
+ * Decorator of an {@link HttpRestClient} balancing the calls among the
+ * replicas of a REST service, each reachable at its own base path, which
+ * replaces the base path of the calls.<br>
+ * Each call picks two replicas at random and goes to the one with the lower
+ * cost (the power of two choices), that is the number of its calls in flight
+ * times its latency, averaged exponentially over the responses. A replica
+ * whose calls fail {@code maxConsecutiveFailures} times in a row, with an I/O
+ * error or a server error status, is ejected for {@code ejectionTime}
+ * millis; if all of them are ejected, the calls go to all of them anyway.
+ * </p>
+ * <p>
+ * A call failing to connect never reached its replica, so it fails over to
+ * another replica not tried yet, unless its request body is a stream that
+ * cannot be read again.<br>
+ * The asynchronous and reactive calls are in flight until completed, the
+ * streamed ones until their stream is closed or read to the end. The streamed
+ * calls fail over only while opening the stream, and the {@link Flux} calls
+ * only before emitting any element.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public class LoadBalancingHttpRestClient extends HttpRestClientDecorator {
+
+	/** Default consecutive failures ejecting a replica. */
+	public static final int DEFAULT_MAX_CONSECUTIVE_FAILURES = 5;
+
+	/** Default time, in millis, a replica stays ejected. */
+	public static final long DEFAULT_EJECTION_TIME = 30_000;
+
+	/** Weight of each response in the average latency. */
+	private static final double LATENCY_SMOOTHING = 0.3;
+
+	/** Replicas. */
+	private final Replica[] replicas;
+
+	/** Replicas by base path. */
+	private final Map<String, Replica> replicasByBasePath;
+
+	/** Consecutive failures ejecting a replica. */
+	private final int maxConsecutiveFailures;
+
+	/** Time, in nanoseconds, a replica stays ejected. */
+	private final long ejectionTime;
+
+	/** Number of fail overs. */
+	private final LongAdder failoverCount;
+
+	/**
+	 * Constructs a new {@link LoadBalancingHttpRestClient} with the default
+	 * ejection of the replicas.
+	 * 
+	 * @param httpRestClient Decorated {@link HttpRestClient}
+	 * @param basePaths Base paths of the replicas
+	 */
+	public LoadBalancingHttpRestClient(HttpRestClient httpRestClient, Collection<String> basePaths) {
+		this(httpRestClient, basePaths, DEFAULT_MAX_CONSECUTIVE_FAILURES, DEFAULT_EJECTION_TIME);
+	}
+
+	/**
+	 * Constructs a new {@link LoadBalancingHttpRestClient}.
+	 * 
+	 * @param httpRestClient Decorated {@link HttpRestClient}
+	 * @param basePaths Base paths of the replicas
+	 * @param maxConsecutiveFailures Consecutive failures ejecting a replica
+	 * @param ejectionTime Time, in millis, a replica stays ejected
+	 */
+	public LoadBalancingHttpRestClient(HttpRestClient httpRestClient, Collection<String> basePaths, int maxConsecutiveFailures, long ejectionTime) {
+		super(httpRestClient);
+		if (basePaths.isEmpty() || maxConsecutiveFailures < 1 || ejectionTime < 0) {
+			throw new RuntimeException(String.format("Invalid load balancing: %d base paths, max consecutive failures %d, ejection time %d",
+			                                         basePaths.size(),
+			                                         maxConsecutiveFailures,
+			                                         ejectionTime));
+		}
+		this.replicasByBasePath = new LinkedHashMap<>();
+		for (String basePath : basePaths) {
+			this.replicasByBasePath.put(basePath, new Replica(basePath, this.replicasByBasePath.size()));
+		}
+		this.replicas = this.replicasByBasePath.values().toArray(new Replica[0]);
+		this.maxConsecutiveFailures = maxConsecutiveFailures;
+		this.ejectionTime = TimeUnit.MILLISECONDS.toNanos(ejectionTime);
+		this.failoverCount = new LongAdder();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see it.ninjatech.restapiinvoker.client.HttpRestClient#exchange(it.ninjatech.
+	 * restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Object exchange(InvocationData invocationData) {
+		return execute(invocationData, this.httpRestClient::exchange);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.HttpRestClient#exchangeForEntity(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public ResponseEntity<?> exchangeForEntity(InvocationData invocationData) {
+		return execute(invocationData, this.httpRestClient::exchangeForEntity);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.AsyncHttpRestClient#exchangeAsync(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public CompletableFuture<Object> exchangeAsync(InvocationData invocationData) {
+		return executeAsync(invocationData, this::forwardAsync);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.AsyncHttpRestClient#exchangeForEntityAsync
+	 * (it.ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public CompletableFuture<ResponseEntity<?>> exchangeForEntityAsync(InvocationData invocationData) {
+		return executeAsync(invocationData, this::forwardEntityAsync);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.ReactiveHttpRestClient#exchangeFlux(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Flux<Object> exchangeFlux(InvocationData invocationData) {
+		return ReactiveCalls.defer(() -> {
+			boolean[] tried = new boolean[this.replicas.length];
+
+			return ReactiveCalls.retryFlux(() -> ReactiveCalls.callFlux(i -> admit(i, tried), invocationData, this::forwardFlux),
+			                               () -> f -> isFailover(f, invocationData, tried) ? 0 : -1);
+		});
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.StreamingHttpRestClient#exchangeStream(
+	 * it.ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Stream<Object> exchangeStream(InvocationData invocationData) {
+		Stream<Object> result = null;
+
+		boolean[] tried = new boolean[this.replicas.length];
+		while (result == null) {
+			try {
+				result = CallAdmission.callStream(i -> admit(i, tried), invocationData, this::forwardStream);
+			}
+			catch (RuntimeException e) {
+				if (!isFailover(e, invocationData, tried)) {
+					throw e;
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the base paths of the replicas.
+	 * 
+	 * @return Unmodifiable list of the base paths
+	 */
+	public List<String> getBasePaths() {
+		return Collections.unmodifiableList(new ArrayList<>(this.replicasByBasePath.keySet()));
+	}
+
+	/**
+	 * Returns the calls in flight to a replica.
+	 * 
+	 * @param basePath Base path of the replica
+	 * @return Outstanding calls
+	 */
+	public int getOutstanding(String basePath) {
+		return getReplica(basePath).outstanding.get();
+	}
+
+	/**
+	 * Returns the average latency of a replica.
+	 * 
+	 * @param basePath Base path of the replica
+	 * @return Latency in nanoseconds, 0 if no response has been received
+	 */
+	public long getLatency(String basePath) {
+		return (long) Double.longBitsToDouble(getReplica(basePath).latency.get());
+	}
+
+	/**
+	 * Returns if a replica is ejected.
+	 * 
+	 * @param basePath Base path of the replica
+	 * @return true, if ejected
+	 */
+	public boolean isEjected(String basePath) {
+		return !getReplica(basePath).isAvailable(System.nanoTime());
+	}
+
+	/**
+	 * Returns the number of calls failed over to another replica.
+	 * 
+	 * @return Failover count
+	 */
+	public long getFailoverCount() {
+		return this.failoverCount.sum();
+	}
+
+	/**
+	 * Executes the call on the chosen replica, failing over to another one if
+	 * it cannot connect.
+	 * 
+	 * @param <T> Type of the result
+	 * @param invocationData Data to execute the call
+	 * @param call Call
+	 * @return Result of the call
+	 */
+	private <T> T execute(InvocationData invocationData, Function<InvocationData, T> call) {
+		T result = null;
+
+		boolean[] tried = new boolean[this.replicas.length];
+		boolean done = false;
+		while (!done) {
+			try {
+				result = CallAdmission.call(i -> admit(i, tried), invocationData, call);
+				done = true;
+			}
+			catch (RuntimeException e) {
+				if (!isFailover(e, invocationData, tried)) {
+					throw e;
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Executes the call asynchronously on the chosen replica, failing over to
+	 * another one if it cannot connect.
+	 * 
+	 * @param <T> Type of the result
+	 * @param invocationData Data to execute the call
+	 * @param call Call
+	 * @return Future completed with the result of the call
+	 */
+	private <T> CompletableFuture<T> executeAsync(InvocationData invocationData, Function<InvocationData, CompletableFuture<T>> call) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+
+		attemptAsync(invocationData, call, new boolean[this.replicas.length], result);
+
+		return result;
+	}
+
+	/**
+	 * Performs an attempt of an asynchronous call, failing over to another
+	 * replica if it cannot connect and the call has not been cancelled.
+	 * 
+	 * @param <T> Type of the result
+	 * @param invocationData Data to execute the call
+	 * @param call Call
+	 * @param tried Replicas already tried
+	 * @param result Future of the call
+	 */
+	private <T> void attemptAsync(InvocationData invocationData, Function<InvocationData, CompletableFuture<T>> call, boolean[] tried, CompletableFuture<T> result) {
+		CallAdmission.callAsync(i -> admit(i, tried), invocationData, call).whenComplete((r, e) -> {
+			Throwable failure = AsyncCalls.unwrap(e);
+			if (failure == null) {
+				result.complete(r);
+			}
+			else if (!result.isDone() && isFailover(failure, invocationData, tried)) {
+				attemptAsync(invocationData, call, tried, result);
+			}
+			else {
+				result.completeExceptionally(failure);
+			}
+		});
+	}
+
+	/**
+	 * Admits the call on the chosen replica, recording its response at the end
+	 * of the call.
+	 * 
+	 * @param invocationData Data to execute the call
+	 * @param tried Replicas already tried, updated with the chosen one
+	 * @return Admission of the call, whose data are routed to the replica
+	 */
+	private CallAdmission admit(InvocationData invocationData, boolean[] tried) {
+		Replica replica = choose(tried);
+		tried[replica.index] = true;
+		replica.outstanding.incrementAndGet();
+		long startTime = System.nanoTime();
+
+		return new CallAdmission(invocationData.withBasePath(replica.basePath), f -> {
+			replica.outstanding.decrementAndGet();
+			if (f == null) {
+				replica.onResponse(System.nanoTime() - startTime, false);
+			}
+			else if (f instanceof RestClientResponseException) {
+				replica.onResponse(System.nanoTime() - startTime, ((RestClientResponseException) f).getRawStatusCode() >= 500);
+			}
+			else if (f instanceof ResourceAccessException) {
+				replica.onFailure();
+			}
+		});
+	}
+
+	/**
+	 * Checks if a failed call fails over to another replica, because it
+	 * cannot connect and some replica has not been tried yet.
+	 * 
+	 * @param failure Failure of the call
+	 * @param invocationData Data to execute the call
+	 * @param tried Replicas already tried
+	 * @return true, if the call fails over
+	 */
+	private boolean isFailover(Throwable failure, InvocationData invocationData, boolean[] tried) {
+		boolean result = failure instanceof ResourceAccessException
+		                 && isConnectFailure((ResourceAccessException) failure)
+		                 && RequestBodies.isReplayable(invocationData.getRequestBody())
+		                 && hasUntried(tried);
+
+		if (result) {
+			this.failoverCount.increment();
+		}
+
+		return result;
+	}
+
+	/**
+	 * Chooses the replica of a call with the power of two choices among the
+	 * replicas not yet tried, preferring the ones not ejected.
+	 * 
+	 * @param tried Replicas already tried
+	 * @return Chosen replica
+	 */
+	private Replica choose(boolean[] tried) {
+		long now = System.nanoTime();
+		int[] candidates = new int[this.replicas.length];
+		int count = 0;
+		for (Replica replica : this.replicas) {
+			if (!tried[replica.index] && replica.isAvailable(now)) {
+				candidates[count++] = replica.index;
+			}
+		}
+		if (count == 0) {
+			for (Replica replica : this.replicas) {
+				if (!tried[replica.index]) {
+					candidates[count++] = replica.index;
+				}
+			}
+		}
+
+		Replica result = this.replicas[candidates[0]];
+		if (count > 1) {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			int first = random.nextInt(count);
+			int second = random.nextInt(count - 1);
+			if (second >= first) {
+				second++;
+			}
+			Replica firstReplica = this.replicas[candidates[first]];
+			Replica secondReplica = this.replicas[candidates[second]];
+			result = firstReplica.getCost() <= secondReplica.getCost() ? firstReplica : secondReplica;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Gets a replica by base path.
+	 * 
+	 * @param basePath Base path
+	 * @return Replica
+	 */
+	private Replica getReplica(String basePath) {
+		Replica result = this.replicasByBasePath.get(basePath);
+
+		if (result == null) {
+			throw new RuntimeException(String.format("Unknown base path %s", basePath));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Checks if some replica has not been tried yet.
+	 * 
+	 * @param tried Replicas already tried
+	 * @return true, if a replica is left
+	 */
+	private static boolean hasUntried(boolean[] tried) {
+		boolean result = false;
+
+		for (int i = 0; i < tried.length && !result; i++) {
+			result = !tried[i];
+		}
+
+		return result;
+	}
+
+	/**
+	 * Checks if an I/O error happened while connecting, so that the request
+	 * has not been sent.
+	 * 
+	 * @param exception I/O error
+	 * @return true, if the connection failed
+	 */
+	private static boolean isConnectFailure(ResourceAccessException exception) {
+		Throwable cause = exception.getCause();
+
+		return cause instanceof ConnectException
+		       || cause instanceof ConnectTimeoutException
+		       || cause instanceof NoRouteToHostException
+		       || cause instanceof UnknownHostException;
+	}
+
+	/**
+	 * <p>
+	 * Replica of the REST service.
+	 * </p>
+	 *
+	 * @author Vincenzo Mazzeo
+	 * @version 1.0
+	 * @since 1.1.0
+	 */
+	private final class Replica {
+
+		/** Base path. */
+		private final String basePath;
+
+		/** Index among the replicas. */
+		private final int index;
+
+		/** Calls in flight. */
+		private final AtomicInteger outstanding;
+
+		/** Average latency, in nanoseconds, as the bits of a double. */
+		private final AtomicLong latency;
+
+		/** Consecutive failures. */
+		private final AtomicInteger consecutiveFailures;
+
+		/** Time of the ejection, in nanoseconds. */
+		private volatile long ejectionStart;
+
+		/** Whether ejected. */
+		private volatile boolean ejected;
+
+		/**
+		 * Constructs a new Replica.
+		 *
+		 * @param basePath Base path
+		 * @param index Index among the replicas
+		 */
+		private Replica(String basePath, int index) {
+			this.basePath = basePath;
+			this.index = index;
+			this.outstanding = new AtomicInteger();
+			this.latency = new AtomicLong(Double.doubleToLongBits(0));
+			this.consecutiveFailures = new AtomicInteger();
+		}
+
+		/**
+		 * Gets the cost of a call to the replica.
+		 *
+		 * @return Cost
+		 */
+		private double getCost() {
+			return (this.outstanding.get() + 1) * (Double.longBitsToDouble(this.latency.get()) + 1);
+		}
+
+		/**
+		 * Checks if the replica is available, that is not ejected or ejected
+		 * for longer than the ejection time.
+		 *
+		 * @param now Current time, in nanoseconds
+		 * @return true, if available
+		 */
+		private boolean isAvailable(long now) {
+			boolean result = !this.ejected;
+
+			if (!result && now - this.ejectionStart >= LoadBalancingHttpRestClient.this.ejectionTime) {
+				this.ejected = false;
+				result = true;
+			}
+
+			return result;
+		}
+
+		/**
+		 * Records a response of the replica.
+		 *
+		 * @param latency Latency, in nanoseconds
+		 * @param failure Whether the response is a server error
+		 */
+		private void onResponse(long latency, boolean failure) {
+			long bits;
+			double value;
+			do {
+				bits = this.latency.get();
+				value = Double.longBitsToDouble(bits);
+				value = value == 0 ? latency : value + (latency - value) * LATENCY_SMOOTHING;
+			}
+			while (!this.latency.compareAndSet(bits, Double.doubleToLongBits(value)));
+			if (failure) {
+				onFailure();
+			}
+			else {
+				this.consecutiveFailures.set(0);
+			}
+		}
+
+		/**
+		 * Records a failure of the replica, ejecting it after too many in a
+		 * row.
+		 */
+		private void onFailure() {
+			if (this.consecutiveFailures.incrementAndGet() >= LoadBalancingHttpRestClient.this.maxConsecutiveFailures) {
+				this.consecutiveFailures.set(0);
+				this.ejectionStart = System.nanoTime();
+				this.ejected = true;
+			}
+		}
+
+	}
+
+}
@@ -23,15 +23,11 @@ SOFTWARE.
  */
 package it.ninjatech.restapiinvoker.client;
 
-import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 
-import org.springframework.http.ResponseEntity;
-
 import it.ninjatech.restapiinvoker.invocationdata.InvocationData;
 import it.ninjatech.restapiinvoker.mock.data.AbstractMockData;
 import it.ninjatech.restapiinvoker.mock.matcher.MockMatcher;
@@ -98,9 +94,7 @@ public class MockHttpRestClient implements HttpRestClient {
 		}
 		MockDataRetriever<?> mockRetriever = entry.get().getValue();
 		AbstractMockData<?> mockData = mockRetriever.retrieve();
-		Type responseType = invocationData.getResponseType();
-		if (responseType instanceof ParameterizedType
-		    && ((ParameterizedType) responseType).getRawType().equals(ResponseEntity.class)) {
+		if (invocationData.isResponseEntity()) {
 			result = mockData.getResponseEntity();
 		}
 		else {
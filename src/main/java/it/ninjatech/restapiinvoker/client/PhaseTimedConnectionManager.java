@@ -0,0 +1,159 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.config.Registry;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+
+import it.ninjatech.restapiinvoker.metrics.InvocationPhase;
+import it.ninjatech.restapiinvoker.metrics.InvocationSample;
+
+/**
+ * <p>
+ * {@link PoolingHttpClientConnectionManager} timing the
+ * {@link InvocationPhase#LEASE} and {@link InvocationPhase#CONNECT} phases of
+ * the call performed by the current thread, if its phases are timed.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ * @see SampleRecorder#getCurrentSample()
+ */
+final class PhaseTimedConnectionManager extends PoolingHttpClientConnectionManager {
+
+	/**
+	 * Constructs a new PhaseTimedConnectionManager.
+	 *
+	 * @param socketFactoryRegistry Socket factories by scheme
+	 */
+	PhaseTimedConnectionManager(Registry<ConnectionSocketFactory> socketFactoryRegistry) {
+		super(socketFactoryRegistry);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.apache.http.impl.conn.PoolingHttpClientConnectionManager#requestConnection(
+	 * org.apache.http.conn.routing.HttpRoute, java.lang.Object)
+	 */
+	@Override
+	public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+		ConnectionRequest result = super.requestConnection(route, state);
+
+		InvocationSample invocationSample = SampleRecorder.getCurrentSample();
+		if (invocationSample != null) {
+			result = new TimedConnectionRequest(result, invocationSample);
+		}
+
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.apache.http.impl.conn.PoolingHttpClientConnectionManager#connect(org.
+	 * apache.http.HttpClientConnection, org.apache.http.conn.routing.HttpRoute,
+	 * int, org.apache.http.protocol.HttpContext)
+	 */
+	@Override
+	public void connect(HttpClientConnection managedConn, HttpRoute route, int connectTimeout, HttpContext context) throws IOException {
+		InvocationSample invocationSample = SampleRecorder.getCurrentSample();
+		if (invocationSample != null) {
+			invocationSample.startPhase(InvocationPhase.CONNECT);
+		}
+		super.connect(managedConn, route, connectTimeout, context);
+		if (invocationSample != null) {
+			invocationSample.endPhase(InvocationPhase.CONNECT);
+		}
+	}
+
+	/**
+	 * <p>
+	 * {@link ConnectionRequest} timing the wait for the connection.
+	 * </p>
+	 *
+	 * @author Vincenzo Mazzeo
+	 * @version 1.0
+	 * @since 1.1.0
+	 */
+	private static final class TimedConnectionRequest implements ConnectionRequest {
+
+		/** Actual request. */
+		private final ConnectionRequest connectionRequest;
+
+		/** Sample of the call. */
+		private final InvocationSample invocationSample;
+
+		/**
+		 * Constructs a new TimedConnectionRequest.
+		 *
+		 * @param connectionRequest Actual request
+		 * @param invocationSample Sample of the call
+		 */
+		private TimedConnectionRequest(ConnectionRequest connectionRequest, InvocationSample invocationSample) {
+			this.connectionRequest = connectionRequest;
+			this.invocationSample = invocationSample;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see org.apache.http.concurrent.Cancellable#cancel()
+		 */
+		@Override
+		public boolean cancel() {
+			return this.connectionRequest.cancel();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see org.apache.http.conn.ConnectionRequest#get(long,
+		 * java.util.concurrent.TimeUnit)
+		 */
+		@Override
+		public HttpClientConnection get(long timeout, TimeUnit tunit) throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+			this.invocationSample.startPhase(InvocationPhase.LEASE);
+			HttpClientConnection result = this.connectionRequest.get(timeout, tunit);
+			this.invocationSample.endPhase(InvocationPhase.LEASE);
+
+			return result;
+		}
+
+	}
+
+}
@@ -0,0 +1,102 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.io.IOException;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+
+import it.ninjatech.restapiinvoker.metrics.InvocationPhase;
+import it.ninjatech.restapiinvoker.metrics.InvocationSample;
+
+/**
+ * <p>
+ * {@link HttpRequestExecutor} timing the {@link InvocationPhase#SEND} and
+ * {@link InvocationPhase#FIRST_BYTE} phases of the call performed by the
+ * current thread, if its phases are timed.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ * @see SampleRecorder#getCurrentSample()
+ */
+final class PhaseTimedRequestExecutor extends HttpRequestExecutor {
+
+	/**
+	 * Constructs a new PhaseTimedRequestExecutor.
+	 */
+	PhaseTimedRequestExecutor() {
+		super();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.apache.http.protocol.HttpRequestExecutor#doSendRequest(org.apache.http.
+	 * HttpRequest, org.apache.http.HttpClientConnection,
+	 * org.apache.http.protocol.HttpContext)
+	 */
+	@Override
+	protected HttpResponse doSendRequest(HttpRequest request, HttpClientConnection conn, HttpContext context) throws IOException, HttpException {
+		InvocationSample invocationSample = SampleRecorder.getCurrentSample();
+		if (invocationSample != null) {
+			invocationSample.startPhase(InvocationPhase.SEND);
+		}
+		HttpResponse result = super.doSendRequest(request, conn, context);
+		if (invocationSample != null) {
+			invocationSample.endPhase(InvocationPhase.SEND);
+			invocationSample.startPhase(InvocationPhase.FIRST_BYTE);
+		}
+
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.apache.http.protocol.HttpRequestExecutor#doReceiveResponse(org.apache.
+	 * http.HttpRequest, org.apache.http.HttpClientConnection,
+	 * org.apache.http.protocol.HttpContext)
+	 */
+	@Override
+	protected HttpResponse doReceiveResponse(HttpRequest request, HttpClientConnection conn, HttpContext context) throws HttpException, IOException {
+		HttpResponse result = super.doReceiveResponse(request, conn, context);
+
+		InvocationSample invocationSample = SampleRecorder.getCurrentSample();
+		if (invocationSample != null) {
+			invocationSample.endPhase(InvocationPhase.FIRST_BYTE);
+		}
+
+		return result;
+	}
+
+}
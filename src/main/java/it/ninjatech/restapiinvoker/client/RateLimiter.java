@@ -0,0 +1,194 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * Lock-free token bucket granting the permits of the calls at a fixed rate,
+ * with a burst of permits available after a period without calls.<br>
+ * The bucket is kept as the theoretical arrival time of the next call (the
+ * generic cell rate algorithm), so a single compare-and-set grants a permit,
+ * possibly reserved in the future for the calls that can wait for it.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ * @see RateLimitingHttpRestClient
+ */
+public final class RateLimiter {
+
+	/** Permits granted per second. */
+	private final double permitsPerSecond;
+
+	/** Maximum number of permits granted at once. */
+	private final int burst;
+
+	/** Maximum time, in millis, a call waits for its permit. */
+	private final long timeout;
+
+	/** Interval between two permits, in nanoseconds. */
+	private final long interval;
+
+	/** Advance over the interval granted to the bursts, in nanoseconds. */
+	private final long tolerance;
+
+	/** Theoretical arrival time of the next call, in nanoseconds. */
+	private final AtomicLong nextArrivalTime;
+
+	/** Number of permits granted. */
+	private final LongAdder grantedCount;
+
+	/** Number of permits denied. */
+	private final LongAdder deniedCount;
+
+	/**
+	 * Constructs a new RateLimiter, with the whole burst available.
+	 *
+	 * @param permitsPerSecond Permits granted per second
+	 * @param burst Maximum number of permits granted at once
+	 * @param timeout Maximum time, in millis, a call waits for its permit; 0 to
+	 *            fail fast
+	 */
+	public RateLimiter(double permitsPerSecond, int burst, long timeout) {
+		if (permitsPerSecond <= 0 || burst < 1 || timeout < 0) {
+			throw new RuntimeException(String.format("Invalid rate limiter: %s permits per second, burst %d, timeout %d", permitsPerSecond, burst, timeout));
+		}
+		this.permitsPerSecond = permitsPerSecond;
+		this.burst = burst;
+		this.timeout = timeout;
+		this.interval = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+		this.tolerance = this.interval * (burst - 1);
+		this.nextArrivalTime = new AtomicLong(System.nanoTime());
+		this.grantedCount = new LongAdder();
+		this.deniedCount = new LongAdder();
+	}
+
+	/**
+	 * Returns the permits granted per second.
+	 *
+	 * @return Rate
+	 */
+	public double getPermitsPerSecond() {
+		return this.permitsPerSecond;
+	}
+
+	/**
+	 * Returns the maximum number of permits granted at once.
+	 *
+	 * @return Burst
+	 */
+	public int getBurst() {
+		return this.burst;
+	}
+
+	/**
+	 * Returns the maximum time a call waits for its permit.
+	 *
+	 * @return Timeout, in millis
+	 */
+	public long getTimeout() {
+		return this.timeout;
+	}
+
+	/**
+	 * Returns the number of permits granted.
+	 *
+	 * @return Granted count
+	 */
+	public long getGrantedCount() {
+		return this.grantedCount.sum();
+	}
+
+	/**
+	 * Returns the number of permits denied.
+	 *
+	 * @return Denied count
+	 */
+	public long getDeniedCount() {
+		return this.deniedCount.sum();
+	}
+
+	/**
+	 * Acquires a permit if available now.
+	 *
+	 * @return true, if the permit is granted
+	 */
+	public boolean tryAcquire() {
+		return reserve(0) == 0;
+	}
+
+	/**
+	 * Reserves a permit available within the timeout.
+	 *
+	 * @return Time to wait for the permit, in nanoseconds, -1 if denied
+	 */
+	long reserve() {
+		return reserve(TimeUnit.MILLISECONDS.toNanos(this.timeout));
+	}
+
+	/**
+	 * Gives back a reserved permit, counting it as denied.
+	 */
+	void cancel() {
+		this.nextArrivalTime.addAndGet(-this.interval);
+		this.grantedCount.decrement();
+		this.deniedCount.increment();
+	}
+
+	/**
+	 * Reserves a permit available within the provided time.
+	 *
+	 * @param timeout Maximum time to wait, in nanoseconds
+	 * @return Time to wait for the permit, in nanoseconds, -1 if denied
+	 */
+	private long reserve(long timeout) {
+		long result = -1;
+
+		boolean done = false;
+		do {
+			long now = System.nanoTime();
+			long nextArrivalTime = this.nextArrivalTime.get();
+			long arrivalTime = nextArrivalTime - now > 0 ? nextArrivalTime : now;
+			long wait = Math.max(0, arrivalTime - this.tolerance - now);
+			if (wait > timeout) {
+				this.deniedCount.increment();
+				done = true;
+			}
+			else if (this.nextArrivalTime.compareAndSet(nextArrivalTime, arrivalTime + this.interval)) {
+				this.grantedCount.increment();
+				result = wait;
+				done = true;
+			}
+		}
+		while (!done);
+
+		return result;
+	}
+
+}
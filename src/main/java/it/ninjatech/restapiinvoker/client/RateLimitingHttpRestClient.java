@@ -0,0 +1,357 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClientException;
+
+import it.ninjatech.restapiinvoker.RestApiInvokerFactory;
+import it.ninjatech.restapiinvoker.annotation.RateLimited;
+import it.ninjatech.restapiinvoker.invocationdata.InvocationData;
+import reactor.core.publisher.Flux;
+
+/**
+ * <p>
+ * Decorator of an {@link HttpRestClient} limiting the rate of the calls with
+ * {@link RateLimiter}s.<br>
+ * The calls are limited by the {@link RateLimiter} configured for their base
+ * path, if any, and by the {@link RateLimited} annotation of their method or
+ * type, if any, the call needing the permits of both. A call whose permit is
+ * not available within the timeout fails with a
+ * {@link RateLimitExceededException}.
+ * </p>
+ * <p>
+ * The synchronous and streamed calls wait for their permit blocking the
+ * caller, giving it back if interrupted, while the asynchronous and reactive
+ * ones are queued and started when their permit is available. The decorator
+ * supports the capabilities of the decorated client, so the asynchronous
+ * calls of a client not performing them are performed by the
+ * {@link RestApiInvokerFactory} on its executor, waiting there for their
+ * permit.
+ * </p>
+ * <p>
+ * The rate limiters of the base paths are provided at the construction, or
+ * through
+ * {@link RestApiInvokerFactory#makeRestApiInvoker(Class, HttpRestClient, String, RateLimiter)}
+ * for the Invokers of a single base path.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public class RateLimitingHttpRestClient extends HttpRestClientDecorator {
+
+	/** Scheduler of the queued asynchronous calls. */
+	private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread result = new Thread(r, "rest-api-invoker-rate-limiter");
+		result.setDaemon(true);
+
+		return result;
+	});
+
+	/** Rate limiters by base path. */
+	private final Map<String, RateLimiter> basePathRateLimiters;
+
+	/**
+	 * Rate limiters of the {@link RateLimited} methods and types, by base
+	 * path.
+	 */
+	private final Map<String, Map<AnnotatedElement, RateLimiter>> rateLimiters;
+
+	/**
+	 * Constructs a new {@link RateLimitingHttpRestClient} limiting the
+	 * {@link RateLimited} methods only.
+	 * 
+	 * @param httpRestClient Decorated {@link HttpRestClient}
+	 */
+	public RateLimitingHttpRestClient(HttpRestClient httpRestClient) {
+		this(httpRestClient, Collections.emptyMap());
+	}
+
+	/**
+	 * Constructs a new {@link RateLimitingHttpRestClient}.
+	 * 
+	 * @param httpRestClient Decorated {@link HttpRestClient}
+	 * @param basePathRateLimiters Rate limiters by base path, the base paths
+	 *            being the ones passed to the factory of the Invokers
+	 */
+	public RateLimitingHttpRestClient(HttpRestClient httpRestClient, Map<String, RateLimiter> basePathRateLimiters) {
+		super(httpRestClient);
+		this.basePathRateLimiters = new HashMap<>(basePathRateLimiters);
+		this.rateLimiters = new ConcurrentHashMap<>();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see it.ninjatech.restapiinvoker.client.HttpRestClient#exchange(it.ninjatech.
+	 * restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Object exchange(InvocationData invocationData) {
+		await(invocationData, acquire(invocationData));
+
+		return this.httpRestClient.exchange(invocationData);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.HttpRestClient#exchangeForEntity(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public ResponseEntity<?> exchangeForEntity(InvocationData invocationData) {
+		await(invocationData, acquire(invocationData));
+
+		return this.httpRestClient.exchangeForEntity(invocationData);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.AsyncHttpRestClient#exchangeAsync(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public CompletableFuture<Object> exchangeAsync(InvocationData invocationData) {
+		return executeAsync(invocationData, () -> forwardAsync(invocationData));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.AsyncHttpRestClient#exchangeForEntityAsync
+	 * (it.ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public CompletableFuture<ResponseEntity<?>> exchangeForEntityAsync(InvocationData invocationData) {
+		return executeAsync(invocationData, () -> forwardEntityAsync(invocationData));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.ReactiveHttpRestClient#exchangeFlux(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Flux<Object> exchangeFlux(InvocationData invocationData) {
+		return ReactiveCalls.delayFlux(() -> acquire(invocationData), () -> forwardFlux(invocationData));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.StreamingHttpRestClient#exchangeStream(
+	 * it.ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Stream<Object> exchangeStream(InvocationData invocationData) {
+		await(invocationData, acquire(invocationData));
+
+		return forwardStream(invocationData);
+	}
+
+	/**
+	 * Returns the rate limiter of a {@link RateLimited} method, or of its
+	 * type, for a base path.
+	 * 
+	 * @param basePath Base path
+	 * @param method Proxied method
+	 * @return {@link RateLimiter}, null if the method is not limited or has not
+	 *         been called
+	 */
+	public RateLimiter getRateLimiter(String basePath, Method method) {
+		Map<AnnotatedElement, RateLimiter> rateLimiters = this.rateLimiters.get(basePath);
+
+		return rateLimiters != null ? rateLimiters.get(getAnnotatedElement(method)) : null;
+	}
+
+	/**
+	 * Executes an asynchronous call when its permits are available.
+	 * 
+	 * @param <T> Type of the result
+	 * @param invocationData Data to execute the call
+	 * @param call Call
+	 * @return Future of the call, failed if the permits are not available
+	 *         within the timeout
+	 */
+	private <T> CompletableFuture<T> executeAsync(InvocationData invocationData, Supplier<CompletableFuture<T>> call) {
+		CompletableFuture<T> result;
+
+		try {
+			long wait = acquire(invocationData);
+			if (wait == 0) {
+				result = AsyncCalls.start(call);
+			}
+			else {
+				CompletableFuture<T> queued = new CompletableFuture<>();
+				SCHEDULER.schedule(() -> start(call, queued), wait, TimeUnit.NANOSECONDS);
+				result = queued;
+			}
+		}
+		catch (RateLimitExceededException e) {
+			result = AsyncCalls.failed(e);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Starts a queued asynchronous call.
+	 * 
+	 * @param <T> Type of the result
+	 * @param call Call
+	 * @param queued Future of the queued call, completed with its result
+	 */
+	private static <T> void start(Supplier<CompletableFuture<T>> call, CompletableFuture<T> queued) {
+		AsyncCalls.start(call).whenComplete((r, e) -> {
+			if (e == null) {
+				queued.complete(r);
+			}
+			else {
+				queued.completeExceptionally(AsyncCalls.unwrap(e));
+			}
+		});
+	}
+
+	/**
+	 * Acquires the permits of a call.
+	 * 
+	 * @param invocationData Data to execute the call
+	 * @return Time to wait for the permits, in nanoseconds
+	 * @throws RateLimitExceededException if a permit is not available within
+	 *             its timeout
+	 */
+	private long acquire(InvocationData invocationData) {
+		long result = 0;
+
+		RateLimiter basePathRateLimiter = this.basePathRateLimiters.get(invocationData.getBasePath());
+		if (basePathRateLimiter != null) {
+			result = basePathRateLimiter.reserve();
+			if (result < 0) {
+				throw new RateLimitExceededException(invocationData.getBasePath(), basePathRateLimiter);
+			}
+		}
+		RateLimited rateLimited = invocationData.getRateLimited();
+		if (rateLimited != null) {
+			Method method = invocationData.getInvocationPlan().getMethod();
+			RateLimiter rateLimiter = getRateLimiter(invocationData.getBasePath(), method, rateLimited);
+			long wait = rateLimiter.reserve();
+			if (wait < 0) {
+				if (basePathRateLimiter != null) {
+					basePathRateLimiter.cancel();
+				}
+				String rateLimit = method.isAnnotationPresent(RateLimited.class) ? String.format("%s.%s", method.getDeclaringClass().getName(), method.getName())
+				                                                                : method.getDeclaringClass().getName();
+				throw new RateLimitExceededException(String.format("%s on %s", rateLimit, invocationData.getBasePath()), rateLimiter);
+			}
+			result = Math.max(result, wait);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Gets the rate limiter of a {@link RateLimited} method for a base path,
+	 * making it at the first call.
+	 * 
+	 * @param basePath Base path
+	 * @param method Proxied method
+	 * @param rateLimited Rate limit of the method
+	 * @return {@link RateLimiter}
+	 */
+	private RateLimiter getRateLimiter(String basePath, Method method, RateLimited rateLimited) {
+		Map<AnnotatedElement, RateLimiter> rateLimiters = this.rateLimiters.get(basePath);
+		if (rateLimiters == null) {
+			rateLimiters = this.rateLimiters.computeIfAbsent(basePath, b -> new ConcurrentHashMap<>());
+		}
+		AnnotatedElement annotatedElement = getAnnotatedElement(method);
+		RateLimiter result = rateLimiters.get(annotatedElement);
+		if (result == null) {
+			result = rateLimiters.computeIfAbsent(annotatedElement, e -> new RateLimiter(rateLimited.permitsPerSecond(), rateLimited.burst(), rateLimited.timeout()));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Gets the element carrying the {@link RateLimited} annotation of a method,
+	 * that is the method itself or its type.
+	 * 
+	 * @param method Proxied method
+	 * @return Annotated element
+	 */
+	private static AnnotatedElement getAnnotatedElement(Method method) {
+		return method.isAnnotationPresent(RateLimited.class) ? method : method.getDeclaringClass();
+	}
+
+	/**
+	 * Waits for the permits of a call, giving them back if interrupted.
+	 * 
+	 * @param invocationData Data to execute the call
+	 * @param wait Time to wait, in nanoseconds
+	 * @throws RestClientException if interrupted, caused by the
+	 *             {@link InterruptedException}
+	 */
+	private void await(InvocationData invocationData, long wait) {
+		if (wait > 0) {
+			try {
+				TimeUnit.NANOSECONDS.sleep(wait);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				RateLimiter basePathRateLimiter = this.basePathRateLimiters.get(invocationData.getBasePath());
+				if (basePathRateLimiter != null) {
+					basePathRateLimiter.cancel();
+				}
+				if (invocationData.getRateLimited() != null) {
+					getRateLimiter(invocationData.getBasePath(), invocationData.getInvocationPlan().getMethod()).cancel();
+				}
+				throw new RestClientException(String.format("Interrupted while waiting for the permit of the call to %s", invocationData.getBasePath()), e);
+			}
+		}
+	}
+
+}
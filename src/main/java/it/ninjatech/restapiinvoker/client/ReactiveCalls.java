@@ -0,0 +1,185 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+import it.ninjatech.restapiinvoker.invocationdata.InvocationData;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * <p>
+ * Utility class used by the decorators to compose the reactive calls.<br>
+ * The class is loaded only for the reactive calls, so Reactor is needed only
+ * if they are performed.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+final class ReactiveCalls {
+
+	/**
+	 * Adapts an asynchronous call to a {@link Mono}, executing it at the
+	 * subscription.
+	 *
+	 * @param call Call
+	 * @return {@link Mono} emitting the result of the call
+	 */
+	static Mono<Object> fromFuture(Supplier<CompletableFuture<Object>> call) {
+		return Mono.fromFuture(call);
+	}
+
+	/**
+	 * Adapts a reactive call to a future, subscribing it.
+	 *
+	 * @param mono {@link Mono} of the call
+	 * @return Future completed with the result of the call
+	 */
+	static CompletableFuture<Object> toFuture(Mono<Object> mono) {
+		return mono.toFuture();
+	}
+
+	/**
+	 * Performs a reactive call admitted by a guard at each subscription.
+	 *
+	 * @param guard Admits the call, throwing if it's not permitted
+	 * @param invocationData Data to execute the call
+	 * @param call Call
+	 * @return {@link Flux} of the call, ending it at its termination or
+	 *         cancellation
+	 */
+	static Flux<Object> callFlux(Function<InvocationData, CallAdmission> guard, InvocationData invocationData, Function<InvocationData, Flux<Object>> call) {
+		return Flux.defer(() -> {
+			CallAdmission admission = guard.apply(invocationData);
+			Flux<Object> flux;
+			try {
+				flux = call.apply(admission.getInvocationData());
+			}
+			catch (RuntimeException | Error e) {
+				admission.end(e);
+				throw e;
+			}
+
+			return flux.doOnError(admission::end).doFinally(s -> admission.end(null));
+		});
+	}
+
+	/**
+	 * Performs a reactive call admitted at each subscription by a guard that
+	 * queues it without blocking.
+	 *
+	 * @param guard Admits the call, failing the returned future if it's not
+	 *            permitted
+	 * @param invocationData Data to execute the call
+	 * @param call Call
+	 * @return {@link Flux} of the call, ending it at its termination or
+	 *         cancellation
+	 */
+	static Flux<Object> queueFlux(Function<InvocationData, CompletableFuture<CallAdmission>> guard, InvocationData invocationData, Function<InvocationData, Flux<Object>> call) {
+		return Flux.defer(() -> {
+			CompletableFuture<CallAdmission> admission = guard.apply(invocationData);
+
+			return Mono.fromFuture(admission)
+			           .onErrorMap(AsyncCalls::unwrap)
+			           // Ends the call admitted after the cancellation
+			           .doOnCancel(() -> admission.thenAccept(a -> a.end(null)))
+			           .flatMapMany(a -> callFlux(d -> a, invocationData, call));
+		});
+	}
+
+	/**
+	 * Defers a reactive call to each subscription.
+	 *
+	 * @param call Call
+	 * @return {@link Flux} of the call
+	 */
+	static Flux<Object> defer(Supplier<Flux<Object>> call) {
+		return Flux.defer(call);
+	}
+
+	/**
+	 * Delays a reactive call, at each subscription, by the time returned by
+	 * the delay.
+	 *
+	 * @param delay Returns the delay in nanoseconds, throwing if the call is
+	 *            not permitted
+	 * @param call Call
+	 * @return {@link Flux} of the call
+	 */
+	static Flux<Object> delayFlux(LongSupplier delay, Supplier<Flux<Object>> call) {
+		return Flux.defer(() -> {
+			long wait = delay.getAsLong();
+
+			return wait > 0 ? Mono.delay(Duration.ofNanos(wait)).thenMany(Flux.defer(call)) : call.get();
+		});
+	}
+
+	/**
+	 * Retries a reactive call failed before emitting any element, the
+	 * elements already emitted being not replayable.
+	 *
+	 * @param attempt Makes an attempt of the call
+	 * @param retryDelays Makes, at each subscription, the function returning
+	 *            the delay before retrying after a failure, negative if not
+	 *            retried
+	 * @return {@link Flux} of the call
+	 */
+	static Flux<Object> retryFlux(Supplier<Flux<Object>> attempt, Supplier<ToLongFunction<Throwable>> retryDelays) {
+		return Flux.defer(() -> retry(attempt, retryDelays.get()));
+	}
+
+	/**
+	 * Makes an attempt of a reactive call, retrying it on failure.
+	 *
+	 * @param attempt Makes an attempt of the call
+	 * @param retryDelay Returns the delay before retrying after a failure,
+	 *            negative if not retried
+	 * @return {@link Flux} of the call
+	 */
+	private static Flux<Object> retry(Supplier<Flux<Object>> attempt, ToLongFunction<Throwable> retryDelay) {
+		AtomicBoolean emitted = new AtomicBoolean();
+
+		return Flux.defer(attempt).doOnNext(e -> emitted.set(true)).onErrorResume(e -> {
+			long delay = emitted.get() ? -1 : retryDelay.applyAsLong(e);
+
+			return delay < 0 ? Flux.error(e) : Mono.delay(Duration.ofMillis(delay)).thenMany(retry(attempt, retryDelay));
+		});
+	}
+
+	/**
+	 * Hidden constructor.
+	 */
+	private ReactiveCalls() {
+	}
+
+}
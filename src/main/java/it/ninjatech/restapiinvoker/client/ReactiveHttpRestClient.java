@@ -0,0 +1,65 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import it.ninjatech.restapiinvoker.invocationdata.InvocationData;
+import it.ninjatech.restapiinvoker.invocationdata.InvocationMode;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * <p>
+ * Interface representing an HTTP Rest Client able to perform the calls in a
+ * reactive way.<br>
+ * It's used for the proxied methods invoked in {@link InvocationMode#MONO} and
+ * {@link InvocationMode#FLUX} modes.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public interface ReactiveHttpRestClient extends HttpRestClient {
+
+	/**
+	 * Executes the call to the REST service at the subscription of the returned
+	 * {@link Mono}.
+	 * 
+	 * @param invocationData Data to execute the call
+	 * @return {@link Mono} emitting the result of the call
+	 */
+	public Mono<Object> exchangeMono(InvocationData invocationData);
+
+	/**
+	 * Executes the call to the REST service at the subscription of the returned
+	 * {@link Flux}, emitting the elements of the response body as soon as they
+	 * are decoded.
+	 * 
+	 * @param invocationData Data to execute the call
+	 * @return {@link Flux} emitting the elements of the response body
+	 * @see InvocationData#getElementType()
+	 */
+	public Flux<Object> exchangeFlux(InvocationData invocationData);
+
+}
@@ -0,0 +1,101 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * <p>
+ * Utility class used by the clients to write the request bodies that have to
+ * be streamed rather than buffered.<br>
+ * Such bodies are the {@link InputStream} and {@link Resource} ones, written
+ * as they are, and the {@link Stream} and {@link Iterator} ones, written as a
+ * JSON array of their elements.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+final class RequestBodies {
+
+	/**
+	 * Returns if the request body is made of elements to be written as a JSON
+	 * array.
+	 *
+	 * @param requestBody Request body
+	 * @return true, if the body is a {@link Stream} or an {@link Iterator}
+	 */
+	static boolean isJsonElements(Object requestBody) {
+		return requestBody instanceof Stream || requestBody instanceof Iterator;
+	}
+
+	/**
+	 * Returns if the request body can be sent more than once, that is if it's
+	 * not a stream.
+	 *
+	 * @param requestBody Request body
+	 * @return true, if the body can be sent again
+	 */
+	static boolean isReplayable(Object requestBody) {
+		return !(requestBody instanceof InputStream
+		         || (requestBody instanceof Resource && ((Resource) requestBody).isOpen())
+		         || isJsonElements(requestBody));
+	}
+
+	/**
+	 * Converts the request body to a {@link Resource}, if it has to be
+	 * streamed.
+	 *
+	 * @param requestBody Request body
+	 * @param objectMapper {@link ObjectMapper} serializing the elements
+	 * @return {@link Resource} to be streamed, or the request body itself
+	 */
+	static Object toStreamable(Object requestBody, ObjectMapper objectMapper) {
+		Object result = requestBody;
+
+		if (requestBody instanceof InputStream) {
+			result = new InputStreamResource((InputStream) requestBody);
+		}
+		else if (isJsonElements(requestBody)) {
+			result = new InputStreamResource(new JsonArrayInputStream(objectMapper, requestBody));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Hidden constructor.
+	 */
+	private RequestBodies() {
+	}
+
+}
@@ -48,7 +48,7 @@ public class ResponseTypeReference<T> extends ParameterizedTypeReference<T> {
 	 * 
 	 * @param type Type
 	 */
-	protected ResponseTypeReference(Type type) {
+	public ResponseTypeReference(Type type) {
 		this.type = type;
 	}
 
@@ -0,0 +1,456 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+
+import it.ninjatech.restapiinvoker.annotation.Retry;
+import it.ninjatech.restapiinvoker.invocationdata.Deadline;
+import it.ninjatech.restapiinvoker.invocationdata.InvocationData;
+import reactor.core.publisher.Flux;
+
+/**
+ * <p>
+ * Decorator of an {@link HttpRestClient} retrying the failed calls of the
+ * methods annotated with {@link Retry}.<br>
+ * A call is retried if it failed with a {@link ResourceAccessException}, that
+ * is an I/O error, or with a {@link RestClientResponseException} having one of
+ * the retried statuses, unless its request body is a stream that cannot be
+ * read again.
+ * </p>
+ * <p>
+ * The retries are limited by a retry budget shared by all the calls, so that
+ * they cannot amplify the load on a failing REST service: each call adds
+ * {@code budgetRatio} tokens to a bucket holding at most
+ * {@code budgetCapacity} tokens, and each retry takes one. With the default
+ * ratio of 0.1 the retries are at most 10% of the calls, plus the initial
+ * capacity.
+ * </p>
+ * <p>
+ * The asynchronous and reactive calls are retried without blocking, after the
+ * delay, on a shared scheduler. The streamed calls are retried only if opening
+ * the stream failed, and the {@link Flux} calls only if they failed before
+ * emitting any element, the elements already read being not replayable.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public class RetryingHttpRestClient extends HttpRestClientDecorator {
+
+	/** Default fraction of the calls that can be retried. */
+	public static final double DEFAULT_BUDGET_RATIO = 0.1;
+
+	/** Default capacity of the retry budget. */
+	public static final int DEFAULT_BUDGET_CAPACITY = 10;
+
+	/** Scheduler of the asynchronous retries. */
+	private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread result = new Thread(r, "rest-api-invoker-retry");
+		result.setDaemon(true);
+
+		return result;
+	});
+
+	/** Retry budget. */
+	private final CallBudget retryBudget;
+
+	/** Number of retries. */
+	private final LongAdder retryCount;
+
+	/**
+	 * Constructs a new {@link RetryingHttpRestClient} with the default retry
+	 * budget.
+	 * 
+	 * @param httpRestClient Decorated {@link HttpRestClient}
+	 */
+	public RetryingHttpRestClient(HttpRestClient httpRestClient) {
+		this(httpRestClient, DEFAULT_BUDGET_RATIO, DEFAULT_BUDGET_CAPACITY);
+	}
+
+	/**
+	 * Constructs a new {@link RetryingHttpRestClient}.
+	 * 
+	 * @param httpRestClient Decorated {@link HttpRestClient}
+	 * @param budgetRatio Tokens added to the retry budget by each call, that is
+	 *            the fraction of the calls that can be retried
+	 * @param budgetCapacity Maximum, and initial, tokens of the retry budget
+	 */
+	public RetryingHttpRestClient(HttpRestClient httpRestClient, double budgetRatio, int budgetCapacity) {
+		super(httpRestClient);
+		this.retryBudget = new CallBudget(budgetRatio, budgetCapacity);
+		this.retryCount = new LongAdder();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see it.ninjatech.restapiinvoker.client.HttpRestClient#exchange(it.ninjatech.
+	 * restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Object exchange(InvocationData invocationData) {
+		return execute(invocationData, () -> this.httpRestClient.exchange(invocationData));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.HttpRestClient#exchangeForEntity(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public ResponseEntity<?> exchangeForEntity(InvocationData invocationData) {
+		return execute(invocationData, () -> this.httpRestClient.exchangeForEntity(invocationData));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.AsyncHttpRestClient#exchangeAsync(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public CompletableFuture<Object> exchangeAsync(InvocationData invocationData) {
+		return executeAsync(invocationData, () -> forwardAsync(invocationData));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.AsyncHttpRestClient#exchangeForEntityAsync
+	 * (it.ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public CompletableFuture<ResponseEntity<?>> exchangeForEntityAsync(InvocationData invocationData) {
+		return executeAsync(invocationData, () -> forwardEntityAsync(invocationData));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.ReactiveHttpRestClient#exchangeFlux(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Flux<Object> exchangeFlux(InvocationData invocationData) {
+		return ReactiveCalls.retryFlux(() -> forwardFlux(invocationData), () -> {
+			Attempts attempts = start(invocationData);
+
+			return attempts != null ? attempts::next : f -> -1;
+		});
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.StreamingHttpRestClient#exchangeStream(
+	 * it.ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Stream<Object> exchangeStream(InvocationData invocationData) {
+		return execute(invocationData, () -> forwardStream(invocationData));
+	}
+
+	/**
+	 * Returns the number of retries performed.
+	 * 
+	 * @return Retry count
+	 */
+	public long getRetryCount() {
+		return this.retryCount.sum();
+	}
+
+	/**
+	 * Returns the number of retries denied by the retry budget.
+	 * 
+	 * @return Budget exhausted count
+	 */
+	public long getBudgetExhaustedCount() {
+		return this.retryBudget.getExhaustedCount();
+	}
+
+	/**
+	 * Returns the tokens available in the retry budget.
+	 * 
+	 * @return Available retries
+	 */
+	public double getBudget() {
+		return this.retryBudget.getTokens();
+	}
+
+	/**
+	 * Executes the call, retrying it if needed.
+	 * 
+	 * @param <T> Type of the result
+	 * @param invocationData Data to execute the call
+	 * @param call Call
+	 * @return Result of the call
+	 */
+	private <T> T execute(InvocationData invocationData, Supplier<T> call) {
+		T result = null;
+
+		Attempts attempts = start(invocationData);
+		if (attempts == null) {
+			result = call.get();
+		}
+		else {
+			boolean done = false;
+			while (!done) {
+				try {
+					result = call.get();
+					done = true;
+				}
+				catch (RuntimeException e) {
+					long delay = attempts.next(e);
+					if (delay < 0) {
+						throw e;
+					}
+					sleep(delay, e);
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Executes the call asynchronously, retrying it if needed.
+	 * 
+	 * @param <T> Type of the result
+	 * @param invocationData Data to execute the call
+	 * @param call Call
+	 * @return Future completed with the result of the call
+	 */
+	private <T> CompletableFuture<T> executeAsync(InvocationData invocationData, Supplier<CompletableFuture<T>> call) {
+		CompletableFuture<T> result;
+
+		Attempts attempts = start(invocationData);
+		if (attempts == null) {
+			result = AsyncCalls.start(call);
+		}
+		else {
+			result = new CompletableFuture<>();
+			attemptAsync(call, attempts, result);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Performs an attempt of an asynchronous call, scheduling the next one if
+	 * it failed and the call has not been cancelled.
+	 * 
+	 * @param <T> Type of the result
+	 * @param call Call
+	 * @param attempts Attempts of the call
+	 * @param result Future of the call
+	 */
+	private <T> void attemptAsync(Supplier<CompletableFuture<T>> call, Attempts attempts, CompletableFuture<T> result) {
+		AsyncCalls.start(call).whenComplete((r, e) -> {
+			if (e == null) {
+				result.complete(r);
+			}
+			else {
+				Throwable failure = AsyncCalls.unwrap(e);
+				long delay = result.isDone() ? -1 : attempts.next(failure);
+				if (delay < 0) {
+					result.completeExceptionally(failure);
+				}
+				else {
+					SCHEDULER.schedule(() -> attemptAsync(call, attempts, result), delay, TimeUnit.MILLISECONDS);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Starts a call, depositing in the retry budget.
+	 * 
+	 * @param invocationData Data to execute the call
+	 * @return Attempts of the call, null if it cannot be retried
+	 */
+	private Attempts start(InvocationData invocationData) {
+		this.retryBudget.deposit();
+		Retry retry = invocationData.getRetry();
+
+		return retry != null && RequestBodies.isReplayable(invocationData.getRequestBody()) ? new Attempts(retry, invocationData.getDeadline()) : null;
+	}
+
+	/**
+	 * Gets the delay before retrying a failed call: a random value up to the
+	 * backoff, or the delay requested by the <code>Retry-After</code> header if
+	 * longer.
+	 * 
+	 * @param exception Failure of the call
+	 * @param retry Retry of the call
+	 * @param backoff Current backoff in millis
+	 * @return Delay in millis, -1 if the failure must not be retried
+	 */
+	private static long getDelay(Throwable exception, Retry retry, double backoff) {
+		long result = -1;
+
+		if (exception instanceof ResourceAccessException) {
+			result = (long) (ThreadLocalRandom.current().nextDouble() * backoff);
+		}
+		else if (exception instanceof RestClientResponseException) {
+			RestClientResponseException responseException = (RestClientResponseException) exception;
+			for (int status : retry.statuses()) {
+				if (status == responseException.getRawStatusCode()) {
+					result = Math.max((long) (ThreadLocalRandom.current().nextDouble() * backoff), Math.min(getRetryAfter(responseException.getResponseHeaders()), retry.maxRetryAfter()));
+					break;
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Gets the delay requested by the <code>Retry-After</code> header, either
+	 * in seconds or as an HTTP date.
+	 * 
+	 * @param headers Response headers
+	 * @return Delay in millis, 0 if none
+	 */
+	private static long getRetryAfter(HttpHeaders headers) {
+		long result = 0;
+
+		String retryAfter = headers != null ? headers.getFirst(HttpHeaders.RETRY_AFTER) : null;
+		if (retryAfter != null) {
+			if (NumberUtils.isDigits(retryAfter.trim())) {
+				result = TimeUnit.SECONDS.toMillis(NumberUtils.toLong(retryAfter.trim()));
+			}
+			else {
+				try {
+					result = Math.max(0, headers.getFirstDate(HttpHeaders.RETRY_AFTER) - System.currentTimeMillis());
+				}
+				catch (IllegalArgumentException e) {
+					result = 0;
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Waits before retrying.
+	 * 
+	 * @param delay Delay in millis
+	 * @param exception Failure of the call, thrown if interrupted
+	 */
+	private static void sleep(long delay, RuntimeException exception) {
+		try {
+			Thread.sleep(delay);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw exception;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Attempts of a retried call.
+	 * </p>
+	 *
+	 * @author Vincenzo Mazzeo
+	 * @version 1.0
+	 * @since 1.1.0
+	 */
+	private final class Attempts {
+
+		/** Retry of the call. */
+		private final Retry retry;
+
+		/** Deadline of the call, null if none. */
+		private final Deadline deadline;
+
+		/** Attempts performed. */
+		private int attempt;
+
+		/** Current backoff in millis. */
+		private double backoff;
+
+		/**
+		 * Constructs a new Attempts.
+		 *
+		 * @param retry Retry of the call
+		 * @param deadline Deadline of the call, null if none
+		 */
+		private Attempts(Retry retry, Deadline deadline) {
+			this.retry = retry;
+			this.deadline = deadline;
+			this.attempt = 1;
+			this.backoff = retry.backoff();
+		}
+
+		/**
+		 * Gets the delay before the next attempt, taking a retry from the
+		 * budget.
+		 *
+		 * @param failure Failure of the last attempt
+		 * @return Delay in millis, -1 if the call must not be retried
+		 */
+		private long next(Throwable failure) {
+			long result = getDelay(failure, this.retry, this.backoff);
+
+			if (this.attempt >= this.retry.maxAttempts()
+			    || result < 0
+			    || (this.deadline != null && TimeUnit.MILLISECONDS.toNanos(result) >= this.deadline.getRemaining(TimeUnit.NANOSECONDS))
+			    || !RetryingHttpRestClient.this.retryBudget.withdraw()) {
+				result = -1;
+			}
+			else {
+				this.attempt++;
+				RetryingHttpRestClient.this.retryCount.increment();
+				this.backoff = Math.min(this.backoff * this.retry.multiplier(), this.retry.maxBackoff());
+			}
+
+			return result;
+		}
+
+	}
+
+}
@@ -0,0 +1,327 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
+
+import it.ninjatech.restapiinvoker.metrics.InvocationPhase;
+import it.ninjatech.restapiinvoker.metrics.InvocationSample;
+
+/**
+ * <p>
+ * Records on the {@link InvocationSample} of a call performed by a
+ * RestTemplate the HTTP status and the bytes of the request and response
+ * bodies, counting them while they are written and read.<br>
+ * The request bytes are the ones written on the connection, so compressed if
+ * the body is compressed, the response bytes the ones read by the
+ * {@link ResponseExtractor}, so decompressed.<br>
+ * If the phases of the call are timed, the recorder times the
+ * {@link InvocationPhase#DESERIALIZATION} and, while bound, exposes the sample
+ * to the components of the HttpClient timing the phases of the connection,
+ * which are performed by the same thread.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+final class SampleRecorder {
+
+	/** Sample of the call performed by the current thread. */
+	private static final ThreadLocal<InvocationSample> CURRENT_SAMPLE = new ThreadLocal<>();
+
+	/**
+	 * Returns the sample of the call performed by the current thread, if its
+	 * phases are timed.
+	 *
+	 * @return Sample of the call, null if none
+	 */
+	static InvocationSample getCurrentSample() {
+		return CURRENT_SAMPLE.get();
+	}
+
+	/** Sample of the call. */
+	private final InvocationSample invocationSample;
+
+	/** Bytes of the request body. */
+	private final LongAdder requestBytes;
+
+	/** Bytes of the response body. */
+	private final LongAdder responseBytes;
+
+	/**
+	 * Constructs a new SampleRecorder.
+	 *
+	 * @param invocationSample Sample of the call
+	 */
+	SampleRecorder(InvocationSample invocationSample) {
+		this.invocationSample = invocationSample;
+		this.requestBytes = new LongAdder();
+		this.responseBytes = new LongAdder();
+	}
+
+	/**
+	 * Makes the request callback counting the bytes of the body written by
+	 * another one.
+	 *
+	 * @param requestCallback Request callback writing the body
+	 * @param requestEntity Request entity
+	 * @return Request callback, the same if the request has no body
+	 */
+	RequestCallback recordRequest(RequestCallback requestCallback, HttpEntity<?> requestEntity) {
+		RequestCallback result = requestCallback;
+
+		if (requestEntity.hasBody()) {
+			result = request -> {
+				this.invocationSample.setRequestBytes(0);
+				requestCallback.doWithRequest(request instanceof StreamingHttpOutputMessage ? new StreamingCountingRequest(request)
+				                                                                            : new CountingRequest(request));
+			};
+		}
+
+		return result;
+	}
+
+	/**
+	 * Makes the response extractor recording the HTTP status and counting the
+	 * bytes of the body read by another one.
+	 *
+	 * @param <T> Type of the extracted data
+	 * @param responseExtractor Response extractor reading the body
+	 * @return Response extractor
+	 */
+	<T> ResponseExtractor<T> recordResponse(ResponseExtractor<T> responseExtractor) {
+		return response -> {
+			recordStatus(response);
+			this.invocationSample.startPhase(InvocationPhase.DESERIALIZATION);
+			T result = responseExtractor.extractData(new CountingResponse(response));
+			this.invocationSample.endPhase(InvocationPhase.DESERIALIZATION);
+			this.invocationSample.setResponseBytes(this.responseBytes.sum());
+			return result;
+		};
+	}
+
+	/**
+	 * Binds the sample to the current thread, if its phases are timed.
+	 */
+	void bind() {
+		if (this.invocationSample.isTimingPhases()) {
+			CURRENT_SAMPLE.set(this.invocationSample);
+		}
+	}
+
+	/**
+	 * Unbinds the sample from the current thread.
+	 */
+	void unbind() {
+		if (this.invocationSample.isTimingPhases()) {
+			CURRENT_SAMPLE.remove();
+		}
+	}
+
+	/**
+	 * Records the HTTP status of the response, along with the bytes of the
+	 * request body already written.
+	 *
+	 * @param response Response
+	 * @throws IOException if the status cannot be read
+	 */
+	void recordStatus(ClientHttpResponse response) throws IOException {
+		this.invocationSample.setStatus(response.getRawStatusCode());
+		if (this.invocationSample.getRequestBytes() >= 0) {
+			this.invocationSample.setRequestBytes(this.requestBytes.sum());
+		}
+	}
+
+	/**
+	 * <p>
+	 * Request counting the bytes of the buffered body.
+	 * </p>
+	 *
+	 * @author Vincenzo Mazzeo
+	 * @version 1.0
+	 * @since 1.1.0
+	 */
+	private class CountingRequest extends ClientHttpRequestDecorator {
+
+		/**
+		 * Constructs a new CountingRequest.
+		 *
+		 * @param request Actual request
+		 */
+		private CountingRequest(ClientHttpRequest request) {
+			super(request);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see it.ninjatech.restapiinvoker.client.ClientHttpRequestDecorator#getBody()
+		 */
+		@Override
+		public OutputStream getBody() throws IOException {
+			return new CompressionMetrics.CountingOutputStream(this.request.getBody(), SampleRecorder.this.requestBytes);
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Request counting the bytes of the streamed body.
+	 * </p>
+	 *
+	 * @author Vincenzo Mazzeo
+	 * @version 1.0
+	 * @since 1.1.0
+	 */
+	private final class StreamingCountingRequest extends CountingRequest implements StreamingHttpOutputMessage {
+
+		/**
+		 * Constructs a new StreamingCountingRequest.
+		 *
+		 * @param request Actual request, a {@link StreamingHttpOutputMessage}
+		 */
+		private StreamingCountingRequest(ClientHttpRequest request) {
+			super(request);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * org.springframework.http.StreamingHttpOutputMessage#setBody(org.
+		 * springframework.http.StreamingHttpOutputMessage.Body)
+		 */
+		@Override
+		public void setBody(Body body) {
+			((StreamingHttpOutputMessage) this.request).setBody(o -> body.writeTo(new CompressionMetrics.CountingOutputStream(o, SampleRecorder.this.requestBytes)));
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * Response counting the bytes of the body.
+	 * </p>
+	 *
+	 * @author Vincenzo Mazzeo
+	 * @version 1.0
+	 * @since 1.1.0
+	 */
+	private final class CountingResponse implements ClientHttpResponse {
+
+		/** Actual response. */
+		private final ClientHttpResponse response;
+
+		/** Counted body. */
+		private InputStream body;
+
+		/**
+		 * Constructs a new CountingResponse.
+		 *
+		 * @param response Actual response
+		 */
+		private CountingResponse(ClientHttpResponse response) {
+			this.response = response;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see org.springframework.http.client.ClientHttpResponse#getStatusCode()
+		 */
+		@Override
+		public HttpStatus getStatusCode() throws IOException {
+			return this.response.getStatusCode();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see org.springframework.http.client.ClientHttpResponse#getRawStatusCode()
+		 */
+		@Override
+		public int getRawStatusCode() throws IOException {
+			return this.response.getRawStatusCode();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see org.springframework.http.client.ClientHttpResponse#getStatusText()
+		 */
+		@Override
+		public String getStatusText() throws IOException {
+			return this.response.getStatusText();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see org.springframework.http.HttpMessage#getHeaders()
+		 */
+		@Override
+		public HttpHeaders getHeaders() {
+			return this.response.getHeaders();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see org.springframework.http.HttpInputMessage#getBody()
+		 */
+		@Override
+		public InputStream getBody() throws IOException {
+			if (this.body == null) {
+				this.body = new CompressionMetrics.CountingInputStream(this.response.getBody(), SampleRecorder.this.responseBytes);
+			}
+
+			return this.body;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see org.springframework.http.client.ClientHttpResponse#close()
+		 */
+		@Override
+		public void close() {
+			this.response.close();
+		}
+
+	}
+
+}
@@ -0,0 +1,385 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.springframework.http.ResponseEntity;
+
+import it.ninjatech.restapiinvoker.annotation.ShardKey;
+import it.ninjatech.restapiinvoker.invocationdata.InvocationData;
+import reactor.core.publisher.Flux;
+
+/**
+ * <p>
+ * Decorator of an {@link HttpRestClient} routing the calls among the replicas
+ * of a REST service, each reachable at its own base path, by the value of
+ * their {@link ShardKey}, so that the calls with the same key go to the same
+ * replica and find its caches warm.<br>
+ * The replica of a key is chosen by rendezvous hashing: the key is hashed
+ * with each replica and the highest hash wins, so adding or removing a
+ * replica moves only the keys of that replica.
+ * </p>
+ * <p>
+ * The load is bounded: a replica whose calls in flight reach
+ * {@code loadFactor} times the average of the replicas takes no more calls,
+ * which spill over to the next replica in the order of the hashes of their
+ * key, so that a hot key cannot overload a single replica. The calls without
+ * a key go to the replica with the fewest calls in flight. The asynchronous
+ * and reactive calls are in flight until completed, the streamed ones until
+ * their stream is closed or read to the end.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public class ShardingHttpRestClient extends HttpRestClientDecorator {
+
+	/** Default bound of the load of a replica over the average. */
+	public static final double DEFAULT_LOAD_FACTOR = 1.25;
+
+	/**
+	 * Mixes the bits of a hash (the finalizer of MurmurHash3).
+	 *
+	 * @param hash Hash
+	 * @return Mixed hash
+	 */
+	private static long mix(long hash) {
+		long result = hash;
+
+		result ^= result >>> 33;
+		result *= 0xff51afd7ed558ccdL;
+		result ^= result >>> 33;
+		result *= 0xc4ceb3fe1a85ec53L;
+		result ^= result >>> 33;
+
+		return result;
+	}
+
+	/**
+	 * Hashes a string (FNV-1a, 64 bit).
+	 *
+	 * @param value String
+	 * @return Hash
+	 */
+	private static long hash(String value) {
+		long result = 0xcbf29ce484222325L;
+
+		for (int i = 0, n = value.length(); i < n; i++) {
+			result ^= value.charAt(i);
+			result *= 0x100000001b3L;
+		}
+
+		return mix(result);
+	}
+
+	/** Replicas. */
+	private final Replica[] replicas;
+
+	/** Bound of the load of a replica over the average. */
+	private final double loadFactor;
+
+	/** Calls in flight to all the replicas. */
+	private final AtomicInteger outstanding;
+
+	/** Number of calls spilled over from the replica of their key. */
+	private final LongAdder spilloverCount;
+
+	/**
+	 * Constructs a new {@link ShardingHttpRestClient} with the default load
+	 * factor.
+	 * 
+	 * @param httpRestClient Decorated {@link HttpRestClient}
+	 * @param basePaths Base paths of the replicas
+	 */
+	public ShardingHttpRestClient(HttpRestClient httpRestClient, Collection<String> basePaths) {
+		this(httpRestClient, basePaths, DEFAULT_LOAD_FACTOR);
+	}
+
+	/**
+	 * Constructs a new {@link ShardingHttpRestClient}.
+	 * 
+	 * @param httpRestClient Decorated {@link HttpRestClient}
+	 * @param basePaths Base paths of the replicas
+	 * @param loadFactor Bound of the calls in flight to a replica over the
+	 *            average, at least 1
+	 */
+	public ShardingHttpRestClient(HttpRestClient httpRestClient, Collection<String> basePaths, double loadFactor) {
+		super(httpRestClient);
+		if (basePaths.isEmpty() || loadFactor < 1) {
+			throw new RuntimeException(String.format("Invalid sharding: %d base paths, load factor %s", basePaths.size(), loadFactor));
+		}
+		Map<String, Replica> replicas = new LinkedHashMap<>();
+		for (String basePath : basePaths) {
+			replicas.put(basePath, new Replica(basePath));
+		}
+		this.replicas = replicas.values().toArray(new Replica[0]);
+		this.loadFactor = loadFactor;
+		this.outstanding = new AtomicInteger();
+		this.spilloverCount = new LongAdder();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see it.ninjatech.restapiinvoker.client.HttpRestClient#exchange(it.ninjatech.
+	 * restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Object exchange(InvocationData invocationData) {
+		return CallAdmission.call(this::admit, invocationData, this.httpRestClient::exchange);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.HttpRestClient#exchangeForEntity(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public ResponseEntity<?> exchangeForEntity(InvocationData invocationData) {
+		return CallAdmission.call(this::admit, invocationData, this.httpRestClient::exchangeForEntity);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.AsyncHttpRestClient#exchangeAsync(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public CompletableFuture<Object> exchangeAsync(InvocationData invocationData) {
+		return CallAdmission.callAsync(this::admit, invocationData, this::forwardAsync);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.AsyncHttpRestClient#exchangeForEntityAsync
+	 * (it.ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public CompletableFuture<ResponseEntity<?>> exchangeForEntityAsync(InvocationData invocationData) {
+		return CallAdmission.callAsync(this::admit, invocationData, this::forwardEntityAsync);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.ReactiveHttpRestClient#exchangeFlux(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Flux<Object> exchangeFlux(InvocationData invocationData) {
+		return ReactiveCalls.callFlux(this::admit, invocationData, this::forwardFlux);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.StreamingHttpRestClient#exchangeStream(
+	 * it.ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Stream<Object> exchangeStream(InvocationData invocationData) {
+		return CallAdmission.callStream(this::admit, invocationData, this::forwardStream);
+	}
+
+	/**
+	 * Returns the base paths of the replicas.
+	 * 
+	 * @return Unmodifiable list of the base paths
+	 */
+	public List<String> getBasePaths() {
+		List<String> result = new ArrayList<>(this.replicas.length);
+
+		for (Replica replica : this.replicas) {
+			result.add(replica.basePath);
+		}
+
+		return Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * Returns the base path of the replica owning a key, regardless of its
+	 * load.
+	 * 
+	 * @param key Value of the shard key
+	 * @return Base path
+	 */
+	public String getBasePath(String key) {
+		long keyHash = hash(key);
+		Replica result = this.replicas[0];
+		for (Replica replica : this.replicas) {
+			if (Long.compareUnsigned(replica.score(keyHash), result.score(keyHash)) > 0) {
+				result = replica;
+			}
+		}
+
+		return result.basePath;
+	}
+
+	/**
+	 * Returns the number of calls spilled over from the replica of their key.
+	 * 
+	 * @return Spillover count
+	 */
+	public long getSpilloverCount() {
+		return this.spilloverCount.sum();
+	}
+
+	/**
+	 * Admits the call on the replica of its key.
+	 * 
+	 * @param invocationData Data to execute the call
+	 * @return Admission of the call, whose data are routed to the replica
+	 */
+	private CallAdmission admit(InvocationData invocationData) {
+		String key = invocationData.getShardKeyValue();
+		Replica replica = key != null ? choose(key) : chooseLeastLoaded();
+		replica.outstanding.incrementAndGet();
+		this.outstanding.incrementAndGet();
+
+		return new CallAdmission(invocationData.withBasePath(replica.basePath), f -> {
+			replica.outstanding.decrementAndGet();
+			this.outstanding.decrementAndGet();
+		});
+	}
+
+	/**
+	 * Chooses the replica of a key: the first one, in the order of the hashes
+	 * of the key, whose load is below the bound.
+	 * 
+	 * @param key Value of the shard key
+	 * @return Chosen replica
+	 */
+	private Replica choose(String key) {
+		Replica result = null;
+
+		long keyHash = hash(key);
+		long[] scores = new long[this.replicas.length];
+		for (int i = 0; i < scores.length; i++) {
+			scores[i] = this.replicas[i].score(keyHash);
+		}
+		int capacity = (int) Math.ceil(this.loadFactor * (this.outstanding.get() + 1) / this.replicas.length);
+		boolean[] checked = new boolean[this.replicas.length];
+		for (int attempt = 0; attempt < this.replicas.length && result == null; attempt++) {
+			int best = -1;
+			for (int i = 0; i < scores.length; i++) {
+				if (!checked[i] && (best < 0 || Long.compareUnsigned(scores[i], scores[best]) > 0)) {
+					best = i;
+				}
+			}
+			checked[best] = true;
+			if (this.replicas[best].outstanding.get() < capacity) {
+				result = this.replicas[best];
+				if (attempt > 0) {
+					this.spilloverCount.increment();
+				}
+			}
+		}
+		if (result == null) {
+			result = chooseLeastLoaded();
+			this.spilloverCount.increment();
+		}
+
+		return result;
+	}
+
+	/**
+	 * Chooses the replica with the fewest calls in flight.
+	 * 
+	 * @return Chosen replica
+	 */
+	private Replica chooseLeastLoaded() {
+		Replica result = this.replicas[0];
+
+		for (Replica replica : this.replicas) {
+			if (replica.outstanding.get() < result.outstanding.get()) {
+				result = replica;
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Replica of the REST service.
+	 * </p>
+	 *
+	 * @author Vincenzo Mazzeo
+	 * @version 1.0
+	 * @since 1.1.0
+	 */
+	private static final class Replica {
+
+		/** Base path. */
+		private final String basePath;
+
+		/** Hash of the base path. */
+		private final long hash;
+
+		/** Calls in flight. */
+		private final AtomicInteger outstanding;
+
+		/**
+		 * Constructs a new Replica.
+		 *
+		 * @param basePath Base path
+		 */
+		private Replica(String basePath) {
+			this.basePath = basePath;
+			this.hash = hash(basePath);
+			this.outstanding = new AtomicInteger();
+		}
+
+		/**
+		 * Computes the rendezvous score of a key on the replica.
+		 *
+		 * @param keyHash Hash of the key
+		 * @return Score, to be compared as unsigned
+		 */
+		private long score(long keyHash) {
+			return mix(keyHash ^ this.hash);
+		}
+
+	}
+
+}
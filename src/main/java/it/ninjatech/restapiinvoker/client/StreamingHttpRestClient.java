@@ -0,0 +1,58 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.util.stream.Stream;
+
+import it.ninjatech.restapiinvoker.invocationdata.InvocationData;
+import it.ninjatech.restapiinvoker.invocationdata.InvocationMode;
+
+/**
+ * <p>
+ * Interface representing an HTTP Rest Client able to stream the elements of
+ * the response body as they are read, without holding the whole body.<br>
+ * It's used for the proxied methods invoked in {@link InvocationMode#STREAM},
+ * {@link InvocationMode#ITERATOR} and {@link InvocationMode#CONSUMER} modes.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public interface StreamingHttpRestClient extends HttpRestClient {
+
+	/**
+	 * Executes the call to the REST service, returning the elements of the
+	 * response body, a JSON array or a sequence of JSON values such as
+	 * newline delimited JSON.<br>
+	 * The response is released when the returned {@link Stream} is closed or
+	 * all its elements have been read.
+	 * 
+	 * @param invocationData Data to execute the call
+	 * @return {@link Stream} of the elements of the response body
+	 * @see InvocationData#getElementType()
+	 */
+	public Stream<Object> exchangeStream(InvocationData invocationData);
+
+}
@@ -0,0 +1,160 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.protocol.HttpContext;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import it.ninjatech.restapiinvoker.annotation.Timeout;
+import it.ninjatech.restapiinvoker.invocationdata.Deadline;
+import it.ninjatech.restapiinvoker.invocationdata.InvocationData;
+
+/**
+ * <p>
+ * {@link HttpComponentsClientHttpRequestFactory} configuring each request with
+ * the {@link Timeout} and the {@link Deadline} of the call bound to the
+ * current thread, through the {@link RequestConfig} of its context.<br>
+ * The timeouts not set by the call are the ones of the {@link HttpClient},
+ * and all of them are cut down to the time left before the deadline.<br>
+ * Each request is registered on the {@link CallCancellation} bound to the
+ * current thread, if any, so that cancelling the call aborts it.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+final class TimeoutRequestFactory extends HttpComponentsClientHttpRequestFactory {
+
+	/** Call whose request is being created by the current thread. */
+	private static final ThreadLocal<InvocationData> CURRENT_INVOCATION = new ThreadLocal<>();
+
+	/**
+	 * Binds a call to the current thread, if it has timeouts or a deadline.
+	 *
+	 * @param invocationData Data to execute the call
+	 */
+	static void bind(InvocationData invocationData) {
+		if (invocationData.getTimeout() != null || invocationData.getDeadline() != null) {
+			CURRENT_INVOCATION.set(invocationData);
+		}
+	}
+
+	/**
+	 * Unbinds the call from the current thread.
+	 */
+	static void unbind() {
+		CURRENT_INVOCATION.remove();
+	}
+
+	/**
+	 * Makes the configuration of a request.
+	 *
+	 * @param requestConfig Configuration of the client
+	 * @param timeout Timeouts of the call, can be null
+	 * @param deadline Deadline of the call, can be null
+	 * @return {@link RequestConfig}
+	 */
+	static RequestConfig makeRequestConfig(RequestConfig requestConfig, Timeout timeout, Deadline deadline) {
+		int connectTimeout = timeout != null && timeout.connect() >= 0 ? timeout.connect() : requestConfig.getConnectTimeout();
+		int socketTimeout = timeout != null && timeout.read() >= 0 ? timeout.read() : requestConfig.getSocketTimeout();
+		int connectionRequestTimeout = timeout != null && timeout.lease() >= 0 ? timeout.lease() : requestConfig.getConnectionRequestTimeout();
+		if (deadline != null) {
+			int remaining = (int) Math.max(1, Math.min(Integer.MAX_VALUE, deadline.getRemaining(TimeUnit.MILLISECONDS)));
+			connectTimeout = cap(connectTimeout, remaining);
+			socketTimeout = cap(socketTimeout, remaining);
+			connectionRequestTimeout = cap(connectionRequestTimeout, remaining);
+		}
+
+		return RequestConfig.copy(requestConfig)
+		                    .setConnectTimeout(connectTimeout)
+		                    .setSocketTimeout(socketTimeout)
+		                    .setConnectionRequestTimeout(connectionRequestTimeout)
+		                    .build();
+	}
+
+	/**
+	 * Cuts a timeout down to the time left.
+	 *
+	 * @param timeout Timeout, 0 or negative if infinite
+	 * @param remaining Time left
+	 * @return Timeout
+	 */
+	private static int cap(int timeout, int remaining) {
+		return timeout > 0 && timeout < remaining ? timeout : remaining;
+	}
+
+	/**
+	 * Constructs a new TimeoutRequestFactory.
+	 *
+	 * @param httpClient {@link HttpClient}
+	 */
+	TimeoutRequestFactory(HttpClient httpClient) {
+		super(httpClient);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.springframework.http.client.HttpComponentsClientHttpRequestFactory#
+	 * createHttpUriRequest(org.springframework.http.HttpMethod, java.net.URI)
+	 */
+	@Override
+	protected HttpUriRequest createHttpUriRequest(HttpMethod httpMethod, URI uri) {
+		HttpUriRequest result = super.createHttpUriRequest(httpMethod, uri);
+
+		CallCancellation.register(result::abort);
+
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.springframework.http.client.HttpComponentsClientHttpRequestFactory#
+	 * createHttpContext(org.springframework.http.HttpMethod, java.net.URI)
+	 */
+	@Override
+	protected HttpContext createHttpContext(HttpMethod httpMethod, URI uri) {
+		HttpClientContext result = null;
+
+		InvocationData invocationData = CURRENT_INVOCATION.get();
+		if (invocationData != null) {
+			RequestConfig requestConfig = createRequestConfig(getHttpClient());
+			result = HttpClientContext.create();
+			result.setRequestConfig(makeRequestConfig(requestConfig != null ? requestConfig : RequestConfig.DEFAULT, invocationData.getTimeout(), invocationData.getDeadline()));
+		}
+
+		return result;
+	}
+
+}
@@ -0,0 +1,370 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.client.UnknownHttpStatusCodeException;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import it.ninjatech.restapiinvoker.annotation.Timeout;
+import it.ninjatech.restapiinvoker.invocationdata.InvocationData;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * <p>
+ * Implementation of the {@link ReactiveHttpRestClient} that uses
+ * {@link WebClient} to perform the calls.<br>
+ * The calls never block a thread, so the client is an
+ * {@link AsyncHttpRestClient} too. The elements of a {@link Flux} are decoded
+ * from the JSON array of the response as they arrive, honouring the
+ * backpressure of the subscriber, and they are streamed to the blocking
+ * callers in the same way. The request bodies to be streamed are written as
+ * {@link org.springframework.core.io.Resource}s.<br>
+ * The errors are raised as the ones of the {@link DefaultHttpRestClient}, so
+ * that the decorators recognise them: the error statuses as
+ * {@link RestClientResponseException}s and the I/O errors as
+ * {@link ResourceAccessException}s.<br>
+ * The read timeout of the {@link Timeout} and the deadline of the calls bound
+ * the whole exchange of each request, and the wait for each element of a
+ * {@link Flux}; an expired deadline is raised as a
+ * {@link DeadlineExceededException}.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public class WebClientHttpRestClient implements ReactiveHttpRestClient, AsyncHttpRestClient, StreamingHttpRestClient {
+
+	/** {@link ObjectMapper} serializing the elements of the streamed request bodies. */
+	private static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
+	/** {@link WebClient}. */
+	private final WebClient webClient;
+
+	/**
+	 * Constructs a new {@link WebClientHttpRestClient} using the default
+	 * {@link WebClient}.
+	 */
+	public WebClientHttpRestClient() {
+		this(WebClient.create());
+	}
+
+	/**
+	 * Constructs a new {@link WebClientHttpRestClient}.
+	 * 
+	 * @param webClient {@link WebClient}
+	 */
+	public WebClientHttpRestClient(WebClient webClient) {
+		this.webClient = webClient;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see it.ninjatech.restapiinvoker.client.HttpRestClient#exchange(it.ninjatech.
+	 * restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Object exchange(InvocationData invocationData) {
+		return exchangeMono(invocationData).block();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.HttpRestClient#exchangeForEntity(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public ResponseEntity<?> exchangeForEntity(InvocationData invocationData) {
+		return exchangeEntityMono(invocationData).block();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.AsyncHttpRestClient#exchangeAsync(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public CompletableFuture<Object> exchangeAsync(InvocationData invocationData) {
+		return exchangeMono(invocationData).toFuture();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see it.ninjatech.restapiinvoker.client.AsyncHttpRestClient#
+	 * exchangeForEntityAsync(it.ninjatech.restapiinvoker.invocationdata.
+	 * InvocationData)
+	 */
+	@Override
+	public CompletableFuture<ResponseEntity<?>> exchangeForEntityAsync(InvocationData invocationData) {
+		return exchangeEntityMono(invocationData).toFuture();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.ReactiveHttpRestClient#exchangeMono(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Mono<Object> exchangeMono(InvocationData invocationData) {
+		return Mono.defer(() -> {
+			Mono<Object> result;
+
+			WebClient.RequestHeadersSpec<?> request = makeRequest(invocationData);
+			if (invocationData.isResponseEntity()) {
+				result = request.exchange().flatMap(r -> toResponseEntity(r, invocationData)).cast(Object.class);
+			}
+			else {
+				result = request.retrieve().bodyToMono(invocationData.getResponseTypeReference()).cast(Object.class);
+			}
+
+			return withTimeout(result, invocationData).onErrorMap(e -> toRestClientException(e, invocationData));
+		});
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.ReactiveHttpRestClient#exchangeFlux(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Flux<Object> exchangeFlux(InvocationData invocationData) {
+		ParameterizedTypeReference<?> elementTypeReference = invocationData.getElementTypeReference() != null ? invocationData.getElementTypeReference()
+		                                                                                                      : invocationData.getResponseTypeReference();
+
+		return Flux.defer(() -> withTimeout(makeRequest(invocationData).retrieve().bodyToFlux(elementTypeReference).cast(Object.class), invocationData))
+		           .onErrorMap(e -> toRestClientException(e, invocationData));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.StreamingHttpRestClient#exchangeStream(
+	 * it.ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Stream<Object> exchangeStream(InvocationData invocationData) {
+		return exchangeFlux(invocationData).toStream();
+	}
+
+	/**
+	 * Exchanges the request for a response entity.
+	 *
+	 * @param invocationData Data to execute the call
+	 * @return {@link Mono} emitting the response entity
+	 */
+	private Mono<ResponseEntity<?>> exchangeEntityMono(InvocationData invocationData) {
+		return Mono.defer(() -> withTimeout(makeRequest(invocationData).exchange().flatMap(r -> toResponseEntity(r, invocationData)), invocationData))
+		           .onErrorMap(e -> toRestClientException(e, invocationData));
+	}
+
+	/**
+	 * Makes the request.
+	 *
+	 * @param invocationData Data to execute the call
+	 * @return Request
+	 */
+	private WebClient.RequestHeadersSpec<?> makeRequest(InvocationData invocationData) {
+		WebClient.RequestBodySpec result = this.webClient.method(invocationData.getHttpMethod())
+		                                                 .uri(DefaultHttpRestClient.buildUri(invocationData))
+		                                                 .headers(h -> h.addAll(invocationData.getHeaders()));
+
+		Object requestBody = invocationData.getRequestBody();
+		if (RequestBodies.isJsonElements(requestBody) && invocationData.getHeaders().getContentType() == null) {
+			result.contentType(MediaType.APPLICATION_JSON);
+		}
+
+		return requestBody != null ? result.syncBody(RequestBodies.toStreamable(requestBody, OBJECT_MAPPER)) : result;
+	}
+
+	/**
+	 * Gets the time available to the exchange of a request: the read timeout
+	 * of the {@link Timeout} of the call, cut down to the time left before its
+	 * deadline.
+	 *
+	 * @param invocationData Data to execute the call
+	 * @return Time, in millis, {@link Long#MAX_VALUE} if unbounded
+	 */
+	private static long getRequestTimeout(InvocationData invocationData) {
+		Timeout timeout = invocationData.getTimeout();
+		long result = timeout != null && timeout.read() > 0 ? timeout.read() : Long.MAX_VALUE;
+		if (invocationData.getDeadline() != null) {
+			result = Math.min(result, Math.max(1, invocationData.getDeadline().getRemaining(TimeUnit.MILLISECONDS)));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Bounds the exchange of a request by its {@link #getRequestTimeout(InvocationData)
+	 * timeout}, to be called on subscription.
+	 *
+	 * @param <T> Type of the response
+	 * @param mono Exchange
+	 * @param invocationData Data to execute the call
+	 * @return Bounded exchange
+	 */
+	private static <T> Mono<T> withTimeout(Mono<T> mono, InvocationData invocationData) {
+		long requestTimeout = getRequestTimeout(invocationData);
+
+		return requestTimeout < Long.MAX_VALUE ? mono.timeout(Duration.ofMillis(requestTimeout)) : mono;
+	}
+
+	/**
+	 * Bounds the wait for each element of a response by the
+	 * {@link #getRequestTimeout(InvocationData) timeout} of the request,
+	 * evaluated again for each element so that the deadline bounds the whole
+	 * response, to be called on subscription.
+	 *
+	 * @param <T> Type of the elements
+	 * @param flux Exchange
+	 * @param invocationData Data to execute the call
+	 * @return Bounded exchange
+	 */
+	private static <T> Flux<T> withTimeout(Flux<T> flux, InvocationData invocationData) {
+		long requestTimeout = getRequestTimeout(invocationData);
+
+		return requestTimeout < Long.MAX_VALUE ? flux.timeout(Mono.delay(Duration.ofMillis(requestTimeout)), e -> Mono.delay(Duration.ofMillis(getRequestTimeout(invocationData))))
+		                                       : flux;
+	}
+
+	/**
+	 * Converts the response to a response entity, raising a
+	 * {@link RestClientResponseException} for the error statuses.
+	 *
+	 * @param response Response
+	 * @param invocationData Data to execute the call
+	 * @return {@link Mono} emitting the response entity
+	 */
+	private static Mono<ResponseEntity<?>> toResponseEntity(ClientResponse response, InvocationData invocationData) {
+		Mono<ResponseEntity<?>> result;
+
+		HttpStatus httpStatus = HttpStatus.resolve(response.rawStatusCode());
+		if (httpStatus == null || httpStatus.isError()) {
+			HttpHeaders headers = response.headers().asHttpHeaders();
+			result = response.bodyToMono(byte[].class)
+			                 .defaultIfEmpty(new byte[0])
+			                 .flatMap(b -> Mono.error(makeResponseException(response.rawStatusCode(), headers, b)));
+		}
+		else {
+			result = response.toEntity(invocationData.getResponseTypeReference()).map(e -> e);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Converts an error of the {@link WebClient} to the one raised by the
+	 * {@link DefaultHttpRestClient}: a {@link RestClientResponseException} for
+	 * the error statuses and a {@link ResourceAccessException} for the I/O
+	 * errors and the timeouts, a {@link DeadlineExceededException} if the
+	 * deadline of the call has expired. The other errors are left as they are.
+	 *
+	 * @param error Error
+	 * @param invocationData Data to execute the call
+	 * @return Converted error
+	 */
+	private static Throwable toRestClientException(Throwable error, InvocationData invocationData) {
+		Throwable result = error;
+
+		if (error instanceof WebClientResponseException) {
+			WebClientResponseException responseException = (WebClientResponseException) error;
+			result = makeResponseException(responseException.getRawStatusCode(), responseException.getHeaders(), responseException.getResponseBodyAsByteArray());
+		}
+		else if (error instanceof IOException || error instanceof TimeoutException) {
+			IOException ioException = error instanceof IOException ? (IOException) error : new IOException(error.getMessage(), error);
+			URI uri = DefaultHttpRestClient.buildUri(invocationData);
+			result = new ResourceAccessException(String.format("I/O error on %s request for \"%s\": %s", invocationData.getHttpMethod(), uri, error.getMessage()), ioException);
+			if (invocationData.getDeadline() != null && invocationData.getDeadline().isExpired()) {
+				result = new DeadlineExceededException(String.format("Deadline exceeded on %s request for \"%s\"", invocationData.getHttpMethod(), uri), result);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Makes the exception raised for an error status.
+	 *
+	 * @param statusCode Status code
+	 * @param headers Response headers
+	 * @param body Response body
+	 * @return {@link HttpClientErrorException} for the 4xx statuses,
+	 *         {@link HttpServerErrorException} for the 5xx ones,
+	 *         {@link UnknownHttpStatusCodeException} for the others
+	 */
+	private static RestClientResponseException makeResponseException(int statusCode, HttpHeaders headers, byte[] body) {
+		RestClientResponseException result;
+
+		Charset charset = headers.getContentType() != null && headers.getContentType().getCharset() != null ? headers.getContentType().getCharset() : StandardCharsets.ISO_8859_1;
+		HttpStatus httpStatus = HttpStatus.resolve(statusCode);
+		if (httpStatus != null && httpStatus.is4xxClientError()) {
+			result = HttpClientErrorException.create(httpStatus, httpStatus.getReasonPhrase(), headers, body, charset);
+		}
+		else if (httpStatus != null && httpStatus.is5xxServerError()) {
+			result = HttpServerErrorException.create(httpStatus, httpStatus.getReasonPhrase(), headers, body, charset);
+		}
+		else {
+			result = new UnknownHttpStatusCodeException(statusCode, httpStatus != null ? httpStatus.getReasonPhrase() : "", headers, body, charset);
+		}
+
+		return result;
+	}
+
+}
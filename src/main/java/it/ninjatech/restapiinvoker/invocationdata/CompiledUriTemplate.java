@@ -0,0 +1,325 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.invocationdata;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * <p>
+ * URI template made of a base path and an endpoint, parsed once and then
+ * expanded for each call.<br>
+ * The literal parts of the template are kept already encoded, while the path
+ * params and the query params are encoded while they are appended, so that
+ * the URI is built in a single pass.<br>
+ * The encoding is the same applied by
+ * {@link UriComponentsBuilder#buildAndExpand(Map)} followed by
+ * {@link UriComponents#toUri()}.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public final class CompiledUriTemplate {
+
+	/** Pattern of a variable inside the template. */
+	private static final Pattern VARIABLE_PATTERN = Pattern.compile("\\{([^/]+?)\\}");
+
+	/** Hexadecimal digits. */
+	private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+	/** ASCII characters allowed unencoded in the path. */
+	private static final boolean[] PATH_ALLOWED = makeAllowed(";/:@&=+$,");
+
+	/** ASCII characters allowed unencoded in the query. */
+	private static final boolean[] QUERY_ALLOWED = makeAllowed(";/?:@&=+$,[]");
+
+	/** Estimated length of an expanded value. */
+	private static final int ESTIMATED_VALUE_LENGTH = 16;
+
+	/**
+	 * Compiles the template.
+	 *
+	 * @param basePath Base path, must be an HTTP URL
+	 * @param endpoint Endpoint, may contain path params
+	 * @return {@link CompiledUriTemplate}
+	 */
+	public static CompiledUriTemplate compile(String basePath, String endpoint) {
+		UriComponents base = UriComponentsBuilder.fromHttpUrl(basePath).build();
+
+		String authority;
+		try {
+			authority = new URI(base.getScheme(), base.getUserInfo(), base.getHost(), base.getPort(), null, null, null).toASCIIString();
+		}
+		catch (Exception e) {
+			throw new IllegalArgumentException(String.format("[%s] is not a valid HTTP URL", basePath), e);
+		}
+
+		StringBuilder path = new StringBuilder();
+		if (base.getPath() != null) {
+			path.append(base.getPath());
+		}
+		if (endpoint != null) {
+			if (path.length() == 0 && !endpoint.startsWith("/")) {
+				path.append('/');
+			}
+			path.append(endpoint);
+		}
+		int index = path.indexOf("//");
+		while (index != -1) {
+			path.deleteCharAt(index);
+			index = path.indexOf("//", index);
+		}
+
+		List<String> literals = new ArrayList<>();
+		List<String> variables = new ArrayList<>();
+		StringBuilder literal = new StringBuilder(authority);
+		Matcher matcher = VARIABLE_PATTERN.matcher(path);
+		int start = 0;
+		while (matcher.find()) {
+			appendEncoded(literal, path.substring(start, matcher.start()), PATH_ALLOWED);
+			literals.add(literal.toString());
+			literal.setLength(0);
+			String variable = matcher.group(1);
+			int colonIndex = variable.indexOf(':');
+			variables.add(colonIndex == -1 ? variable : variable.substring(0, colonIndex));
+			start = matcher.end();
+		}
+		appendEncoded(literal, path.substring(start), PATH_ALLOWED);
+		literals.add(literal.toString());
+
+		String baseQuery = null;
+		if (!base.getQueryParams().isEmpty()) {
+			StringBuilder query = new StringBuilder();
+			appendQuery(query, base.getQueryParams(), false);
+			baseQuery = query.toString();
+		}
+
+		return new CompiledUriTemplate(literals.toArray(new String[literals.size()]),
+		                               variables.toArray(new String[variables.size()]),
+		                               baseQuery);
+	}
+
+	/**
+	 * Makes the table of the ASCII characters allowed unencoded.
+	 *
+	 * @param allowed Allowed characters besides the unreserved ones
+	 * @return Table of the allowed characters
+	 */
+	private static boolean[] makeAllowed(String allowed) {
+		boolean[] result = new boolean[128];
+
+		for (char c = 'a'; c <= 'z'; c++) {
+			result[c] = true;
+		}
+		for (char c = 'A'; c <= 'Z'; c++) {
+			result[c] = true;
+		}
+		for (char c = '0'; c <= '9'; c++) {
+			result[c] = true;
+		}
+		for (char c : "-_.!~*'()".toCharArray()) {
+			result[c] = true;
+		}
+		for (char c : allowed.toCharArray()) {
+			result[c] = true;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Appends the value encoding all the not allowed characters.
+	 *
+	 * @param builder Builder
+	 * @param value Value
+	 * @param allowed Table of the allowed characters
+	 */
+	private static void appendEncoded(StringBuilder builder, String value, boolean[] allowed) {
+		for (int i = 0, n = value.length(); i < n; i++) {
+			char c = value.charAt(i);
+			if (c < 128) {
+				if (allowed[c]) {
+					builder.append(c);
+				}
+				else {
+					appendEscaped(builder, (byte) c);
+				}
+			}
+			else {
+				int end = Character.isHighSurrogate(c) && i + 1 < n ? i + 2 : i + 1;
+				for (byte b : value.substring(i, end).getBytes(StandardCharsets.UTF_8)) {
+					appendEscaped(builder, b);
+				}
+				i = end - 1;
+			}
+		}
+	}
+
+	/**
+	 * Appends the escaped byte.
+	 *
+	 * @param builder Builder
+	 * @param b Byte
+	 */
+	private static void appendEscaped(StringBuilder builder, byte b) {
+		builder.append('%').append(HEX_DIGITS[(b >> 4) & 0x0F]).append(HEX_DIGITS[b & 0x0F]);
+	}
+
+	/**
+	 * Appends the query params.
+	 *
+	 * @param builder Builder
+	 * @param queryParams Query params
+	 * @param separated true if the first param has to be separated from what
+	 *            precedes it
+	 */
+	private static void appendQuery(StringBuilder builder, MultiValueMap<String, String> queryParams, boolean separated) {
+		boolean separator = separated;
+
+		for (Entry<String, List<String>> queryParam : queryParams.entrySet()) {
+			List<String> values = queryParam.getValue();
+			if (values == null || values.isEmpty()) {
+				appendQueryParam(builder, queryParam.getKey(), null, separator);
+				separator = true;
+			}
+			else {
+				for (String value : values) {
+					appendQueryParam(builder, queryParam.getKey(), value, separator);
+					separator = true;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Appends a query param.
+	 *
+	 * @param builder Builder
+	 * @param key Key
+	 * @param value Value, may be null
+	 * @param separated true if the param has to be separated from what precedes
+	 *            it
+	 */
+	private static void appendQueryParam(StringBuilder builder, String key, String value, boolean separated) {
+		if (separated) {
+			builder.append('&');
+		}
+		appendEncoded(builder, key, QUERY_ALLOWED);
+		if (value != null) {
+			builder.append('=');
+			appendEncoded(builder, value, QUERY_ALLOWED);
+		}
+	}
+
+	/** Encoded literals, one more than the variables. */
+	private final String[] literals;
+
+	/** Names of the variables. */
+	private final String[] variables;
+
+	/** Encoded query of the base path, null if none. */
+	private final String baseQuery;
+
+	/** Length of all the literals. */
+	private final int literalsLength;
+
+	/**
+	 * Constructs a new CompiledUriTemplate.
+	 *
+	 * @param literals Encoded literals
+	 * @param variables Names of the variables
+	 * @param baseQuery Encoded query of the base path
+	 */
+	private CompiledUriTemplate(String[] literals, String[] variables, String baseQuery) {
+		this.literals = literals;
+		this.variables = variables;
+		this.baseQuery = baseQuery;
+
+		int length = baseQuery != null ? baseQuery.length() + 1 : 0;
+		for (String literal : literals) {
+			length += literal.length();
+		}
+		this.literalsLength = length;
+	}
+
+	/**
+	 * Returns the names of the variables of the template.
+	 *
+	 * @return Names of the variables
+	 */
+	public String[] getVariables() {
+		return this.variables.clone();
+	}
+
+	/**
+	 * Expands the template.
+	 *
+	 * @param pathParams Path params
+	 * @param queryParams Query params
+	 * @return Expanded URI
+	 */
+	public URI expand(Map<String, String> pathParams, MultiValueMap<String, String> queryParams) {
+		int queryParamsCount = queryParams != null ? queryParams.size() : 0;
+		StringBuilder builder = new StringBuilder(this.literalsLength + ESTIMATED_VALUE_LENGTH * (this.variables.length + queryParamsCount * 2));
+
+		builder.append(this.literals[0]);
+		for (int i = 0, n = this.variables.length; i < n; i++) {
+			String variable = this.variables[i];
+			if (pathParams == null || !pathParams.containsKey(variable)) {
+				throw new IllegalArgumentException(String.format("Map has no value for '%s'", variable));
+			}
+			String value = pathParams.get(variable);
+			if (value != null) {
+				appendEncoded(builder, value, PATH_ALLOWED);
+			}
+			builder.append(this.literals[i + 1]);
+		}
+
+		if (this.baseQuery != null) {
+			builder.append('?').append(this.baseQuery);
+			if (queryParamsCount > 0) {
+				appendQuery(builder, queryParams, true);
+			}
+		}
+		else if (queryParamsCount > 0) {
+			builder.append('?');
+			appendQuery(builder, queryParams, false);
+		}
+
+		return URI.create(builder.toString());
+	}
+
+}
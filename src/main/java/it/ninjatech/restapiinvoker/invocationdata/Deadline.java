@@ -0,0 +1,166 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.invocationdata;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * Deadline of the calls performed in a calling context.<br>
+ * The calls of the proxied methods performed while a deadline is bound to the
+ * current thread, through {@link #call(Supplier)} or {@link #run(Runnable)},
+ * take it in their {@link InvocationData}, so that it follows them also when
+ * performed asynchronously. Binding a deadline while another one is bound
+ * keeps the earlier of them.
+ * </p>
+ * 
+ * <pre>
+ * Item item = Deadline.after(500, TimeUnit.MILLISECONDS).call(() -&gt; itemApi.getItem(id));
+ * </pre>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ * @see it.ninjatech.restapiinvoker.annotation.Timeout
+ */
+public final class Deadline {
+
+	/** Deadline bound to the current thread. */
+	private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+	/**
+	 * Makes a deadline expiring after the provided time from now.
+	 * 
+	 * @param timeout Time available
+	 * @param timeUnit Unit of the time
+	 * @return Deadline
+	 */
+	public static Deadline after(long timeout, TimeUnit timeUnit) {
+		return new Deadline(System.nanoTime() + timeUnit.toNanos(timeout));
+	}
+
+	/**
+	 * Returns the deadline bound to the current thread.
+	 * 
+	 * @return Deadline, null if none
+	 */
+	public static Deadline current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Returns the earlier of two deadlines.
+	 * 
+	 * @param deadline Deadline, can be null
+	 * @param other Other deadline, can be null
+	 * @return Earlier deadline, null if both are null
+	 */
+	public static Deadline min(Deadline deadline, Deadline other) {
+		Deadline result = deadline;
+
+		if (result == null || (other != null && other.time - result.time < 0)) {
+			result = other;
+		}
+
+		return result;
+	}
+
+	/** Time of expiration, in nanoseconds. */
+	private final long time;
+
+	/**
+	 * Constructs a new Deadline.
+	 * 
+	 * @param time Time of expiration, in nanoseconds
+	 */
+	private Deadline(long time) {
+		this.time = time;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.format("Deadline[%d ms left]", getRemaining(TimeUnit.MILLISECONDS));
+	}
+
+	/**
+	 * Returns the time left before the expiration.
+	 * 
+	 * @param timeUnit Unit of the time
+	 * @return Time left, 0 if expired
+	 */
+	public long getRemaining(TimeUnit timeUnit) {
+		return timeUnit.convert(Math.max(0, this.time - System.nanoTime()), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Returns if the deadline has expired.
+	 * 
+	 * @return true, if expired
+	 */
+	public boolean isExpired() {
+		return this.time - System.nanoTime() <= 0;
+	}
+
+	/**
+	 * Performs a call with the deadline bound to the current thread.
+	 * 
+	 * @param <T> Type of the result
+	 * @param call Call
+	 * @return Result of the call
+	 */
+	public <T> T call(Supplier<T> call) {
+		Deadline previous = CURRENT.get();
+		CURRENT.set(min(previous, this));
+		try {
+			return call.get();
+		}
+		finally {
+			if (previous != null) {
+				CURRENT.set(previous);
+			}
+			else {
+				CURRENT.remove();
+			}
+		}
+	}
+
+	/**
+	 * Performs a call with the deadline bound to the current thread.
+	 * 
+	 * @param call Call
+	 */
+	public void run(Runnable call) {
+		call(() -> {
+			call.run();
+			return null;
+		});
+	}
+
+}
@@ -29,11 +29,21 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 
+import it.ninjatech.restapiinvoker.annotation.Hedged;
+import it.ninjatech.restapiinvoker.annotation.RateLimited;
+import it.ninjatech.restapiinvoker.annotation.Retry;
+import it.ninjatech.restapiinvoker.annotation.ShardKey;
+import it.ninjatech.restapiinvoker.annotation.Timeout;
+import it.ninjatech.restapiinvoker.client.ResponseTypeReference;
+import it.ninjatech.restapiinvoker.metrics.InvocationSample;
+
 /**
  * <p>
  * Instances of this class contain all the needed data to perform the REST call.
@@ -45,6 +55,9 @@ import org.springframework.util.MultiValueMap;
  */
 public final class InvocationData {
 
+	/** Invocation plan. */
+	private InvocationPlan invocationPlan;
+
 	/** Base path. */
 	private String basePath;
 
@@ -69,6 +82,12 @@ public final class InvocationData {
 	/** Response type. */
 	private Type responseType;
 
+	/** Sample of the call. */
+	private InvocationSample invocationSample;
+
+	/** Deadline of the call. */
+	private Deadline deadline;
+
 	/**
 	 * Constructs a new InvocationData.
 	 */
@@ -78,6 +97,30 @@ public final class InvocationData {
 		this.queryParams = new LinkedMultiValueMap<>();
 	}
 
+	/**
+	 * Constructs a new InvocationData copying another one, except for the base
+	 * path, the headers and the sample.<br>
+	 * The params are shared with the source.
+	 *
+	 * @param source Source
+	 * @param basePath Base path
+	 * @param headers Headers
+	 * @param invocationSample Sample of the call
+	 */
+	private InvocationData(InvocationData source, String basePath, HttpHeaders headers, InvocationSample invocationSample) {
+		this.invocationPlan = source.invocationPlan;
+		this.basePath = basePath;
+		this.endpoint = source.endpoint;
+		this.httpMethod = source.httpMethod;
+		this.headers = headers;
+		this.pathParams = source.pathParams;
+		this.queryParams = source.queryParams;
+		this.requestBody = source.requestBody;
+		this.responseType = source.responseType;
+		this.invocationSample = invocationSample;
+		this.deadline = source.deadline;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -122,6 +165,15 @@ public final class InvocationData {
 		return result.toString();
 	}
 
+	/**
+	 * Returns the invocation plan of the proxied method.
+	 *
+	 * @return Invocation plan
+	 */
+	public InvocationPlan getInvocationPlan() {
+		return this.invocationPlan;
+	}
+
 	/**
 	 * Returns the base path.
 	 *
@@ -131,6 +183,53 @@ public final class InvocationData {
 		return this.basePath;
 	}
 
+	/**
+	 * Returns the data to perform the same call on another base path, as
+	 * needed to balance the calls among the replicas of a REST service.
+	 *
+	 * @param basePath Base path
+	 * @return {@link InvocationData} with the provided base path, this
+	 *         instance if it's the same
+	 */
+	public InvocationData withBasePath(String basePath) {
+		return basePath.equals(this.basePath) ? this : new InvocationData(this, basePath, this.headers, this.invocationSample);
+	}
+
+	/**
+	 * Returns the data to perform the same call measured by another sample, as
+	 * needed by the calls performed again or concurrently, each of them
+	 * recording its own measures.
+	 *
+	 * @param invocationSample Sample of the call
+	 * @return {@link InvocationData} with the provided sample, this instance if
+	 *         it's the same
+	 */
+	public InvocationData withInvocationSample(InvocationSample invocationSample) {
+		return invocationSample == this.invocationSample ? this : new InvocationData(this, this.basePath, this.headers, invocationSample);
+	}
+
+	/**
+	 * Returns the data to perform the same call with other headers, as needed
+	 * to add headers to a single request without changing the ones shared by
+	 * the other requests of the call.
+	 *
+	 * @param headers Headers
+	 * @return {@link InvocationData} with the provided headers
+	 */
+	public InvocationData withHeaders(HttpHeaders headers) {
+		return new InvocationData(this, this.basePath, headers, this.invocationSample);
+	}
+
+	/**
+	 * Returns the compiled URI template made of the base path and the endpoint.
+	 *
+	 * @return Compiled URI template
+	 */
+	public CompiledUriTemplate getUriTemplate() {
+		return this.invocationPlan != null ? this.invocationPlan.getUriTemplate(this.basePath)
+		                                   : CompiledUriTemplate.compile(this.basePath, this.endpoint);
+	}
+
 	/**
 	 * Returns the endpoint.
 	 *
@@ -194,6 +293,160 @@ public final class InvocationData {
 		return this.responseType;
 	}
 
+	/**
+	 * Returns the type of the response body, that is the response type itself
+	 * or the type argument of the {@link ResponseEntity}.
+	 *
+	 * @return Type of the response body
+	 */
+	public Type getResponseBodyType() {
+		return this.invocationPlan != null ? this.invocationPlan.getResponseBodyType() : InvocationPlan.getResponseBodyType(this.responseType);
+	}
+
+	/**
+	 * Returns if the response type is a {@link ResponseEntity}.
+	 *
+	 * @return true, if the whole response is requested
+	 */
+	public boolean isResponseEntity() {
+		return this.invocationPlan != null ? this.invocationPlan.isResponseEntity() : InvocationPlan.isResponseEntity(this.responseType);
+	}
+
+	/**
+	 * Returns the type reference of the response body.
+	 *
+	 * @return Type reference of the response body
+	 */
+	public ParameterizedTypeReference<?> getResponseTypeReference() {
+		return this.invocationPlan != null ? this.invocationPlan.getResponseTypeReference() : new ResponseTypeReference<>(getResponseBodyType());
+	}
+
+	/**
+	 * Returns the type of the elements of the response body, for the invocation
+	 * modes in which the elements are streamed to the caller.
+	 *
+	 * @return Type of the elements, null if not streamed
+	 * @see InvocationPlan#getElementType()
+	 */
+	public Type getElementType() {
+		return this.invocationPlan != null ? this.invocationPlan.getElementType() : null;
+	}
+
+	/**
+	 * Returns the type reference of the elements of the response body.
+	 *
+	 * @return Type reference of the elements, null if not streamed
+	 * @see InvocationPlan#getElementType()
+	 */
+	public ParameterizedTypeReference<?> getElementTypeReference() {
+		return this.invocationPlan != null ? this.invocationPlan.getElementTypeReference() : null;
+	}
+
+	/**
+	 * Returns the minimum length of the request body to be compressed.
+	 *
+	 * @return Compression threshold, -1 if the request body is not compressed
+	 * @see InvocationPlan#getCompressionThreshold()
+	 */
+	public int getCompressionThreshold() {
+		return this.invocationPlan != null ? this.invocationPlan.getCompressionThreshold() : -1;
+	}
+
+	/**
+	 * Returns the retry of the failed calls.
+	 *
+	 * @return Retry, null if the calls are not retried
+	 * @see InvocationPlan#getRetry()
+	 */
+	public Retry getRetry() {
+		return this.invocationPlan != null ? this.invocationPlan.getRetry() : null;
+	}
+
+	/**
+	 * Returns the hedging of the calls.
+	 *
+	 * @return Hedging, null if the calls are not hedged
+	 * @see InvocationPlan#getHedged()
+	 */
+	public Hedged getHedged() {
+		return this.invocationPlan != null ? this.invocationPlan.getHedged() : null;
+	}
+
+	/**
+	 * Returns the rate limit of the calls.
+	 *
+	 * @return Rate limit, null if the calls are not limited
+	 * @see InvocationPlan#getRateLimited()
+	 */
+	public RateLimited getRateLimited() {
+		return this.invocationPlan != null ? this.invocationPlan.getRateLimited() : null;
+	}
+
+	/**
+	 * Returns the value of the key routing the call.
+	 *
+	 * @return Value of the shard key, null if the call is not sharded or the
+	 *         key has no value
+	 * @see InvocationPlan#getShardKey()
+	 */
+	public String getShardKeyValue() {
+		String result = null;
+
+		ShardKey shardKey = this.invocationPlan != null ? this.invocationPlan.getShardKey() : null;
+		if (shardKey != null) {
+			if (!shardKey.pathVariable().isEmpty()) {
+				result = this.pathParams.get(shardKey.pathVariable());
+			}
+			else if (!shardKey.queryParam().isEmpty()) {
+				result = this.queryParams.getFirst(shardKey.queryParam());
+			}
+			else {
+				result = this.headers.getFirst(shardKey.header());
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the timeouts of the call.
+	 *
+	 * @return Timeouts, null if the call uses the ones of the client
+	 * @see InvocationPlan#getTimeout()
+	 */
+	public Timeout getTimeout() {
+		return this.invocationPlan != null ? this.invocationPlan.getTimeout() : null;
+	}
+
+	/**
+	 * Returns the deadline of the call, that is the earliest of the one of its
+	 * calling context and the ones of its {@link Timeout} and {@link Retry}.
+	 *
+	 * @return Deadline, null if none
+	 */
+	public Deadline getDeadline() {
+		return this.deadline;
+	}
+
+	/**
+	 * Returns the sample measuring the call, on which the HTTP Rest Clients
+	 * record the status and the size of the payloads.
+	 *
+	 * @return Sample of the call, null if the metrics are not collected
+	 */
+	public InvocationSample getInvocationSample() {
+		return this.invocationSample;
+	}
+
+	/**
+	 * Sets the invocation plan.
+	 *
+	 * @param invocationPlan Invocation plan
+	 */
+	protected void setInvocationPlan(InvocationPlan invocationPlan) {
+		this.invocationPlan = invocationPlan;
+	}
+
 	/**
 	 * Sets the base path.
 	 *
@@ -289,4 +542,22 @@ public final class InvocationData {
 		this.responseType = responseType;
 	}
 
+	/**
+	 * Sets the sample of the call.
+	 *
+	 * @param invocationSample Sample of the call
+	 */
+	protected void setInvocationSample(InvocationSample invocationSample) {
+		this.invocationSample = invocationSample;
+	}
+
+	/**
+	 * Sets the deadline of the call.
+	 *
+	 * @param deadline Deadline
+	 */
+	protected void setDeadline(Deadline deadline) {
+		this.deadline = deadline;
+	}
+
 }
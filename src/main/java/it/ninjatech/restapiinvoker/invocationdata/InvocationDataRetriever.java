@@ -26,15 +26,28 @@ package it.ninjatech.restapiinvoker.invocationdata;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.aopalliance.intercept.MethodInvocation;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.core.ResolvableType;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -43,9 +56,20 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import it.ninjatech.restapiinvoker.annotation.Batchable;
+import it.ninjatech.restapiinvoker.annotation.Compressed;
+import it.ninjatech.restapiinvoker.annotation.Hedged;
+import it.ninjatech.restapiinvoker.annotation.RateLimited;
+import it.ninjatech.restapiinvoker.annotation.Retry;
+import it.ninjatech.restapiinvoker.annotation.ShardKey;
+import it.ninjatech.restapiinvoker.annotation.Timeout;
+import it.ninjatech.restapiinvoker.metrics.InvocationSample;
+
 /**
  * <p>
- * Utility class used to retrieve the data to be used for the REST call.
+ * Utility class used to retrieve the data to be used for the REST call.<br>
+ * The annotations of each proxied method are processed only once, at the
+ * first call, and the resulting {@link InvocationPlan} is cached.
  * </p>
  *
  * @author Vincenzo Mazzeo
@@ -54,6 +78,18 @@ import org.springframework.web.bind.annotation.RequestParam;
  */
 public final class InvocationDataRetriever {
 
+	/** Pattern of a path param inside a path segment. */
+	private static final Pattern PATH_PARAM_PATTERN = Pattern.compile("\\{(?<pathParam>.+)\\}");
+
+	/** Name of the Reactor Mono class. */
+	private static final String MONO_CLASS_NAME = "reactor.core.publisher.Mono";
+
+	/** Name of the Reactor Flux class. */
+	private static final String FLUX_CLASS_NAME = "reactor.core.publisher.Flux";
+
+	/** Cache of the invocation plans. */
+	private static final Map<Method, InvocationPlan> INVOCATION_PLANS = new ConcurrentHashMap<>();
+
 	/**
 	 * Retrieves the data.
 	 *
@@ -62,27 +98,115 @@ public final class InvocationDataRetriever {
 	 * @return {@link InvocationData}
 	 */
 	public static InvocationData retrieve(String basePath, MethodInvocation invocation) {
-		InvocationData result = new InvocationData();
+		return retrieve(basePath, invocation.getMethod(), invocation.getArguments());
+	}
 
-		Method method = invocation.getMethod();
+	/**
+	 * Retrieves the data.
+	 *
+	 * @param basePath Base path
+	 * @param method Proxied method
+	 * @param arguments Arguments of the call
+	 * @return {@link InvocationData}
+	 */
+	public static InvocationData retrieve(String basePath, Method method, Object[] arguments) {
+		return retrieve(basePath, getInvocationPlan(method), arguments);
+	}
 
+	/**
+	 * Retrieves the data.
+	 *
+	 * @param basePath Base path
+	 * @param invocationPlan {@link InvocationPlan} of the proxied method
+	 * @param arguments Arguments of the call
+	 * @return {@link InvocationData}
+	 */
+	public static InvocationData retrieve(String basePath, InvocationPlan invocationPlan, Object[] arguments) {
+		return retrieve(basePath, invocationPlan, arguments, null);
+	}
+
+	/**
+	 * Retrieves the data of a measured call.
+	 *
+	 * @param basePath Base path
+	 * @param invocationPlan {@link InvocationPlan} of the proxied method
+	 * @param arguments Arguments of the call
+	 * @param invocationSample Sample of the call, null if not measured
+	 * @return {@link InvocationData}
+	 */
+	public static InvocationData retrieve(String basePath, InvocationPlan invocationPlan, Object[] arguments, InvocationSample invocationSample) {
+		InvocationData result = new InvocationData();
+
+		result.setInvocationPlan(invocationPlan);
 		result.setBasePath(basePath);
-		processRequestMappingAnnotation(result, method.getDeclaringClass(), method);
-		processArguments(result, method.getParameters(), invocation.getArguments());
-		processReturnType(result, method);
+		result.setHttpMethod(invocationPlan.getHttpMethod());
+		result.setEndpoint(invocationPlan.getEndpoint());
+		if (invocationPlan.getContentType() != null) {
+			result.addHeader(HttpHeaders.CONTENT_TYPE, invocationPlan.getContentType());
+		}
+		if (invocationPlan.getAccept() != null) {
+			result.addHeader(HttpHeaders.ACCEPT, invocationPlan.getAccept());
+		}
+		invocationPlan.bindArguments(result, arguments);
+		result.setResponseType(invocationPlan.getResponseType());
+		result.setInvocationSample(invocationSample);
+		Timeout timeout = invocationPlan.getTimeout();
+		Retry retry = invocationPlan.getRetry();
+		Deadline deadline = Deadline.min(makeDeadline(timeout != null ? timeout.deadline() : -1), makeDeadline(retry != null ? retry.deadline() : -1));
+		result.setDeadline(Deadline.min(Deadline.current(), deadline));
+
+		return result;
+	}
+
+	/**
+	 * Returns the {@link InvocationPlan} of the method, making it at the first
+	 * call.
+	 *
+	 * @param method Proxied method
+	 * @return {@link InvocationPlan}
+	 */
+	public static InvocationPlan getInvocationPlan(Method method) {
+		InvocationPlan result = INVOCATION_PLANS.get(method);
+
+		if (result == null) {
+			result = INVOCATION_PLANS.computeIfAbsent(method, InvocationDataRetriever::makeInvocationPlan);
+		}
 
 		return result;
 	}
 
 	/**
-	 * Processes request mapping annotations and adds the related data to the
-	 * {@link InvocationData}.
+	 * Returns the {@link InvocationPlan} of the public method of the REST Api
+	 * class with the provided name and parameter types, making it at the first
+	 * call.
+	 *
+	 * @param restApi REST Api class
+	 * @param name Name of the method
+	 * @param parameterTypes Parameter types of the method
+	 * @return {@link InvocationPlan}
+	 */
+	public static InvocationPlan getInvocationPlan(Class<?> restApi, String name, Class<?>... parameterTypes) {
+		InvocationPlan result = null;
+
+		try {
+			result = getInvocationPlan(restApi.getMethod(name, parameterTypes));
+		}
+		catch (NoSuchMethodException e) {
+			throw new RuntimeException(String.format("Method %s.%s not found", restApi.getName(), name), e);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Makes the {@link InvocationPlan} of the method.
 	 *
-	 * @param invocationData {@link InvocationData}
-	 * @param type Type
 	 * @param method Method
+	 * @return {@link InvocationPlan}
 	 */
-	private static void processRequestMappingAnnotation(InvocationData invocationData, Class<?> type, Method method) {
+	private static InvocationPlan makeInvocationPlan(Method method) {
+		Class<?> type = method.getDeclaringClass();
+
 		RequestMapping methodRequestMapping = method.getAnnotation(RequestMapping.class);
 		if (methodRequestMapping == null) {
 			throw new RuntimeException(String.format("%s annotation missing on method %s.%s", RequestMapping.class.getSimpleName(), type.getName(), method.getName()));
@@ -95,78 +219,369 @@ public final class InvocationDataRetriever {
 		if (httpMethod == null) {
 			throw new RuntimeException(String.format("Unable to retrieve RequestMapping HTTP Method from %s.%s", type.getName(), method.getName()));
 		}
-		invocationData.setHttpMethod(httpMethod);
 
 		// Endpoint
 		String endpoint = getEndpoint(classRequestMapping, methodRequestMapping);
 		if (StringUtils.isBlank(endpoint)) {
 			throw new RuntimeException(String.format("Unable to retrieve RequestMapping URI from %s.%s", type.getName(), method.getName()));
 		}
-		invocationData.setEndpoint(endpoint);
 
 		// Content-Type
 		String contentType = getConsumes(classRequestMapping, methodRequestMapping);
-		if (StringUtils.isNotBlank(contentType)) {
-			invocationData.addHeader(HttpHeaders.CONTENT_TYPE, contentType);
-		}
 
 		// Accept
 		String accept = getProduces(classRequestMapping, methodRequestMapping);
-		if (StringUtils.isNotBlank(accept)) {
-			invocationData.addHeader(HttpHeaders.ACCEPT, accept);
+
+		// Arguments
+		Set<String> pathParams = new HashSet<>();
+		ArgumentBinder[] argumentBinders = makeArgumentBinders(method.getParameters(), pathParams);
+		checkIfAllPathParamsAreResolved(endpoint, pathParams);
+
+		// Return type
+		Type returnType = method.getGenericReturnType();
+		InvocationMode invocationMode = getInvocationMode(method.getReturnType());
+		int elementConsumerIndex = getElementConsumerIndex(method.getParameters(), argumentBinders);
+		if (elementConsumerIndex >= 0) {
+			if (!method.getReturnType().equals(void.class)) {
+				throw new RuntimeException(String.format("Method %s.%s with a %s argument must return void", type.getName(), method.getName(), Consumer.class.getSimpleName()));
+			}
+			invocationMode = InvocationMode.CONSUMER;
+			returnType = method.getGenericParameterTypes()[elementConsumerIndex];
+		}
+		Type responseType = invocationMode == InvocationMode.SYNCHRONOUS ? returnType : getTypeArgument(returnType);
+		Type elementType = null;
+		if (invocationMode == InvocationMode.FLUX
+		    || invocationMode == InvocationMode.STREAM
+		    || invocationMode == InvocationMode.ITERATOR
+		    || invocationMode == InvocationMode.CONSUMER) {
+			elementType = responseType;
+			responseType = ResolvableType.forClassWithGenerics(List.class, ResolvableType.forType(elementType)).getType();
 		}
+
+		// Compression
+		Compressed compressed = method.isAnnotationPresent(Compressed.class) ? method.getAnnotation(Compressed.class) : type.getAnnotation(Compressed.class);
+		int compressionThreshold = compressed != null ? Math.max(0, compressed.threshold()) : -1;
+
+		// Batching
+		Method batchMethod = getBatchMethod(method, invocationMode);
+
+		// Retry
+		Retry retry = getRetry(method, httpMethod);
+
+		// Hedging
+		Hedged hedged = getHedged(method, httpMethod);
+
+		// Rate limit
+		RateLimited rateLimited = getRateLimited(method);
+
+		// Shard key
+		ShardKey shardKey = getShardKey(method);
+
+		// Timeouts
+		Timeout timeout = method.isAnnotationPresent(Timeout.class) ? method.getAnnotation(Timeout.class) : method.getDeclaringClass().getAnnotation(Timeout.class);
+
+		return new InvocationPlan(method,
+		                          httpMethod,
+		                          endpoint,
+		                          StringUtils.isNotBlank(contentType) ? contentType : null,
+		                          StringUtils.isNotBlank(accept) ? accept : null,
+		                          argumentBinders,
+		                          invocationMode,
+		                          responseType,
+		                          elementType,
+		                          elementConsumerIndex,
+		                          compressionThreshold,
+		                          batchMethod,
+		                          retry,
+		                          hedged,
+		                          rateLimited,
+		                          shardKey,
+		                          timeout);
 	}
 
 	/**
-	 * Processes arguments and adds the related data to the {@link InvocationData}.
+	 * Makes the deadline of a call.
 	 *
-	 * @param invocationData Invocation data
-	 * @param argumentParameters Argument parameters
-	 * @param argumentValues Argument values
+	 * @param timeout Time, in millis, available to the call; negative for no
+	 *            deadline
+	 * @return {@link Deadline}, null if none
 	 */
-	private static void processArguments(InvocationData invocationData, Parameter[] argumentParameters, Object[] argumentValues) {
-		for (int i = 0, n = argumentParameters.length; i < n; i++) {
-			Parameter argumentParameter = argumentParameters[i];
-			Annotation[] annotations = argumentParameter.getAnnotations();
-			String argumentName = argumentParameter.getName();
+	private static Deadline makeDeadline(long timeout) {
+		return timeout >= 0 ? Deadline.after(timeout, TimeUnit.MILLISECONDS) : null;
+	}
 
-			if (annotations != null) {
-				Object argumentValue = argumentValues[i];
+	/**
+	 * Checks if the HTTP method is idempotent, so that its calls can be
+	 * repeated.
+	 *
+	 * @param httpMethod HTTP method
+	 * @return true, if idempotent
+	 */
+	private static boolean isIdempotent(HttpMethod httpMethod) {
+		return httpMethod == HttpMethod.GET
+		       || httpMethod == HttpMethod.HEAD
+		       || httpMethod == HttpMethod.OPTIONS
+		       || httpMethod == HttpMethod.PUT
+		       || httpMethod == HttpMethod.DELETE
+		       || httpMethod == HttpMethod.TRACE;
+	}
 
-				Optional<?> requestHeader = Arrays.stream(annotations).filter(a -> a.annotationType().equals(RequestHeader.class)).findFirst();
-				if (requestHeader.isPresent()) {
-					addRequestHeader(invocationData, (RequestHeader) requestHeader.get(), argumentName, argumentValue);
-				}
+	/**
+	 * Checks that a method repeating its calls has an idempotent HTTP method.
+	 * The annotation on the type applies only to its idempotent methods,
+	 * while the one on a non idempotent method is rejected.
+	 *
+	 * @param method Method
+	 * @param httpMethod HTTP method
+	 * @param annotationType Annotation repeating the calls
+	 * @return true, if the calls of the method can be repeated
+	 */
+	private static boolean isRepeatable(Method method, HttpMethod httpMethod, Class<? extends Annotation> annotationType) {
+		boolean result = isIdempotent(httpMethod);
 
-				Optional<?> pathVariable = Arrays.stream(annotations).filter(a -> a.annotationType().equals(PathVariable.class)).findFirst();
-				if (pathVariable.isPresent()) {
-					addPathParam(invocationData, (PathVariable) pathVariable.get(), argumentName, argumentValue);
-				}
+		if (!result && method.isAnnotationPresent(annotationType)) {
+			throw new RuntimeException(String.format("%s not allowed on %s.%s: %s is not idempotent", annotationType.getSimpleName(), method.getDeclaringClass().getName(), method.getName(), httpMethod));
+		}
 
-				Optional<?> requestParam = Arrays.stream(annotations).filter(a -> a.annotationType().equals(RequestParam.class)).findFirst();
-				if (requestParam.isPresent()) {
-					addQueryParam(invocationData, (RequestParam) requestParam.get(), argumentName, argumentValue);
-				}
+		return result;
+	}
 
-				Optional<?> requestBody = Arrays.stream(annotations).filter(a -> a.annotationType().equals(RequestBody.class)).findFirst();
-				if (requestBody.isPresent()) {
-					invocationData.setRequestBody(argumentValue);
-				}
+	/**
+	 * Gets the {@link Retry} of a method, or of its type, if its HTTP method is
+	 * idempotent.
+	 *
+	 * @param method Method
+	 * @param httpMethod HTTP method
+	 * @return {@link Retry}, null if the method is not retried
+	 */
+	private static Retry getRetry(Method method, HttpMethod httpMethod) {
+		Retry result = method.isAnnotationPresent(Retry.class) ? method.getAnnotation(Retry.class) : method.getDeclaringClass().getAnnotation(Retry.class);
+
+		if (result != null) {
+			if (result.maxAttempts() < 1 || result.backoff() < 0 || result.multiplier() < 1 || result.maxBackoff() < 0 || result.maxRetryAfter() < 0) {
+				throw new RuntimeException(String.format("Invalid %s parameters on %s.%s", Retry.class.getSimpleName(), method.getDeclaringClass().getName(), method.getName()));
+			}
+			if (!isRepeatable(method, httpMethod, Retry.class)) {
+				result = null;
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Gets the {@link Hedged} of a method, or of its type, if its HTTP method
+	 * is idempotent.
+	 *
+	 * @param method Method
+	 * @param httpMethod HTTP method
+	 * @return {@link Hedged}, null if the method is not hedged
+	 */
+	private static Hedged getHedged(Method method, HttpMethod httpMethod) {
+		Hedged result = method.isAnnotationPresent(Hedged.class) ? method.getAnnotation(Hedged.class) : method.getDeclaringClass().getAnnotation(Hedged.class);
+
+		if (result != null) {
+			if (result.delay() < 0 && (result.percentile() <= 0 || result.percentile() > 100)) {
+				throw new RuntimeException(String.format("Invalid %s parameters on %s.%s", Hedged.class.getSimpleName(), method.getDeclaringClass().getName(), method.getName()));
+			}
+			if (!isRepeatable(method, httpMethod, Hedged.class)) {
+				result = null;
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Gets the {@link RateLimited} of a method, or of its type.
+	 *
+	 * @param method Method
+	 * @return {@link RateLimited}, null if the method is not rate limited
+	 */
+	private static RateLimited getRateLimited(Method method) {
+		RateLimited result = method.isAnnotationPresent(RateLimited.class) ? method.getAnnotation(RateLimited.class) : method.getDeclaringClass().getAnnotation(RateLimited.class);
+
+		if (result != null && (result.permitsPerSecond() <= 0 || result.burst() < 1 || result.timeout() < 0)) {
+			throw new RuntimeException(String.format("Invalid %s parameters on %s.%s", RateLimited.class.getSimpleName(), method.getDeclaringClass().getName(), method.getName()));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Gets the {@link ShardKey} of a method, or of its type.
+	 *
+	 * @param method Method
+	 * @return {@link ShardKey}, null if the method is not sharded
+	 */
+	private static ShardKey getShardKey(Method method) {
+		ShardKey result = method.isAnnotationPresent(ShardKey.class) ? method.getAnnotation(ShardKey.class) : method.getDeclaringClass().getAnnotation(ShardKey.class);
+
+		if (result != null) {
+			int sources = (result.pathVariable().isEmpty() ? 0 : 1) + (result.queryParam().isEmpty() ? 0 : 1) + (result.header().isEmpty() ? 0 : 1);
+			if (sources != 1) {
+				throw new RuntimeException(String.format("%s on %s.%s must name exactly one of path variable, query param and header", ShardKey.class.getSimpleName(), method.getDeclaringClass().getName(), method.getName()));
 			}
 		}
 
-		checkIfAllPathParamsAreResolved(invocationData);
+		return result;
 	}
 
 	/**
-	 * Processes return type and adds the related data to the
-	 * {@link InvocationData}.
+	 * Gets the bulk method of a {@link Batchable} method.
 	 *
-	 * @param invocationData Invocation data
 	 * @param method Method
+	 * @param invocationMode Invocation mode of the method
+	 * @return Bulk method, null if the method is not batchable
+	 */
+	private static Method getBatchMethod(Method method, InvocationMode invocationMode) {
+		Method result = null;
+
+		Batchable batchable = method.getAnnotation(Batchable.class);
+		if (batchable != null) {
+			Class<?> type = method.getDeclaringClass();
+			if (method.getParameterCount() != 1) {
+				throw new RuntimeException(String.format("%s method %s.%s must have a single argument", Batchable.class.getSimpleName(), type.getName(), method.getName()));
+			}
+			if (invocationMode != InvocationMode.SYNCHRONOUS && invocationMode != InvocationMode.ASYNCHRONOUS) {
+				throw new RuntimeException(String.format("%s method %s.%s must return the item or a CompletableFuture", Batchable.class.getSimpleName(), type.getName(), method.getName()));
+			}
+			if (batchable.maxSize() < 1 || batchable.window() < 0) {
+				throw new RuntimeException(String.format("Invalid %s max size or window on method %s.%s", Batchable.class.getSimpleName(), type.getName(), method.getName()));
+			}
+			for (Method typeMethod : type.getMethods()) {
+				if (typeMethod.getName().equals(batchable.value())
+				    && typeMethod.getParameterCount() == 1
+				    && typeMethod.getParameterTypes()[0].isAssignableFrom(List.class)) {
+					result = typeMethod;
+					break;
+				}
+			}
+			if (result == null) {
+				throw new RuntimeException(String.format("Unable to find bulk method %s(List) of %s method %s.%s", batchable.value(), Batchable.class.getSimpleName(), type.getName(), method.getName()));
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Gets the invocation mode from the return type of the method.
+	 *
+	 * @param returnType Return type
+	 * @return Invocation mode
+	 */
+	private static InvocationMode getInvocationMode(Class<?> returnType) {
+		InvocationMode result = InvocationMode.SYNCHRONOUS;
+
+		if (returnType.equals(CompletableFuture.class) || returnType.equals(CompletionStage.class)) {
+			result = InvocationMode.ASYNCHRONOUS;
+		}
+		// Reactor is optional, so its types are matched by name
+		else if (returnType.getName().equals(MONO_CLASS_NAME)) {
+			result = InvocationMode.MONO;
+		}
+		else if (returnType.getName().equals(FLUX_CLASS_NAME)) {
+			result = InvocationMode.FLUX;
+		}
+		else if (returnType.equals(Stream.class)) {
+			result = InvocationMode.STREAM;
+		}
+		else if (returnType.equals(Iterator.class)) {
+			result = InvocationMode.ITERATOR;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Gets the index of the argument consuming the elements of the response
+	 * body, that is the first {@link Consumer} argument not bound to the
+	 * request.
+	 *
+	 * @param argumentParameters Argument parameters
+	 * @param argumentBinders Argument binders
+	 * @return Index of the argument, -1 if none
+	 */
+	private static int getElementConsumerIndex(Parameter[] argumentParameters, ArgumentBinder[] argumentBinders) {
+		int result = -1;
+
+		for (int i = 0, n = argumentParameters.length; i < n && result < 0; i++) {
+			if (argumentBinders[i] == null && argumentParameters[i].getType().equals(Consumer.class)) {
+				result = i;
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Gets the type argument of a wrapper type.
+	 *
+	 * @param type Wrapper type
+	 * @return Type argument, {@link Object} if the wrapper type is raw
+	 */
+	private static Type getTypeArgument(Type type) {
+		Type result = type instanceof ParameterizedType ? ((ParameterizedType) type).getActualTypeArguments()[0] : Object.class;
+
+		if (result instanceof WildcardType) {
+			result = ((WildcardType) result).getUpperBounds()[0];
+		}
+
+		return result;
+	}
+
+	/**
+	 * Makes the binders of the arguments.
+	 *
+	 * @param argumentParameters Argument parameters
+	 * @param pathParams Set filled with the keys of the bound path params
+	 * @return Argument binders
 	 */
-	private static void processReturnType(InvocationData invocationData, Method method) {
-		invocationData.setResponseType(method.getGenericReturnType());
+	private static ArgumentBinder[] makeArgumentBinders(Parameter[] argumentParameters, Set<String> pathParams) {
+		ArgumentBinder[] result = new ArgumentBinder[argumentParameters.length];
+
+		for (int i = 0, n = argumentParameters.length; i < n; i++) {
+			Parameter argumentParameter = argumentParameters[i];
+			String argumentName = argumentParameter.getName();
+
+			ArgumentBinder argumentBinder = null;
+			for (Annotation annotation : argumentParameter.getAnnotations()) {
+				ArgumentBinder annotationBinder = null;
+
+				if (annotation instanceof RequestHeader) {
+					annotationBinder = makeRequestHeaderBinder((RequestHeader) annotation, argumentName);
+				}
+				else if (annotation instanceof PathVariable) {
+					String key = getKey(((PathVariable) annotation).value(), ((PathVariable) annotation).name(), argumentName);
+					pathParams.add(key);
+					annotationBinder = makePathParamBinder(key);
+				}
+				else if (annotation instanceof RequestParam) {
+					annotationBinder = makeQueryParamBinder((RequestParam) annotation, argumentName);
+				}
+				else if (annotation instanceof RequestBody) {
+					annotationBinder = (d, v) -> d.setRequestBody(v);
+				}
+
+				if (annotationBinder != null) {
+					if (argumentBinder == null) {
+						argumentBinder = annotationBinder;
+					}
+					else {
+						ArgumentBinder previousBinder = argumentBinder;
+						ArgumentBinder nextBinder = annotationBinder;
+						argumentBinder = (d, v) -> {
+							previousBinder.bind(d, v);
+							nextBinder.bind(d, v);
+						};
+					}
+				}
+			}
+			result[i] = argumentBinder;
+		}
+
+		return result;
 	}
 
 	/**
@@ -220,7 +635,7 @@ public final class InvocationDataRetriever {
 		String result = null;
 
 		String[] consumes = methodRequestMapping.consumes();
-		if (consumes == null || consumes.length == 0) {
+		if ((consumes == null || consumes.length == 0) && classRequestMapping != null) {
 			consumes = classRequestMapping.consumes();
 		}
 		if (consumes != null && consumes.length > 0) {
@@ -241,7 +656,7 @@ public final class InvocationDataRetriever {
 		String result = null;
 
 		String[] produces = methodRequestMapping.produces();
-		if (produces == null || produces.length == 0) {
+		if ((produces == null || produces.length == 0) && classRequestMapping != null) {
 			produces = classRequestMapping.produces();
 		}
 		if (produces != null && produces.length > 0) {
@@ -269,111 +684,121 @@ public final class InvocationDataRetriever {
 	}
 
 	/**
-	 * Adds the request header to the {@link InvocationData}.
+	 * Gets the key of a header or a param, falling back from the value of the
+	 * annotation to its name and then to the name of the argument.
 	 *
-	 * @param invocationData {@link InvocationData}
-	 * @param requestHeader Request header
+	 * @param value Value of the annotation
+	 * @param name Name of the annotation
 	 * @param argumentName Argument name
-	 * @param argumentValue Argument value
+	 * @return Key
 	 */
-	private static void addRequestHeader(InvocationData invocationData, RequestHeader requestHeader, String argumentName, Object argumentValue) {
-		// Header Key
-		String key = requestHeader.value();
-		if (StringUtils.isBlank(key)) {
-			key = requestHeader.name();
-			if (StringUtils.isBlank(key)) {
-				key = argumentName;
+	private static String getKey(String value, String name, String argumentName) {
+		String result = value;
+
+		if (StringUtils.isBlank(result)) {
+			result = name;
+			if (StringUtils.isBlank(result)) {
+				result = argumentName;
 			}
 		}
 
+		return result;
+	}
+
+	/**
+	 * Makes the binder of a request header.
+	 *
+	 * @param requestHeader Request header
+	 * @param argumentName Argument name
+	 * @return {@link ArgumentBinder}
+	 */
+	private static ArgumentBinder makeRequestHeaderBinder(RequestHeader requestHeader, String argumentName) {
+		// Header Key
+		String key = getKey(requestHeader.value(), requestHeader.name(), argumentName);
+		boolean required = requestHeader.required();
+
 		// Header Value
-		if (argumentValue == null) {
-			if (requestHeader.required()) {
-				throw new RuntimeException(String.format("Missing values for required header '%s'", key));
-			}
-		}
-		else {
-			if (argumentValue instanceof List) {
-				invocationData.addHeaders(key, ((List<?>) argumentValue).stream().map(Object::toString).collect(Collectors.toList()));
+		return (invocationData, argumentValue) -> {
+			if (argumentValue == null) {
+				if (required) {
+					throw new RuntimeException(String.format("Missing values for required header '%s'", key));
+				}
 			}
 			else {
-				invocationData.addHeader(key, argumentValue.toString());
+				if (argumentValue instanceof List) {
+					invocationData.addHeaders(key, ((List<?>) argumentValue).stream().map(Object::toString).collect(Collectors.toList()));
+				}
+				else {
+					invocationData.addHeader(key, argumentValue.toString());
+				}
 			}
-		}
+		};
 	}
 
 	/**
-	 * Adds the path param to the {@link InvocationData}.
+	 * Makes the binder of a path param.
 	 *
-	 * @param invocationData {@link InvocationData}
-	 * @param pathVariable Path variable
-	 * @param argumentName Argument name
-	 * @param argumentValue Argument value
+	 * @param key Path param key
+	 * @return {@link ArgumentBinder}
 	 */
-	private static void addPathParam(InvocationData invocationData, PathVariable pathVariable, String argumentName, Object argumentValue) {
-		// Path Param Key
-		String key = pathVariable.value();
-		if (StringUtils.isBlank(key)) {
-			key = pathVariable.name();
-			if (StringUtils.isBlank(key)) {
-				key = argumentName;
-			}
-		}
-
+	private static ArgumentBinder makePathParamBinder(String key) {
 		// Path Param Value
-		invocationData.addPathParam(key, argumentValue.toString());
+		return (invocationData, argumentValue) -> {
+			if (argumentValue == null) {
+				throw new RuntimeException(String.format("Missing value for path param '%s'", key));
+			}
+			invocationData.addPathParam(key, argumentValue.toString());
+		};
 	}
 
 	/**
-	 * Adds the query param to the {@link InvocationData}.
+	 * Makes the binder of a query param.
 	 *
-	 * @param invocationData {@link InvocationData}
 	 * @param requestParam Request param
 	 * @param argumentName Argument name
-	 * @param argumentValue Argument value
+	 * @return {@link ArgumentBinder}
 	 */
-	private static void addQueryParam(InvocationData invocationData, RequestParam requestParam, String argumentName, Object argumentValue) {
+	private static ArgumentBinder makeQueryParamBinder(RequestParam requestParam, String argumentName) {
 		// Query Param Key
-		String key = requestParam.value();
-		if (StringUtils.isBlank(key)) {
-			key = requestParam.name();
-			if (StringUtils.isBlank(key)) {
-				key = argumentName;
-			}
-		}
+		String key = getKey(requestParam.value(), requestParam.name(), argumentName);
+		boolean required = requestParam.required();
+		String defaultValue = requestParam.defaultValue();
 
 		// Query Param Value
-		String value;
-		if (argumentValue == null) {
-			if (requestParam.required()) {
-				throw new RuntimeException(String.format("Missing values for required query parameter '%s'", key));
-			}
-		}
-		else {
-			if (argumentValue instanceof List) {
-				invocationData.addQueryParams(key, ((List<?>) argumentValue).stream().map(e -> String.valueOf(e)).collect(Collectors.toList()));
+		return (invocationData, argumentValue) -> {
+			if (argumentValue == null) {
+				if (required) {
+					throw new RuntimeException(String.format("Missing values for required query parameter '%s'", key));
+				}
 			}
 			else {
-				value = String.valueOf(argumentValue);
-				if (StringUtils.isBlank(value)) {
-					value = requestParam.defaultValue();
+				if (argumentValue instanceof List) {
+					invocationData.addQueryParams(key, ((List<?>) argumentValue).stream().map(e -> String.valueOf(e)).collect(Collectors.toList()));
+				}
+				else {
+					String value = String.valueOf(argumentValue);
+					if (StringUtils.isBlank(value)) {
+						value = defaultValue;
+					}
+					invocationData.addQueryParam(key, value);
 				}
-				invocationData.addQueryParam(key, value);
 			}
-		}
+		};
 	}
 
 	/**
-	 * Checks if all path params are resolved.
+	 * Checks if all path params of the endpoint are resolved by an argument.
 	 *
-	 * @param invocationData {@link InvocationData}
+	 * @param endpoint Endpoint
+	 * @param resolvedPathParams Keys of the path params resolved by an argument
 	 */
-	private static void checkIfAllPathParamsAreResolved(InvocationData invocationData) {
-		Pattern pattern = Pattern.compile("\\{(?<pathParam>.+)\\}");
-		String[] pathSegments = invocationData.getEndpoint().split("/");
-
-		Set<String> pathParams = Arrays.stream(pathSegments).map(e -> pattern.matcher(e)).filter(e -> e.matches()).map(e -> e.group("pathParam")).collect(Collectors.toSet());
-		pathParams.removeAll(invocationData.getPathParams().keySet());
+	private static void checkIfAllPathParamsAreResolved(String endpoint, Set<String> resolvedPathParams) {
+		Set<String> pathParams = Arrays.stream(endpoint.split("/"))
+		                               .map(e -> PATH_PARAM_PATTERN.matcher(e))
+		                               .filter(Matcher::matches)
+		                               .map(e -> e.group("pathParam"))
+		                               .collect(Collectors.toSet());
+		pathParams.removeAll(resolvedPathParams);
 
 		if (!pathParams.isEmpty()) {
 			throw new RuntimeException(String.format("Missing values for the following path param(s): %s", String.join(", ", pathParams)));
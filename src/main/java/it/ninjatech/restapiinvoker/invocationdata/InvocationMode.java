@@ -0,0 +1,74 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.invocationdata;
+
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ * Modes in which a proxied method can be invoked, derived from its return
+ * type and its {@link Consumer} argument.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public enum InvocationMode {
+
+	/** The caller thread waits for the result of the call. */
+	SYNCHRONOUS,
+	/**
+	 * The method returns a {@link CompletableFuture} or a
+	 * {@link CompletionStage} completed with the result of the call.
+	 */
+	ASYNCHRONOUS,
+	/** The method returns a Reactor Mono emitting the result of the call. */
+	MONO,
+	/**
+	 * The method returns a Reactor Flux emitting the elements of the result of
+	 * the call.
+	 */
+	FLUX,
+	/**
+	 * The method returns a {@link Stream} of the elements of the result of the
+	 * call, read as they arrive.
+	 */
+	STREAM,
+	/**
+	 * The method returns an {@link Iterator} over the elements of the result of
+	 * the call, read as they arrive.
+	 */
+	ITERATOR,
+	/**
+	 * The method returns void and has a {@link Consumer} argument accepting the
+	 * elements of the result of the call, read as they arrive.
+	 */
+	CONSUMER;
+
+}
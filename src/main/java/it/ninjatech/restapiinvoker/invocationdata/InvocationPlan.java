@@ -0,0 +1,423 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.invocationdata;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+
+import it.ninjatech.restapiinvoker.annotation.Hedged;
+import it.ninjatech.restapiinvoker.annotation.RateLimited;
+import it.ninjatech.restapiinvoker.annotation.Retry;
+import it.ninjatech.restapiinvoker.annotation.ShardKey;
+import it.ninjatech.restapiinvoker.annotation.Timeout;
+import it.ninjatech.restapiinvoker.client.ResponseTypeReference;
+
+/**
+ * <p>
+ * Immutable plan of the invocation of a proxied method.<br>
+ * The plan holds everything that can be resolved from the annotations of the
+ * method once and for all, so that for each call only the values of the
+ * arguments have to be bound to the {@link InvocationData}.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public final class InvocationPlan {
+
+	/** Method. */
+	private final Method method;
+
+	/** HTTP method. */
+	private final HttpMethod httpMethod;
+
+	/** Endpoint. */
+	private final String endpoint;
+
+	/** Content-Type. */
+	private final String contentType;
+
+	/** Accept. */
+	private final String accept;
+
+	/** Argument binders, null for the arguments not to be bound. */
+	private final ArgumentBinder[] argumentBinders;
+
+	/** Invocation mode. */
+	private final InvocationMode invocationMode;
+
+	/** Response type. */
+	private final Type responseType;
+
+	/** Type of the response body. */
+	private final Type responseBodyType;
+
+	/** Whether the response type is a {@link ResponseEntity}. */
+	private final boolean responseEntity;
+
+	/** Type reference of the response body. */
+	private final ParameterizedTypeReference<?> responseTypeReference;
+
+	/** Type of the elements of the response body, null if not streamed. */
+	private final Type elementType;
+
+	/**
+	 * Type reference of the elements of the response body, null if not
+	 * streamed.
+	 */
+	private final ParameterizedTypeReference<?> elementTypeReference;
+
+	/** Index of the argument consuming the elements, -1 if none. */
+	private final int elementConsumerIndex;
+
+	/** Minimum length of the request bodies to be compressed, -1 if none. */
+	private final int compressionThreshold;
+
+	/** Bulk method batching the calls, null if not batchable. */
+	private final Method batchMethod;
+
+	/** Retry of the failed calls, null if not retried. */
+	private final Retry retry;
+
+	/** Hedging of the calls, null if not hedged. */
+	private final Hedged hedged;
+
+	/** Rate limit of the calls, null if not limited. */
+	private final RateLimited rateLimited;
+
+	/** Key routing the calls, null if not sharded. */
+	private final ShardKey shardKey;
+
+	/** Timeouts of the calls, null if the ones of the client. */
+	private final Timeout timeout;
+
+	/** Compiled URI templates by base path. */
+	private final Map<String, CompiledUriTemplate> uriTemplates;
+
+	/**
+	 * Constructs a new InvocationPlan.
+	 *
+	 * @param method Method
+	 * @param httpMethod HTTP method
+	 * @param endpoint Endpoint
+	 * @param contentType Content-Type
+	 * @param accept Accept
+	 * @param argumentBinders Argument binders
+	 * @param invocationMode Invocation mode
+	 * @param responseType Response type
+	 * @param elementType Type of the elements of the response body, null if
+	 *            not streamed
+	 * @param elementConsumerIndex Index of the argument consuming the
+	 *            elements, -1 if none
+	 * @param compressionThreshold Minimum length of the request bodies to be
+	 *            compressed, -1 if none
+	 * @param batchMethod Bulk method batching the calls, null if not batchable
+	 * @param retry Retry of the failed calls, null if not retried
+	 * @param hedged Hedging of the calls, null if not hedged
+	 * @param rateLimited Rate limit of the calls, null if not limited
+	 * @param shardKey Key routing the calls, null if not sharded
+	 * @param timeout Timeouts of the calls, null if the ones of the client
+	 */
+	InvocationPlan(Method method, HttpMethod httpMethod, String endpoint, String contentType, String accept, ArgumentBinder[] argumentBinders, InvocationMode invocationMode, Type responseType, Type elementType, int elementConsumerIndex, int compressionThreshold, Method batchMethod, Retry retry, Hedged hedged, RateLimited rateLimited, ShardKey shardKey, Timeout timeout) {
+		this.method = method;
+		this.httpMethod = httpMethod;
+		this.endpoint = endpoint;
+		this.contentType = contentType;
+		this.accept = accept;
+		this.argumentBinders = argumentBinders;
+		this.invocationMode = invocationMode;
+		this.responseType = responseType;
+		this.responseEntity = isResponseEntity(responseType);
+		this.responseBodyType = getResponseBodyType(responseType);
+		this.responseTypeReference = new ResponseTypeReference<>(this.responseBodyType);
+		this.elementType = elementType;
+		this.elementTypeReference = elementType != null ? new ResponseTypeReference<>(elementType) : null;
+		this.elementConsumerIndex = elementConsumerIndex;
+		this.compressionThreshold = compressionThreshold;
+		this.batchMethod = batchMethod;
+		this.retry = retry;
+		this.hedged = hedged;
+		this.rateLimited = rateLimited;
+		this.shardKey = shardKey;
+		this.timeout = timeout;
+		this.uriTemplates = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Returns the method.
+	 *
+	 * @return Method
+	 */
+	public Method getMethod() {
+		return this.method;
+	}
+
+	/**
+	 * Returns the HTTP method.
+	 *
+	 * @return HTTP method
+	 */
+	public HttpMethod getHttpMethod() {
+		return this.httpMethod;
+	}
+
+	/**
+	 * Returns the endpoint.
+	 *
+	 * @return Endpoint
+	 */
+	public String getEndpoint() {
+		return this.endpoint;
+	}
+
+	/**
+	 * Returns the Content-Type.
+	 *
+	 * @return Content-Type, null if not set
+	 */
+	public String getContentType() {
+		return this.contentType;
+	}
+
+	/**
+	 * Returns the Accept.
+	 *
+	 * @return Accept, null if not set
+	 */
+	public String getAccept() {
+		return this.accept;
+	}
+
+	/**
+	 * Returns the invocation mode.
+	 *
+	 * @return Invocation mode
+	 */
+	public InvocationMode getInvocationMode() {
+		return this.invocationMode;
+	}
+
+	/**
+	 * Returns the response type, that is the return type of the method without
+	 * the wrapper imposed by the invocation mode.
+	 *
+	 * @return Response type
+	 */
+	public Type getResponseType() {
+		return this.responseType;
+	}
+
+	/**
+	 * Returns the type of the response body, that is the response type itself
+	 * or the type argument of the {@link ResponseEntity}.
+	 *
+	 * @return Type of the response body
+	 */
+	public Type getResponseBodyType() {
+		return this.responseBodyType;
+	}
+
+	/**
+	 * Returns if the response type is a {@link ResponseEntity}.
+	 *
+	 * @return true, if the whole response is requested
+	 */
+	public boolean isResponseEntity() {
+		return this.responseEntity;
+	}
+
+	/**
+	 * Returns the type reference of the response body.
+	 *
+	 * @return Type reference of the response body
+	 */
+	public ParameterizedTypeReference<?> getResponseTypeReference() {
+		return this.responseTypeReference;
+	}
+
+	/**
+	 * Returns the type of the elements of the response body, for the invocation
+	 * modes in which the elements are streamed to the caller.<br>
+	 * In such modes the response type is a {@link java.util.List} of elements,
+	 * that is what an {@link it.ninjatech.restapiinvoker.client.HttpRestClient}
+	 * not able to stream has to return.
+	 *
+	 * @return Type of the elements, null if not streamed
+	 */
+	public Type getElementType() {
+		return this.elementType;
+	}
+
+	/**
+	 * Returns the type reference of the elements of the response body.
+	 *
+	 * @return Type reference of the elements, null if not streamed
+	 * @see #getElementType()
+	 */
+	public ParameterizedTypeReference<?> getElementTypeReference() {
+		return this.elementTypeReference;
+	}
+
+	/**
+	 * Returns the index of the {@link java.util.function.Consumer} argument
+	 * accepting the elements of the response body, in
+	 * {@link InvocationMode#CONSUMER} mode.
+	 *
+	 * @return Index of the argument, -1 if none
+	 */
+	public int getElementConsumerIndex() {
+		return this.elementConsumerIndex;
+	}
+
+	/**
+	 * Returns the minimum length of the request bodies to be compressed.
+	 *
+	 * @return Compression threshold, -1 if the request bodies are not
+	 *         compressed
+	 * @see it.ninjatech.restapiinvoker.annotation.Compressed
+	 */
+	public int getCompressionThreshold() {
+		return this.compressionThreshold;
+	}
+
+	/**
+	 * Returns the bulk method batching the calls of the method.
+	 *
+	 * @return Bulk method, null if the method is not batchable
+	 * @see it.ninjatech.restapiinvoker.annotation.Batchable
+	 */
+	public Method getBatchMethod() {
+		return this.batchMethod;
+	}
+
+	/**
+	 * Returns the retry of the failed calls of the method.
+	 *
+	 * @return Retry, null if the calls are not retried
+	 */
+	public Retry getRetry() {
+		return this.retry;
+	}
+
+	/**
+	 * Returns the hedging of the calls of the method.
+	 *
+	 * @return Hedging, null if the calls are not hedged
+	 */
+	public Hedged getHedged() {
+		return this.hedged;
+	}
+
+	/**
+	 * Returns the rate limit of the calls of the method.
+	 *
+	 * @return Rate limit, null if the calls are not limited
+	 */
+	public RateLimited getRateLimited() {
+		return this.rateLimited;
+	}
+
+	/**
+	 * Returns the key routing the calls of the method.
+	 *
+	 * @return Shard key, null if the calls are not sharded
+	 */
+	public ShardKey getShardKey() {
+		return this.shardKey;
+	}
+
+	/**
+	 * Returns the timeouts of the calls of the method.
+	 *
+	 * @return Timeouts, null if the calls use the ones of the client
+	 */
+	public Timeout getTimeout() {
+		return this.timeout;
+	}
+
+	/**
+	 * Returns the {@link CompiledUriTemplate} of the endpoint for the provided
+	 * base path, compiling it at the first call.
+	 *
+	 * @param basePath Base path
+	 * @return {@link CompiledUriTemplate}
+	 */
+	public CompiledUriTemplate getUriTemplate(String basePath) {
+		CompiledUriTemplate result = this.uriTemplates.get(basePath);
+
+		if (result == null) {
+			result = this.uriTemplates.computeIfAbsent(basePath, b -> CompiledUriTemplate.compile(b, this.endpoint));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Binds the argument values to the {@link InvocationData}.
+	 *
+	 * @param invocationData {@link InvocationData}
+	 * @param argumentValues Argument values
+	 */
+	void bindArguments(InvocationData invocationData, Object[] argumentValues) {
+		for (int i = 0, n = this.argumentBinders.length; i < n; i++) {
+			ArgumentBinder argumentBinder = this.argumentBinders[i];
+			if (argumentBinder != null) {
+				argumentBinder.bind(invocationData, argumentValues[i]);
+			}
+		}
+	}
+
+	/**
+	 * Checks if a response type is a {@link ResponseEntity}.
+	 *
+	 * @param responseType Response type
+	 * @return true, if the whole response is requested
+	 */
+	static boolean isResponseEntity(Type responseType) {
+		return responseType instanceof ParameterizedType
+		       && ((ParameterizedType) responseType).getRawType().equals(ResponseEntity.class);
+	}
+
+	/**
+	 * Gets the type of the response body of a response type, that is the
+	 * response type itself or the type argument of the {@link ResponseEntity}.
+	 *
+	 * @param responseType Response type
+	 * @return Type of the response body
+	 */
+	static Type getResponseBodyType(Type responseType) {
+		Type result = isResponseEntity(responseType) ? ((ParameterizedType) responseType).getActualTypeArguments()[0] : responseType;
+
+		return result == void.class ? Void.class : result;
+	}
+
+}
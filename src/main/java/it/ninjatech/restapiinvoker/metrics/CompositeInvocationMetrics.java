@@ -0,0 +1,95 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.metrics;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>
+ * {@link InvocationMetrics} notifying the calls to several ones, for instance
+ * to aggregate the metrics and to observe the single calls at the same
+ * time.<br>
+ * The phases of a call are timed if any of the InvocationMetrics requests it.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public final class CompositeInvocationMetrics implements InvocationMetrics {
+
+	/** Notified InvocationMetrics. */
+	private final List<InvocationMetrics> invocationMetrics;
+
+	/**
+	 * Constructs a new CompositeInvocationMetrics.
+	 *
+	 * @param invocationMetrics Notified InvocationMetrics, in order
+	 */
+	public CompositeInvocationMetrics(InvocationMetrics... invocationMetrics) {
+		this.invocationMetrics = Arrays.asList(invocationMetrics.clone());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see it.ninjatech.restapiinvoker.metrics.InvocationMetrics#isTimingPhases(it.ninjatech.restapiinvoker.metrics.InvocationSample)
+	 */
+	@Override
+	public boolean isTimingPhases(InvocationSample sample) {
+		boolean result = false;
+
+		for (InvocationMetrics metrics : this.invocationMetrics) {
+			result |= metrics.isTimingPhases(sample);
+		}
+
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see it.ninjatech.restapiinvoker.metrics.InvocationMetrics#callStarted(it.ninjatech.restapiinvoker.metrics.InvocationSample)
+	 */
+	@Override
+	public void callStarted(InvocationSample sample) {
+		for (InvocationMetrics metrics : this.invocationMetrics) {
+			metrics.callStarted(sample);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see it.ninjatech.restapiinvoker.metrics.InvocationMetrics#callEnded(it.ninjatech.restapiinvoker.metrics.InvocationSample)
+	 */
+	@Override
+	public void callEnded(InvocationSample sample) {
+		for (InvocationMetrics metrics : this.invocationMetrics) {
+			metrics.callEnded(sample);
+		}
+	}
+
+}
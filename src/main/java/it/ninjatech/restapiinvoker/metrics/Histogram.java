@@ -0,0 +1,220 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * Histogram of non negative long values, recorded without locks.<br>
+ * As in an HDR histogram, the values are counted in buckets whose width grows
+ * with the magnitude of the values: each power of two is split into
+ * {@value #SUB_BUCKETS} buckets, so the values returned for the percentiles
+ * are within about 3% of the recorded ones. The values up to
+ * 2<sup>{@value #MAX_EXPONENT}</sup> (more than 18 minutes in nanoseconds or 1
+ * TB in bytes) are distinguished, the greater ones are counted in the last
+ * bucket.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public final class Histogram {
+
+	/** Bits of the sub buckets of each power of two. */
+	private static final int SUB_BUCKET_BITS = 5;
+
+	/** Number of sub buckets of each power of two. */
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/** Exponent of the greatest power of two distinguished. */
+	private static final int MAX_EXPONENT = 40;
+
+	/** Number of buckets. */
+	private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	/**
+	 * Gets the index of the bucket of a value.
+	 *
+	 * @param value Value
+	 * @return Index of the bucket
+	 */
+	private static int getIndex(long value) {
+		int result;
+
+		if (value < SUB_BUCKETS) {
+			result = (int) Math.max(0, value);
+		}
+		else {
+			int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+			result = Math.min(BUCKETS - 1, (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Gets the greatest value counted in a bucket.
+	 *
+	 * @param index Index of the bucket
+	 * @return Greatest value
+	 */
+	private static long getHighestValue(int index) {
+		long result;
+
+		if (index < SUB_BUCKETS) {
+			result = index;
+		}
+		else {
+			int shift = index / SUB_BUCKETS - 1;
+			long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+			result = ((subBucket + 1) << shift) - 1;
+		}
+
+		return result;
+	}
+
+	/** Counts by bucket. */
+	private final AtomicLongArray counts;
+
+	/** Number of values. */
+	private final LongAdder count;
+
+	/** Sum of the values. */
+	private final LongAdder sum;
+
+	/** Greatest value. */
+	private final LongAccumulator max;
+
+	/**
+	 * Constructs a new Histogram.
+	 */
+	public Histogram() {
+		this.counts = new AtomicLongArray(BUCKETS);
+		this.count = new LongAdder();
+		this.sum = new LongAdder();
+		this.max = new LongAccumulator(Math::max, 0);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.format("[count: %d; mean: %.1f; p50: %d; p90: %d; p99: %d; max: %d]",
+		                     getCount(),
+		                     getMean(),
+		                     getValueAtPercentile(50),
+		                     getValueAtPercentile(90),
+		                     getValueAtPercentile(99),
+		                     getMax());
+	}
+
+	/**
+	 * Records a value.
+	 *
+	 * @param value Value, the negative ones are recorded as 0
+	 */
+	public void record(long value) {
+		long recordedValue = Math.max(0, value);
+
+		this.counts.incrementAndGet(getIndex(recordedValue));
+		this.count.increment();
+		this.sum.add(recordedValue);
+		this.max.accumulate(recordedValue);
+	}
+
+	/**
+	 * Returns the number of values.
+	 *
+	 * @return Count
+	 */
+	public long getCount() {
+		return this.count.sum();
+	}
+
+	/**
+	 * Returns the sum of the values.
+	 *
+	 * @return Sum
+	 */
+	public long getSum() {
+		return this.sum.sum();
+	}
+
+	/**
+	 * Returns the mean of the values.
+	 *
+	 * @return Mean, 0 if there are no values
+	 */
+	public double getMean() {
+		long count = getCount();
+
+		return count > 0 ? (double) getSum() / count : 0;
+	}
+
+	/**
+	 * Returns the greatest value.
+	 *
+	 * @return Max, 0 if there are no values
+	 */
+	public long getMax() {
+		return this.max.get();
+	}
+
+	/**
+	 * Returns the value below which the provided percentage of the values
+	 * falls.
+	 *
+	 * @param percentile Percentile, between 0 and 100
+	 * @return Value at the percentile, 0 if there are no values
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long result = 0;
+
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			total += this.counts.get(i);
+		}
+		if (total > 0) {
+			long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * total));
+			long seen = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				seen += this.counts.get(i);
+				if (seen >= rank) {
+					result = Math.min(getHighestValue(i), getMax());
+					break;
+				}
+			}
+		}
+
+		return result;
+	}
+
+}
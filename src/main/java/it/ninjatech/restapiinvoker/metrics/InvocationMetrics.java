@@ -0,0 +1,77 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.metrics;
+
+/**
+ * <p>
+ * Interface representing the collector of the metrics of the calls of the
+ * proxied methods.<br>
+ * When no InvocationMetrics is configured, no sample is made and the calls are
+ * performed as usual, so the instrumentation has no cost.<br>
+ * The phases of a call are timed only if requested by
+ * {@link #isTimingPhases(InvocationSample)}, so that their cost can be limited
+ * to a sample of the calls.<br>
+ * The implementations are called concurrently by all the calls, so they must be
+ * thread safe and must not block.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ * @see SimpleInvocationMetrics
+ * @see MicrometerInvocationMetrics
+ * @see CompositeInvocationMetrics
+ */
+public interface InvocationMetrics {
+
+	/**
+	 * Returns if the phases of a call have to be timed, before the call
+	 * starts.<br>
+	 * By default the phases are not timed.
+	 *
+	 * @param sample Sample of the call
+	 * @return true, to time the phases
+	 * @see InvocationPhase
+	 */
+	public default boolean isTimingPhases(InvocationSample sample) {
+		return false;
+	}
+
+	/**
+	 * Called when a call starts.
+	 *
+	 * @param sample Sample of the call
+	 */
+	public void callStarted(InvocationSample sample);
+
+	/**
+	 * Called when a call ends, successfully or not.<br>
+	 * For the asynchronous and reactive modes, it's called when the result is
+	 * completed; for the streamed ones, when the response is ready to be read.
+	 *
+	 * @param sample Sample of the call
+	 */
+	public void callEnded(InvocationSample sample);
+
+}
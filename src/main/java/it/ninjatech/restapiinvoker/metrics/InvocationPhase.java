@@ -0,0 +1,56 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.metrics;
+
+/**
+ * <p>
+ * Phases of a call of a proxied method timed by the {@link InvocationSample}s
+ * for which the {@link InvocationMetrics} request it.<br>
+ * The phases of the connection are timed only by the DefaultHttpRestClient
+ * managing its own connection pool; a phase not traversed by a call, like
+ * {@link #CONNECT} for a reused connection, is not recorded.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public enum InvocationPhase {
+
+	/** Lookup of the invocation plan and binding of the arguments. */
+	RETRIEVE,
+	/** Expansion of the URI template. */
+	BUILD_URI,
+	/** Wait for a connection leased from the pool. */
+	LEASE,
+	/** Name resolution, connection and TLS handshake of a new connection. */
+	CONNECT,
+	/** Sending of the request headers and body. */
+	SEND,
+	/** Wait from the request sent to the response headers received. */
+	FIRST_BYTE,
+	/** Reading and deserialization of the response body. */
+	DESERIALIZATION;
+
+}
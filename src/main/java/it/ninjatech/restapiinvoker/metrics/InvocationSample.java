@@ -0,0 +1,370 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.metrics;
+
+import java.lang.reflect.Method;
+
+import it.ninjatech.restapiinvoker.invocationdata.InvocationPlan;
+
+/**
+ * <p>
+ * Measures of a single call of a proxied method.<br>
+ * The sample is made by the InvokerMethodInterceptor only if an
+ * {@link InvocationMetrics} is configured and it's reachable by the HTTP Rest
+ * Clients through the InvocationData, so that they can record the status and
+ * the size of the payloads.<br>
+ * If the {@link InvocationMetrics} time the phases of the call, the sample
+ * records also the start and end time of each {@link InvocationPhase}
+ * traversed.<br>
+ * The sample is written by the threads executing the call and read by the
+ * {@link InvocationMetrics} once it's ended, so it's not meant to be shared by
+ * concurrent calls.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public final class InvocationSample {
+
+	/** Invocation plan of the proxied method. */
+	private final InvocationPlan invocationPlan;
+
+	/** Start time in nanoseconds. */
+	private long startTime;
+
+	/** End time in nanoseconds. */
+	private long endTime;
+
+	/** HTTP status. */
+	private int status;
+
+	/** Error. */
+	private Throwable error;
+
+	/** Bytes of the request body. */
+	private long requestBytes;
+
+	/** Bytes of the response body. */
+	private long responseBytes;
+
+	/** Start and end times by phase, null if the phases are not timed. */
+	private long[] phaseTimes;
+
+	/**
+	 * Constructs a new InvocationSample.
+	 *
+	 * @param invocationPlan Invocation plan of the proxied method
+	 */
+	public InvocationSample(InvocationPlan invocationPlan) {
+		this.invocationPlan = invocationPlan;
+		this.requestBytes = -1;
+		this.responseBytes = -1;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		StringBuilder phases = new StringBuilder();
+
+		if (this.phaseTimes != null) {
+			for (InvocationPhase phase : InvocationPhase.values()) {
+				if (getPhaseDuration(phase) >= 0) {
+					phases.append(String.format("; %s: %d ns", phase, getPhaseDuration(phase)));
+				}
+			}
+		}
+
+		return String.format("[%s.%s; status: %d; duration: %d ns; request: %d B; response: %d B; error: %s%s]",
+		                     getType().getSimpleName(),
+		                     getMethod().getName(),
+		                     this.status,
+		                     getDuration(),
+		                     this.requestBytes,
+		                     this.responseBytes,
+		                     this.error,
+		                     phases);
+	}
+
+	/**
+	 * Enables the timing of the phases of the call.
+	 */
+	public void timePhases() {
+		if (this.phaseTimes == null) {
+			this.phaseTimes = new long[InvocationPhase.values().length * 2];
+		}
+	}
+
+	/**
+	 * Returns if the phases of the call are timed.
+	 *
+	 * @return true, if the phases are timed
+	 */
+	public boolean isTimingPhases() {
+		return this.phaseTimes != null;
+	}
+
+	/**
+	 * Records the start of a phase at the current time, if the phases are
+	 * timed.
+	 *
+	 * @param phase Phase
+	 */
+	public void startPhase(InvocationPhase phase) {
+		if (this.phaseTimes != null) {
+			startPhase(phase, System.nanoTime());
+		}
+	}
+
+	/**
+	 * Records the start of a phase, if the phases are timed.
+	 *
+	 * @param phase Phase
+	 * @param startTime Start time in nanoseconds, as by
+	 *            {@link System#nanoTime()}
+	 */
+	public void startPhase(InvocationPhase phase, long startTime) {
+		if (this.phaseTimes != null) {
+			this.phaseTimes[phase.ordinal() * 2] = startTime;
+			this.phaseTimes[phase.ordinal() * 2 + 1] = 0;
+		}
+	}
+
+	/**
+	 * Records the end of a phase at the current time, if the phases are timed
+	 * and the phase has been started.
+	 *
+	 * @param phase Phase
+	 */
+	public void endPhase(InvocationPhase phase) {
+		if (this.phaseTimes != null && this.phaseTimes[phase.ordinal() * 2] != 0) {
+			this.phaseTimes[phase.ordinal() * 2 + 1] = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Returns the start time of a phase.
+	 *
+	 * @param phase Phase
+	 * @return Start time in nanoseconds, as by {@link System#nanoTime()}, 0 if
+	 *         not recorded
+	 */
+	public long getPhaseStartTime(InvocationPhase phase) {
+		return this.phaseTimes != null ? this.phaseTimes[phase.ordinal() * 2] : 0;
+	}
+
+	/**
+	 * Returns the end time of a phase.
+	 *
+	 * @param phase Phase
+	 * @return End time in nanoseconds, as by {@link System#nanoTime()}, 0 if
+	 *         not recorded
+	 */
+	public long getPhaseEndTime(InvocationPhase phase) {
+		return this.phaseTimes != null ? this.phaseTimes[phase.ordinal() * 2 + 1] : 0;
+	}
+
+	/**
+	 * Returns the duration of a phase.
+	 *
+	 * @param phase Phase
+	 * @return Duration in nanoseconds, -1 if not recorded
+	 */
+	public long getPhaseDuration(InvocationPhase phase) {
+		long endTime = getPhaseEndTime(phase);
+
+		return endTime != 0 ? endTime - getPhaseStartTime(phase) : -1;
+	}
+
+	/**
+	 * Records the measures of a call performed on behalf of this one, as the
+	 * calls hedging each other: its status, the size of its payloads and the
+	 * phases it timed.
+	 *
+	 * @param sample Sample of the call
+	 */
+	public void record(InvocationSample sample) {
+		if (sample.status != 0) {
+			this.status = sample.status;
+		}
+		this.requestBytes = sample.requestBytes;
+		this.responseBytes = sample.responseBytes;
+		if (this.phaseTimes != null && sample.phaseTimes != null) {
+			for (int i = 0; i < this.phaseTimes.length; i += 2) {
+				if (sample.phaseTimes[i + 1] != 0) {
+					this.phaseTimes[i] = sample.phaseTimes[i];
+					this.phaseTimes[i + 1] = sample.phaseTimes[i + 1];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Starts the sample.
+	 */
+	public void start() {
+		this.startTime = System.nanoTime();
+	}
+
+	/**
+	 * Ends the sample.
+	 *
+	 * @param error Error of the call, null if successful
+	 */
+	public void end(Throwable error) {
+		this.endTime = System.nanoTime();
+		this.error = error;
+	}
+
+	/**
+	 * Returns the invocation plan of the proxied method.
+	 *
+	 * @return Invocation plan
+	 */
+	public InvocationPlan getInvocationPlan() {
+		return this.invocationPlan;
+	}
+
+	/**
+	 * Returns the proxied method.
+	 *
+	 * @return Method
+	 */
+	public Method getMethod() {
+		return this.invocationPlan.getMethod();
+	}
+
+	/**
+	 * Returns the interface declaring the proxied method.
+	 *
+	 * @return Interface
+	 */
+	public Class<?> getType() {
+		return this.invocationPlan.getMethod().getDeclaringClass();
+	}
+
+	/**
+	 * Returns the start time.
+	 *
+	 * @return Start time in nanoseconds, as by {@link System#nanoTime()}
+	 */
+	public long getStartTime() {
+		return this.startTime;
+	}
+
+	/**
+	 * Returns the end time.
+	 *
+	 * @return End time in nanoseconds, as by {@link System#nanoTime()}
+	 */
+	public long getEndTime() {
+		return this.endTime;
+	}
+
+	/**
+	 * Returns the duration of the call.
+	 *
+	 * @return Duration in nanoseconds, 0 if not ended
+	 */
+	public long getDuration() {
+		return this.endTime != 0 ? this.endTime - this.startTime : 0;
+	}
+
+	/**
+	 * Returns the HTTP status of the response.
+	 *
+	 * @return HTTP status, 0 if unknown
+	 */
+	public int getStatus() {
+		return this.status;
+	}
+
+	/**
+	 * Sets the HTTP status of the response.
+	 *
+	 * @param status HTTP status
+	 */
+	public void setStatus(int status) {
+		this.status = status;
+	}
+
+	/**
+	 * Returns the error of the call.
+	 *
+	 * @return Error, null if successful
+	 */
+	public Throwable getError() {
+		return this.error;
+	}
+
+	/**
+	 * Returns if the call has failed.
+	 *
+	 * @return true, if failed
+	 */
+	public boolean isError() {
+		return this.error != null;
+	}
+
+	/**
+	 * Returns the bytes of the request body, as written on the wire.
+	 *
+	 * @return Bytes of the request body, -1 if unknown
+	 */
+	public long getRequestBytes() {
+		return this.requestBytes;
+	}
+
+	/**
+	 * Sets the bytes of the request body.
+	 *
+	 * @param requestBytes Bytes of the request body
+	 */
+	public void setRequestBytes(long requestBytes) {
+		this.requestBytes = requestBytes;
+	}
+
+	/**
+	 * Returns the bytes of the response body, as read from the wire.
+	 *
+	 * @return Bytes of the response body, -1 if unknown
+	 */
+	public long getResponseBytes() {
+		return this.responseBytes;
+	}
+
+	/**
+	 * Sets the bytes of the response body.
+	 *
+	 * @param responseBytes Bytes of the response body
+	 */
+	public void setResponseBytes(long responseBytes) {
+		this.responseBytes = responseBytes;
+	}
+
+}
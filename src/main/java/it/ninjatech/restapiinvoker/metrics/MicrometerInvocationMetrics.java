@@ -0,0 +1,322 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.metrics;
+
+import java.lang.reflect.Method;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * <p>
+ * {@link InvocationMetrics} binding the metrics to a Micrometer
+ * {@link MeterRegistry}.<br>
+ * The meters are tagged with the interface and the method:
+ * <ul>
+ * <li><code>rest.api.invoker.calls</code>: {@link Timer} of the calls, tagged
+ * also with the HTTP status, the outcome and the exception, publishing the
+ * percentile histogram</li>
+ * <li><code>rest.api.invoker.calls.active</code>: gauge of the calls in
+ * flight</li>
+ * <li><code>rest.api.invoker.calls.errors</code>: {@link Counter} of the failed
+ * calls, tagged also with the exception</li>
+ * <li><code>rest.api.invoker.request.size</code> and
+ * <code>rest.api.invoker.response.size</code>: {@link DistributionSummary} of
+ * the sizes of the bodies, in bytes</li>
+ * <li><code>rest.api.invoker.calls.phases</code>: {@link Timer} of the phases
+ * of the calls whose phases are timed, tagged also with the phase</li>
+ * </ul>
+ * Micrometer is needed only if this class is used.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public final class MicrometerInvocationMetrics implements InvocationMetrics {
+
+	/** Name of the timer of the calls. */
+	public static final String CALLS = "rest.api.invoker.calls";
+
+	/** Name of the gauge of the calls in flight. */
+	public static final String ACTIVE_CALLS = "rest.api.invoker.calls.active";
+
+	/** Name of the counter of the failed calls. */
+	public static final String FAILED_CALLS = "rest.api.invoker.calls.errors";
+
+	/** Name of the summary of the request sizes. */
+	public static final String REQUEST_SIZE = "rest.api.invoker.request.size";
+
+	/** Name of the summary of the response sizes. */
+	public static final String RESPONSE_SIZE = "rest.api.invoker.response.size";
+
+	/** Name of the timer of the phases. */
+	public static final String PHASES = "rest.api.invoker.calls.phases";
+
+	/** Tag value used when there is no exception. */
+	private static final String NONE = "none";
+
+	/** Meter registry. */
+	private final MeterRegistry registry;
+
+	/** Meters by proxied method. */
+	private final Map<Method, MethodMeters> meters;
+
+	/** Fraction of the calls whose phases are timed. */
+	private final double phaseSamplingRate;
+
+	/**
+	 * Constructs a new MicrometerInvocationMetrics not timing the phases.
+	 *
+	 * @param registry Meter registry
+	 */
+	public MicrometerInvocationMetrics(MeterRegistry registry) {
+		this(registry, 0);
+	}
+
+	/**
+	 * Constructs a new MicrometerInvocationMetrics timing the phases of a
+	 * fraction of the calls.
+	 *
+	 * @param registry Meter registry
+	 * @param phaseSamplingRate Fraction of the calls whose phases are timed,
+	 *            between 0 (none) and 1 (all)
+	 */
+	public MicrometerInvocationMetrics(MeterRegistry registry, double phaseSamplingRate) {
+		this.registry = registry;
+		this.meters = new ConcurrentHashMap<>();
+		this.phaseSamplingRate = phaseSamplingRate;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see it.ninjatech.restapiinvoker.metrics.InvocationMetrics#isTimingPhases(it.ninjatech.restapiinvoker.metrics.InvocationSample)
+	 */
+	@Override
+	public boolean isTimingPhases(InvocationSample sample) {
+		return this.phaseSamplingRate >= 1 || (this.phaseSamplingRate > 0 && ThreadLocalRandom.current().nextDouble() < this.phaseSamplingRate);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see it.ninjatech.restapiinvoker.metrics.InvocationMetrics#callStarted(it.ninjatech.restapiinvoker.metrics.InvocationSample)
+	 */
+	@Override
+	public void callStarted(InvocationSample sample) {
+		getMethodMeters(sample).active.incrementAndGet();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see it.ninjatech.restapiinvoker.metrics.InvocationMetrics#callEnded(it.ninjatech.restapiinvoker.metrics.InvocationSample)
+	 */
+	@Override
+	public void callEnded(InvocationSample sample) {
+		MethodMeters methodMeters = getMethodMeters(sample);
+
+		methodMeters.active.decrementAndGet();
+		getCallTimer(methodMeters, sample).record(sample.getDuration(), TimeUnit.NANOSECONDS);
+		if (sample.isError()) {
+			getFailedCallCounter(methodMeters, sample).increment();
+		}
+		if (sample.getRequestBytes() >= 0) {
+			methodMeters.requestSize.record(sample.getRequestBytes());
+		}
+		if (sample.getResponseBytes() >= 0) {
+			methodMeters.responseSize.record(sample.getResponseBytes());
+		}
+		if (sample.isTimingPhases()) {
+			for (InvocationPhase phase : InvocationPhase.values()) {
+				if (sample.getPhaseDuration(phase) >= 0) {
+					methodMeters.phases.get(phase).record(sample.getPhaseDuration(phase), TimeUnit.NANOSECONDS);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the timer of the calls with the HTTP status and the error of a
+	 * sample, registering it at the first call.
+	 *
+	 * @param methodMeters Meters of the method
+	 * @param sample Sample of the call
+	 * @return Timer of the calls
+	 */
+	private Timer getCallTimer(MethodMeters methodMeters, InvocationSample sample) {
+		Class<?> error = sample.isError() ? sample.getError().getClass() : Void.class;
+		Map<Integer, Timer> timers = methodMeters.calls.get(error);
+		if (timers == null) {
+			timers = methodMeters.calls.computeIfAbsent(error, e -> new ConcurrentHashMap<>());
+		}
+		Timer result = timers.get(sample.getStatus());
+
+		if (result == null) {
+			result = timers.computeIfAbsent(sample.getStatus(), s -> Timer.builder(CALLS)
+			                                                              .tags(methodMeters.tags)
+			                                                              .tag("status", s > 0 ? String.valueOf(s) : "UNKNOWN")
+			                                                              .tag("outcome", getOutcome(sample))
+			                                                              .tag("exception", sample.isError() ? error.getSimpleName() : NONE)
+			                                                              .publishPercentileHistogram()
+			                                                              .register(this.registry));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the counter of the calls failed with the error of a sample,
+	 * registering it at the first call.
+	 *
+	 * @param methodMeters Meters of the method
+	 * @param sample Sample of the failed call
+	 * @return Counter of the failed calls
+	 */
+	private Counter getFailedCallCounter(MethodMeters methodMeters, InvocationSample sample) {
+		Counter result = methodMeters.failedCalls.get(sample.getError().getClass());
+
+		if (result == null) {
+			result = methodMeters.failedCalls.computeIfAbsent(sample.getError().getClass(), e -> Counter.builder(FAILED_CALLS)
+			                                                                                           .tags(methodMeters.tags)
+			                                                                                           .tag("exception", e.getSimpleName())
+			                                                                                           .register(this.registry));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the outcome of a call, by the class of its HTTP status.
+	 *
+	 * @param sample Sample of the call
+	 * @return Outcome
+	 */
+	private String getOutcome(InvocationSample sample) {
+		String result;
+
+		int status = sample.getStatus();
+		if (status >= 200 && status < 300) {
+			result = "SUCCESS";
+		}
+		else if (status >= 300 && status < 400) {
+			result = "REDIRECTION";
+		}
+		else if (status >= 400 && status < 500) {
+			result = "CLIENT_ERROR";
+		}
+		else if (status >= 500) {
+			result = "SERVER_ERROR";
+		}
+		else {
+			result = sample.isError() ? "UNKNOWN" : "SUCCESS";
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the meters of the proxied method of a sample, registering them at
+	 * the first call.
+	 *
+	 * @param sample Sample of the call
+	 * @return Meters of the method
+	 */
+	private MethodMeters getMethodMeters(InvocationSample sample) {
+		MethodMeters result = this.meters.get(sample.getMethod());
+
+		if (result == null) {
+			result = this.meters.computeIfAbsent(sample.getMethod(), m -> new MethodMeters(this.registry, sample.getType(), m, this.phaseSamplingRate > 0));
+		}
+
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Meters of a proxied method, the ones depending on the outcome of the
+	 * calls being registered at the first call with such outcome.
+	 * </p>
+	 *
+	 * @author Vincenzo Mazzeo
+	 * @version 1.0
+	 * @since 1.1.0
+	 */
+	private static final class MethodMeters {
+
+		/** Tags of the method. */
+		private final Tags tags;
+
+		/** Calls in flight. */
+		private final AtomicInteger active;
+
+		/** Summary of the request sizes. */
+		private final DistributionSummary requestSize;
+
+		/** Summary of the response sizes. */
+		private final DistributionSummary responseSize;
+
+		/** Timers of the phases. */
+		private final Map<InvocationPhase, Timer> phases;
+
+		/** Timers of the calls by class of the error, {@link Void} if none, and HTTP status. */
+		private final Map<Class<?>, Map<Integer, Timer>> calls;
+
+		/** Counters of the failed calls by class of the error. */
+		private final Map<Class<?>, Counter> failedCalls;
+
+		/**
+		 * Constructs a new MethodMeters.
+		 *
+		 * @param registry Meter registry
+		 * @param type Interface declaring the method
+		 * @param method Proxied method
+		 * @param timingPhases Whether the phases are timed
+		 */
+		private MethodMeters(MeterRegistry registry, Class<?> type, Method method, boolean timingPhases) {
+			this.tags = Tags.of("interface", type.getName(), "method", method.getName());
+			this.active = registry.gauge(ACTIVE_CALLS, this.tags, new AtomicInteger());
+			this.requestSize = DistributionSummary.builder(REQUEST_SIZE).baseUnit("bytes").tags(this.tags).register(registry);
+			this.responseSize = DistributionSummary.builder(RESPONSE_SIZE).baseUnit("bytes").tags(this.tags).register(registry);
+			this.phases = new EnumMap<>(InvocationPhase.class);
+			for (InvocationPhase phase : timingPhases ? InvocationPhase.values() : new InvocationPhase[0]) {
+				this.phases.put(phase, Timer.builder(PHASES).tags(this.tags).tag("phase", phase.name()).publishPercentileHistogram().register(registry));
+			}
+			this.calls = new ConcurrentHashMap<>();
+			this.failedCalls = new ConcurrentHashMap<>();
+		}
+
+	}
+
+}
@@ -0,0 +1,280 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.metrics;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * {@link InvocationMetrics} keeping the metrics in memory, without any
+ * dependency.<br>
+ * For each proxied method there are the latency {@link Histogram}s by HTTP
+ * status, the number of the calls in flight, the number of the failed calls
+ * and the {@link Histogram}s of the size of the request and response bodies.
+ * <br>
+ * The phases are timed for the configured fraction of the calls and
+ * aggregated in a latency {@link Histogram} by {@link InvocationPhase}.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public final class SimpleInvocationMetrics implements InvocationMetrics {
+
+	/** Metrics by proxied method. */
+	private final Map<Method, MethodMetrics> metrics;
+
+	/** Fraction of the calls whose phases are timed. */
+	private final double phaseSamplingRate;
+
+	/**
+	 * Constructs a new SimpleInvocationMetrics not timing the phases.
+	 */
+	public SimpleInvocationMetrics() {
+		this(0);
+	}
+
+	/**
+	 * Constructs a new SimpleInvocationMetrics timing the phases of a fraction
+	 * of the calls.
+	 *
+	 * @param phaseSamplingRate Fraction of the calls whose phases are timed,
+	 *            between 0 (none) and 1 (all)
+	 */
+	public SimpleInvocationMetrics(double phaseSamplingRate) {
+		this.metrics = new ConcurrentHashMap<>();
+		this.phaseSamplingRate = phaseSamplingRate;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see it.ninjatech.restapiinvoker.metrics.InvocationMetrics#isTimingPhases(it.ninjatech.restapiinvoker.metrics.InvocationSample)
+	 */
+	@Override
+	public boolean isTimingPhases(InvocationSample sample) {
+		return this.phaseSamplingRate >= 1 || (this.phaseSamplingRate > 0 && ThreadLocalRandom.current().nextDouble() < this.phaseSamplingRate);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see it.ninjatech.restapiinvoker.metrics.InvocationMetrics#callStarted(it.ninjatech.restapiinvoker.metrics.InvocationSample)
+	 */
+	@Override
+	public void callStarted(InvocationSample sample) {
+		getMethodMetrics(sample.getMethod()).inFlight.increment();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see it.ninjatech.restapiinvoker.metrics.InvocationMetrics#callEnded(it.ninjatech.restapiinvoker.metrics.InvocationSample)
+	 */
+	@Override
+	public void callEnded(InvocationSample sample) {
+		MethodMetrics methodMetrics = getMethodMetrics(sample.getMethod());
+
+		methodMetrics.inFlight.decrement();
+		methodMetrics.latencies.computeIfAbsent(sample.getStatus(), s -> new Histogram()).record(sample.getDuration());
+		if (sample.isError()) {
+			methodMetrics.errors.increment();
+		}
+		if (sample.getRequestBytes() >= 0) {
+			methodMetrics.requestBytes.record(sample.getRequestBytes());
+		}
+		if (sample.getResponseBytes() >= 0) {
+			methodMetrics.responseBytes.record(sample.getResponseBytes());
+		}
+		if (sample.isTimingPhases()) {
+			for (InvocationPhase phase : InvocationPhase.values()) {
+				if (sample.getPhaseDuration(phase) >= 0) {
+					methodMetrics.phases.get(phase).record(sample.getPhaseDuration(phase));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the metrics of the called proxied methods.
+	 *
+	 * @return Unmodifiable metrics by method
+	 */
+	public Map<Method, MethodMetrics> getMetrics() {
+		return Collections.unmodifiableMap(this.metrics);
+	}
+
+	/**
+	 * Returns the metrics of a proxied method.
+	 *
+	 * @param method Proxied method
+	 * @return Metrics of the method, created if not called yet
+	 */
+	public MethodMetrics getMethodMetrics(Method method) {
+		MethodMetrics result = this.metrics.get(method);
+
+		if (result == null) {
+			result = this.metrics.computeIfAbsent(method, m -> new MethodMetrics());
+		}
+
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Metrics of a proxied method.
+	 * </p>
+	 *
+	 * @author Vincenzo Mazzeo
+	 * @version 1.0
+	 * @since 1.1.0
+	 */
+	public static final class MethodMetrics {
+
+		/** Latency histograms by HTTP status. */
+		private final Map<Integer, Histogram> latencies;
+
+		/** Calls in flight. */
+		private final LongAdder inFlight;
+
+		/** Failed calls. */
+		private final LongAdder errors;
+
+		/** Sizes of the request bodies. */
+		private final Histogram requestBytes;
+
+		/** Sizes of the response bodies. */
+		private final Histogram responseBytes;
+
+		/** Latency histograms by phase. */
+		private final Map<InvocationPhase, Histogram> phases;
+
+		/**
+		 * Constructs a new MethodMetrics.
+		 */
+		private MethodMetrics() {
+			this.latencies = new ConcurrentHashMap<>();
+			this.inFlight = new LongAdder();
+			this.errors = new LongAdder();
+			this.requestBytes = new Histogram();
+			this.responseBytes = new Histogram();
+			this.phases = new EnumMap<>(InvocationPhase.class);
+			for (InvocationPhase phase : InvocationPhase.values()) {
+				this.phases.put(phase, new Histogram());
+			}
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return String.format("[latencies: %s; in flight: %d; errors: %d; request bytes: %s; response bytes: %s; phases: %s]",
+			                     this.latencies,
+			                     getInFlight(),
+			                     getErrorCount(),
+			                     this.requestBytes,
+			                     this.responseBytes,
+			                     this.phases);
+		}
+
+		/**
+		 * Returns the latency histograms, in nanoseconds, by HTTP status.<br>
+		 * The calls failed without a response are under the status 0.
+		 *
+		 * @return Unmodifiable latency histograms by HTTP status
+		 */
+		public Map<Integer, Histogram> getLatencies() {
+			return Collections.unmodifiableMap(this.latencies);
+		}
+
+		/**
+		 * Returns the latency histogram, in nanoseconds, of an HTTP status.
+		 *
+		 * @param status HTTP status
+		 * @return Latency histogram, null if no call got the status
+		 */
+		public Histogram getLatency(int status) {
+			return this.latencies.get(status);
+		}
+
+		/**
+		 * Returns the number of the calls in flight.
+		 *
+		 * @return Calls in flight
+		 */
+		public long getInFlight() {
+			return this.inFlight.sum();
+		}
+
+		/**
+		 * Returns the number of the failed calls.
+		 *
+		 * @return Failed calls
+		 */
+		public long getErrorCount() {
+			return this.errors.sum();
+		}
+
+		/**
+		 * Returns the histogram of the sizes of the request bodies, in bytes.
+		 *
+		 * @return Histogram of the request sizes
+		 */
+		public Histogram getRequestBytes() {
+			return this.requestBytes;
+		}
+
+		/**
+		 * Returns the histogram of the sizes of the response bodies, in bytes.
+		 *
+		 * @return Histogram of the response sizes
+		 */
+		public Histogram getResponseBytes() {
+			return this.responseBytes;
+		}
+
+		/**
+		 * Returns the latency histogram, in nanoseconds, of a phase of the
+		 * calls whose phases have been timed.
+		 *
+		 * @param phase Phase
+		 * @return Latency histogram of the phase
+		 */
+		public Histogram getPhase(InvocationPhase phase) {
+			return this.phases.get(phase);
+		}
+
+	}
+
+}
@@ -0,0 +1,337 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+
+/**
+ * <p>
+ * Annotation processor generating at compile time an implementation of each
+ * interface annotated with
+ * {@link it.ninjatech.restapiinvoker.annotation.GenerateInvoker}, named as the
+ * interface with the {@link #INVOKER_PREFIX} and the names of its enclosing
+ * types joined by an underscore.<br>
+ * Each method of the generated invoker is a direct call to the
+ * {@link it.ninjatech.restapiinvoker.InvokerMethodInterceptor} with the
+ * {@link it.ninjatech.restapiinvoker.invocationdata.InvocationPlan} of the
+ * method, retrieved once when the invoker class is initialized.<br>
+ * The annotated interfaces with abstract methods not annotated with
+ * {@link #REQUEST_MAPPING}, or private, fail the compilation; the interfaces
+ * not annotated are left to the proxies made by the
+ * {@link it.ninjatech.restapiinvoker.RestApiInvokerFactory}, as the
+ * classes.
+ * </p>
+ * <p>
+ * The processor is registered as a service, so it's discovered on the
+ * classpath of the compilation, but it processes only the annotated
+ * interfaces. With a processor path, as the
+ * <code>annotationProcessorPaths</code> of the Maven compiler plugin, the
+ * library has to be added to it.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+@SupportedAnnotationTypes(RestApiInvokerProcessor.GENERATE_INVOKER)
+public class RestApiInvokerProcessor extends AbstractProcessor {
+
+	/** Prefix of the names of the generated invokers. */
+	public static final String INVOKER_PREFIX = "RestApiInvoker_";
+
+	/** Name of the annotation of the interfaces whose invoker is generated. */
+	static final String GENERATE_INVOKER = "it.ninjatech.restapiinvoker.annotation.GenerateInvoker";
+
+	/** Name of the annotation of the REST Api methods. */
+	static final String REQUEST_MAPPING = "org.springframework.web.bind.annotation.RequestMapping";
+
+	/** Name of the interceptor called by the generated invokers. */
+	private static final String INTERCEPTOR = "it.ninjatech.restapiinvoker.InvokerMethodInterceptor";
+
+	/** Name of the invocation plan. */
+	private static final String INVOCATION_PLAN = "it.ninjatech.restapiinvoker.invocationdata.InvocationPlan";
+
+	/** Name of the retriever of the invocation plans. */
+	private static final String INVOCATION_DATA_RETRIEVER = "it.ninjatech.restapiinvoker.invocationdata.InvocationDataRetriever";
+
+	/** Names of the invokers already generated. */
+	private final Set<String> generatedInvokers = new HashSet<>();
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see javax.annotation.processing.AbstractProcessor#getSupportedSourceVersion()
+	 */
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see javax.annotation.processing.AbstractProcessor#process(java.util.Set,
+	 * javax.annotation.processing.RoundEnvironment)
+	 */
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		Set<TypeElement> restApis = new LinkedHashSet<>();
+		for (TypeElement annotation : annotations) {
+			for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+				if (element.getKind() == ElementKind.INTERFACE) {
+					restApis.add((TypeElement) element);
+				}
+				else {
+					this.processingEnv.getMessager().printMessage(Kind.ERROR, String.format("%s is not an interface", element), element);
+				}
+			}
+		}
+		for (TypeElement restApi : restApis) {
+			String invokerName = getInvokerName(restApi);
+			if (this.generatedInvokers.add(invokerName) && isGenerable(restApi)) {
+				generateInvoker(restApi, invokerName);
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns the qualified name of the invoker of the interface.
+	 *
+	 * @param restApi Interface
+	 * @return Qualified name of the invoker
+	 */
+	private String getInvokerName(TypeElement restApi) {
+		PackageElement packageElement = this.processingEnv.getElementUtils().getPackageOf(restApi);
+		String packageName = packageElement.getQualifiedName().toString();
+		String simpleName = packageName.isEmpty() ? restApi.getQualifiedName().toString()
+		                                          : restApi.getQualifiedName().toString().substring(packageName.length() + 1);
+
+		return (packageName.isEmpty() ? "" : packageName + ".") + INVOKER_PREFIX + simpleName.replace('.', '_');
+	}
+
+	/**
+	 * Checks if the invoker of the interface can be generated, that is if the
+	 * interface and its enclosing types are not private and all its abstract
+	 * methods are REST Api methods.
+	 *
+	 * @param restApi Interface
+	 * @return true, if the invoker can be generated
+	 */
+	private boolean isGenerable(TypeElement restApi) {
+		boolean result = true;
+
+		for (Element type = restApi; result && type instanceof TypeElement; type = type.getEnclosingElement()) {
+			if (type.getModifiers().contains(Modifier.PRIVATE)) {
+				this.processingEnv.getMessager().printMessage(Kind.ERROR, String.format("Invoker of %s not generated: private type", restApi.getQualifiedName()), restApi);
+				result = false;
+			}
+		}
+		for (ExecutableElement method : getAbstractMethods(restApi).values()) {
+			if (result && !isRequestMapping(method)) {
+				this.processingEnv.getMessager().printMessage(Kind.ERROR,
+				                                              String.format("Invoker of %s not generated: method %s not annotated with %s", restApi.getQualifiedName(), method.getSimpleName(), REQUEST_MAPPING),
+				                                              method);
+				result = false;
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the abstract methods of the interface, declared or inherited,
+	 * by erased signature.
+	 *
+	 * @param restApi Interface
+	 * @return Abstract methods
+	 */
+	private Map<String, ExecutableElement> getAbstractMethods(TypeElement restApi) {
+		Map<String, ExecutableElement> result = new LinkedHashMap<>();
+
+		for (ExecutableElement method : ElementFilter.methodsIn(this.processingEnv.getElementUtils().getAllMembers(restApi))) {
+			if (method.getModifiers().contains(Modifier.ABSTRACT)) {
+				result.putIfAbsent(method.getSimpleName().toString() + getParameterClasses(method), method);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Checks if the method is annotated with {@link #REQUEST_MAPPING}.
+	 *
+	 * @param method Method
+	 * @return true, if REST Api method
+	 */
+	private static boolean isRequestMapping(ExecutableElement method) {
+		return method.getAnnotationMirrors().stream()
+		             .anyMatch(a -> ((TypeElement) a.getAnnotationType().asElement()).getQualifiedName().contentEquals(REQUEST_MAPPING));
+	}
+
+	/**
+	 * Generates the invoker of the interface.
+	 *
+	 * @param restApi Interface
+	 * @param invokerName Qualified name of the invoker
+	 */
+	private void generateInvoker(TypeElement restApi, String invokerName) {
+		int separator = invokerName.lastIndexOf('.');
+		String packageName = separator >= 0 ? invokerName.substring(0, separator) : null;
+		String simpleName = invokerName.substring(separator + 1);
+		String typeParameters = getTypeParameters(restApi.getTypeParameters());
+		String restApiClass = this.processingEnv.getTypeUtils().erasure(restApi.asType()).toString();
+		List<ExecutableElement> methods = new ArrayList<>(getAbstractMethods(restApi).values());
+
+		try (PrintWriter out = new PrintWriter(this.processingEnv.getFiler().createSourceFile(invokerName, restApi).openWriter())) {
+			if (packageName != null) {
+				out.printf("package %s;%n%n", packageName);
+			}
+			out.printf("/**%n * Invoker of {@link %s}, generated by {@link %s}.%n */%n", restApiClass, RestApiInvokerProcessor.class.getName());
+			out.printf("@SuppressWarnings(\"unchecked\")%npublic final class %s%s implements %s {%n%n", simpleName, typeParameters, restApi.asType());
+			for (int i = 0; i < methods.size(); i++) {
+				ExecutableElement method = methods.get(i);
+				out.printf("\tprivate static final %s PLAN_%d = %s.getInvocationPlan(%s.class, \"%s\"%s);%n%n",
+				           INVOCATION_PLAN, i, INVOCATION_DATA_RETRIEVER, restApiClass, method.getSimpleName(),
+				           getParameterClasses(method).stream().map(c -> ", " + c + ".class").collect(Collectors.joining()));
+			}
+			out.printf("\tprivate final %s interceptor;%n%n", INTERCEPTOR);
+			out.printf("\tpublic %s(%s interceptor) {%n\t\tthis.interceptor = interceptor;%n\t}%n", simpleName, INTERCEPTOR);
+			for (int i = 0; i < methods.size(); i++) {
+				generateMethod(out, restApi, methods.get(i), i);
+			}
+			out.printf("%n}%n");
+		}
+		catch (IOException e) {
+			this.processingEnv.getMessager().printMessage(Kind.ERROR, String.format("Invoker of %s not generated: %s", restApi.getQualifiedName(), e.getMessage()), restApi);
+		}
+	}
+
+	/**
+	 * Generates the implementation of a method of the interface, calling the
+	 * interceptor with the invocation plan of the method.
+	 *
+	 * @param out Writer of the invoker
+	 * @param restApi Interface
+	 * @param method Method
+	 * @param index Index of the invocation plan of the method
+	 */
+	private void generateMethod(PrintWriter out, TypeElement restApi, ExecutableElement method, int index) {
+		ExecutableType methodType = (ExecutableType) this.processingEnv.getTypeUtils().asMemberOf((DeclaredType) restApi.asType(), method);
+		List<? extends VariableElement> parameters = method.getParameters();
+		List<String> declarations = new ArrayList<>(parameters.size());
+		for (int i = 0, n = parameters.size(); i < n; i++) {
+			String type = methodType.getParameterTypes().get(i).toString();
+			if (method.isVarArgs() && i == n - 1 && type.endsWith("[]")) {
+				type = type.substring(0, type.length() - 2) + "...";
+			}
+			declarations.add(String.format("final %s %s", type, parameters.get(i).getSimpleName()));
+		}
+		String arguments = parameters.stream().map(p -> p.getSimpleName().toString()).collect(Collectors.joining(", "));
+		String invocation = String.format("this.interceptor.invoke(PLAN_%d, new Object[] {%s})", index, arguments.isEmpty() ? "" : " " + arguments + " ");
+		TypeMirror returnType = methodType.getReturnType();
+		String thrownTypes = methodType.getThrownTypes().isEmpty() ? ""
+		                                                           : methodType.getThrownTypes().stream().map(TypeMirror::toString).collect(Collectors.joining(", ", " throws ", ""));
+
+		String typeParameters = getTypeParameters(method.getTypeParameters());
+		out.printf("%n\t@Override%n\tpublic %s%s %s(%s)%s {%n",
+		           typeParameters.isEmpty() ? "" : typeParameters + " ",
+		           returnType,
+		           method.getSimpleName(),
+		           String.join(", ", declarations),
+		           thrownTypes);
+		if (returnType.getKind() == TypeKind.VOID) {
+			out.printf("\t\t%s;%n", invocation);
+		}
+		else {
+			out.printf("\t\treturn (%s) %s;%n", returnType, invocation);
+		}
+		out.printf("\t}%n");
+	}
+
+	/**
+	 * Returns the declaration of the type parameters.
+	 *
+	 * @param typeParameters Type parameters
+	 * @return Declaration, empty if none
+	 */
+	private static String getTypeParameters(List<? extends TypeParameterElement> typeParameters) {
+		String result = "";
+
+		if (!typeParameters.isEmpty()) {
+			result = typeParameters.stream().map(p -> {
+				String bounds = p.getBounds().stream()
+				                 .map(TypeMirror::toString)
+				                 .filter(b -> !b.equals(Object.class.getName()))
+				                 .collect(Collectors.joining(" & "));
+				return bounds.isEmpty() ? p.getSimpleName().toString() : p.getSimpleName() + " extends " + bounds;
+			}).collect(Collectors.joining(", ", "<", ">"));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the erased parameter types of the method, as used to look it up
+	 * by reflection.
+	 *
+	 * @param method Method
+	 * @return Erased parameter types
+	 */
+	private List<String> getParameterClasses(ExecutableElement method) {
+		return method.getParameters().stream()
+		             .map(p -> this.processingEnv.getTypeUtils().erasure(p.asType()).toString())
+		             .collect(Collectors.toList());
+	}
+
+}
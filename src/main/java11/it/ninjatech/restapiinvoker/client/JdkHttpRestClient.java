@@ -0,0 +1,422 @@
+/*
+MIT License
+
+Copyright (c) 2019 Vincenzo Mazzeo
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package it.ninjatech.restapiinvoker.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.UnknownHttpStatusCodeException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import it.ninjatech.restapiinvoker.annotation.Timeout;
+import it.ninjatech.restapiinvoker.invocationdata.InvocationData;
+
+/**
+ * <p>
+ * Implementation of the {@link AsyncHttpRestClient} that uses the JDK
+ * {@link HttpClient} to perform the calls.<br>
+ * By default the client prefers HTTP/2, so the concurrent calls to the same
+ * base path are multiplexed over a few connections. For the plain http base
+ * paths HTTP/2 (h2c) is negotiated through the HTTP/1.1 upgrade mechanism,
+ * falling back to HTTP/1.1 if the server does not support it.<br>
+ * The request body is serialized and the response body is deserialized with
+ * Jackson, except for {@link String} and byte arrays. The request bodies of
+ * type {@link InputStream}, {@link Resource}, {@link java.util.stream.Stream}
+ * and {@link java.util.Iterator} are streamed, the last two as a JSON array of
+ * their elements. The error statuses are
+ * raised as the same exceptions raised by the {@link DefaultHttpRestClient}.<br>
+ * The read timeout of the {@link Timeout} and the deadline of the calls bound
+ * the whole exchange of each request, while the connect timeout is the one of
+ * the {@link HttpClient}.
+ * </p>
+ *
+ * @author Vincenzo Mazzeo
+ * @version 1.0
+ * @since 1.1.0
+ */
+public class JdkHttpRestClient implements AsyncHttpRestClient {
+
+	/** Headers that the {@link HttpClient} does not allow to set. */
+	private static final Set<String> RESTRICTED_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+	static {
+		RESTRICTED_HEADERS.addAll(Arrays.asList("Connection", "Content-Length", "Date", "Expect", "From", "Host", "Upgrade", "Via", "Warning"));
+	}
+
+	/** {@link HttpClient}. */
+	private final HttpClient httpClient;
+
+	/** {@link ObjectMapper}. */
+	private final ObjectMapper objectMapper;
+
+	/**
+	 * Constructs a new {@link JdkHttpRestClient} preferring HTTP/2.
+	 */
+	public JdkHttpRestClient() {
+		this(HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build());
+	}
+
+	/**
+	 * Constructs a new {@link JdkHttpRestClient} whose {@link ObjectMapper},
+	 * as the one of Spring, ignores the unknown properties.
+	 * 
+	 * @param httpClient {@link HttpClient}
+	 */
+	public JdkHttpRestClient(HttpClient httpClient) {
+		this(httpClient, Jackson2ObjectMapperBuilder.json().build());
+	}
+
+	/**
+	 * Constructs a new {@link JdkHttpRestClient}.
+	 * 
+	 * @param httpClient {@link HttpClient}
+	 * @param objectMapper {@link ObjectMapper} used for the bodies
+	 */
+	public JdkHttpRestClient(HttpClient httpClient, ObjectMapper objectMapper) {
+		this.httpClient = httpClient;
+		this.objectMapper = objectMapper;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see it.ninjatech.restapiinvoker.client.HttpRestClient#exchange(it.ninjatech.
+	 * restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public Object exchange(InvocationData invocationData) {
+		return toResult(exchangeForEntity(invocationData), invocationData);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.HttpRestClient#exchangeForEntity(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public ResponseEntity<?> exchangeForEntity(InvocationData invocationData) {
+		HttpRequest request = makeRequest(invocationData);
+
+		HttpResponse<byte[]> response;
+		try {
+			response = this.httpClient.send(request, BodyHandlers.ofByteArray());
+		}
+		catch (IOException e) {
+			throw makeResourceAccessException(invocationData, request, e);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw makeResourceAccessException(invocationData, request, new IOException(e));
+		}
+
+		return toResponseEntity(response, invocationData);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * it.ninjatech.restapiinvoker.client.AsyncHttpRestClient#exchangeAsync(it.
+	 * ninjatech.restapiinvoker.invocationdata.InvocationData)
+	 */
+	@Override
+	public CompletableFuture<Object> exchangeAsync(InvocationData invocationData) {
+		return exchangeAsync(invocationData, r -> toResult(r, invocationData));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see it.ninjatech.restapiinvoker.client.AsyncHttpRestClient#
+	 * exchangeForEntityAsync(it.ninjatech.restapiinvoker.invocationdata.
+	 * InvocationData)
+	 */
+	@Override
+	public CompletableFuture<ResponseEntity<?>> exchangeForEntityAsync(InvocationData invocationData) {
+		return exchangeAsync(invocationData, r -> r);
+	}
+
+	/**
+	 * Executes the call asynchronously.
+	 *
+	 * @param <T> Type of the result
+	 * @param invocationData Data to execute the call
+	 * @param toResult Converts the response entity to the result
+	 * @return Future completed with the result of the call
+	 */
+	private <T> CompletableFuture<T> exchangeAsync(InvocationData invocationData, Function<ResponseEntity<?>, T> toResult) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+
+		HttpRequest request = makeRequest(invocationData);
+		this.httpClient.sendAsync(request, BodyHandlers.ofByteArray()).whenComplete((r, e) -> {
+			if (e != null) {
+				Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+				result.completeExceptionally(cause instanceof IOException ? makeResourceAccessException(invocationData, request, (IOException) cause) : cause);
+			}
+			else {
+				try {
+					result.complete(toResult.apply(toResponseEntity(r, invocationData)));
+				}
+				catch (RuntimeException x) {
+					result.completeExceptionally(x);
+				}
+			}
+		});
+
+		return result;
+	}
+
+	/**
+	 * Makes the request.
+	 *
+	 * @param invocationData Data to execute the call
+	 * @return Request
+	 */
+	private HttpRequest makeRequest(InvocationData invocationData) {
+		URI uri = DefaultHttpRestClient.buildUri(invocationData);
+		HttpHeaders headers = invocationData.getHeaders();
+
+		HttpRequest.Builder result = HttpRequest.newBuilder(uri)
+		                                        .method(invocationData.getHttpMethod().name(), makeBodyPublisher(invocationData.getRequestBody(), headers));
+		for (Entry<String, List<String>> header : headers.entrySet()) {
+			if (!RESTRICTED_HEADERS.contains(header.getKey())) {
+				for (String value : header.getValue()) {
+					result.header(header.getKey(), value);
+				}
+			}
+		}
+		if (invocationData.getRequestBody() != null && headers.getContentType() == null) {
+			result.header(HttpHeaders.CONTENT_TYPE, getDefaultContentType(invocationData.getRequestBody()));
+		}
+		Timeout timeout = invocationData.getTimeout();
+		long requestTimeout = timeout != null && timeout.read() > 0 ? timeout.read() : Long.MAX_VALUE;
+		if (invocationData.getDeadline() != null) {
+			requestTimeout = Math.min(requestTimeout, Math.max(1, invocationData.getDeadline().getRemaining(TimeUnit.MILLISECONDS)));
+		}
+		if (requestTimeout < Long.MAX_VALUE) {
+			result.timeout(Duration.ofMillis(requestTimeout));
+		}
+
+		return result.build();
+	}
+
+	/**
+	 * Gets the Content-Type of a request body without an explicit one.
+	 *
+	 * @param requestBody Request body
+	 * @return Content-Type
+	 */
+	private static String getDefaultContentType(Object requestBody) {
+		String result = MediaType.APPLICATION_JSON_VALUE;
+
+		if (requestBody instanceof String) {
+			result = MediaType.TEXT_PLAIN_VALUE;
+		}
+		else if (requestBody instanceof byte[] || requestBody instanceof InputStream || requestBody instanceof Resource) {
+			result = MediaType.APPLICATION_OCTET_STREAM_VALUE;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Makes the publisher of the request body.
+	 *
+	 * @param requestBody Request body
+	 * @param headers Request headers
+	 * @return Publisher of the request body
+	 */
+	private BodyPublisher makeBodyPublisher(Object requestBody, HttpHeaders headers) {
+		BodyPublisher result;
+
+		if (requestBody == null) {
+			result = BodyPublishers.noBody();
+		}
+		else if (requestBody instanceof InputStream || RequestBodies.isJsonElements(requestBody) || requestBody instanceof Resource) {
+			Resource resource = (Resource) RequestBodies.toStreamable(requestBody, this.objectMapper);
+			result = BodyPublishers.ofInputStream(() -> {
+				try {
+					return resource.getInputStream();
+				}
+				catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+		else if (requestBody instanceof byte[]) {
+			result = BodyPublishers.ofByteArray((byte[]) requestBody);
+		}
+		else if (requestBody instanceof String) {
+			result = BodyPublishers.ofString((String) requestBody, getCharset(headers));
+		}
+		else {
+			try {
+				result = BodyPublishers.ofByteArray(this.objectMapper.writeValueAsBytes(requestBody));
+			}
+			catch (IOException e) {
+				throw new RuntimeException(String.format("Unable to serialize the request body of type %s", requestBody.getClass().getName()), e);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Converts the response entity to the result of the call.
+	 *
+	 * @param responseEntity Response entity
+	 * @param invocationData Data to execute the call
+	 * @return Result of the call
+	 */
+	private static Object toResult(ResponseEntity<?> responseEntity, InvocationData invocationData) {
+		return invocationData.isResponseEntity() ? responseEntity : responseEntity.getBody();
+	}
+
+	/**
+	 * Converts the response to a response entity.
+	 *
+	 * @param response Response
+	 * @param invocationData Data to execute the call
+	 * @return Response entity
+	 */
+	private ResponseEntity<?> toResponseEntity(HttpResponse<byte[]> response, InvocationData invocationData) {
+		HttpHeaders headers = new HttpHeaders();
+		response.headers().map().forEach(headers::addAll);
+		byte[] body = response.body();
+		int statusCode = response.statusCode();
+
+		HttpStatus httpStatus = HttpStatus.resolve(statusCode);
+		if (httpStatus == null) {
+			throw new UnknownHttpStatusCodeException(statusCode, "", headers, body, getCharset(headers));
+		}
+		if (httpStatus.is4xxClientError()) {
+			throw HttpClientErrorException.create(httpStatus, httpStatus.getReasonPhrase(), headers, body, getCharset(headers));
+		}
+		if (httpStatus.is5xxServerError()) {
+			throw HttpServerErrorException.create(httpStatus, httpStatus.getReasonPhrase(), headers, body, getCharset(headers));
+		}
+
+		Object responseBody = readBody(body, headers, invocationData.getResponseBodyType());
+
+		return new ResponseEntity<>(responseBody, headers, httpStatus);
+	}
+
+	/**
+	 * Reads the response body.
+	 *
+	 * @param body Raw body
+	 * @param headers Response headers
+	 * @param type Type of the body
+	 * @return Body
+	 */
+	private Object readBody(byte[] body, HttpHeaders headers, Type type) {
+		Object result = null;
+
+		if (body != null && body.length > 0 && !Void.class.equals(type)) {
+			if (byte[].class.equals(type)) {
+				result = body;
+			}
+			else if (String.class.equals(type)) {
+				result = new String(body, getCharset(headers));
+			}
+			else {
+				try {
+					result = this.objectMapper.readValue(body, this.objectMapper.getTypeFactory().constructType(type));
+				}
+				catch (IOException e) {
+					throw new RuntimeException(String.format("Unable to deserialize the response body to %s", type.getTypeName()), e);
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Gets the charset from the Content-Type header.
+	 *
+	 * @param headers Headers
+	 * @return Charset, UTF-8 if not set
+	 */
+	private static Charset getCharset(HttpHeaders headers) {
+		MediaType contentType = headers.getContentType();
+
+		return contentType != null && contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+	}
+
+	/**
+	 * Makes the exception raised for an I/O error, a
+	 * {@link DeadlineExceededException} if the deadline of the call has
+	 * expired.
+	 *
+	 * @param invocationData Data to execute the call
+	 * @param request Request
+	 * @param e I/O error
+	 * @return Exception
+	 */
+	private static RestClientException makeResourceAccessException(InvocationData invocationData, HttpRequest request, IOException e) {
+		RestClientException result = new ResourceAccessException(String.format("I/O error on %s request for \"%s\": %s", request.method(), request.uri(), e.getMessage()), e);
+
+		if (invocationData.getDeadline() != null && invocationData.getDeadline().isExpired()) {
+			result = new DeadlineExceededException(String.format("Deadline exceeded on %s request for \"%s\"", request.method(), request.uri()), result);
+		}
+
+		return result;
+	}
+
+}